@@ -0,0 +1,88 @@
+/*
+ * Copyright 2026 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.spinnaker.cats.benchmarks;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.netflix.spinnaker.cats.benchmarks.SyntheticCacheData.Shape;
+import com.netflix.spinnaker.cats.cache.CacheData;
+import com.netflix.spinnaker.cats.compression.GZipCompression;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures {@link GZipCompression} over the serialized attributes of a dataset, as stored by the
+ * redis cache when compression is enabled.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class GZipCompressionBenchmark {
+
+  @Param({"AWS", "KUBERNETES"})
+  public Shape shape;
+
+  @Param({"1000"})
+  public int itemCount;
+
+  private GZipCompression compression;
+  private List<String> attributes;
+  private List<String> compressed;
+
+  @Setup
+  public void setup() throws JsonProcessingException {
+    ObjectMapper mapper = new ObjectMapper();
+    compression = new GZipCompression(0, true);
+
+    attributes = new ArrayList<>(itemCount);
+    compressed = new ArrayList<>(itemCount);
+    for (CacheData item : SyntheticCacheData.generate(shape, itemCount).get(shape.primaryType)) {
+      String json = mapper.writeValueAsString(item.getAttributes());
+      attributes.add(json);
+      compressed.add(compression.compress(json));
+    }
+  }
+
+  @Benchmark
+  public void compress(Blackhole blackhole) {
+    for (String value : attributes) {
+      blackhole.consume(compression.compress(value));
+    }
+  }
+
+  @Benchmark
+  public void decompress(Blackhole blackhole) {
+    for (String value : compressed) {
+      blackhole.consume(compression.decompress(value));
+    }
+  }
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright 2026 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.spinnaker.cats.benchmarks;
+
+import com.netflix.spinnaker.cats.benchmarks.SyntheticCacheData.Shape;
+import com.netflix.spinnaker.cats.cache.CacheData;
+import com.netflix.spinnaker.cats.mem.InMemoryCache;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/** Measures {@link InMemoryCache} writes and reads of the primary type of a dataset. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class InMemoryCacheBenchmark {
+
+  @Param({"AWS", "KUBERNETES"})
+  public Shape shape;
+
+  @Param({"10000"})
+  public int itemCount;
+
+  private InMemoryCache cache;
+  private Collection<CacheData> items;
+  private List<String> ids;
+
+  @Setup
+  public void setup() {
+    items = SyntheticCacheData.generate(shape, itemCount).get(shape.primaryType);
+    ids = SyntheticCacheData.ids(items);
+
+    cache = new InMemoryCache();
+    cache.mergeAll(shape.primaryType, items);
+  }
+
+  @Benchmark
+  public InMemoryCache mergeAll() {
+    cache.mergeAll(shape.primaryType, items);
+    return cache;
+  }
+
+  @Benchmark
+  public Collection<CacheData> getAll() {
+    return cache.getAll(shape.primaryType);
+  }
+
+  @Benchmark
+  public Collection<CacheData> getAllById() {
+    return cache.getAll(shape.primaryType, ids);
+  }
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright 2026 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.spinnaker.cats.benchmarks;
+
+import com.netflix.spinnaker.cats.agent.DefaultCacheResult;
+import com.netflix.spinnaker.cats.benchmarks.SyntheticCacheData.Shape;
+import com.netflix.spinnaker.cats.cache.CacheData;
+import com.netflix.spinnaker.cats.mem.InMemoryCache;
+import com.netflix.spinnaker.cats.provider.DefaultProviderCache;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures a {@link DefaultProviderCache} over an {@link InMemoryCache}, isolating the cost of
+ * relationship bookkeeping from the backing store.
+ *
+ * <p>{@code putCacheResult} replaces an authoritative result of the same shape on every invocation,
+ * as a caching agent does each cycle. The reads go through {@code mergeRelationships} for every
+ * item returned.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ProviderCacheBenchmark {
+
+  private static final String AGENT = "BenchmarkCachingAgent";
+
+  @Param({"AWS", "KUBERNETES"})
+  public Shape shape;
+
+  @Param({"10000"})
+  public int itemCount;
+
+  private DefaultProviderCache providerCache;
+  private DefaultCacheResult cacheResult;
+  private List<String> primaryIds;
+
+  @Setup
+  public void setup() {
+    Map<String, Collection<CacheData>> dataset = SyntheticCacheData.generate(shape, itemCount);
+    cacheResult = new DefaultCacheResult(dataset);
+    primaryIds = SyntheticCacheData.ids(dataset.get(shape.primaryType));
+
+    providerCache = new DefaultProviderCache(new InMemoryCache());
+    providerCache.putCacheResult(AGENT, dataset.keySet(), cacheResult);
+  }
+
+  @Benchmark
+  public DefaultProviderCache putCacheResult() {
+    providerCache.putCacheResult(AGENT, cacheResult.getCacheResults().keySet(), cacheResult);
+    return providerCache;
+  }
+
+  @Benchmark
+  public Collection<CacheData> getAllMergingRelationships() {
+    return providerCache.getAll(shape.primaryType);
+  }
+
+  @Benchmark
+  public Collection<CacheData> getAllByIdMergingRelationships() {
+    return providerCache.getAll(shape.primaryType, primaryIds);
+  }
+}
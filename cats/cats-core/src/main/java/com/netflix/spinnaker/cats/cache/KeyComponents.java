@@ -0,0 +1,100 @@
+/*
+ * Copyright 2026 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.netflix.spinnaker.cats.cache;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Splits cache keys into their {@code :} separated components, e.g. {@code
+ * aws:serverGroups:app-stack:account:region:name}, so that backends can index identifiers by
+ * component and answer glob queries without scanning every identifier of a type.
+ *
+ * <p>A segment of a glob that is bounded by separators or by the ends of the glob, and that has
+ * no wildcards, has to match a whole component of the key: {@code *:prod:*} only matches keys with
+ * a {@code prod} component. Such segments are the {@link #required required components} of the
+ * glob. Candidates found through them still have to be matched against the glob itself.
+ */
+public final class KeyComponents {
+
+  public static final char SEPARATOR = ':';
+
+  private static final String WILDCARDS = "*?[]\\";
+
+  private KeyComponents() {}
+
+  /** @return the distinct, non empty components of {@code key} */
+  public static Set<String> of(String key) {
+    return new LinkedHashSet<>(split(key));
+  }
+
+  /**
+   * @return the components every key matching {@code glob} contains, in the order they appear in
+   *     the glob, or an empty set if the glob has none
+   */
+  public static Set<String> required(String glob) {
+    if (glob == null) {
+      return Collections.emptySet();
+    }
+    Set<String> required = new LinkedHashSet<>();
+    for (String segment : split(glob)) {
+      if (isLiteral(segment)) {
+        required.add(segment);
+      }
+    }
+    return required;
+  }
+
+  /**
+   * @return the part of {@code glob} before its first wildcard, which every matching key starts
+   *     with
+   */
+  public static String literalPrefix(String glob) {
+    for (int i = 0; i < glob.length(); i++) {
+      if (WILDCARDS.indexOf(glob.charAt(i)) >= 0) {
+        return glob.substring(0, i);
+      }
+    }
+    return glob;
+  }
+
+  private static boolean isLiteral(String segment) {
+    for (int i = 0; i < segment.length(); i++) {
+      if (WILDCARDS.indexOf(segment.charAt(i)) >= 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static List<String> split(String value) {
+    List<String> components = new ArrayList<>();
+    int start = 0;
+    for (int i = 0; i <= value.length(); i++) {
+      if (i == value.length() || value.charAt(i) == SEPARATOR) {
+        if (i > start) {
+          components.add(value.substring(start, i));
+        }
+        start = i + 1;
+      }
+    }
+    return components;
+  }
+}
@@ -0,0 +1,29 @@
+/*
+ * Copyright 2026 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.netflix.spinnaker.cats.cluster;
+
+/**
+ * How important it is for an agent to run on time, from most to least important.
+ *
+ * <p>When a node cannot run all of its due agents, the least important ones are deferred first.
+ */
+public enum AgentPriority {
+  CRITICAL,
+  HIGH,
+  NORMAL,
+  LOW
+}
@@ -0,0 +1,196 @@
+/*
+ * Copyright 2026 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.netflix.spinnaker.cats.cluster;
+
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Assigns accounts to caching pods with consistent hashing.
+ *
+ * <p>Every member is placed on a 64-bit ring at {@code virtualNodes} points, and an account is owned
+ * by the first member found walking clockwise from the account's hash. When a member joins or
+ * leaves, only the accounts between it and its predecessors move, roughly 1/N of them, instead of
+ * nearly all of them as with {@code hash % podCount}.
+ *
+ * <p>Accounts that are much more expensive to cache than others can be given a weight. Weighted
+ * accounts are placed with bounded loads: in descending weight order, each is assigned to the
+ * first member clockwise whose total weight stays within {@code loadFactor} times the average. All
+ * other accounts use the plain ring. Placement only depends on the member ids and the weights, so
+ * every pod computes the same assignment.
+ */
+public final class ConsistentHashRing {
+
+  public static final int DEFAULT_VIRTUAL_NODES = 128;
+  public static final double DEFAULT_LOAD_FACTOR = 1.25;
+
+  private static final HashFunction HASH_FUNCTION = Hashing.murmur3_128();
+
+  private final List<String> members;
+  private final long[] points;
+  private final String[] owners;
+  private final Map<String, String> weightedOwners;
+
+  public ConsistentHashRing(Collection<String> members) {
+    this(members, DEFAULT_VIRTUAL_NODES, Collections.emptyMap(), DEFAULT_LOAD_FACTOR);
+  }
+
+  public ConsistentHashRing(
+      Collection<String> members,
+      int virtualNodes,
+      Map<String, Double> accountWeights,
+      double loadFactor) {
+    if (members.isEmpty()) {
+      throw new IllegalArgumentException("A consistent hash ring requires at least one member");
+    }
+    if (virtualNodes < 1) {
+      throw new IllegalArgumentException("virtualNodes must be positive, got " + virtualNodes);
+    }
+
+    this.members = Collections.unmodifiableList(new ArrayList<>(new TreeSet<>(members)));
+
+    long[][] ring = new long[this.members.size() * virtualNodes][];
+    int i = 0;
+    for (int member = 0; member < this.members.size(); member++) {
+      for (int vnode = 0; vnode < virtualNodes; vnode++) {
+        ring[i++] = new long[] {hash(this.members.get(member) + "#" + vnode), member};
+      }
+    }
+    // ties are broken by member id so that the ring doesn't depend on iteration order
+    Arrays.sort(ring, Comparator.<long[]>comparingLong(p -> p[0]).thenComparingLong(p -> p[1]));
+
+    this.points = new long[ring.length];
+    this.owners = new String[ring.length];
+    for (i = 0; i < ring.length; i++) {
+      points[i] = ring[i][0];
+      owners[i] = this.members.get((int) ring[i][1]);
+    }
+
+    this.weightedOwners = placeWeighted(accountWeights, loadFactor);
+  }
+
+  /** @return the sorted, distinct members of the ring */
+  public List<String> getMembers() {
+    return members;
+  }
+
+  /** @return the member that owns {@code account} */
+  public String ownerOf(String account) {
+    String owner = weightedOwners.get(account);
+    if (owner != null) {
+      return owner;
+    }
+    return owners[successor(hash(account))];
+  }
+
+  /**
+   * @return the distinct members in the order they are found walking clockwise from the hash of
+   *     {@code account}, starting with the member the ring itself assigns it to
+   */
+  public List<String> preferenceList(String account) {
+    List<String> preferences = new ArrayList<>(members.size());
+    int start = successor(hash(account));
+    for (int step = 0; step < points.length && preferences.size() < members.size(); step++) {
+      String candidate = owners[(start + step) % points.length];
+      if (!preferences.contains(candidate)) {
+        preferences.add(candidate);
+      }
+    }
+    return preferences;
+  }
+
+  private Map<String, String> placeWeighted(Map<String, Double> accountWeights, double loadFactor) {
+    if (accountWeights.isEmpty()) {
+      return Collections.emptyMap();
+    }
+
+    List<Map.Entry<String, Double>> accounts = new ArrayList<>(accountWeights.entrySet());
+    accounts.sort(
+        Map.Entry.<String, Double>comparingByValue()
+            .reversed()
+            .thenComparing(Map.Entry.comparingByKey()));
+
+    double totalWeight = accounts.stream().mapToDouble(Map.Entry::getValue).sum();
+    double capacity = Math.max(1, loadFactor) * totalWeight / members.size();
+
+    Map<String, Double> load = new HashMap<>();
+    Map<String, String> placement = new LinkedHashMap<>();
+    for (Map.Entry<String, Double> account : accounts) {
+      List<String> preferences = preferenceList(account.getKey());
+      String owner = preferences.get(0);
+      for (String candidate : preferences) {
+        if (load.getOrDefault(candidate, 0d) + account.getValue() <= capacity) {
+          owner = candidate;
+          break;
+        }
+      }
+      load.merge(owner, account.getValue(), Double::sum);
+      placement.put(account.getKey(), owner);
+    }
+    return placement;
+  }
+
+  /** @return the index of the first point at or after {@code hash}, wrapping around the ring */
+  private int successor(long hash) {
+    int index = Arrays.binarySearch(points, hash);
+    if (index < 0) {
+      index = -index - 1;
+    }
+    return index == points.length ? 0 : index;
+  }
+
+  private static long hash(String value) {
+    return HASH_FUNCTION.hashString(value, StandardCharsets.UTF_8).asLong();
+  }
+
+  /**
+   * Parses account weights of the form {@code account-a=4,account-b=2.5}. Malformed or non
+   * positive entries are ignored.
+   */
+  public static Map<String, Double> parseWeights(String value) {
+    if (value == null || value.trim().isEmpty()) {
+      return Collections.emptyMap();
+    }
+    Map<String, Double> weights = new HashMap<>();
+    for (String entry : value.split(",")) {
+      String[] parts = entry.split("=");
+      if (parts.length != 2) {
+        continue;
+      }
+      try {
+        double weight = Double.parseDouble(parts[1].trim());
+        if (weight > 0) {
+          weights.put(parts[0].trim(), weight);
+        }
+      } catch (NumberFormatException ignored) {
+        // skip the entry
+      }
+    }
+    return weights;
+  }
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright 2026 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.netflix.spinnaker.cats.cluster;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Assigns accounts to caching pods by observed cost rather than by hash alone.
+ *
+ * <p>The assignment is a deterministic function of the ring members and the account costs, so
+ * every pod computes the same result from the same inputs without coordinating:
+ *
+ * <ol>
+ *   <li>Costs are quantized to logarithmic buckets, so that small fluctuations in observed cost do
+ *       not change the input.
+ *   <li>In descending cost order, each account is placed on the first pod of its consistent hash
+ *       {@link ConsistentHashRing#preferenceList preference list} whose load stays within {@code
+ *       tolerance} of the average, or on the least loaded pod if none has room.
+ * </ol>
+ *
+ * <p>Preferring the hash owner, and then its ring successors, unless they are overloaded is what
+ * provides hysteresis: an account only moves when its pod is out of balance by more than the
+ * tolerance, not whenever another pod becomes slightly less loaded.
+ */
+public final class CostAwareAssignment {
+
+  public static final double DEFAULT_TOLERANCE = 0.2;
+
+  /** Ratio between consecutive cost buckets. */
+  private static final double BUCKET_RATIO = 1.25;
+
+  private CostAwareAssignment() {}
+
+  /**
+   * @param ring the live caching pods
+   * @param accountCosts the cost of each account, in arbitrary but consistent units
+   * @param tolerance how far above the average load a pod may be before its accounts move
+   * @return the owning pod of each account in {@code accountCosts}
+   */
+  public static Map<String, String> assign(
+      ConsistentHashRing ring, Map<String, Double> accountCosts, double tolerance) {
+    List<String> members = ring.getMembers();
+    Map<String, Double> load = new HashMap<>();
+    members.forEach(m -> load.put(m, 0d));
+
+    List<Map.Entry<String, Double>> accounts = new ArrayList<>(accountCosts.size());
+    double total = 0;
+    for (Map.Entry<String, Double> account : accountCosts.entrySet()) {
+      double cost = quantize(account.getValue());
+      accounts.add(Map.entry(account.getKey(), cost));
+      total += cost;
+    }
+    accounts.sort(
+        Map.Entry.<String, Double>comparingByValue()
+            .reversed()
+            .thenComparing(Map.Entry.comparingByKey()));
+
+    double limit = (1 + Math.max(0, tolerance)) * total / members.size();
+
+    Map<String, String> assignment = new HashMap<>();
+    for (Map.Entry<String, Double> account : accounts) {
+      String owner = null;
+      for (String candidate : ring.preferenceList(account.getKey())) {
+        if (load.get(candidate) + account.getValue() <= limit) {
+          owner = candidate;
+          break;
+        }
+      }
+      if (owner == null) {
+        owner = Collections.min(members, (a, b) -> compareLoad(load, a, b));
+      }
+      assignment.put(account.getKey(), owner);
+      load.merge(owner, account.getValue(), Double::sum);
+    }
+
+    return assignment;
+  }
+
+  private static int compareLoad(Map<String, Double> load, String a, String b) {
+    int byLoad = Double.compare(load.get(a), load.get(b));
+    return byLoad != 0 ? byLoad : a.compareTo(b);
+  }
+
+  /** Rounds {@code cost} to the nearest power of {@link #BUCKET_RATIO}. */
+  static double quantize(double cost) {
+    if (!(cost > 0)) {
+      return 0;
+    }
+    return Math.pow(BUCKET_RATIO, Math.round(Math.log(cost) / Math.log(BUCKET_RATIO)));
+  }
+}
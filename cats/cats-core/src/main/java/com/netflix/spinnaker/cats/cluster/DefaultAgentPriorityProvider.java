@@ -0,0 +1,47 @@
+/*
+ * Copyright 2026 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.netflix.spinnaker.cats.cluster;
+
+import com.netflix.spinnaker.cats.agent.Agent;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Assigns priorities by matching a regular expression per priority against the agent type and the
+ * agent's class name, so that e.g. {@code .*ReservationReportCachingAgent.*} can be made {@link
+ * AgentPriority#LOW}. Patterns are tried from the most to the least important priority; agents
+ * that match none are {@link AgentPriority#NORMAL}.
+ */
+public class DefaultAgentPriorityProvider implements AgentPriorityProvider {
+  private final Map<AgentPriority, Pattern> patterns = new EnumMap<>(AgentPriority.class);
+
+  public DefaultAgentPriorityProvider(Map<AgentPriority, String> patterns) {
+    patterns.forEach((priority, pattern) -> this.patterns.put(priority, Pattern.compile(pattern)));
+  }
+
+  @Override
+  public AgentPriority getPriority(Agent agent) {
+    for (Map.Entry<AgentPriority, Pattern> pattern : patterns.entrySet()) {
+      if (pattern.getValue().matcher(agent.getAgentType()).matches()
+          || pattern.getValue().matcher(agent.getClass().getSimpleName()).matches()) {
+        return pattern.getKey();
+      }
+    }
+    return AgentPriority.NORMAL;
+  }
+}
@@ -0,0 +1,269 @@
+/*
+ * Copyright 2026 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.netflix.spinnaker.cats.cluster;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.netflix.spinnaker.cats.agent.Agent;
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Runs agents on a separate bounded thread pool ("lane") per {@link AgentPriority}, and decides
+ * which of the due agents a scheduler should run next.
+ *
+ * <p>Candidates are ordered by priority, then earliest deadline first, where an agent's deadline
+ * is the start of its last successful run plus its interval. A scheduler that can only run some of
+ * its candidates therefore defers the least important agents first, and within a priority the
+ * agents that are furthest behind run first. A lane that is full never takes capacity from
+ * another, so slow low priority agents cannot starve latency sensitive ones.
+ *
+ * <p>How far each agent is behind its interval is tracked as its staleness. Schedulers only
+ * register the agents this node may run, and report the locks they see held by any node with
+ * {@link #lockHeldUntil(String, long)}, so that agents another node keeps refreshed do not look
+ * further and further behind here.
+ */
+public class PrioritizedAgentExecutor {
+  private final AgentPriorityProvider priorityProvider;
+  private final AgentIntervalProvider intervalProvider;
+  private final Clock clock;
+  private final Map<AgentPriority, Lane> lanes = new EnumMap<>(AgentPriority.class);
+  private final Map<String, AgentState> agents = new ConcurrentHashMap<>();
+
+  public PrioritizedAgentExecutor(
+      AgentPriorityProvider priorityProvider,
+      AgentIntervalProvider intervalProvider,
+      Map<AgentPriority, Integer> laneCapacities) {
+    this(priorityProvider, intervalProvider, laneCapacities, Clock.systemUTC());
+  }
+
+  public PrioritizedAgentExecutor(
+      AgentPriorityProvider priorityProvider,
+      AgentIntervalProvider intervalProvider,
+      Map<AgentPriority, Integer> laneCapacities,
+      Clock clock) {
+    this.priorityProvider = priorityProvider;
+    this.intervalProvider = intervalProvider;
+    this.clock = clock;
+    for (AgentPriority priority : AgentPriority.values()) {
+      Integer capacity = laneCapacities.get(priority);
+      if (capacity == null || capacity < 1) {
+        throw new IllegalArgumentException("No lane capacity configured for priority " + priority);
+      }
+      lanes.put(priority, new Lane(priority, capacity));
+    }
+  }
+
+  /** Starts tracking the staleness of {@code agent}, as if it was due when it was registered. */
+  public void register(Agent agent) {
+    state(agent);
+  }
+
+  public void unregister(String agentType) {
+    agents.remove(agentType);
+  }
+
+  /**
+   * Records that a node, possibly this one, holds the lock of {@code agentType} until {@code
+   * lockExpiry}. No node runs the agent before its lock expires, and a completed run keeps the lock
+   * until the agent's next run, so the agent is not behind before then wherever it last ran.
+   */
+  public void lockHeldUntil(String agentType, long lockExpiry) {
+    AgentState state = agents.get(agentType);
+    if (state != null) {
+      state.lastRefreshed = Math.max(state.lastRefreshed, lockExpiry - state.intervalMs);
+    }
+  }
+
+  /** @return whether {@code agentType} is registered */
+  public boolean isRegistered(String agentType) {
+    return agents.containsKey(agentType);
+  }
+
+  /**
+   * @param candidates the agents that are due and not running
+   * @param limit the maximum number of agents to return
+   * @return the candidates to run next, most urgent first, without exceeding any lane's free
+   *     capacity
+   */
+  public <T extends Agent> List<T> select(Collection<T> candidates, int limit) {
+    if (limit <= 0 || candidates.isEmpty()) {
+      return Collections.emptyList();
+    }
+
+    List<Map.Entry<T, AgentState>> ordered = new ArrayList<>(candidates.size());
+    for (T candidate : candidates) {
+      ordered.add(Map.entry(candidate, state(candidate)));
+    }
+    ordered.sort(
+        Comparator.<Map.Entry<T, AgentState>, AgentPriority>comparing(e -> e.getValue().priority)
+            .thenComparingLong(e -> e.getValue().getDeadline())
+            .thenComparing(e -> e.getKey().getAgentType()));
+
+    Map<AgentPriority, Integer> free = new EnumMap<>(AgentPriority.class);
+    lanes.forEach((priority, lane) -> free.put(priority, lane.capacity - lane.active.get()));
+
+    List<T> selected = new ArrayList<>(Math.min(limit, ordered.size()));
+    for (Map.Entry<T, AgentState> candidate : ordered) {
+      if (selected.size() >= limit) {
+        break;
+      }
+      AgentPriority priority = candidate.getValue().priority;
+      int slots = free.get(priority);
+      if (slots > 0) {
+        free.put(priority, slots - 1);
+        selected.add(candidate.getKey());
+      }
+    }
+    return selected;
+  }
+
+  /**
+   * Runs {@code job} on the lane of {@code agent}'s priority.
+   *
+   * @param job runs the agent and returns whether it succeeded; only successful runs reset the
+   *     agent's deadline
+   */
+  public Future<?> submit(Agent agent, BooleanSupplier job) {
+    AgentState state = state(agent);
+    Lane lane = lanes.get(state.priority);
+    lane.active.incrementAndGet();
+    try {
+      return lane.executor.submit(
+          () -> {
+            long startTime = clock.millis();
+            try {
+              if (job.getAsBoolean()) {
+                state.lastRefreshed = startTime;
+              }
+            } finally {
+              lane.active.decrementAndGet();
+            }
+          });
+    } catch (RuntimeException e) {
+      lane.active.decrementAndGet();
+      throw e;
+    }
+  }
+
+  /** @return how long past its deadline {@code agentType} is, or 0 if it is not behind */
+  public long getStalenessMs(String agentType) {
+    AgentState state = agents.get(agentType);
+    return state == null ? 0 : Math.max(0, clock.millis() - state.getDeadline());
+  }
+
+  /** @return the staleness of the most stale agent of each priority */
+  public Map<AgentPriority, Long> getMaxStalenessMs() {
+    long now = clock.millis();
+    Map<AgentPriority, Long> staleness = new EnumMap<>(AgentPriority.class);
+    for (AgentPriority priority : AgentPriority.values()) {
+      staleness.put(priority, 0L);
+    }
+    for (AgentState state : agents.values()) {
+      staleness.merge(state.priority, Math.max(0, now - state.getDeadline()), Math::max);
+    }
+    return staleness;
+  }
+
+  /** @return the number of agents of each priority that are past their deadline */
+  public Map<AgentPriority, Integer> getStaleAgentCounts() {
+    long now = clock.millis();
+    Map<AgentPriority, Integer> counts = new EnumMap<>(AgentPriority.class);
+    for (AgentPriority priority : AgentPriority.values()) {
+      counts.put(priority, 0);
+    }
+    for (AgentState state : agents.values()) {
+      if (now > state.getDeadline()) {
+        counts.merge(state.priority, 1, Integer::sum);
+      }
+    }
+    return counts;
+  }
+
+  public int getActiveCount(AgentPriority priority) {
+    return lanes.get(priority).active.get();
+  }
+
+  public int getCapacity(AgentPriority priority) {
+    return lanes.get(priority).capacity;
+  }
+
+  public void shutdown() {
+    lanes.values().forEach(lane -> lane.executor.shutdown());
+  }
+
+  private AgentState state(Agent agent) {
+    return agents.computeIfAbsent(
+        agent.getAgentType(),
+        agentType ->
+            new AgentState(
+                priorityProvider.getPriority(agent),
+                intervalProvider.getInterval(agent).getInterval(),
+                clock.millis()));
+  }
+
+  private static class Lane {
+    private final int capacity;
+    private final ThreadPoolExecutor executor;
+    private final AtomicInteger active = new AtomicInteger();
+
+    Lane(AgentPriority priority, int capacity) {
+      this.capacity = capacity;
+      this.executor =
+          new ThreadPoolExecutor(
+              capacity,
+              capacity,
+              60,
+              TimeUnit.SECONDS,
+              new LinkedBlockingQueue<>(),
+              new ThreadFactoryBuilder()
+                  .setNameFormat(
+                      PrioritizedAgentExecutor.class.getSimpleName() + "-" + priority + "-%d")
+                  .build());
+      this.executor.allowCoreThreadTimeOut(true);
+    }
+  }
+
+  private static class AgentState {
+    private final AgentPriority priority;
+    private final long intervalMs;
+    private volatile long lastRefreshed;
+
+    AgentState(AgentPriority priority, long intervalMs, long registered) {
+      this.priority = priority;
+      this.intervalMs = intervalMs;
+      // a new agent is due as soon as it is registered
+      this.lastRefreshed = registered - intervalMs;
+    }
+
+    long getDeadline() {
+      return lastRefreshed + intervalMs;
+    }
+  }
+}
@@ -0,0 +1,306 @@
+/*
+ * Copyright 2026 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.netflix.spinnaker.cats.mapped;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.netflix.spinnaker.cats.cache.CacheData;
+import com.netflix.spinnaker.cats.cache.CacheFilter;
+import com.netflix.spinnaker.cats.cache.DefaultCacheData;
+import com.netflix.spinnaker.cats.cache.WriteableCache;
+import com.netflix.spinnaker.cats.mem.InMemoryCache;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+
+/**
+ * A {@link WriteableCache} with the merge semantics of {@link InMemoryCache} that keeps the items
+ * serialized outside of the heap, one {@link SegmentStore} per type.
+ *
+ * <p>With a directory, every type is kept in a subdirectory named after it and the types found
+ * there are reopened from their last {@link #snapshot()}.
+ */
+public class MappedCache implements WriteableCache, Closeable {
+  private final ObjectMapper objectMapper;
+  private final Path directory;
+  private final int segmentSize;
+  private final ConcurrentMap<String, SegmentStore> stores = new ConcurrentHashMap<>();
+
+  /**
+   * @param directory where the types are persisted, or null to keep them in direct buffers
+   * @param segmentSize the size of a segment in bytes
+   */
+  public MappedCache(ObjectMapper objectMapper, Path directory, int segmentSize) {
+    this.objectMapper = objectMapper;
+    this.directory = directory;
+    this.segmentSize = segmentSize;
+    if (directory != null && Files.isDirectory(directory)) {
+      try (DirectoryStream<Path> types = Files.newDirectoryStream(directory, Files::isDirectory)) {
+        for (Path type : types) {
+          stores.put(
+              URLDecoder.decode(type.getFileName().toString(), UTF_8),
+              new SegmentStore(type, segmentSize));
+        }
+      } catch (IOException e) {
+        throw new UncheckedIOException("Failed to open " + directory, e);
+      }
+    }
+  }
+
+  @Override
+  public void merge(String type, CacheData cacheData) {
+    getOrCreate(type)
+        .update(
+            cacheData.getId(),
+            existing ->
+                serialize(merge(existing == null ? null : deserialize(existing), cacheData)));
+  }
+
+  @Override
+  public void mergeAll(String type, Collection<CacheData> items) {
+    for (CacheData item : items) {
+      merge(type, item);
+    }
+  }
+
+  @Override
+  public void evict(String type, String id) {
+    SegmentStore store = stores.get(type);
+    if (store != null) {
+      store.remove(id);
+    }
+  }
+
+  @Override
+  public void evictAll(String type, Collection<String> ids) {
+    SegmentStore store = stores.get(type);
+    if (store != null) {
+      for (String id : ids) {
+        store.remove(id);
+      }
+    }
+  }
+
+  @Override
+  public CacheData get(String type, String id) {
+    return get(type, id, null);
+  }
+
+  @Override
+  public CacheData get(String type, String id, CacheFilter cacheFilter) {
+    SegmentStore store = stores.get(type);
+    byte[] body = store == null ? null : store.get(id);
+    return body == null ? null : wrap(id, deserialize(body), cacheFilter);
+  }
+
+  @Override
+  public Collection<CacheData> getAll(String type) {
+    return getAll(type, (CacheFilter) null);
+  }
+
+  @Override
+  public Collection<CacheData> getAll(String type, CacheFilter cacheFilter) {
+    SegmentStore store = stores.get(type);
+    return store == null ? new ArrayList<>() : wrapAll(store.getAll(), cacheFilter);
+  }
+
+  @Override
+  public Collection<CacheData> getAll(String type, Collection<String> identifiers) {
+    return getAll(type, identifiers, null);
+  }
+
+  @Override
+  public Collection<CacheData> getAll(
+      String type, Collection<String> identifiers, CacheFilter cacheFilter) {
+    SegmentStore store = stores.get(type);
+    return store == null ? new ArrayList<>() : wrapAll(store.get(identifiers), cacheFilter);
+  }
+
+  @Override
+  public Collection<CacheData> getAll(String type, String... identifiers) {
+    return getAll(type, Arrays.asList(identifiers));
+  }
+
+  @Override
+  public void forEachItem(String type, CacheFilter cacheFilter, Consumer<CacheData> consumer) {
+    SegmentStore store = stores.get(type);
+    if (store == null) {
+      return;
+    }
+    for (Map.Entry<String, byte[]> entry : store.getAll().entrySet()) {
+      CacheData toReturn = wrap(entry.getKey(), deserialize(entry.getValue()), cacheFilter);
+      if (toReturn != null) {
+        consumer.accept(toReturn);
+      }
+    }
+  }
+
+  @Override
+  public Collection<String> existingIdentifiers(String type, Collection<String> ids) {
+    SegmentStore store = stores.get(type);
+    Set<String> existing = new HashSet<>();
+    if (store != null) {
+      for (String id : ids) {
+        if (store.contains(id)) {
+          existing.add(id);
+        }
+      }
+    }
+    return existing;
+  }
+
+  @Override
+  public Collection<String> getIdentifiers(String type) {
+    SegmentStore store = stores.get(type);
+    return store == null ? new HashSet<>() : new HashSet<>(store.ids());
+  }
+
+  @Override
+  public Collection<String> filterIdentifiers(String type, String glob) {
+    final Pattern pattern = new InMemoryCache.Glob(glob).toPattern();
+    final HashSet<String> matches = new HashSet<>();
+    for (String id : getIdentifiers(type)) {
+      if (pattern.matcher(id).matches()) {
+        matches.add(id);
+      }
+    }
+    return matches;
+  }
+
+  /**
+   * Compacts the segments of every type.
+   *
+   * @return the number of segments dropped
+   */
+  public int compact(double minLiveRatio) {
+    int dropped = 0;
+    for (SegmentStore store : stores.values()) {
+      dropped += store.compact(minLiveRatio);
+    }
+    return dropped;
+  }
+
+  /** Persists every type, a no-op without a directory. */
+  public void snapshot() {
+    stores.values().forEach(SegmentStore::snapshot);
+  }
+
+  @Override
+  public void close() {
+    snapshot();
+  }
+
+  private SegmentStore getOrCreate(String type) {
+    return stores.computeIfAbsent(
+        type,
+        t ->
+            new SegmentStore(
+                directory == null ? null : directory.resolve(URLEncoder.encode(t, UTF_8)),
+                segmentSize));
+  }
+
+  private Collection<CacheData> wrapAll(Map<String, byte[]> bodies, CacheFilter cacheFilter) {
+    Collection<CacheData> values = new ArrayList<>(bodies.size());
+    for (Map.Entry<String, byte[]> entry : bodies.entrySet()) {
+      CacheData toReturn = wrap(entry.getKey(), deserialize(entry.getValue()), cacheFilter);
+      if (toReturn != null) {
+        values.add(toReturn);
+      }
+    }
+    return values;
+  }
+
+  private static CacheData wrap(String id, Body body, CacheFilter cacheFilter) {
+    if (body.attributes.isEmpty()) {
+      return null;
+    }
+
+    Map<String, Collection<String>> relationships = body.relationships;
+    if (cacheFilter != null) {
+      relationships = new HashMap<>();
+      for (String relationship :
+          cacheFilter.filter(CacheFilter.Type.RELATIONSHIP, body.relationships.keySet())) {
+        relationships.put(relationship, body.relationships.get(relationship));
+      }
+    }
+
+    return new DefaultCacheData(id, body.attributes, relationships);
+  }
+
+  /**
+   * Attributes are replaced by the non-null attributes of the update, while relationships are
+   * merged into the existing ones and removed when the update maps them to null.
+   */
+  private static Body merge(Body existing, CacheData update) {
+    Body merged = new Body();
+    for (Map.Entry<String, Object> attribute : update.getAttributes().entrySet()) {
+      if (attribute.getValue() != null) {
+        merged.attributes.put(attribute.getKey(), attribute.getValue());
+      }
+    }
+    if (existing != null) {
+      merged.relationships.putAll(existing.relationships);
+    }
+    for (Map.Entry<String, Collection<String>> relationship :
+        update.getRelationships().entrySet()) {
+      if (relationship.getValue() == null) {
+        merged.relationships.remove(relationship.getKey());
+      } else {
+        merged.relationships.put(relationship.getKey(), relationship.getValue());
+      }
+    }
+    return merged;
+  }
+
+  private byte[] serialize(Body body) {
+    try {
+      return objectMapper.writeValueAsBytes(body);
+    } catch (IOException e) {
+      throw new RuntimeException("Serialization failed", e);
+    }
+  }
+
+  private Body deserialize(byte[] body) {
+    try {
+      return objectMapper.readValue(body, Body.class);
+    } catch (IOException e) {
+      throw new RuntimeException("Deserialization failed", e);
+    }
+  }
+
+  static final class Body {
+    public Map<String, Object> attributes = new HashMap<>();
+    public Map<String, Collection<String>> relationships = new HashMap<>();
+  }
+}
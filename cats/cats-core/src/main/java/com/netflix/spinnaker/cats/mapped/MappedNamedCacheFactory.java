@@ -0,0 +1,140 @@
+/*
+ * Copyright 2026 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.netflix.spinnaker.cats.mapped;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.base.Preconditions;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.netflix.spinnaker.cats.cache.NamedCacheFactory;
+import com.netflix.spinnaker.cats.cache.WriteableCache;
+import java.io.Closeable;
+import java.net.URLEncoder;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Creates {@link MappedCache}s and periodically compacts them and, when they are persisted under
+ * a directory, snapshots them so that a restart reloads the cached items instead of starting
+ * empty.
+ */
+public class MappedNamedCacheFactory implements NamedCacheFactory, Closeable {
+  public static final int DEFAULT_SEGMENT_SIZE = 64 * 1024 * 1024;
+  public static final double DEFAULT_MIN_LIVE_RATIO = 0.5;
+  public static final Duration DEFAULT_MAINTENANCE_INTERVAL = Duration.ofMinutes(5);
+
+  private static final Logger log = LoggerFactory.getLogger(MappedNamedCacheFactory.class);
+
+  private final ConcurrentMap<String, MappedCache> caches = new ConcurrentHashMap<>();
+  private final ObjectMapper objectMapper;
+  private final Path directory;
+  private final int segmentSize;
+  private final double minLiveRatio;
+  private final ScheduledExecutorService maintenanceExecutor;
+
+  public MappedNamedCacheFactory(ObjectMapper objectMapper) {
+    this(
+        objectMapper,
+        null,
+        DEFAULT_SEGMENT_SIZE,
+        DEFAULT_MIN_LIVE_RATIO,
+        DEFAULT_MAINTENANCE_INTERVAL);
+  }
+
+  /**
+   * @param directory where the caches are persisted, or null to keep them in direct buffers
+   * @param segmentSize the size of a segment in bytes
+   * @param minLiveRatio segments with a smaller share of live bytes are compacted
+   * @param maintenanceInterval how often the caches are compacted and snapshotted
+   */
+  public MappedNamedCacheFactory(
+      ObjectMapper objectMapper,
+      Path directory,
+      int segmentSize,
+      double minLiveRatio,
+      Duration maintenanceInterval) {
+    Preconditions.checkArgument(segmentSize > 0, "segmentSize must be positive (%s)", segmentSize);
+    Preconditions.checkArgument(
+        minLiveRatio >= 0 && minLiveRatio <= 1,
+        "minLiveRatio must be between 0 and 1 (%s)",
+        minLiveRatio);
+    Preconditions.checkArgument(
+        !maintenanceInterval.isNegative() && !maintenanceInterval.isZero(),
+        "maintenanceInterval must be positive (%s)",
+        maintenanceInterval);
+    this.objectMapper = objectMapper;
+    this.directory = directory;
+    this.segmentSize = segmentSize;
+    this.minLiveRatio = minLiveRatio;
+    this.maintenanceExecutor =
+        Executors.newSingleThreadScheduledExecutor(
+            new ThreadFactoryBuilder()
+                .setNameFormat(MappedNamedCacheFactory.class.getSimpleName() + "-%d")
+                .setDaemon(true)
+                .build());
+    this.maintenanceExecutor.scheduleWithFixedDelay(
+        this::maintain,
+        maintenanceInterval.toMillis(),
+        maintenanceInterval.toMillis(),
+        TimeUnit.MILLISECONDS);
+  }
+
+  @Override
+  public WriteableCache getCache(String name) {
+    return caches.computeIfAbsent(
+        name,
+        n ->
+            new MappedCache(
+                objectMapper,
+                directory == null ? null : directory.resolve(URLEncoder.encode(n, UTF_8)),
+                segmentSize));
+  }
+
+  /** Compacts every cache and then snapshots it. */
+  public void maintain() {
+    caches.forEach(
+        (name, cache) -> {
+          try {
+            int dropped = cache.compact(minLiveRatio);
+            cache.snapshot();
+            log.debug("Compacted {} segments of cache {}", dropped, name);
+          } catch (RuntimeException e) {
+            log.warn("Failed to compact or snapshot cache {}", name, e);
+          }
+        });
+  }
+
+  /** Stops the maintenance and snapshots every cache one last time. */
+  @Override
+  public void close() {
+    maintenanceExecutor.shutdown();
+    try {
+      maintenanceExecutor.awaitTermination(1, TimeUnit.MINUTES);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    caches.values().forEach(MappedCache::close);
+  }
+}
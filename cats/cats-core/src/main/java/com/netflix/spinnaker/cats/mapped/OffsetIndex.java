@@ -0,0 +1,218 @@
+/*
+ * Copyright 2026 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.netflix.spinnaker.cats.mapped;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.function.LongConsumer;
+import java.util.function.LongPredicate;
+
+/**
+ * An open-addressing hash table from the hash of a key to the offset of its record in a {@link
+ * SegmentStore}, using linear probing over two parallel primitive arrays.
+ *
+ * <p>Keys are not kept on the heap: a slot only holds the key hash and the record offset, so
+ * callers pass a predicate that checks the key stored in the record when the hashes match. Not
+ * thread safe.
+ */
+final class OffsetIndex {
+  static final long EMPTY = -1;
+  private static final long DELETED = -2;
+  private static final double MAX_LOAD = 0.6;
+  private static final int MIN_CAPACITY = 16;
+
+  private int[] hashes;
+  private long[] offsets;
+  private int size;
+  private int used;
+
+  OffsetIndex() {
+    this(0);
+  }
+
+  OffsetIndex(int expectedSize) {
+    allocate(capacityFor(expectedSize));
+  }
+
+  int size() {
+    return size;
+  }
+
+  /** @return the offset of the matching record, or {@link #EMPTY} */
+  long get(int hash, LongPredicate matches) {
+    final int mask = offsets.length - 1;
+    for (int i = spread(hash) & mask; ; i = (i + 1) & mask) {
+      final long offset = offsets[i];
+      if (offset == EMPTY) {
+        return EMPTY;
+      }
+      if (offset != DELETED && hashes[i] == hash && matches.test(offset)) {
+        return offset;
+      }
+    }
+  }
+
+  /** @return the offset previously stored for the matching record, or {@link #EMPTY} */
+  long put(int hash, long offset, LongPredicate matches) {
+    final int mask = offsets.length - 1;
+    int free = -1;
+    for (int i = spread(hash) & mask; ; i = (i + 1) & mask) {
+      final long existing = offsets[i];
+      if (existing == EMPTY) {
+        if (free == -1) {
+          free = i;
+          used++;
+        }
+        hashes[free] = hash;
+        offsets[free] = offset;
+        size++;
+        if (used > offsets.length * MAX_LOAD) {
+          rehash(capacityFor(size));
+        }
+        return EMPTY;
+      }
+      if (existing == DELETED) {
+        if (free == -1) {
+          free = i;
+        }
+      } else if (hashes[i] == hash && matches.test(existing)) {
+        offsets[i] = offset;
+        return existing;
+      }
+    }
+  }
+
+  /** @return the offset of the removed record, or {@link #EMPTY} */
+  long remove(int hash, LongPredicate matches) {
+    final int mask = offsets.length - 1;
+    for (int i = spread(hash) & mask; ; i = (i + 1) & mask) {
+      final long offset = offsets[i];
+      if (offset == EMPTY) {
+        return EMPTY;
+      }
+      if (offset != DELETED && hashes[i] == hash && matches.test(offset)) {
+        offsets[i] = DELETED;
+        size--;
+        return offset;
+      }
+    }
+  }
+
+  /** @return whether an entry refers to {@code offset}, i.e. the record is not garbage */
+  boolean contains(int hash, long offset) {
+    return slotOf(hash, offset) != -1;
+  }
+
+  /**
+   * Points the entry that currently refers to {@code offset} at {@code newOffset}.
+   *
+   * @return false if no entry refers to {@code offset}
+   */
+  boolean move(int hash, long offset, long newOffset) {
+    final int slot = slotOf(hash, offset);
+    if (slot == -1) {
+      return false;
+    }
+    offsets[slot] = newOffset;
+    return true;
+  }
+
+  void forEach(LongConsumer consumer) {
+    for (long offset : offsets) {
+      if (offset >= 0) {
+        consumer.accept(offset);
+      }
+    }
+  }
+
+  void write(DataOutput out) throws IOException {
+    out.writeInt(size);
+    for (int i = 0; i < offsets.length; i++) {
+      if (offsets[i] >= 0) {
+        out.writeInt(hashes[i]);
+        out.writeLong(offsets[i]);
+      }
+    }
+  }
+
+  static OffsetIndex read(DataInput in) throws IOException {
+    final int size = in.readInt();
+    final OffsetIndex index = new OffsetIndex(size);
+    for (int i = 0; i < size; i++) {
+      index.insert(in.readInt(), in.readLong());
+    }
+    index.size = size;
+    index.used = size;
+    return index;
+  }
+
+  private int slotOf(int hash, long offset) {
+    final int mask = offsets.length - 1;
+    for (int i = spread(hash) & mask; ; i = (i + 1) & mask) {
+      if (offsets[i] == EMPTY) {
+        return -1;
+      }
+      if (offsets[i] == offset) {
+        return i;
+      }
+    }
+  }
+
+  private void insert(int hash, long offset) {
+    final int mask = offsets.length - 1;
+    int i = spread(hash) & mask;
+    while (offsets[i] != EMPTY) {
+      i = (i + 1) & mask;
+    }
+    hashes[i] = hash;
+    offsets[i] = offset;
+  }
+
+  private void rehash(int capacity) {
+    final int[] oldHashes = hashes;
+    final long[] oldOffsets = offsets;
+    allocate(capacity);
+    for (int i = 0; i < oldOffsets.length; i++) {
+      if (oldOffsets[i] >= 0) {
+        insert(oldHashes[i], oldOffsets[i]);
+      }
+    }
+    used = size;
+  }
+
+  private void allocate(int capacity) {
+    hashes = new int[capacity];
+    offsets = new long[capacity];
+    Arrays.fill(offsets, EMPTY);
+  }
+
+  /** Leaves room for the table to double before the next rehash. */
+  private static int capacityFor(int size) {
+    int capacity = MIN_CAPACITY;
+    while (capacity * MAX_LOAD < size * 2L) {
+      capacity <<= 1;
+    }
+    return capacity;
+  }
+
+  private static int spread(int hash) {
+    final int h = hash * 0x9E3779B9;
+    return h ^ (h >>> 16);
+  }
+}
@@ -0,0 +1,494 @@
+/*
+ * Copyright 2026 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.netflix.spinnaker.cats.mapped;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.LongPredicate;
+import java.util.function.UnaryOperator;
+import java.util.stream.Collectors;
+import java.util.zip.CRC32;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Stores the serialized items of one type as append-only records in fixed size segments that live
+ * outside of the heap, either as direct buffers or, when a directory is given, as memory-mapped
+ * files. Only an {@link OffsetIndex} from key to record offset is kept on the heap.
+ *
+ * <p>Records are never modified in place: an update appends a new record and leaves the previous
+ * one as garbage until {@link #compact(double)} copies the live records out of sparse segments.
+ * {@link #snapshot()} persists the index together with the extent of every segment, so a store
+ * opened on the same directory continues from the last snapshot. Writes made after it are
+ * discarded.
+ */
+final class SegmentStore implements Closeable {
+  private static final Logger log = LoggerFactory.getLogger(SegmentStore.class);
+
+  private static final String SNAPSHOT = "index.snapshot";
+  private static final String SEGMENT_PREFIX = "segment-";
+  private static final int SNAPSHOT_MAGIC = 0x43415453;
+  private static final int SNAPSHOT_VERSION = 1;
+
+  /** Key length and body length. */
+  private static final int RECORD_HEADER = 8;
+
+  private final Path directory;
+  private final int segmentSize;
+  private final ReadWriteLock lock = new ReentrantReadWriteLock();
+  private final Map<Integer, Segment> segments = new HashMap<>();
+  private final List<Segment> retired = new ArrayList<>();
+  private OffsetIndex index = new OffsetIndex();
+  private Segment active;
+  private int nextSegmentId;
+
+  /**
+   * @param directory where segments and snapshots are kept, or null to keep segments in direct
+   *     buffers
+   * @param segmentSize the size of a segment in bytes, larger records get a segment of their own
+   */
+  SegmentStore(Path directory, int segmentSize) {
+    this.directory = directory;
+    this.segmentSize = segmentSize;
+    if (directory != null) {
+      try {
+        Files.createDirectories(directory);
+        load();
+      } catch (IOException e) {
+        throw new UncheckedIOException("Failed to open " + directory, e);
+      }
+    }
+  }
+
+  byte[] get(String id) {
+    final byte[] key = id.getBytes(UTF_8);
+    lock.readLock().lock();
+    try {
+      final long offset = index.get(id.hashCode(), matching(key));
+      return offset == OffsetIndex.EMPTY ? null : body(offset);
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /** @return the bodies of the given ids that exist, in the order of the ids */
+  Map<String, byte[]> get(Collection<String> ids) {
+    final Map<String, byte[]> bodies = new LinkedHashMap<>();
+    lock.readLock().lock();
+    try {
+      for (String id : ids) {
+        final long offset = index.get(id.hashCode(), matching(id.getBytes(UTF_8)));
+        if (offset != OffsetIndex.EMPTY) {
+          bodies.put(id, body(offset));
+        }
+      }
+    } finally {
+      lock.readLock().unlock();
+    }
+    return bodies;
+  }
+
+  Map<String, byte[]> getAll() {
+    lock.readLock().lock();
+    try {
+      final Map<String, byte[]> bodies = new HashMap<>(index.size() * 2);
+      index.forEach(offset -> bodies.put(new String(key(offset), UTF_8), body(offset)));
+      return bodies;
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  List<String> ids() {
+    lock.readLock().lock();
+    try {
+      final List<String> ids = new ArrayList<>(index.size());
+      index.forEach(offset -> ids.add(new String(key(offset), UTF_8)));
+      return ids;
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  boolean contains(String id) {
+    lock.readLock().lock();
+    try {
+      return index.get(id.hashCode(), matching(id.getBytes(UTF_8))) != OffsetIndex.EMPTY;
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Atomically replaces the body of {@code id} with the result of {@code update}, which is passed
+   * the current body or null if there is none.
+   */
+  void update(String id, UnaryOperator<byte[]> update) {
+    final byte[] key = id.getBytes(UTF_8);
+    final LongPredicate matching = matching(key);
+    lock.writeLock().lock();
+    try {
+      final long existing = index.get(id.hashCode(), matching);
+      final byte[] body = update.apply(existing == OffsetIndex.EMPTY ? null : body(existing));
+      index.put(id.hashCode(), append(key, body), matching);
+      if (existing != OffsetIndex.EMPTY) {
+        release(existing);
+      }
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  boolean remove(String id) {
+    lock.writeLock().lock();
+    try {
+      final long removed = index.remove(id.hashCode(), matching(id.getBytes(UTF_8)));
+      if (removed == OffsetIndex.EMPTY) {
+        return false;
+      }
+      release(removed);
+      return true;
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Copies the live records out of every full segment whose live bytes are below {@code
+   * minLiveRatio} of its written bytes, and drops those segments. With a directory, their files are
+   * deleted by the next {@link #snapshot()} so that the previous snapshot stays valid until then.
+   *
+   * @return the number of segments dropped
+   */
+  int compact(double minLiveRatio) {
+    lock.writeLock().lock();
+    try {
+      final List<Segment> sparse =
+          segments.values().stream()
+              .filter(s -> s != active && s.liveBytes < s.limit * minLiveRatio)
+              .sorted(Comparator.comparingInt(s -> s.id))
+              .collect(Collectors.toList());
+      for (Segment segment : sparse) {
+        int position = 0;
+        while (position < segment.limit) {
+          final long offset = offset(segment.id, position);
+          final byte[] key = key(offset);
+          final int hash = new String(key, UTF_8).hashCode();
+          if (index.contains(hash, offset)) {
+            index.move(hash, offset, append(key, body(offset)));
+          }
+          position += recordSize(offset);
+        }
+        segments.remove(segment.id);
+        if (directory != null) {
+          retired.add(segment);
+        }
+      }
+      return sparse.size();
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /** Flushes the segments and atomically replaces the snapshot, a no-op without a directory. */
+  void snapshot() {
+    if (directory == null) {
+      return;
+    }
+    final List<Segment> current;
+    lock.readLock().lock();
+    try {
+      current = new ArrayList<>(segments.values());
+    } finally {
+      lock.readLock().unlock();
+    }
+    // most dirty pages are written out before writers are blocked
+    current.forEach(Segment::force);
+
+    lock.writeLock().lock();
+    try {
+      segments.values().forEach(Segment::force);
+      writeSnapshot();
+      for (Segment segment : retired) {
+        Files.deleteIfExists(segment.file);
+      }
+      retired.clear();
+    } catch (IOException e) {
+      throw new UncheckedIOException("Failed to snapshot " + directory, e);
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  int size() {
+    lock.readLock().lock();
+    try {
+      return index.size();
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  int segmentCount() {
+    lock.readLock().lock();
+    try {
+      return segments.size();
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  @Override
+  public void close() {
+    snapshot();
+  }
+
+  private LongPredicate matching(byte[] key) {
+    final ByteBuffer expected = ByteBuffer.wrap(key);
+    return offset -> {
+      final ByteBuffer record = at(offset);
+      if (record.getInt() != key.length) {
+        return false;
+      }
+      record.position(record.position() + 4);
+      record.limit(record.position() + key.length);
+      return record.equals(expected);
+    };
+  }
+
+  private long append(byte[] key, byte[] body) {
+    final int size = RECORD_HEADER + key.length + body.length;
+    if (active == null || active.buffer.capacity() - active.limit < size) {
+      active = newSegment(Math.max(segmentSize, size));
+    }
+    final ByteBuffer buffer = active.buffer.duplicate();
+    buffer.position(active.limit);
+    buffer.putInt(key.length).putInt(body.length).put(key).put(body);
+
+    final long offset = offset(active.id, active.limit);
+    active.limit += size;
+    active.liveBytes += size;
+    return offset;
+  }
+
+  private void release(long offset) {
+    segments.get(segmentId(offset)).liveBytes -= recordSize(offset);
+  }
+
+  private ByteBuffer at(long offset) {
+    final ByteBuffer buffer = segments.get(segmentId(offset)).buffer.duplicate();
+    buffer.position(position(offset));
+    return buffer;
+  }
+
+  private int recordSize(long offset) {
+    final ByteBuffer record = at(offset);
+    return RECORD_HEADER + record.getInt() + record.getInt();
+  }
+
+  private byte[] key(long offset) {
+    final ByteBuffer record = at(offset);
+    final byte[] key = new byte[record.getInt()];
+    record.getInt();
+    record.get(key);
+    return key;
+  }
+
+  private byte[] body(long offset) {
+    final ByteBuffer record = at(offset);
+    final int keyLength = record.getInt();
+    final byte[] body = new byte[record.getInt()];
+    record.position(record.position() + keyLength);
+    record.get(body);
+    return body;
+  }
+
+  private Segment newSegment(int capacity) {
+    final int id = nextSegmentId++;
+    final Segment segment;
+    if (directory == null) {
+      segment = new Segment(id, ByteBuffer.allocateDirect(capacity), null);
+    } else {
+      final Path file = segmentFile(id);
+      segment = new Segment(id, map(file, capacity), file);
+    }
+    segments.put(id, segment);
+    return segment;
+  }
+
+  private void writeSnapshot() throws IOException {
+    final ByteArrayOutputStream content = new ByteArrayOutputStream();
+    try (DataOutputStream data = new DataOutputStream(content)) {
+      data.writeInt(SNAPSHOT_MAGIC);
+      data.writeInt(SNAPSHOT_VERSION);
+      data.writeInt(nextSegmentId);
+      data.writeInt(segments.size());
+      for (Segment segment : segments.values()) {
+        data.writeInt(segment.id);
+        data.writeInt(segment.buffer.capacity());
+        data.writeInt(segment.limit);
+        data.writeLong(segment.liveBytes);
+      }
+      index.write(data);
+    }
+    final byte[] bytes = content.toByteArray();
+    final CRC32 crc = new CRC32();
+    crc.update(bytes);
+
+    final Path tmp = directory.resolve(SNAPSHOT + ".tmp");
+    try (FileOutputStream file = new FileOutputStream(tmp.toFile())) {
+      file.write(bytes);
+      file.write(ByteBuffer.allocate(Long.BYTES).putLong(crc.getValue()).array());
+      file.getFD().sync();
+    }
+    Files.move(
+        tmp,
+        directory.resolve(SNAPSHOT),
+        StandardCopyOption.ATOMIC_MOVE,
+        StandardCopyOption.REPLACE_EXISTING);
+  }
+
+  private void load() throws IOException {
+    final Path snapshot = directory.resolve(SNAPSHOT);
+    if (Files.exists(snapshot)) {
+      try {
+        readSnapshot(Files.readAllBytes(snapshot));
+      } catch (IOException | RuntimeException e) {
+        log.warn("Discarding unreadable snapshot {}", snapshot, e);
+        segments.clear();
+        index = new OffsetIndex();
+        nextSegmentId = 0;
+      }
+    }
+
+    // segments created after the snapshot are not referenced by its index
+    try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, SEGMENT_PREFIX + "*")) {
+      for (Path file : files) {
+        if (segments.values().stream().noneMatch(s -> file.equals(s.file))) {
+          Files.delete(file);
+        }
+      }
+    }
+    active = segments.values().stream().max(Comparator.comparingInt(s -> s.id)).orElse(null);
+  }
+
+  private void readSnapshot(byte[] bytes) throws IOException {
+    if (bytes.length < Long.BYTES) {
+      throw new IOException("Truncated snapshot");
+    }
+    final CRC32 crc = new CRC32();
+    crc.update(bytes, 0, bytes.length - Long.BYTES);
+    if (crc.getValue() != ByteBuffer.wrap(bytes, bytes.length - Long.BYTES, Long.BYTES).getLong()) {
+      throw new IOException("Snapshot checksum mismatch");
+    }
+
+    final DataInputStream in =
+        new DataInputStream(new ByteArrayInputStream(bytes, 0, bytes.length - Long.BYTES));
+    if (in.readInt() != SNAPSHOT_MAGIC || in.readInt() != SNAPSHOT_VERSION) {
+      throw new IOException("Unsupported snapshot format");
+    }
+    nextSegmentId = in.readInt();
+    final int segmentCount = in.readInt();
+    for (int i = 0; i < segmentCount; i++) {
+      final int id = in.readInt();
+      final int capacity = in.readInt();
+      final Path file = segmentFile(id);
+      if (!Files.exists(file) || Files.size(file) < capacity) {
+        throw new IOException("Missing segment " + file);
+      }
+      final Segment segment = new Segment(id, map(file, capacity), file);
+      segment.limit = in.readInt();
+      segment.liveBytes = in.readLong();
+      segments.put(id, segment);
+    }
+    index = OffsetIndex.read(in);
+  }
+
+  private Path segmentFile(int id) {
+    return directory.resolve(String.format("%s%08d", SEGMENT_PREFIX, id));
+  }
+
+  private static MappedByteBuffer map(Path file, int capacity) {
+    try (FileChannel channel =
+        FileChannel.open(
+            file,
+            StandardOpenOption.CREATE,
+            StandardOpenOption.READ,
+            StandardOpenOption.WRITE)) {
+      return channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+    } catch (IOException e) {
+      throw new UncheckedIOException("Failed to map " + file, e);
+    }
+  }
+
+  private static long offset(int segmentId, int position) {
+    return ((long) segmentId << 32) | position;
+  }
+
+  private static int segmentId(long offset) {
+    return (int) (offset >>> 32);
+  }
+
+  private static int position(long offset) {
+    return (int) offset;
+  }
+
+  private static final class Segment {
+    final int id;
+    final ByteBuffer buffer;
+    final Path file;
+    int limit;
+    long liveBytes;
+
+    Segment(int id, ByteBuffer buffer, Path file) {
+      this.id = id;
+      this.buffer = buffer;
+      this.file = file;
+    }
+
+    void force() {
+      if (buffer instanceof MappedByteBuffer) {
+        ((MappedByteBuffer) buffer).force();
+      }
+    }
+  }
+}
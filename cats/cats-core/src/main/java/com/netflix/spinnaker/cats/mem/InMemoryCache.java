@@ -18,6 +18,7 @@ package com.netflix.spinnaker.cats.mem;
 
 import com.netflix.spinnaker.cats.cache.CacheData;
 import com.netflix.spinnaker.cats.cache.CacheFilter;
+import com.netflix.spinnaker.cats.cache.CacheKeySet;
 import com.netflix.spinnaker.cats.cache.DefaultCacheData;
 import com.netflix.spinnaker.cats.cache.WriteableCache;
 import java.util.ArrayList;
@@ -32,16 +33,32 @@ import java.util.Set;
 import java.util.StringTokenizer;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.function.Consumer;
 import java.util.regex.Pattern;
 
 /** A WriteableCache that stores objects in an in-memory map. */
 public class InMemoryCache implements WriteableCache {
   private ConcurrentMap<String, ConcurrentMap<String, CacheData>> typeMap =
       new ConcurrentHashMap<>();
+  private ConcurrentMap<String, KeyComponentIndex> indexes = new ConcurrentHashMap<>();
+  private final boolean compactRelationships;
+
+  public InMemoryCache() {
+    this(false);
+  }
+
+  /**
+   * @param compactRelationships whether relationships are stored as {@link CacheKeySet
+   *     CacheKeySets}, which share identifiers between items at the cost of rebuilding them on read
+   */
+  public InMemoryCache(boolean compactRelationships) {
+    this.compactRelationships = compactRelationships;
+  }
 
   @Override
   public void merge(String type, CacheData cacheData) {
     merge(getOrCreate(type, cacheData.getId()), cacheData);
+    getIndex(type).add(cacheData.getId());
   }
 
   @Override
@@ -54,13 +71,16 @@ public class InMemoryCache implements WriteableCache {
   @Override
   public void evict(String type, String id) {
     getTypeMap(type).remove(id);
+    getIndex(type).remove(id);
   }
 
   @Override
   public void evictAll(String type, Collection<String> ids) {
     ConcurrentMap<String, CacheData> map = getTypeMap(type);
+    KeyComponentIndex index = getIndex(type);
     for (String id : ids) {
       map.remove(id);
+      index.remove(id);
     }
   }
 
@@ -120,6 +140,16 @@ public class InMemoryCache implements WriteableCache {
     return getAll(type, Arrays.asList(identifiers));
   }
 
+  @Override
+  public void forEachItem(String type, CacheFilter cacheFilter, Consumer<CacheData> consumer) {
+    for (CacheData data : getTypeMap(type).values()) {
+      CacheData toReturn = wrap(data, cacheFilter);
+      if (toReturn != null) {
+        consumer.accept(toReturn);
+      }
+    }
+  }
+
   @Override
   public Collection<String> existingIdentifiers(String type, Collection<String> ids) {
     Set<String> existing = new HashSet<>(ids);
@@ -131,11 +161,17 @@ public class InMemoryCache implements WriteableCache {
     return new HashSet<>(getTypeMap(type).keySet());
   }
 
+  /**
+   * Only the identifiers that share the required {@link KeyComponentIndex key components} of the
+   * glob are matched against it, instead of every identifier of the type.
+   */
   public Collection<String> filterIdentifiers(String type, String glob) {
     final Pattern pattern = new Glob(glob).toPattern();
+    final ConcurrentMap<String, CacheData> map = getTypeMap(type);
+    final Set<String> candidates = getIndex(type).candidates(glob);
     final HashSet<String> matches = new HashSet<>();
-    for (String key : getTypeMap(type).keySet()) {
-      if (pattern.matcher(key).matches()) {
+    for (String key : candidates == null ? map.keySet() : candidates) {
+      if (pattern.matcher(key).matches() && map.containsKey(key)) {
         matches.add(key);
       }
     }
@@ -156,6 +192,10 @@ public class InMemoryCache implements WriteableCache {
     return existing;
   }
 
+  private KeyComponentIndex getIndex(String type) {
+    return indexes.computeIfAbsent(type, t -> new KeyComponentIndex());
+  }
+
   private CacheData wrap(CacheData data, CacheFilter cacheFilter) {
     if (data == null || data.getAttributes().isEmpty()) {
       return null;
@@ -186,7 +226,10 @@ public class InMemoryCache implements WriteableCache {
   private void merge(CacheData existing, CacheData update) {
     MapMutation<String, Object> attributes = new MapMutation<>(update.getAttributes());
     MapMutation<String, Collection<String>> relationships =
-        new MapMutation<>(update.getRelationships());
+        new MapMutation<>(
+            compactRelationships
+                ? compact(update.getRelationships())
+                : update.getRelationships());
 
     Set<String> missingAttributes = new HashSet<>(existing.getAttributes().keySet());
     missingAttributes.removeAll(update.getAttributes().keySet());
@@ -195,6 +238,16 @@ public class InMemoryCache implements WriteableCache {
     relationships.apply(existing.getRelationships());
   }
 
+  private static Map<String, Collection<String>> compact(
+      Map<String, Collection<String>> relationships) {
+    Map<String, Collection<String>> compacted = new HashMap<>(relationships.size() * 2);
+    for (Map.Entry<String, Collection<String>> entry : relationships.entrySet()) {
+      Collection<String> ids = entry.getValue();
+      compacted.put(entry.getKey(), ids == null ? null : CacheKeySet.of(ids));
+    }
+    return compacted;
+  }
+
   /**
    * ConcurrentHashMap doesn't support null values, this translates a sourceMap into a combination
    * of non-null update values and a set of keys to remove
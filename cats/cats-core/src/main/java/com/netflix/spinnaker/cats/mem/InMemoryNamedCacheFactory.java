@@ -24,10 +24,20 @@ import java.util.concurrent.ConcurrentMap;
 /** Produces InMemoryCaches. */
 public class InMemoryNamedCacheFactory implements NamedCacheFactory {
   private final ConcurrentMap<String, WriteableCache> caches = new ConcurrentHashMap<>();
+  private final boolean compactRelationships;
+
+  public InMemoryNamedCacheFactory() {
+    this(false);
+  }
+
+  /** @see InMemoryCache#InMemoryCache(boolean) */
+  public InMemoryNamedCacheFactory(boolean compactRelationships) {
+    this.compactRelationships = compactRelationships;
+  }
 
   @Override
   public WriteableCache getCache(String name) {
-    WriteableCache cache = new InMemoryCache();
+    WriteableCache cache = new InMemoryCache(compactRelationships);
     WriteableCache existing = caches.putIfAbsent(name, cache);
     if (existing == null) {
       return cache;
@@ -0,0 +1,70 @@
+/*
+ * Copyright 2026 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.netflix.spinnaker.cats.mem;
+
+import com.netflix.spinnaker.cats.cache.KeyComponents;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/** Identifiers of one type by {@link KeyComponents key component}. */
+class KeyComponentIndex {
+
+  private final ConcurrentMap<String, Set<String>> idsByComponent = new ConcurrentHashMap<>();
+
+  void add(String id) {
+    for (String component : KeyComponents.of(id)) {
+      idsByComponent.compute(
+          component,
+          (c, ids) -> {
+            Set<String> updated = ids == null ? ConcurrentHashMap.newKeySet() : ids;
+            updated.add(id);
+            return updated;
+          });
+    }
+  }
+
+  void remove(String id) {
+    for (String component : KeyComponents.of(id)) {
+      idsByComponent.computeIfPresent(
+          component,
+          (c, ids) -> {
+            ids.remove(id);
+            return ids.isEmpty() ? null : ids;
+          });
+    }
+  }
+
+  /**
+   * @return the smallest set of identifiers containing every identifier that can match {@code
+   *     glob}, or null if the glob has no required components and every identifier can match
+   */
+  Set<String> candidates(String glob) {
+    Set<String> smallest = null;
+    for (String component : KeyComponents.required(glob)) {
+      Set<String> ids = idsByComponent.get(component);
+      if (ids == null) {
+        return Collections.emptySet();
+      }
+      if (smallest == null || ids.size() < smallest.size()) {
+        smallest = ids;
+      }
+    }
+    return smallest;
+  }
+}
@@ -25,6 +25,7 @@ import com.netflix.spinnaker.cats.cache.Cache;
 import com.netflix.spinnaker.cats.cache.NamedCacheFactory;
 import com.netflix.spinnaker.cats.mem.InMemoryNamedCacheFactory;
 import com.netflix.spinnaker.cats.provider.Provider;
+import com.netflix.spinnaker.cats.provider.ProviderCacheSnapshotter;
 import com.netflix.spinnaker.cats.provider.ProviderRegistry;
 import java.util.Arrays;
 import java.util.Collection;
@@ -51,6 +52,7 @@ public interface CatsModule {
     private NamedCacheFactory cacheFactory;
     private AgentScheduler scheduler;
     private ProviderRegistry providerRegistry;
+    private ProviderCacheSnapshotter snapshotter;
     private Collection<ExecutionInstrumentation> instrumentations = new LinkedList<>();
 
     public Builder scheduler(AgentScheduler agentScheduler) {
@@ -91,6 +93,18 @@ public interface CatsModule {
       return this;
     }
 
+    /**
+     * Restores the provider caches from the latest snapshot before any agent is scheduled, and
+     * snapshots them periodically. Not used with a custom {@link #providerRegistry}.
+     */
+    public Builder snapshotter(ProviderCacheSnapshotter snapshotter) {
+      this.snapshotter = snapshotter;
+      if (!instrumentations.contains(snapshotter)) {
+        instrumentations.add(snapshotter);
+      }
+      return this;
+    }
+
     public CatsModule build(Provider... providers) {
       return build(Arrays.asList(providers));
     }
@@ -111,7 +125,7 @@ public interface CatsModule {
         cacheFactory = new InMemoryNamedCacheFactory();
       }
       return new DefaultCatsModule(
-          providerRegistry, providers, cacheFactory, scheduler, instrumentation);
+          providerRegistry, providers, cacheFactory, scheduler, instrumentation, snapshotter);
     }
   }
 }
@@ -24,6 +24,7 @@ import com.netflix.spinnaker.cats.cache.CompositeCache;
 import com.netflix.spinnaker.cats.cache.NamedCacheFactory;
 import com.netflix.spinnaker.cats.provider.DefaultProviderRegistry;
 import com.netflix.spinnaker.cats.provider.Provider;
+import com.netflix.spinnaker.cats.provider.ProviderCacheSnapshotter;
 import com.netflix.spinnaker.cats.provider.ProviderRegistry;
 import java.util.Collection;
 
@@ -40,8 +41,23 @@ public class DefaultCatsModule implements CatsModule {
       NamedCacheFactory namedCacheFactory,
       AgentScheduler agentScheduler,
       ExecutionInstrumentation executionInstrumentation) {
+    this(registry, providers, namedCacheFactory, agentScheduler, executionInstrumentation, null);
+  }
+
+  /**
+   * @param snapshotter restores and snapshots the provider caches, only used when no registry is
+   *     given
+   */
+  public DefaultCatsModule(
+      ProviderRegistry registry,
+      Collection<Provider> providers,
+      NamedCacheFactory namedCacheFactory,
+      AgentScheduler agentScheduler,
+      ExecutionInstrumentation executionInstrumentation,
+      ProviderCacheSnapshotter snapshotter) {
     if (registry == null) {
-      this.providerRegistry = new DefaultProviderRegistry(providers, namedCacheFactory);
+      this.providerRegistry =
+          new DefaultProviderRegistry(providers, namedCacheFactory, snapshotter);
     } else {
       this.providerRegistry = registry;
     }
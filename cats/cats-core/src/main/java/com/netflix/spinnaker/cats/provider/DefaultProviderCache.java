@@ -22,24 +22,33 @@ import com.netflix.spinnaker.cats.cache.CacheFilter;
 import com.netflix.spinnaker.cats.cache.DefaultCacheData;
 import com.netflix.spinnaker.cats.cache.RelationshipCacheFilter;
 import com.netflix.spinnaker.cats.cache.WriteableCache;
+import java.util.AbstractSet;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
 
 /**
  * An implementation of ProviderCache that writes through to a provided backing WriteableCache.
  *
  * <p>This implementation will handle aggregating results from multiple sources, and the view
  * methods will merge relationships from all sources into a single relationship.
+ *
+ * <p>Relationship keys in the backing store are qualified with the source agent type ({@code
+ * type:agentType}). Qualified keys are split once and remembered, and a relationship with a single
+ * source is returned as a view of the stored set that is only copied if the caller changes it.
  */
 public class DefaultProviderCache implements ProviderCache {
 
-  private static final String ALL_ID = "_ALL_"; // dirty = true
+  static final String ALL_ID = "_ALL_"; // dirty = true
   private static final Map<String, Object> ALL_ATTRIBUTE =
       Collections.unmodifiableMap(
           new HashMap<String, Object>(1) {
@@ -48,7 +57,15 @@ public class DefaultProviderCache implements ProviderCache {
             }
           });
 
+  /** Upper bound on remembered relationship keys, which are bounded by types and agent types. */
+  private static final int MAX_RELATIONSHIP_KEYS = 16384;
+
+  private static final String CACHE_EXPIRY = "cacheExpiry";
+
   private final WriteableCache backingStore;
+  private final Map<String, String> relationshipTypes = new ConcurrentHashMap<>();
+  private final Map<String, Map<String, String>> qualifiedRelationships =
+      new ConcurrentHashMap<>();
 
   public DefaultProviderCache(WriteableCache backingStore) {
     this.backingStore = backingStore;
@@ -103,6 +120,30 @@ public class DefaultProviderCache implements ProviderCache {
     return getAll(type, Arrays.asList(identifiers));
   }
 
+  @Override
+  public Map<String, Collection<CacheData>> getAllMulti(
+      Map<String, Collection<String>> identifiersByType, CacheFilter cacheFilter) {
+    validateTypes(identifiersByType.keySet());
+    Map<String, Collection<CacheData>> result = new LinkedHashMap<>();
+    backingStore
+        .getAllMulti(identifiersByType, cacheFilter)
+        .forEach((type, items) -> result.put(type, buildResponse(items)));
+    return result;
+  }
+
+  @Override
+  public void forEachItem(String type, CacheFilter cacheFilter, Consumer<CacheData> consumer) {
+    validateTypes(type);
+    backingStore.forEachItem(
+        type,
+        cacheFilter,
+        item -> {
+          if (!ALL_ID.equals(item.getId())) {
+            consumer.accept(mergeRelationships(item));
+          }
+        });
+  }
+
   @Override
   public Collection<String> existingIdentifiers(String type, Collection<String> identifiers) {
     Set<String> existing = new HashSet<>(backingStore.existingIdentifiers(type, identifiers));
@@ -244,34 +285,206 @@ public class DefaultProviderCache implements ProviderCache {
   }
 
   private CacheData uniqueifyRelationships(CacheData source, String sourceAgentType) {
-    Map<String, Collection<String>> relationships = new HashMap<>(source.getRelationships().size());
-    for (Map.Entry<String, Collection<String>> entry : source.getRelationships().entrySet()) {
-      relationships.put(entry.getKey() + ':' + sourceAgentType, entry.getValue());
+    Map<String, Collection<String>> sourceRelationships = source.getRelationships();
+    Map<String, Collection<String>> relationships;
+    if (sourceRelationships.isEmpty()) {
+      relationships = Collections.emptyMap();
+    } else {
+      Map<String, String> qualified =
+          qualifiedRelationships.computeIfAbsent(sourceAgentType, k -> new ConcurrentHashMap<>());
+      relationships = new HashMap<>(capacity(sourceRelationships.size()));
+      for (Map.Entry<String, Collection<String>> entry : sourceRelationships.entrySet()) {
+        String key =
+            qualified.computeIfAbsent(entry.getKey(), type -> type + ':' + sourceAgentType);
+        relationships.put(key, entry.getValue());
+      }
+    }
+    if (reusesAttributes(source)) {
+      return new RelationshipView(source, relationships);
     }
     return new DefaultCacheData(
         source.getId(), source.getTtlSeconds(), source.getAttributes(), relationships);
   }
 
   private CacheData mergeRelationships(CacheData source) {
-    Map<String, Collection<String>> relationships = new HashMap<>(source.getRelationships().size());
-    for (Map.Entry<String, Collection<String>> entry : source.getRelationships().entrySet()) {
-      int idx = entry.getKey().indexOf(':');
-      if (idx == -1) {
-        throw new IllegalStateException("Expected delimiter in relationship key");
-      }
-      String type = entry.getKey().substring(0, idx);
+    Map<String, Collection<String>> sourceRelationships = source.getRelationships();
+    Map<String, Collection<String>> relationships =
+        new HashMap<>(capacity(sourceRelationships.size()));
+    Set<String> copied = null;
+    for (Map.Entry<String, Collection<String>> entry : sourceRelationships.entrySet()) {
+      String type = relationshipType(entry.getKey());
       Collection<String> values = relationships.get(type);
       if (values == null) {
-        values = new HashSet<>();
+        relationships.put(type, copyOnWriteSet(entry.getValue()));
+        continue;
+      }
+      if (copied == null) {
+        copied = new HashSet<>();
+      }
+      if (copied.add(type)) {
+        values = new HashSet<>(values);
         relationships.put(type, values);
       }
       values.addAll(entry.getValue());
     }
+    if (reusesAttributes(source)) {
+      return new RelationshipView(source, relationships);
+    }
     return new DefaultCacheData(source.getId(), source.getAttributes(), relationships);
   }
 
+  private String relationshipType(String relationshipKey) {
+    String type = relationshipTypes.get(relationshipKey);
+    if (type != null) {
+      return type;
+    }
+    int idx = relationshipKey.indexOf(':');
+    if (idx == -1) {
+      throw new IllegalStateException("Expected delimiter in relationship key");
+    }
+    type = relationshipKey.substring(0, idx);
+    if (relationshipTypes.size() < MAX_RELATIONSHIP_KEYS) {
+      relationshipTypes.put(relationshipKey, type);
+    }
+    return type;
+  }
+
+  /**
+   * A single-source relationship is shared when it is already a set, and copied into one
+   * otherwise so that duplicates are still collapsed. Callers have always been free to change the
+   * returned relationships, e.g. when merging on-demand data, so a shared set is copied the first
+   * time it is changed and the backing store never sees the change.
+   */
+  private static Collection<String> copyOnWriteSet(Collection<String> values) {
+    if (values instanceof Set) {
+      return new CopyOnWriteSet((Set<String>) values);
+    }
+    return new HashSet<>(values);
+  }
+
+  /**
+   * Whether a {@link DefaultCacheData} copy of {@code source} would carry the same attributes and
+   * TTL, i.e. it has no expiry for that copy to stamp or derive.
+   */
+  private static boolean reusesAttributes(CacheData source) {
+    return source.getTtlSeconds() == -1 && !source.getAttributes().containsKey(CACHE_EXPIRY);
+  }
+
+  private static int capacity(int size) {
+    return size < 3 ? size + 1 : (int) (size / 0.75f + 1.0f);
+  }
+
   @Override
   public void evictDeletedItems(String type, Collection<String> ids) {
     backingStore.evictAll(type, ids);
   }
+
+  /** A set that reads through to a shared set until it is first changed. */
+  private static final class CopyOnWriteSet extends AbstractSet<String> {
+    private Set<String> values;
+    private boolean copied;
+
+    CopyOnWriteSet(Set<String> shared) {
+      this.values = shared;
+    }
+
+    private Set<String> writable() {
+      if (!copied) {
+        values = new HashSet<>(values);
+        copied = true;
+      }
+      return values;
+    }
+
+    @Override
+    public int size() {
+      return values.size();
+    }
+
+    @Override
+    public boolean contains(Object o) {
+      return values.contains(o);
+    }
+
+    @Override
+    public boolean add(String value) {
+      return (copied || !values.contains(value)) && writable().add(value);
+    }
+
+    @Override
+    public boolean remove(Object o) {
+      return (copied || values.contains(o)) && writable().remove(o);
+    }
+
+    @Override
+    public void clear() {
+      if (!values.isEmpty()) {
+        values = new HashSet<>();
+        copied = true;
+      }
+    }
+
+    @Override
+    public Iterator<String> iterator() {
+      Iterator<String> iterator = values.iterator();
+      if (copied) {
+        return iterator;
+      }
+      return new Iterator<String>() {
+        private String last;
+
+        @Override
+        public boolean hasNext() {
+          return iterator.hasNext();
+        }
+
+        @Override
+        public String next() {
+          last = iterator.next();
+          return last;
+        }
+
+        @Override
+        public void remove() {
+          if (last == null) {
+            throw new IllegalStateException();
+          }
+          // the shared set is still being iterated, so only the copy changes
+          writable().remove(last);
+          last = null;
+        }
+      };
+    }
+  }
+
+  /** The attributes of another item, without a copy, under different relationships. */
+  private static final class RelationshipView implements CacheData {
+    private final CacheData source;
+    private final Map<String, Collection<String>> relationships;
+
+    RelationshipView(CacheData source, Map<String, Collection<String>> relationships) {
+      this.source = source;
+      this.relationships = relationships;
+    }
+
+    @Override
+    public String getId() {
+      return source.getId();
+    }
+
+    @Override
+    public int getTtlSeconds() {
+      return source.getTtlSeconds();
+    }
+
+    @Override
+    public Map<String, Object> getAttributes() {
+      return source.getAttributes();
+    }
+
+    @Override
+    public Map<String, Collection<String>> getRelationships() {
+      return relationships;
+    }
+  }
 }
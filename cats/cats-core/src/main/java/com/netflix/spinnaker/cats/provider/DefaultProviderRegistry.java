@@ -18,8 +18,11 @@ package com.netflix.spinnaker.cats.provider;
 
 import com.netflix.spinnaker.cats.cache.Cache;
 import com.netflix.spinnaker.cats.cache.NamedCacheFactory;
+import com.netflix.spinnaker.cats.cache.WriteableCache;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 
@@ -28,11 +31,26 @@ public class DefaultProviderRegistry implements ProviderRegistry {
   private final Collection<Provider> providers;
 
   public DefaultProviderRegistry(Collection<Provider> providers, NamedCacheFactory cacheFactory) {
+    this(providers, cacheFactory, null);
+  }
+
+  /**
+   * @param snapshotter if not null, restores the provider caches from its latest snapshot before
+   *     this returns, and then snapshots them periodically
+   */
+  public DefaultProviderRegistry(
+      Collection<Provider> providers,
+      NamedCacheFactory cacheFactory,
+      ProviderCacheSnapshotter snapshotter) {
     this.providers = Collections.unmodifiableCollection(providers);
+    Map<Provider, WriteableCache> backingStores = new LinkedHashMap<>();
     for (Provider provider : providers) {
-      providerCaches.put(
-          provider.getProviderName(),
-          new DefaultProviderCache(cacheFactory.getCache(provider.getProviderName())));
+      WriteableCache backingStore = cacheFactory.getCache(provider.getProviderName());
+      backingStores.put(provider, backingStore);
+      providerCaches.put(provider.getProviderName(), new DefaultProviderCache(backingStore));
+    }
+    if (snapshotter != null) {
+      snapshotter.attach(backingStores);
     }
   }
 
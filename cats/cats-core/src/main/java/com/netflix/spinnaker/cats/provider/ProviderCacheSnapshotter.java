@@ -0,0 +1,536 @@
+/*
+ * Copyright 2026 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.netflix.spinnaker.cats.provider;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.base.Preconditions;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.netflix.spinnaker.cats.agent.Agent;
+import com.netflix.spinnaker.cats.agent.AgentDataType;
+import com.netflix.spinnaker.cats.agent.CachingAgent;
+import com.netflix.spinnaker.cats.agent.ExecutionInstrumentation;
+import com.netflix.spinnaker.cats.cache.CacheData;
+import com.netflix.spinnaker.cats.cache.DefaultCacheData;
+import com.netflix.spinnaker.cats.cache.DefaultJsonCacheData;
+import com.netflix.spinnaker.cats.cache.WriteableCache;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.URLEncoder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Persists point-in-time snapshots of the backing caches of a {@link DefaultProviderRegistry} to
+ * local disk, periodically and on {@link #close()}, and restores the latest one when the registry
+ * is created so that a restarted instance serves data before its caching agents have run.
+ *
+ * <p>A snapshot is a directory with a gzip compressed JSON file per chunk of items of each type,
+ * and a manifest with the CRC32 checksum of every file that is written last. Only the items that
+ * the {@code _ALL_} entry of a type attributes to a caching agent that still exists are restored,
+ * and only into types that are empty. The chunks are restored in parallel.
+ *
+ * <p>Restored items are stale until their caching agent completes its first run, which replaces
+ * or evicts them; see {@link #getStaleAgentTypes(String)}, which clouddriver reports as the {@code
+ * cats.snapshot.staleAgents} gauge of each provider. This is registered as an {@link
+ * ExecutionInstrumentation} to observe those runs.
+ */
+public class ProviderCacheSnapshotter implements ExecutionInstrumentation, Closeable {
+  private static final Logger log = LoggerFactory.getLogger(ProviderCacheSnapshotter.class);
+
+  private static final String SNAPSHOT_PREFIX = "snapshot-";
+  private static final String MANIFEST = "manifest.json";
+  private static final String ALL_CHUNK = "all.json.gz";
+  private static final TypeReference<List<DefaultJsonCacheData>> ITEMS =
+      new TypeReference<List<DefaultJsonCacheData>>() {};
+
+  private final ObjectMapper objectMapper;
+  private final Path directory;
+  private final int chunkSize;
+  private final int parallelism;
+  private final Duration interval;
+  private final ScheduledExecutorService snapshotExecutor;
+  private final Map<String, Set<String>> staleAgentTypes = new ConcurrentHashMap<>();
+  private Map<Provider, WriteableCache> backingStores = Collections.emptyMap();
+
+  /**
+   * @param directory where snapshots are kept
+   * @param chunkSize the number of items per snapshot file
+   * @param parallelism the number of threads restoring a snapshot
+   * @param interval how often a snapshot is taken
+   */
+  public ProviderCacheSnapshotter(
+      ObjectMapper objectMapper,
+      Path directory,
+      int chunkSize,
+      int parallelism,
+      Duration interval) {
+    Preconditions.checkArgument(chunkSize > 0, "chunkSize must be positive (%s)", chunkSize);
+    Preconditions.checkArgument(parallelism > 0, "parallelism must be positive (%s)", parallelism);
+    Preconditions.checkArgument(
+        !interval.isNegative() && !interval.isZero(), "interval must be positive (%s)", interval);
+    this.objectMapper = objectMapper;
+    this.directory = directory;
+    this.chunkSize = chunkSize;
+    this.parallelism = parallelism;
+    this.interval = interval;
+    this.snapshotExecutor =
+        Executors.newSingleThreadScheduledExecutor(
+            new ThreadFactoryBuilder()
+                .setNameFormat(ProviderCacheSnapshotter.class.getSimpleName() + "-%d")
+                .setDaemon(true)
+                .build());
+  }
+
+  /**
+   * Restores the latest snapshot into the given backing caches and starts taking snapshots of them.
+   */
+  public synchronized void attach(Map<Provider, WriteableCache> backingStores) {
+    Preconditions.checkState(this.backingStores.isEmpty(), "Already attached to a registry");
+    this.backingStores = new LinkedHashMap<>(backingStores);
+    restore();
+    snapshotExecutor.scheduleWithFixedDelay(
+        () -> {
+          try {
+            snapshot();
+          } catch (RuntimeException e) {
+            log.warn("Failed to snapshot provider caches to {}", directory, e);
+          }
+        },
+        interval.toMillis(),
+        interval.toMillis(),
+        TimeUnit.MILLISECONDS);
+  }
+
+  /** Writes a new snapshot and deletes the previous ones once it is complete. */
+  public synchronized void snapshot() {
+    final long start = System.currentTimeMillis();
+    final Path target = directory.resolve(SNAPSHOT_PREFIX + start);
+    final Manifest manifest = new Manifest();
+    manifest.createdAt = start;
+    int itemCount = 0;
+    try {
+      for (Map.Entry<Provider, WriteableCache> entry : backingStores.entrySet()) {
+        final String providerName = entry.getKey().getProviderName();
+        final WriteableCache store = entry.getValue();
+        for (String type : types(entry.getKey())) {
+          final CacheData all = store.get(type, DefaultProviderCache.ALL_ID);
+          if (all == null) {
+            continue;
+          }
+          final Path typeDirectory = target.resolve(encode(providerName)).resolve(encode(type));
+          Files.createDirectories(typeDirectory);
+
+          final TypeSnapshot typeSnapshot = new TypeSnapshot();
+          typeSnapshot.all = writeChunk(typeDirectory, ALL_CHUNK, Collections.singletonList(all));
+          final List<CacheData> chunk = new ArrayList<>(chunkSize);
+          store.forEachItem(
+              type,
+              null,
+              item -> {
+                if (!DefaultProviderCache.ALL_ID.equals(item.getId())) {
+                  chunk.add(item);
+                  if (chunk.size() == chunkSize) {
+                    typeSnapshot.chunks.add(writeChunk(typeDirectory, typeSnapshot, chunk));
+                    chunk.clear();
+                  }
+                }
+              });
+          if (!chunk.isEmpty()) {
+            typeSnapshot.chunks.add(writeChunk(typeDirectory, typeSnapshot, chunk));
+          }
+          itemCount += typeSnapshot.chunks.stream().mapToInt(c -> c.items).sum();
+          manifest
+              .providers
+              .computeIfAbsent(providerName, p -> new LinkedHashMap<>())
+              .put(type, typeSnapshot);
+        }
+      }
+
+      final Path tmp = target.resolve(MANIFEST + ".tmp");
+      Files.createDirectories(target);
+      objectMapper.writeValue(tmp.toFile(), manifest);
+      Files.move(tmp, target.resolve(MANIFEST), StandardCopyOption.ATOMIC_MOVE);
+    } catch (IOException e) {
+      deleteQuietly(target);
+      throw new UncheckedIOException("Failed to write snapshot " + target, e);
+    }
+
+    for (Path snapshot : snapshots()) {
+      if (!snapshot.equals(target)) {
+        deleteQuietly(snapshot);
+      }
+    }
+    log.info(
+        "Wrote a snapshot of {} items to {} in {}ms",
+        itemCount,
+        target,
+        System.currentTimeMillis() - start);
+  }
+
+  /** @return the caching agents whose restored items have not been refreshed yet */
+  public Set<String> getStaleAgentTypes() {
+    final Set<String> agentTypes = new HashSet<>();
+    staleAgentTypes.values().forEach(agentTypes::addAll);
+    return Collections.unmodifiableSet(agentTypes);
+  }
+
+  /** @return the caching agents of a provider whose restored items have not been refreshed yet */
+  public Set<String> getStaleAgentTypes(String providerName) {
+    return Collections.unmodifiableSet(
+        new HashSet<>(staleAgentTypes.getOrDefault(providerName, Collections.emptySet())));
+  }
+
+  public boolean isStale(String agentType) {
+    return staleAgentTypes.values().stream().anyMatch(a -> a.contains(agentType));
+  }
+
+  @Override
+  public void executionStarted(Agent agent) {
+    // noop
+  }
+
+  @Override
+  public void executionCompleted(Agent agent, long elapsedMs) {
+    boolean removed = false;
+    for (Set<String> agentTypes : staleAgentTypes.values()) {
+      removed |= agentTypes.remove(agent.getAgentType());
+    }
+    if (removed && staleAgentTypes.values().stream().allMatch(Set::isEmpty)) {
+      log.info("Every caching agent has refreshed the items restored from a snapshot");
+    }
+  }
+
+  @Override
+  public void executionFailed(Agent agent, Throwable cause, long elapsedMs) {
+    // noop
+  }
+
+  /** Stops the periodic snapshots and takes a final one. */
+  @Override
+  public void close() {
+    snapshotExecutor.shutdown();
+    try {
+      snapshotExecutor.awaitTermination(1, TimeUnit.MINUTES);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    if (!backingStores.isEmpty()) {
+      snapshot();
+    }
+  }
+
+  private void restore() {
+    final Optional<Path> latest = snapshots().stream().max(Comparator.naturalOrder());
+    if (!latest.isPresent()) {
+      log.info("No snapshot of the provider caches found in {}", directory);
+      return;
+    }
+
+    final long start = System.currentTimeMillis();
+    final Path snapshot = latest.get();
+    final Manifest manifest;
+    try {
+      manifest = objectMapper.readValue(snapshot.resolve(MANIFEST).toFile(), Manifest.class);
+    } catch (IOException e) {
+      log.warn("Ignoring unreadable snapshot {}", snapshot, e);
+      return;
+    }
+
+    final List<TypeRestore> restores = new ArrayList<>();
+    for (Map.Entry<Provider, WriteableCache> entry : backingStores.entrySet()) {
+      final String providerName = entry.getKey().getProviderName();
+      final Map<String, TypeSnapshot> types =
+          manifest.providers.getOrDefault(providerName, Collections.emptyMap());
+      final Set<String> agentTypes =
+          entry.getKey().getAgents().stream().map(Agent::getAgentType).collect(Collectors.toSet());
+      for (Map.Entry<String, TypeSnapshot> type : types.entrySet()) {
+        final WriteableCache store = entry.getValue();
+        if (!store
+            .existingIdentifiers(
+                type.getKey(), Collections.singletonList(DefaultProviderCache.ALL_ID))
+            .isEmpty()) {
+          log.info("Not restoring {} of {}, it is already populated", type.getKey(), providerName);
+          continue;
+        }
+        restores.add(
+            new TypeRestore(
+                store,
+                providerName,
+                type.getKey(),
+                snapshot.resolve(encode(providerName)).resolve(encode(type.getKey())),
+                type.getValue(),
+                agentTypes));
+      }
+    }
+
+    final ExecutorService restoreExecutor =
+        Executors.newFixedThreadPool(
+            parallelism,
+            new ThreadFactoryBuilder()
+                .setNameFormat(ProviderCacheSnapshotter.class.getSimpleName() + "-restore-%d")
+                .setDaemon(true)
+                .build());
+    try {
+      // the _ALL_ entries decide which items are restored
+      invokeAll(
+          restoreExecutor,
+          restores.stream().map(r -> (Runnable) r::readAll).collect(Collectors.toList()));
+      invokeAll(
+          restoreExecutor,
+          restores.stream()
+              .filter(r -> r.all != null)
+              .flatMap(r -> r.snapshot.chunks.stream().map(c -> (Runnable) () -> r.restore(c)))
+              .collect(Collectors.toList()));
+    } finally {
+      restoreExecutor.shutdownNow();
+    }
+
+    int itemCount = 0;
+    for (TypeRestore restore : restores) {
+      if (restore.all != null) {
+        restore.store.merge(restore.type, restore.all);
+        staleAgentTypes
+            .computeIfAbsent(restore.providerName, p -> ConcurrentHashMap.newKeySet())
+            .addAll(restore.all.getRelationships().keySet());
+        itemCount += restore.restored.get();
+      }
+    }
+    log.info(
+        "Restored {} items of {} types from {} in {}ms, stale until {} caching agents have run",
+        itemCount,
+        restores.size(),
+        snapshot,
+        System.currentTimeMillis() - start,
+        getStaleAgentTypes().size());
+  }
+
+  private static void invokeAll(ExecutorService executor, List<Runnable> tasks) {
+    try {
+      executor.invokeAll(
+          tasks.stream().map(Executors::callable).collect(Collectors.toList()));
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private ChunkSnapshot writeChunk(
+      Path typeDirectory, TypeSnapshot typeSnapshot, List<CacheData> items) {
+    return writeChunk(
+        typeDirectory, String.format("%05d.json.gz", typeSnapshot.chunks.size()), items);
+  }
+
+  private ChunkSnapshot writeChunk(Path typeDirectory, String file, List<CacheData> items) {
+    final CRC32 crc = new CRC32();
+    try (OutputStream out =
+        new GZIPOutputStream(
+            new CheckedOutputStream(
+                new BufferedOutputStream(Files.newOutputStream(typeDirectory.resolve(file))),
+                crc))) {
+      objectMapper.writeValue(
+          out,
+          items.stream()
+              .map(
+                  item -> {
+                    Map<String, Object> json = new LinkedHashMap<>();
+                    json.put("id", item.getId());
+                    json.put("ttlSeconds", -1);
+                    json.put("attributes", item.getAttributes());
+                    json.put("relationships", item.getRelationships());
+                    return json;
+                  })
+              .collect(Collectors.toList()));
+    } catch (IOException e) {
+      throw new UncheckedIOException("Failed to write " + typeDirectory.resolve(file), e);
+    }
+    final ChunkSnapshot chunk = new ChunkSnapshot();
+    chunk.file = file;
+    chunk.items = items.size();
+    chunk.crc32 = crc.getValue();
+    return chunk;
+  }
+
+  private List<DefaultJsonCacheData> readChunk(Path typeDirectory, ChunkSnapshot chunk)
+      throws IOException {
+    final Path file = typeDirectory.resolve(chunk.file);
+    final byte[] bytes = Files.readAllBytes(file);
+    final CRC32 crc = new CRC32();
+    crc.update(bytes);
+    if (crc.getValue() != chunk.crc32) {
+      throw new IOException("Checksum mismatch for " + file);
+    }
+    try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(bytes))) {
+      return objectMapper.readValue(in, ITEMS);
+    }
+  }
+
+  private List<Path> snapshots() {
+    if (!Files.isDirectory(directory)) {
+      return Collections.emptyList();
+    }
+    try (Stream<Path> files = Files.list(directory)) {
+      return files
+          .filter(f -> f.getFileName().toString().startsWith(SNAPSHOT_PREFIX))
+          .filter(f -> Files.exists(f.resolve(MANIFEST)))
+          .collect(Collectors.toList());
+    } catch (IOException e) {
+      throw new UncheckedIOException("Failed to list " + directory, e);
+    }
+  }
+
+  private static void deleteQuietly(Path path) {
+    if (!Files.exists(path)) {
+      return;
+    }
+    try (Stream<Path> files = Files.walk(path)) {
+      for (Path file : files.sorted(Comparator.reverseOrder()).collect(Collectors.toList())) {
+        Files.deleteIfExists(file);
+      }
+    } catch (IOException e) {
+      log.warn("Failed to delete {}", path, e);
+    }
+  }
+
+  private static Set<String> types(Provider provider) {
+    return provider.getAgents().stream()
+        .filter(CachingAgent.class::isInstance)
+        .flatMap(agent -> ((CachingAgent) agent).getProvidedDataTypes().stream())
+        .map(AgentDataType::getTypeName)
+        .collect(Collectors.toCollection(TreeSet::new));
+  }
+
+  private static String encode(String name) {
+    return URLEncoder.encode(name, UTF_8);
+  }
+
+  /** Restores one type of a provider. */
+  private class TypeRestore {
+    final WriteableCache store;
+    final String providerName;
+    final String type;
+    final Path typeDirectory;
+    final TypeSnapshot snapshot;
+    final Set<String> agentTypes;
+    final Set<String> owned = new HashSet<>();
+    final AtomicInteger restored = new AtomicInteger();
+    CacheData all;
+
+    TypeRestore(
+        WriteableCache store,
+        String providerName,
+        String type,
+        Path typeDirectory,
+        TypeSnapshot snapshot,
+        Set<String> agentTypes) {
+      this.store = store;
+      this.providerName = providerName;
+      this.type = type;
+      this.typeDirectory = typeDirectory;
+      this.snapshot = snapshot;
+      this.agentTypes = agentTypes;
+    }
+
+    void readAll() {
+      try {
+        final CacheData snapshotAll = readChunk(typeDirectory, snapshot.all).get(0);
+        final Map<String, Collection<String>> relationships = new HashMap<>();
+        snapshotAll
+            .getRelationships()
+            .forEach(
+                (agentType, ids) -> {
+                  if (agentTypes.contains(agentType) && !ids.isEmpty()) {
+                    relationships.put(agentType, ids);
+                    owned.addAll(ids);
+                  }
+                });
+        if (!relationships.isEmpty()) {
+          all =
+              new DefaultCacheData(
+                  DefaultProviderCache.ALL_ID, -1, snapshotAll.getAttributes(), relationships);
+        }
+      } catch (IOException | RuntimeException e) {
+        log.warn("Not restoring {} from {}", type, typeDirectory, e);
+      }
+    }
+
+    void restore(ChunkSnapshot chunk) {
+      try {
+        final List<CacheData> items = new ArrayList<>(chunk.items);
+        for (CacheData item : readChunk(typeDirectory, chunk)) {
+          if (owned.contains(item.getId())) {
+            items.add(item);
+          }
+        }
+        store.mergeAll(type, items);
+        restored.addAndGet(items.size());
+      } catch (IOException | RuntimeException e) {
+        log.warn("Skipping {} of {} in {}", chunk.file, type, typeDirectory, e);
+      }
+    }
+  }
+
+  static class Manifest {
+    public long createdAt;
+    public Map<String, Map<String, TypeSnapshot>> providers = new LinkedHashMap<>();
+  }
+
+  static class TypeSnapshot {
+    public ChunkSnapshot all;
+    public List<ChunkSnapshot> chunks = new ArrayList<>();
+  }
+
+  static class ChunkSnapshot {
+    public String file;
+    public int items;
+    public long crc32;
+  }
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright 2026 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.netflix.spinnaker.cats.cache
+
+import spock.lang.Specification
+import spock.lang.Unroll
+
+class CacheKeySpec extends Specification {
+
+  @Unroll
+  def "'#key' round-trips through its components"() {
+    when:
+    def cacheKey = CacheKey.of(key)
+
+    then:
+    cacheKey.toString() == key
+    cacheKey.length() == key.length()
+    cacheKey.size() == key.split(':', -1).length
+
+    where:
+    key << ['kubernetes.v2:infrastructure:pod:account:namespace:name', 'plain', 'a::b', ':a:', '']
+  }
+
+  def "components and canonical keys are shared"() {
+    when:
+    def first = CacheKey.intern(new String('aws:instances:prod:us-east-1:i-1'))
+    def second = CacheKey.of(new String('aws:instances:prod:us-east-1:i-2'))
+
+    then:
+    CacheKey.intern(new String('aws:instances:prod:us-east-1:i-1')).is(first)
+    first.component(2).is(second.component(2))
+    first != second
+    CacheKey.of('aws:instances:prod:us-east-1:i-1') == first
+    CacheKey.of('aws:instances:prod:us-east-1:i-1').hashCode() == first.hashCode()
+  }
+
+  def "the 64-bit hash is FNV-1a of the identifier"() {
+    expect:
+    CacheKey.of('').hash64() == Long.parseUnsignedLong('cbf29ce484222325', 16)
+    CacheKey.of('a').hash64() == Long.parseUnsignedLong('af63dc4c8601ec8c', 16)
+    CacheKey.of('foobar').hash64() == Long.parseUnsignedLong('85944171f73967e8', 16)
+  }
+
+  def "keys are ordered like their identifiers"() {
+    given:
+    def identifiers = ['a:b', 'a:b:c', 'a:bc', 'a-b', 'a', 'a:', 'a::b', 'ab:c', 'a:b-c', 'b', '', 'a:b0']
+
+    expect:
+    identifiers.collect { CacheKey.of(it) }.sort()*.toString() == identifiers.toSorted()
+  }
+
+  def "a key set holds identifiers as keys"() {
+    given:
+    def set = new CacheKeySet(['aws:instances:i-1', 'aws:instances:i-2', 'aws:instances:i-1'])
+
+    expect:
+    set.size() == 2
+    set.contains('aws:instances:i-1')
+    !set.contains('aws:instances:i-3')
+    set == ['aws:instances:i-1', 'aws:instances:i-2'] as Set
+    set.keys().contains(CacheKey.of('aws:instances:i-2'))
+
+    when:
+    set.remove('aws:instances:i-1')
+
+    then:
+    set as List == ['aws:instances:i-2']
+  }
+}
@@ -0,0 +1,54 @@
+/*
+ * Copyright 2026 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.netflix.spinnaker.cats.cache
+
+import spock.lang.Specification
+import spock.lang.Unroll
+
+class KeyComponentsSpec extends Specification {
+
+  def "splits keys into distinct components"() {
+    expect:
+    KeyComponents.of('aws:serverGroups:app:prod:us-east-1:app-v001') as List ==
+      ['aws', 'serverGroups', 'app', 'prod', 'us-east-1', 'app-v001']
+    KeyComponents.of('a::b:a') as List == ['a', 'b']
+    KeyComponents.of('plain') as List == ['plain']
+  }
+
+  @Unroll
+  def "required components of '#glob' are #expected"() {
+    expect:
+    KeyComponents.required(glob) as List == expected
+
+    where:
+    glob                            || expected
+    '*:prod:*'                      || ['prod']
+    'aws:serverGroups:app*'         || ['aws', 'serverGroups']
+    'aws:*:us-east-1:*-v00?'        || ['aws', 'us-east-1']
+    '*prod*'                        || []
+    'a[bc]:d'                       || ['d']
+    'escaped\\*:x'                  || ['x']
+    null                            || []
+  }
+
+  def "literal prefix stops at the first wildcard"() {
+    expect:
+    KeyComponents.literalPrefix('aws:serverGroups:app*') == 'aws:serverGroups:app'
+    KeyComponents.literalPrefix('*:prod') == ''
+    KeyComponents.literalPrefix('aws:instances:i-1') == 'aws:instances:i-1'
+  }
+}
@@ -0,0 +1,150 @@
+/*
+ * Copyright 2026 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.netflix.spinnaker.cats.cluster
+
+import spock.lang.Specification
+import spock.lang.Unroll
+
+class ConsistentHashRingSpec extends Specification {
+
+  static List<String> accounts = (1..2000).collect { "account-$it".toString() }
+
+  static List<String> pods(int count) {
+    (1..count).collect { "clouddriver-caching-$it@10.0.0.$it".toString() }
+  }
+
+  static Map<String, String> assign(ConsistentHashRing ring) {
+    accounts.collectEntries { [(it): ring.ownerOf(it)] }
+  }
+
+  static double moved(Map<String, String> before, Map<String, String> after) {
+    before.count { account, owner -> after[account] != owner } / (double) before.size()
+  }
+
+  @Unroll
+  def "scaling from #podCount to #newPodCount pods only reshuffles about 1/N of the accounts"() {
+    given:
+    def before = assign(new ConsistentHashRing(pods(podCount)))
+
+    when:
+    def after = assign(new ConsistentHashRing(pods(newPodCount)))
+    def fraction = moved(before, after)
+    def ideal = Math.abs(newPodCount - podCount) / (double) Math.max(podCount, newPodCount)
+    def modulo = moved(
+      accounts.collectEntries { [(it): Math.abs(it.hashCode() % podCount)] },
+      accounts.collectEntries { [(it): Math.abs(it.hashCode() % newPodCount)] }
+    )
+
+    then:
+    assert fraction <= ideal * 1.5: "${String.format('%.1f', fraction * 100)}% of accounts moved, " +
+      "ideal is ${String.format('%.1f', ideal * 100)}%"
+    assert modulo > 0.5: "hashCode % podCount only moved ${String.format('%.1f', modulo * 100)}%"
+
+    where:
+    podCount | newPodCount
+    4        | 5
+    10       | 11
+    10       | 9
+    20       | 22
+  }
+
+  def "accounts only move to a new pod or away from a removed pod"() {
+    given:
+    def before = assign(new ConsistentHashRing(pods(10)))
+    def removed = pods(10)[3]
+
+    when:
+    def after = assign(new ConsistentHashRing(pods(10) - removed))
+
+    then:
+    before.every { account, owner -> owner == removed || after[account] == owner }
+
+    when:
+    def added = "clouddriver-caching-new@10.0.1.1"
+    def grown = assign(new ConsistentHashRing(pods(10) + added))
+
+    then:
+    before.every { account, owner -> grown[account] == owner || grown[account] == added }
+  }
+
+  def "accounts are spread evenly across pods"() {
+    when:
+    def counts = assign(new ConsistentHashRing(pods(10))).values().countBy { it }
+
+    then:
+    counts.size() == 10
+    counts.values().max() < (accounts.size() / 10) * 1.4
+    counts.values().min() > (accounts.size() / 10) * 0.6
+  }
+
+  def "assignment does not depend on member order or duplicates"() {
+    given:
+    def members = pods(8)
+
+    expect:
+    assign(new ConsistentHashRing(members)) == assign(new ConsistentHashRing(members.reverse() + members[0]))
+  }
+
+  def "weighted accounts are placed within the load bound"() {
+    given:
+    def weights = (1..40).collectEntries { ["account-$it".toString(), (double) (it % 5 + 1) * 10] }
+    def ring = new ConsistentHashRing(pods(5), ConsistentHashRing.DEFAULT_VIRTUAL_NODES, weights, 1.25d)
+
+    when:
+    def load = weights.groupBy { account, weight -> ring.ownerOf(account) }
+      .collectEntries { pod, placed -> [pod, placed.values().sum()] }
+    def capacity = 1.25d * (weights.values().sum() as double) / 5
+
+    then:
+    load.values().sum() == weights.values().sum()
+    load.values().every { it <= capacity }
+
+    and: 'unweighted accounts still use the ring'
+    ring.ownerOf("account-1999") == new ConsistentHashRing(pods(5)).ownerOf("account-1999")
+  }
+
+  def "preference list starts at the owner and covers every member once"() {
+    given:
+    def ring = new ConsistentHashRing(pods(7))
+
+    expect:
+    accounts.take(100).every {
+      def preferences = ring.preferenceList(it)
+      preferences[0] == ring.ownerOf(it) && preferences.toSet() == ring.members.toSet() && preferences.size() == 7
+    }
+  }
+
+  def "parses account weights"() {
+    expect:
+    ConsistentHashRing.parseWeights(value) == expected
+
+    where:
+    value                           || expected
+    null                            || [:]
+    ""                              || [:]
+    "prod=4, staging = 2.5"         || [prod: 4d, staging: 2.5d]
+    "prod=4,broken,test=x,dev=-1"   || [prod: 4d]
+  }
+
+  def "requires at least one member"() {
+    when:
+    new ConsistentHashRing([])
+
+    then:
+    thrown(IllegalArgumentException)
+  }
+}
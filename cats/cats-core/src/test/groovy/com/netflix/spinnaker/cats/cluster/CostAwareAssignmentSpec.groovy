@@ -0,0 +1,99 @@
+/*
+ * Copyright 2026 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.netflix.spinnaker.cats.cluster
+
+import spock.lang.Specification
+
+class CostAwareAssignmentSpec extends Specification {
+
+  static List<String> pods = (1..6).collect { "clouddriver-caching-$it".toString() }
+
+  // three giant kubernetes accounts and a long tail of small aws regions
+  static Map<String, Double> costs = [
+    'k8s-giant-1': 60_000d,
+    'k8s-giant-2': 55_000d,
+    'k8s-giant-3': 50_000d
+  ] + (1..200).collectEntries { ["aws-$it".toString(), (double) 200 + (it * 37) % 1_000] }
+
+  static Map<String, Double> loads(Map<String, String> assignment, Map<String, Double> costs) {
+    assignment.groupBy { it.value }.collectEntries { pod, accounts ->
+      [pod, accounts.keySet().sum { costs[it] } as double]
+    }
+  }
+
+  def "balances accounts by cost better than the ring alone"() {
+    given:
+    def ring = new ConsistentHashRing(pods)
+    def average = (costs.values().sum() as double) / pods.size()
+
+    when:
+    def byRing = loads(costs.keySet().collectEntries { [it, ring.ownerOf(it)] }, costs)
+    def byCost = loads(CostAwareAssignment.assign(ring, costs, 0.2d), costs)
+
+    then:
+    byCost.keySet() == pods as Set
+    byCost.values().max() <= average * 1.3
+    byCost.values().max() < byRing.values().max()
+
+    and: 'the giant accounts end up on different pods'
+    CostAwareAssignment.assign(ring, costs, 0.2d).findAll { it.key.startsWith('k8s') }.values().toSet().size() == 3
+  }
+
+  def "assignment is deterministic"() {
+    given:
+    def ring = new ConsistentHashRing(pods)
+    def shuffled = new LinkedHashMap(costs.entrySet().toList().reverse().collectEntries { [it.key, it.value] })
+
+    expect:
+    CostAwareAssignment.assign(ring, costs, 0.2d) == CostAwareAssignment.assign(new ConsistentHashRing(pods.reverse()), shuffled, 0.2d)
+  }
+
+  def "small fluctuations in cost move few accounts"() {
+    given:
+    def ring = new ConsistentHashRing(pods)
+    def random = new Random(42)
+    def jittered = costs.collectEntries { account, cost -> [account, cost * (0.95d + random.nextDouble() * 0.1d)] }
+
+    when:
+    def before = CostAwareAssignment.assign(ring, costs, 0.2d)
+    def after = CostAwareAssignment.assign(ring, jittered, 0.2d)
+    def moved = before.count { account, owner -> after[account] != owner }
+
+    then:
+    moved / (double) costs.size() < 0.1
+  }
+
+  def "accounts stay on their ring owner while the pods are balanced"() {
+    given:
+    def ring = new ConsistentHashRing(pods)
+    def uniform = (1..600).collectEntries { ["account-$it".toString(), 100d] }
+
+    when:
+    def assignment = CostAwareAssignment.assign(ring, uniform, 0.5d)
+
+    then:
+    assignment.count { account, owner -> owner == ring.ownerOf(account) } / (double) uniform.size() > 0.9
+  }
+
+  def "quantizes costs into logarithmic buckets"() {
+    expect:
+    CostAwareAssignment.quantize(0) == 0
+    CostAwareAssignment.quantize(-5) == 0
+    CostAwareAssignment.quantize(1000) == CostAwareAssignment.quantize(1040)
+    CostAwareAssignment.quantize(1000) < CostAwareAssignment.quantize(2000)
+  }
+}
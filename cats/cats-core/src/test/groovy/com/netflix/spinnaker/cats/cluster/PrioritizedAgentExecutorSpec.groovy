@@ -0,0 +1,188 @@
+/*
+ * Copyright 2026 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.netflix.spinnaker.cats.cluster
+
+import com.netflix.spinnaker.cats.agent.Agent
+import spock.lang.Specification
+import spock.lang.Subject
+
+import java.time.Clock
+import java.time.Instant
+import java.time.ZoneId
+import java.time.ZoneOffset
+
+class PrioritizedAgentExecutorSpec extends Specification {
+
+  def clock = new MutableClock()
+  def intervalProvider = Stub(AgentIntervalProvider) {
+    getInterval(_) >> new AgentIntervalProvider.Interval(60_000, 120_000)
+  }
+  def priorityProvider = new DefaultAgentPriorityProvider([
+    (AgentPriority.HIGH): '.*ClusterCachingAgent.*',
+    (AgentPriority.LOW) : '.*ReservationReportCachingAgent.*'
+  ])
+
+  @Subject
+  def executor = new PrioritizedAgentExecutor(priorityProvider, intervalProvider, [
+    (AgentPriority.CRITICAL): 1,
+    (AgentPriority.HIGH)    : 2,
+    (AgentPriority.NORMAL)  : 2,
+    (AgentPriority.LOW)     : 1
+  ], clock)
+
+  def cleanup() {
+    executor.shutdown()
+  }
+
+  def "defers the least important agents first when over the limit"() {
+    given:
+    def agents = [
+      agent('aws/ReservationReportCachingAgent'),
+      agent('prod/us-east-1/ImageCachingAgent'),
+      agent('prod/us-east-1/ClusterCachingAgent')
+    ]
+
+    expect:
+    executor.select(agents, 2)*.agentType == ['prod/us-east-1/ClusterCachingAgent', 'prod/us-east-1/ImageCachingAgent']
+    executor.select(agents, 10)*.agentType == [
+      'prod/us-east-1/ClusterCachingAgent', 'prod/us-east-1/ImageCachingAgent', 'aws/ReservationReportCachingAgent'
+    ]
+  }
+
+  def "orders agents of the same priority by earliest deadline"() {
+    given:
+    def first = agent('a/ImageCachingAgent')
+    def second = agent('b/ImageCachingAgent')
+    executor.register(second)
+    clock.advance(1_000)
+    executor.register(first)
+
+    expect: 'the agent registered earlier is due earlier'
+    executor.select([first, second], 1)*.agentType == ['b/ImageCachingAgent']
+
+    when: 'it refreshes'
+    executor.submit(second, { true }).get()
+
+    then:
+    executor.select([first, second], 1)*.agentType == ['a/ImageCachingAgent']
+  }
+
+  def "does not select more agents than a lane has free"() {
+    given:
+    def lows = (1..3).collect { agent("account-$it/ReservationReportCachingAgent") }
+
+    expect:
+    executor.select(lows, 10).size() == 1
+  }
+
+  def "tracks how far agents are behind their interval"() {
+    given:
+    def fresh = agent('fresh/ClusterCachingAgent')
+    def failing = agent('failing/ClusterCachingAgent')
+    executor.register(fresh)
+    executor.register(failing)
+
+    when:
+    clock.advance(5_000)
+    executor.submit(fresh, { true }).get()
+    executor.submit(failing, { false }).get()
+    clock.advance(70_000)
+
+    then:
+    executor.getStalenessMs('fresh/ClusterCachingAgent') == 10_000
+    executor.getStalenessMs('failing/ClusterCachingAgent') == 75_000
+    executor.maxStalenessMs[AgentPriority.HIGH] == 75_000
+    executor.staleAgentCounts[AgentPriority.HIGH] == 2
+    executor.staleAgentCounts[AgentPriority.LOW] == 0
+    executor.getActiveCount(AgentPriority.HIGH) == 0
+  }
+
+  def "takes the deadline of an agent from a lock held until after it"() {
+    given:
+    def agent = agent('other/ClusterCachingAgent')
+    executor.register(agent)
+    clock.advance(90_000)
+
+    expect:
+    executor.getStalenessMs('other/ClusterCachingAgent') == 90_000
+
+    when: 'another node ran it and holds its lock until its next run'
+    executor.lockHeldUntil('other/ClusterCachingAgent', clock.millis() + 30_000)
+
+    then:
+    executor.getStalenessMs('other/ClusterCachingAgent') == 0
+
+    when: 'nobody takes the lock once it expires'
+    clock.advance(40_000)
+    executor.lockHeldUntil('other/ClusterCachingAgent', clock.millis() - 60_000)
+
+    then: 'an older lock does not move the deadline back'
+    executor.getStalenessMs('other/ClusterCachingAgent') == 10_000
+    executor.staleAgentCounts[AgentPriority.HIGH] == 1
+  }
+
+  def "ignores locks of agents it does not track"() {
+    when:
+    executor.lockHeldUntil('unknown/ClusterCachingAgent', clock.millis() + 30_000)
+
+    then:
+    !executor.isRegistered('unknown/ClusterCachingAgent')
+    executor.staleAgentCounts.values().every { it == 0 }
+  }
+
+  def "requires a capacity for every lane"() {
+    when:
+    new PrioritizedAgentExecutor(priorityProvider, intervalProvider, [(AgentPriority.NORMAL): 1])
+
+    then:
+    thrown(IllegalArgumentException)
+  }
+
+  private Agent agent(String agentType) {
+    Stub(Agent) {
+      getAgentType() >> agentType
+    }
+  }
+
+  private static class MutableClock extends Clock {
+    long now = 1_000_000
+
+    void advance(long millis) {
+      now += millis
+    }
+
+    @Override
+    long millis() {
+      return now
+    }
+
+    @Override
+    Instant instant() {
+      return Instant.ofEpochMilli(now)
+    }
+
+    @Override
+    ZoneId getZone() {
+      return ZoneOffset.UTC
+    }
+
+    @Override
+    Clock withZone(ZoneId zone) {
+      return this
+    }
+  }
+}
@@ -0,0 +1,142 @@
+/*
+ * Copyright 2026 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.netflix.spinnaker.cats.mapped
+
+import com.fasterxml.jackson.databind.ObjectMapper
+import com.netflix.spinnaker.cats.cache.WriteableCacheSpec
+
+import java.nio.file.Files
+import java.nio.file.Path
+
+class MappedCacheSpec extends WriteableCacheSpec {
+
+  Path directory
+
+  @Override
+  MappedCache getSubject() {
+    // small segments so that records spill over several of them
+    new MappedCache(new ObjectMapper(), null, 512)
+  }
+
+  def cleanup() {
+    if (directory) {
+      directory.toFile().deleteDir()
+    }
+  }
+
+  def 'merge keeps existing relationships that are not updated'() {
+    setup:
+    cache.merge('foo', createData('bar', [a: 'b'], [rel1: ['one'], rel2: ['two']]))
+
+    when:
+    cache.merge('foo', createData('bar', [a: 'c'], [rel1: ['three'], rel2: null]))
+    def bar = cache.get('foo', 'bar')
+
+    then:
+    bar.attributes == [a: 'c']
+    bar.relationships == [rel1: ['three']]
+  }
+
+  def 'records larger than a segment get a segment of their own'() {
+    setup:
+    def large = 'x' * 2048
+
+    when:
+    cache.merge('foo', createData('bar', [large: large]))
+
+    then:
+    cache.get('foo', 'bar').attributes.large == large
+  }
+
+  def 'compaction drops sparse segments and keeps the live items'() {
+    setup:
+    def cache = new MappedCache(new ObjectMapper(), null, 4096)
+    (0..<10).each { round ->
+      cache.mergeAll('foo', (0..<50).collect { createData("item-$it", [round: round]) })
+    }
+    cache.evictAll('foo', (0..<25).collect { "item-$it".toString() })
+
+    when:
+    def dropped = cache.compact(0.5)
+
+    then:
+    dropped > 0
+    cache.getIdentifiers('foo').size() == 25
+    cache.getAll('foo').every { it.attributes.round == 9 }
+
+    when: 'the compacted items are updated again'
+    cache.mergeAll('foo', (25..<50).collect { createData("item-$it", [round: 10]) })
+
+    then:
+    cache.getAll('foo').every { it.attributes.round == 10 }
+  }
+
+  def 'a snapshot is reloaded by a cache on the same directory'() {
+    setup:
+    directory = Files.createTempDirectory('mapped-cache')
+    def cache = new MappedCache(new ObjectMapper(), directory, 4096)
+    cache.mergeAll('serverGroups', (0..<100).collect { createData("aws:serverGroups:app-v$it", [index: it], [instances: ["i-$it".toString()]]) })
+    cache.evict('serverGroups', 'aws:serverGroups:app-v0')
+    cache.compact(0.5)
+    cache.snapshot()
+
+    and: 'writes after the snapshot'
+    cache.merge('serverGroups', createData('aws:serverGroups:app-v100'))
+    cache.merge('serverGroups', createData('aws:serverGroups:app-v1', [index: -1]))
+
+    when:
+    def reloaded = new MappedCache(new ObjectMapper(), directory, 4096)
+
+    then:
+    reloaded.getIdentifiers('serverGroups').size() == 99
+    !reloaded.get('serverGroups', 'aws:serverGroups:app-v0')
+    !reloaded.get('serverGroups', 'aws:serverGroups:app-v100')
+    reloaded.get('serverGroups', 'aws:serverGroups:app-v1').attributes.index == 1
+    reloaded.get('serverGroups', 'aws:serverGroups:app-v42').relationships.instances == ['i-42']
+
+    when: 'the reloaded cache is written to'
+    reloaded.merge('serverGroups', createData('aws:serverGroups:app-v200', [index: 200]))
+
+    then:
+    reloaded.get('serverGroups', 'aws:serverGroups:app-v200').attributes.index == 200
+    reloaded.get('serverGroups', 'aws:serverGroups:app-v42').attributes.index == 42
+  }
+
+  def 'an unreadable snapshot starts an empty cache'() {
+    setup:
+    directory = Files.createTempDirectory('mapped-cache')
+    def cache = new MappedCache(new ObjectMapper(), directory, 4096)
+    cache.merge('foo', createData('bar'))
+    cache.snapshot()
+    def snapshot = directory.resolve('foo').resolve('index.snapshot')
+    def bytes = Files.readAllBytes(snapshot)
+    bytes[10] = (byte) (bytes[10] + 1)
+    Files.write(snapshot, bytes)
+
+    when:
+    def reloaded = new MappedCache(new ObjectMapper(), directory, 4096)
+
+    then:
+    reloaded.getIdentifiers('foo').isEmpty()
+
+    when:
+    reloaded.merge('foo', createData('baz'))
+
+    then:
+    reloaded.getIdentifiers('foo') == ['baz'] as Set
+  }
+}
@@ -17,6 +17,7 @@
 package com.netflix.spinnaker.cats.mem
 
 import com.netflix.spinnaker.cats.cache.CacheData
+import com.netflix.spinnaker.cats.cache.CacheKeySet
 import com.netflix.spinnaker.cats.cache.WriteableCacheSpec
 
 class InMemoryCacheSpec extends WriteableCacheSpec {
@@ -49,4 +50,18 @@ class InMemoryCacheSpec extends WriteableCacheSpec {
       then: 'itemTwo is still in the cache'
       itemTwoAttributes.equals(cache.get(type, id).attributes)
   }
+
+  def 'relationships can be stored as key sets'() {
+    given:
+    def cache = new InMemoryCache(true)
+
+    when:
+    cache.merge('foo', createData('bar', [id: 'bar'], [baz: ['baz:1', 'baz:2', 'baz:1'], qux: ['qux:1']]))
+    def relationships = cache.get('foo', 'bar').relationships
+
+    then:
+    relationships.baz instanceof CacheKeySet
+    relationships.baz == ['baz:1', 'baz:2'] as Set
+    relationships.qux == ['qux:1'] as Set
+  }
 }
@@ -16,5 +16,59 @@
 
 package com.netflix.spinnaker.cats.provider
 
+import com.netflix.spinnaker.cats.agent.DefaultCacheResult
+import com.netflix.spinnaker.cats.cache.DefaultCacheData
+
 class DefaultProvierCacheSpec extends ProviderCacheSpec {
+
+  def 'a relationship with a single source is copied when it is changed'() {
+    setup:
+    defaultProviderCache.putCacheResult('agent', ['foo'], new DefaultCacheResult(
+      foo: [new DefaultCacheData('foo1', [:], [bar: ['bar1', 'bar2'] as Set, baz: ['baz1', 'baz1']])]
+    ))
+
+    when:
+    def item = defaultProviderCache.get('foo', 'foo1')
+
+    then:
+    item.relationships.bar == ['bar1', 'bar2'] as Set
+    item.relationships.baz == ['baz1'] as Set
+
+    when:
+    item.relationships.bar.add('bar3')
+    item.relationships.bar.remove('bar1')
+
+    then:
+    item.relationships.bar == ['bar2', 'bar3'] as Set
+    defaultProviderCache.get('foo', 'foo1').relationships.bar == ['bar1', 'bar2'] as Set
+    backingStore.get('foo', 'foo1').relationships['bar:agent'] == ['bar1', 'bar2'] as Set
+
+    when:
+    def other = defaultProviderCache.get('foo', 'foo1')
+    def iterator = other.relationships.bar.iterator()
+    iterator.next()
+    iterator.remove()
+
+    then:
+    other.relationships.bar.size() == 1
+    defaultProviderCache.get('foo', 'foo1').relationships.bar == ['bar1', 'bar2'] as Set
+  }
+
+  def 'relationships from several sources are merged without changing either source'() {
+    setup:
+    defaultProviderCache.putCacheResult('agent1', [], new DefaultCacheResult(
+      foo: [new DefaultCacheData('foo1', [:], [bar: ['bar1'] as Set])]
+    ))
+    defaultProviderCache.putCacheResult('agent2', [], new DefaultCacheResult(
+      foo: [new DefaultCacheData('foo1', [:], [bar: ['bar2'] as Set])]
+    ))
+
+    when:
+    def item = defaultProviderCache.get('foo', 'foo1')
+    item.relationships.bar.add('bar3')
+
+    then:
+    defaultProviderCache.get('foo', 'foo1').relationships.bar == ['bar1', 'bar2'] as Set
+    backingStore.get('foo', 'foo1').relationships == ['bar:agent1': ['bar1'] as Set, 'bar:agent2': ['bar2'] as Set]
+  }
 }
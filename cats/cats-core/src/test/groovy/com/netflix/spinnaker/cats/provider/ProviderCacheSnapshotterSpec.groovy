@@ -0,0 +1,171 @@
+/*
+ * Copyright 2026 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.netflix.spinnaker.cats.provider
+
+import com.fasterxml.jackson.databind.ObjectMapper
+import com.netflix.spinnaker.cats.agent.Agent
+import com.netflix.spinnaker.cats.agent.AgentExecution
+import com.netflix.spinnaker.cats.agent.AgentScheduler
+import com.netflix.spinnaker.cats.agent.DefaultCacheResult
+import com.netflix.spinnaker.cats.agent.ExecutionInstrumentation
+import com.netflix.spinnaker.cats.cache.DefaultCacheData
+import com.netflix.spinnaker.cats.mem.InMemoryNamedCacheFactory
+import com.netflix.spinnaker.cats.module.CatsModule
+import com.netflix.spinnaker.cats.test.TestAgent
+import com.netflix.spinnaker.cats.test.TestProvider
+import spock.lang.Specification
+
+import java.nio.file.Files
+import java.nio.file.Path
+import java.time.Duration
+
+class ProviderCacheSnapshotterSpec extends Specification {
+
+  Path directory = Files.createTempDirectory('provider-cache-snapshots')
+
+  def cleanup() {
+    directory.toFile().deleteDir()
+  }
+
+  def "restores items from the latest snapshot and marks their agents stale"() {
+    given:
+    def agent = new TestAgent(authoritative: ['foo'])
+    def snapshotter = snapshotter()
+    def registry = new DefaultProviderRegistry([new TestProvider(agent)], new InMemoryNamedCacheFactory(), snapshotter)
+
+    registry.getProviderCache(TestProvider.PROVIDER_NAME).putCacheResult(agent.agentType, ['foo'], new DefaultCacheResult(
+      foo: (1..5).collect { new DefaultCacheData("foo$it", [index: it], [bar: ["bar$it"]]) }
+    ))
+
+    when:
+    snapshotter.snapshot()
+    snapshotter.close()
+    def restored = snapshotter()
+    def cache = new DefaultProviderRegistry([new TestProvider(agent)], new InMemoryNamedCacheFactory(), restored)
+      .getProviderCache(TestProvider.PROVIDER_NAME)
+
+    then:
+    cache.getIdentifiers('foo').sort() == (1..5).collect { "foo$it" }
+    cache.get('foo', 'foo3').attributes.index == 3
+    cache.get('foo', 'foo3').relationships.bar == ['bar3']
+    restored.isStale(agent.agentType)
+
+    when:
+    restored.executionCompleted(agent, 10)
+
+    then:
+    !restored.isStale(agent.agentType)
+
+    cleanup:
+    restored?.close()
+  }
+
+  def "reports a provider's agents stale until their first successful run"() {
+    given:
+    def agent = new TestAgent(authoritative: ['foo'])
+    def snapshotter = snapshotter()
+    new DefaultProviderRegistry([new TestProvider(agent)], new InMemoryNamedCacheFactory(), snapshotter)
+      .getProviderCache(TestProvider.PROVIDER_NAME)
+      .putCacheResult(agent.agentType, ['foo'], new DefaultCacheResult(foo: [new DefaultCacheData('foo1', [:], [:])]))
+    snapshotter.snapshot()
+    snapshotter.close()
+
+    and:
+    def restored = snapshotter()
+    AgentExecution execution = null
+    ExecutionInstrumentation instrumentation = null
+    AgentScheduler scheduler = Mock(AgentScheduler) {
+      schedule(agent, _, _) >> { Agent a, AgentExecution e, ExecutionInstrumentation i ->
+        execution = e
+        instrumentation = i
+      }
+    }
+    def module = new CatsModule.Builder().scheduler(scheduler).snapshotter(restored).build(new TestProvider(agent))
+
+    expect:
+    module.providerRegistry.getProviderCache(TestProvider.PROVIDER_NAME).get('foo', 'foo1') != null
+    restored.getStaleAgentTypes(TestProvider.PROVIDER_NAME) == [agent.agentType] as Set
+    restored.getStaleAgentTypes('other').isEmpty()
+
+    when: 'the first run fails'
+    instrumentation.executionStarted(agent)
+    instrumentation.executionFailed(agent, new RuntimeException('failed'), 10)
+
+    then:
+    restored.getStaleAgentTypes(TestProvider.PROVIDER_NAME) == [agent.agentType] as Set
+
+    when: 'the next run succeeds'
+    instrumentation.executionStarted(agent)
+    execution.executeAgent(agent)
+    instrumentation.executionCompleted(agent, 10)
+
+    then:
+    restored.getStaleAgentTypes(TestProvider.PROVIDER_NAME).isEmpty()
+    restored.staleAgentTypes.isEmpty()
+    !restored.isStale(agent.agentType)
+
+    cleanup:
+    restored?.close()
+  }
+
+  def "does not restore items owned by agents that no longer exist"() {
+    given:
+    def agent = new TestAgent(authoritative: ['foo'])
+    def removed = new TestAgent(authoritative: ['foo'])
+    def snapshotter = snapshotter()
+    def cache = new DefaultProviderRegistry([new TestProvider(agent, removed)], new InMemoryNamedCacheFactory(), snapshotter)
+      .getProviderCache(TestProvider.PROVIDER_NAME)
+
+    cache.putCacheResult(agent.agentType, ['foo'], new DefaultCacheResult(foo: [new DefaultCacheData('kept', [:], [:])]))
+    cache.putCacheResult(removed.agentType, ['foo'], new DefaultCacheResult(foo: [new DefaultCacheData('dropped', [:], [:])]))
+
+    when:
+    snapshotter.snapshot()
+    snapshotter.close()
+    def restored = snapshotter()
+    def restoredCache = new DefaultProviderRegistry([new TestProvider(agent)], new InMemoryNamedCacheFactory(), restored)
+      .getProviderCache(TestProvider.PROVIDER_NAME)
+
+    then:
+    restoredCache.getIdentifiers('foo') as List == ['kept']
+    restored.staleAgentTypes == [agent.agentType] as Set
+
+    cleanup:
+    restored?.close()
+  }
+
+  def "starts empty without a snapshot"() {
+    given:
+    def agent = new TestAgent(authoritative: ['foo'])
+    def snapshotter = snapshotter()
+
+    when:
+    def cache = new DefaultProviderRegistry([new TestProvider(agent)], new InMemoryNamedCacheFactory(), snapshotter)
+      .getProviderCache(TestProvider.PROVIDER_NAME)
+
+    then:
+    cache.getIdentifiers('foo').isEmpty()
+    snapshotter.staleAgentTypes.isEmpty()
+
+    cleanup:
+    snapshotter.close()
+  }
+
+  private ProviderCacheSnapshotter snapshotter() {
+    new ProviderCacheSnapshotter(new ObjectMapper(), directory, 2, 2, Duration.ofHours(1))
+  }
+}
@@ -20,9 +20,11 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.common.collect.Iterables;
 import com.netflix.spinnaker.cats.cache.CacheData;
 import com.netflix.spinnaker.cats.cache.CacheFilter;
+import com.netflix.spinnaker.cats.cache.KeyComponents;
 import com.netflix.spinnaker.cats.cache.WriteableCache;
 import com.netflix.spinnaker.kork.jedis.RedisClientDelegate;
 import java.util.*;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -66,6 +68,27 @@ public abstract class AbstractRedisCache implements WriteableCache {
   protected abstract Collection<CacheData> getItems(
       String type, List<String> ids, List<String> knownRels);
 
+  /**
+   * Fetches the items of several types. The default implementation fetches each type in turn.
+   *
+   * @param idsByType the distinct identifiers to fetch, keyed by type
+   * @param knownRelsByType the relationships to fetch, keyed by type
+   * @return the items found, keyed by type
+   */
+  protected Map<String, Collection<CacheData>> getItems(
+      Map<String, List<String>> idsByType, Map<String, List<String>> knownRelsByType) {
+    final Map<String, Collection<CacheData>> result = new LinkedHashMap<>();
+    idsByType.forEach(
+        (type, ids) -> {
+          Collection<CacheData> items = new ArrayList<>(ids.size());
+          for (List<String> idPart : Iterables.partition(ids, options.getMaxGetBatchSize())) {
+            items.addAll(getItems(type, idPart, knownRelsByType.get(type)));
+          }
+          result.put(type, items);
+        });
+    return result;
+  }
+
   @Override
   public void merge(String type, CacheData item) {
     mergeAll(type, Arrays.asList(item));
@@ -154,14 +177,7 @@ public abstract class AbstractRedisCache implements WriteableCache {
       return new ArrayList<>();
     }
     Collection<String> ids = new LinkedHashSet<>(identifiers);
-    final List<String> knownRels;
-    Set<String> allRelationships = scanMembers(allRelationshipsId(type));
-    if (cacheFilter == null) {
-      knownRels = new ArrayList<>(allRelationships);
-    } else {
-      knownRels =
-          new ArrayList<>(cacheFilter.filter(CacheFilter.Type.RELATIONSHIP, allRelationships));
-    }
+    final List<String> knownRels = getKnownRelationships(type, cacheFilter);
 
     Collection<CacheData> result = new ArrayList<>(ids.size());
 
@@ -172,14 +188,200 @@ public abstract class AbstractRedisCache implements WriteableCache {
     return result;
   }
 
+  /**
+   * Reads the known relationships of every type in one pipeline and then the items of every type,
+   * so that the number of round trips does not grow with the number of types.
+   */
+  @Override
+  public Map<String, Collection<CacheData>> getAllMulti(
+      Map<String, Collection<String>> identifiersByType, CacheFilter cacheFilter) {
+    final Map<String, Collection<CacheData>> result = new LinkedHashMap<>();
+    final Map<String, List<String>> idsByType = new LinkedHashMap<>();
+    identifiersByType.forEach(
+        (type, identifiers) -> {
+          result.put(type, new ArrayList<>());
+          if (!identifiers.isEmpty()) {
+            idsByType.put(type, new ArrayList<>(new LinkedHashSet<>(identifiers)));
+          }
+        });
+    if (idsByType.isEmpty()) {
+      return result;
+    }
+
+    final Map<String, List<String>> knownRels =
+        getKnownRelationships(idsByType.keySet(), cacheFilter);
+    result.putAll(getItems(idsByType, knownRels));
+    return result;
+  }
+
+  /**
+   * Pages through the members of the type with SSCAN, fetching each page of items with batched
+   * MGETs. Only the identifiers already seen are retained, as SSCAN may return an element more
+   * than once if the set is rehashed during iteration.
+   */
+  @Override
+  public void forEachItem(String type, CacheFilter cacheFilter, Consumer<CacheData> consumer) {
+    final List<String> knownRels = getKnownRelationships(type, cacheFilter);
+    final Set<String> seen = new HashSet<>();
+    final ScanParams scanParams = new ScanParams().count(options.getScanSize());
+    String cursor = ScanParams.SCAN_POINTER_START;
+    do {
+      final String currentCursor = cursor;
+      final ScanResult<String> scanResult =
+          redisClientDelegate.withCommandsClient(
+              client -> {
+                return client.sscan(allOfTypeId(type), currentCursor, scanParams);
+              });
+
+      final List<String> ids =
+          scanResult.getResult().stream().filter(seen::add).collect(Collectors.toList());
+      for (List<String> idPart : Iterables.partition(ids, options.getMaxGetBatchSize())) {
+        getItems(type, idPart, knownRels).forEach(consumer);
+      }
+      cursor = scanResult.getCursor();
+    } while (!ScanParams.SCAN_POINTER_START.equals(cursor));
+  }
+
   @Override
   public Collection<String> getIdentifiers(String type) {
     return scanMembers(allOfTypeId(type));
   }
 
+  /**
+   * With the key component index enabled, only the members of the smallest set of identifiers
+   * sharing a required component of the glob are scanned, instead of every member of the type.
+   * Candidates are confirmed against the members of the type, as the index may briefly hold
+   * identifiers that were evicted while it was being built.
+   */
   @Override
   public Collection<String> filterIdentifiers(String type, String glob) {
-    return scanMembers(allOfTypeId(type), Optional.of(glob));
+    final Set<String> required = KeyComponents.required(glob);
+    if (!options.isKeyComponentIndexEnabled() || required.isEmpty() || !ensureKeyIndex(type)) {
+      return scanMembers(allOfTypeId(type), Optional.of(glob));
+    }
+
+    final Map<String, Response<Long>> sizes = new LinkedHashMap<>();
+    redisClientDelegate.withPipeline(
+        p -> {
+          for (String component : required) {
+            sizes.put(component, p.scard(keyComponentId(type, component)));
+          }
+          redisClientDelegate.syncPipeline(p);
+        });
+    final String smallest =
+        Collections.min(sizes.entrySet(), Comparator.comparing(e -> e.getValue().get())).getKey();
+    if (sizes.get(smallest).get() == 0) {
+      return new HashSet<>();
+    }
+
+    final List<String> candidates =
+        new ArrayList<>(scanMembers(keyComponentId(type, smallest), Optional.of(glob)));
+    final List<Response<Boolean>> members = new ArrayList<>(candidates.size());
+    redisClientDelegate.withPipeline(
+        p -> {
+          for (String id : candidates) {
+            members.add(p.sismember(allOfTypeId(type), id));
+          }
+          redisClientDelegate.syncPipeline(p);
+        });
+
+    final Set<String> matches = new HashSet<>();
+    for (int i = 0; i < candidates.size(); i++) {
+      if (members.get(i).get()) {
+        matches.add(candidates.get(i));
+      }
+    }
+    return matches;
+  }
+
+  /**
+   * Builds the key component index of {@code type} from its members unless it has been built
+   * already. Identifiers merged or evicted concurrently are indexed by the writes themselves.
+   *
+   * @return whether the index is complete
+   */
+  private boolean ensureKeyIndex(String type) {
+    final String markerId = keyComponentsIndexedId(type);
+    boolean indexed =
+        redisClientDelegate.withCommandsClient(
+            client -> {
+              return client.exists(markerId);
+            });
+    if (indexed) {
+      return true;
+    }
+
+    try {
+      final Map<String, List<String>> idsByComponent = new HashMap<>();
+      for (String id : scanMembers(allOfTypeId(type))) {
+        for (String component : KeyComponents.of(id)) {
+          idsByComponent.computeIfAbsent(component, c -> new ArrayList<>()).add(id);
+        }
+      }
+      redisClientDelegate.withMultiKeyPipeline(
+          pipeline -> {
+            for (Map.Entry<String, List<String>> entry : idsByComponent.entrySet()) {
+              for (List<String> ids :
+                  Iterables.partition(entry.getValue(), options.getMaxSaddSize())) {
+                pipeline.sadd(keyComponentId(type, entry.getKey()), ids.toArray(new String[0]));
+              }
+            }
+            pipeline.sync();
+          });
+      redisClientDelegate.withCommandsClient(
+          client -> {
+            client.set(markerId, "true");
+          });
+      return true;
+    } catch (Exception e) {
+      log.warn("Failed to build the key component index of {}", type, e);
+      return false;
+    }
+  }
+
+  /** @return the ids to add to, or remove from, each key component set of {@code type} */
+  protected Map<String, List<String>> idsByKeyComponent(String type, Collection<String> ids) {
+    final Map<String, List<String>> idsByComponent = new HashMap<>();
+    if (!options.isKeyComponentIndexEnabled()) {
+      return idsByComponent;
+    }
+    for (String id : ids) {
+      for (String component : KeyComponents.of(id)) {
+        idsByComponent
+            .computeIfAbsent(keyComponentId(type, component), c -> new ArrayList<>())
+            .add(id);
+      }
+    }
+    return idsByComponent;
+  }
+
+  private List<String> getKnownRelationships(String type, CacheFilter cacheFilter) {
+    return filterRelationships(scanMembers(allRelationshipsId(type)), cacheFilter);
+  }
+
+  private Map<String, List<String>> getKnownRelationships(
+      Collection<String> types, CacheFilter cacheFilter) {
+    final Map<String, Response<Set<String>>> responses = new LinkedHashMap<>();
+    redisClientDelegate.withPipeline(
+        p -> {
+          for (String type : types) {
+            responses.put(type, p.smembers(allRelationshipsId(type)));
+          }
+          redisClientDelegate.syncPipeline(p);
+        });
+
+    final Map<String, List<String>> knownRels = new HashMap<>();
+    responses.forEach(
+        (type, response) -> knownRels.put(type, filterRelationships(response.get(), cacheFilter)));
+    return knownRels;
+  }
+
+  private static List<String> filterRelationships(
+      Set<String> allRelationships, CacheFilter cacheFilter) {
+    if (cacheFilter == null) {
+      return new ArrayList<>(allRelationships);
+    }
+    return new ArrayList<>(cacheFilter.filter(CacheFilter.Type.RELATIONSHIP, allRelationships));
   }
 
   private Set<String> scanMembers(String setKey) {
@@ -234,6 +436,14 @@ public abstract class AbstractRedisCache implements WriteableCache {
     return String.join(":", prefix, type, "members");
   }
 
+  protected String keyComponentId(String type, String component) {
+    return String.join(":", prefix, type, "components", component);
+  }
+
+  private String keyComponentsIndexedId(String type) {
+    return String.join(":", prefix, type, "components.indexed");
+  }
+
   protected TypeReference<? extends Collection<String>> getRelationshipsTypeReference() {
     return options.isTreatRelationshipsAsSet() ? RELATIONSHIPS_SET : RELATIONSHIPS_LIST;
   }
@@ -0,0 +1,616 @@
+/*
+ * Copyright 2026 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.netflix.spinnaker.cats.redis.cache;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.collect.Iterables;
+import com.google.common.collect.Lists;
+import com.google.common.hash.Hashing;
+import com.netflix.spinnaker.cats.cache.CacheData;
+import com.netflix.spinnaker.cats.cache.CacheFilter;
+import com.netflix.spinnaker.cats.cache.DefaultCacheData;
+import com.netflix.spinnaker.cats.cache.WriteableCache;
+import com.netflix.spinnaker.cats.redis.cache.RedisCache.CacheMetrics;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+import redis.clients.jedis.Response;
+import redis.clients.jedis.ScanParams;
+import redis.clients.jedis.ScanResult;
+
+/**
+ * A cache backed by a sharded Redis Cluster.
+ *
+ * <p>Keys carry a hash tag so that all the keys of an item share a slot, e.g. {@code
+ * prefix:{type:id}:attributes} and {@code prefix:{type:id}:relationships:rel}. Reads and writes of
+ * many items are fanned out per slot and pipelined per node by {@link SlotAwareJedisCluster}, so an
+ * item is read with a single MGET and a batch costs one round trip per node.
+ *
+ * <p>The members and relationship names of a type are each a single set ({@code
+ * prefix:{type}:members}), so they live on one node; every merge and evict of the type adds to or
+ * removes from them there, and listing the identifiers of a type scans that node only. The hashes
+ * used to skip unchanged writes are read and written on every merge, so rather than one hash per
+ * type they are spread over {@value #HASH_BUCKETS} hashes per type ({@code
+ * prefix:{type:hashes:n}:hashes}) by item key, which keeps a large type such as instances from
+ * concentrating that load on a single node.
+ *
+ * <p>The key layout differs from {@link RedisCache}, so switching an existing deployment to a
+ * cluster starts from an empty cache. The key component index of {@link RedisCache} is not
+ * supported.
+ */
+public class ClusterRedisCache implements WriteableCache {
+
+  private static final TypeReference<List<String>> RELATIONSHIPS_LIST =
+      new TypeReference<List<String>>() {};
+  private static final TypeReference<Set<String>> RELATIONSHIPS_SET =
+      new TypeReference<Set<String>>() {};
+  private static final TypeReference<Map<String, Object>> ATTRIBUTES =
+      new TypeReference<Map<String, Object>>() {};
+
+  static final int HASH_BUCKETS = 64;
+
+  private final String prefix;
+  private final SlotAwareJedisCluster cluster;
+  private final ObjectMapper objectMapper;
+  private final RedisCacheOptions options;
+  private final CacheMetrics cacheMetrics;
+
+  public ClusterRedisCache(
+      String prefix,
+      SlotAwareJedisCluster cluster,
+      ObjectMapper objectMapper,
+      RedisCacheOptions options,
+      CacheMetrics cacheMetrics) {
+    this.prefix = prefix;
+    this.cluster = cluster;
+    this.objectMapper = objectMapper;
+    this.options = options;
+    this.cacheMetrics = cacheMetrics == null ? new CacheMetrics.NOOP() : cacheMetrics;
+  }
+
+  @Override
+  public void merge(String type, CacheData item) {
+    mergeAll(type, Arrays.asList(item));
+  }
+
+  @Override
+  public void mergeAll(String type, Collection<CacheData> items) {
+    for (List<CacheData> partition : Iterables.partition(items, options.getMaxMergeBatchSize())) {
+      mergeItems(type, partition);
+    }
+  }
+
+  @Override
+  public void evict(String type, String id) {
+    evictAll(type, Arrays.asList(id));
+  }
+
+  @Override
+  public void evictAll(String type, Collection<String> identifiers) {
+    if (identifiers.isEmpty()) {
+      return;
+    }
+    final Collection<String> allRelationships = cluster.smembers(allRelationshipsId(type));
+    for (List<String> items :
+        Iterables.partition(new HashSet<>(identifiers), options.getMaxEvictBatchSize())) {
+      evictItems(type, items, allRelationships);
+    }
+  }
+
+  @Override
+  public CacheData get(String type, String id) {
+    return get(type, id, null);
+  }
+
+  @Override
+  public CacheData get(String type, String id, CacheFilter cacheFilter) {
+    Collection<CacheData> result = getAll(type, Arrays.asList(id), cacheFilter);
+    if (result.isEmpty()) {
+      return null;
+    }
+    return result.iterator().next();
+  }
+
+  @Override
+  public Collection<String> existingIdentifiers(String type, Collection<String> identifiers) {
+    final Map<String, String> idsByKey = new LinkedHashMap<>();
+    for (String id : identifiers) {
+      idsByKey.put(attributesId(type, id), id);
+    }
+
+    final Map<List<String>, List<Response<Boolean>>> responses =
+        cluster.pipelinePerSlot(
+            idsByKey.keySet(),
+            options.getMaxPipelineSize(),
+            (pipeline, keys) -> keys.stream().map(pipeline::exists).collect(Collectors.toList()));
+
+    final List<String> existing = new ArrayList<>();
+    responses.forEach(
+        (keys, exists) -> {
+          for (int i = 0; i < keys.size(); i++) {
+            if (exists.get(i).get()) {
+              existing.add(idsByKey.get(keys.get(i)));
+            }
+          }
+        });
+    return existing;
+  }
+
+  @Override
+  public Collection<String> getIdentifiers(String type) {
+    return scanMembers(allOfTypeId(type), Optional.empty());
+  }
+
+  @Override
+  public Collection<String> filterIdentifiers(String type, String glob) {
+    return scanMembers(allOfTypeId(type), Optional.of(glob));
+  }
+
+  @Override
+  public Collection<CacheData> getAll(String type) {
+    return getAll(type, (CacheFilter) null);
+  }
+
+  @Override
+  public Collection<CacheData> getAll(String type, CacheFilter cacheFilter) {
+    return getAll(type, getIdentifiers(type), cacheFilter);
+  }
+
+  @Override
+  public Collection<CacheData> getAll(String type, Collection<String> identifiers) {
+    return getAll(type, identifiers, null);
+  }
+
+  @Override
+  public Collection<CacheData> getAll(String type, String... identifiers) {
+    return getAll(type, Arrays.asList(identifiers));
+  }
+
+  @Override
+  public Collection<CacheData> getAll(
+      String type, Collection<String> identifiers, CacheFilter cacheFilter) {
+    return getAllMulti(Collections.singletonMap(type, identifiers), cacheFilter).get(type);
+  }
+
+  @Override
+  public Map<String, Collection<CacheData>> getAllMulti(
+      Map<String, Collection<String>> identifiersByType, CacheFilter cacheFilter) {
+    final Map<String, Collection<CacheData>> result = new LinkedHashMap<>();
+    final Map<String, List<String>> idsByType = new LinkedHashMap<>();
+    identifiersByType.forEach(
+        (type, identifiers) -> {
+          result.put(type, new ArrayList<>());
+          if (!identifiers.isEmpty()) {
+            idsByType.put(type, new ArrayList<>(new LinkedHashSet<>(identifiers)));
+          }
+        });
+    if (idsByType.isEmpty()) {
+      return result;
+    }
+
+    final Map<String, List<String>> knownRels =
+        getKnownRelationships(idsByType.keySet(), cacheFilter);
+
+    final List<String> keysToGet = new ArrayList<>();
+    idsByType.forEach(
+        (type, ids) -> {
+          for (String id : ids) {
+            keysToGet.add(attributesId(type, id));
+            for (String rel : knownRels.get(type)) {
+              keysToGet.add(relationshipId(type, id, rel));
+            }
+          }
+        });
+
+    final Map<List<String>, List<Response<List<String>>>> responses =
+        cluster.pipelinePerSlot(
+            keysToGet,
+            options.getMaxMgetSize(),
+            (pipeline, keys) ->
+                Collections.singletonList(pipeline.mget(keys.toArray(new String[0]))));
+
+    final Map<String, String> values = new HashMap<>(keysToGet.size());
+    responses.forEach(
+        (keys, mget) -> {
+          List<String> batchValues = mget.get(0).get();
+          for (int i = 0; i < keys.size(); i++) {
+            values.put(keys.get(i), batchValues.get(i));
+          }
+        });
+
+    idsByType.forEach(
+        (type, ids) -> {
+          List<String> rels = knownRels.get(type);
+          Collection<CacheData> items = new ArrayList<>(ids.size());
+          for (String id : ids) {
+            CacheData item = extractItem(type, id, rels, values);
+            if (item != null) {
+              items.add(item);
+            }
+          }
+          result.put(type, items);
+          cacheMetrics.get(
+              prefix,
+              type,
+              items.size(),
+              ids.size(),
+              ids.size() * (rels.size() + 1),
+              rels.size(),
+              responses.size());
+        });
+    return result;
+  }
+
+  private void mergeItems(String type, Collection<CacheData> items) {
+    if (items.isEmpty()) {
+      return;
+    }
+    final Set<String> relationshipNames = new HashSet<>();
+    final Map<String, String> valuesToSet = new LinkedHashMap<>();
+    final Set<String> idSet = new HashSet<>();
+    final Map<String, Integer> ttlSecondsByKey = new HashMap<>();
+    final Map<String, String> updatedHashes = new HashMap<>();
+    int skippedWrites = 0;
+
+    final Map<String, String> hashes = getHashes(type, items);
+
+    for (CacheData item : items) {
+      final Map<String, String> itemValues = new LinkedHashMap<>();
+      boolean hasTtl = item.getTtlSeconds() > 0;
+      if (!item.getAttributes().isEmpty()) {
+        itemValues.put(attributesId(type, item.getId()), serialize(item.getAttributes()));
+      }
+      for (Map.Entry<String, Collection<String>> relationship :
+          item.getRelationships().entrySet()) {
+        itemValues.put(
+            relationshipId(type, item.getId(), relationship.getKey()),
+            serialize(new LinkedHashSet<>(relationship.getValue())));
+      }
+
+      for (Map.Entry<String, String> value : itemValues.entrySet()) {
+        if (options.isHashingEnabled() && !hasTtl) {
+          String hash =
+              Hashing.sha1().newHasher().putUnencodedChars(value.getValue()).hash().toString();
+          if (hash.equals(hashes.get(value.getKey()))) {
+            skippedWrites++;
+            continue;
+          }
+          updatedHashes.put(value.getKey(), hash);
+        }
+        valuesToSet.put(value.getKey(), value.getValue());
+        if (hasTtl) {
+          ttlSecondsByKey.put(value.getKey(), item.getTtlSeconds());
+        }
+      }
+
+      relationshipNames.addAll(item.getRelationships().keySet());
+      idSet.add(item.getId());
+    }
+
+    int saddOperations = 0;
+    int msetOperations = 0;
+    int hmsetOperations = 0;
+    int pipelineOperations = 0;
+    if (!valuesToSet.isEmpty()) {
+      msetOperations =
+          cluster
+              .pipelinePerSlot(
+                  valuesToSet.keySet(),
+                  Math.max(1, options.getMaxMsetSize() / 2),
+                  (pipeline, keys) -> {
+                    String[] keysValues = new String[keys.size() * 2];
+                    for (int i = 0; i < keys.size(); i++) {
+                      keysValues[i * 2] = keys.get(i);
+                      keysValues[i * 2 + 1] = valuesToSet.get(keys.get(i));
+                    }
+                    return Collections.singletonList(pipeline.mset(keysValues));
+                  })
+              .size();
+      pipelineOperations++;
+
+      for (List<String> idPart : Iterables.partition(idSet, options.getMaxSaddSize())) {
+        cluster.sadd(allOfTypeId(type), idPart.toArray(new String[0]));
+        saddOperations++;
+      }
+
+      if (!relationshipNames.isEmpty()) {
+        for (List<String> relNamesPart :
+            Iterables.partition(relationshipNames, options.getMaxSaddSize())) {
+          cluster.sadd(allRelationshipsId(type), relNamesPart.toArray(new String[0]));
+          saddOperations++;
+        }
+      }
+
+      if (!updatedHashes.isEmpty()) {
+        final Map<String, List<String>> keysByHashesId = byHashesId(type, updatedHashes.keySet());
+        hmsetOperations =
+            cluster
+                .pipelinePerSlot(
+                    keysByHashesId.keySet(),
+                    1,
+                    (pipeline, hashesIds) ->
+                        Lists.partition(
+                                keysByHashesId.get(hashesIds.get(0)), options.getMaxHmsetSize())
+                            .stream()
+                            .map(
+                                part ->
+                                    pipeline.hmset(
+                                        hashesIds.get(0),
+                                        part.stream()
+                                            .collect(
+                                                Collectors.toMap(k -> k, updatedHashes::get))))
+                            .collect(Collectors.toList()))
+                .values()
+                .stream()
+                .mapToInt(List::size)
+                .sum();
+        pipelineOperations++;
+      }
+
+      if (!ttlSecondsByKey.isEmpty()) {
+        cluster.pipelinePerSlot(
+            ttlSecondsByKey.keySet(),
+            options.getMaxPipelineSize(),
+            (pipeline, keys) ->
+                keys.stream()
+                    .map(key -> pipeline.expire(key, ttlSecondsByKey.get(key)))
+                    .collect(Collectors.toList()));
+        pipelineOperations++;
+      }
+    }
+
+    cacheMetrics.merge(
+        prefix,
+        type,
+        items.size(),
+        valuesToSet.size(),
+        relationshipNames.size(),
+        skippedWrites,
+        updatedHashes.size(),
+        saddOperations,
+        msetOperations,
+        hmsetOperations,
+        pipelineOperations,
+        ttlSecondsByKey.size());
+  }
+
+  private void evictItems(
+      String type, List<String> identifiers, Collection<String> allRelationships) {
+    final List<String> delKeys =
+        new ArrayList<>((allRelationships.size() + 1) * identifiers.size());
+    for (String id : identifiers) {
+      for (String relationship : allRelationships) {
+        delKeys.add(relationshipId(type, id, relationship));
+      }
+      delKeys.add(attributesId(type, id));
+    }
+
+    final int delOperations =
+        cluster
+            .pipelinePerSlot(
+                delKeys,
+                options.getMaxDelSize(),
+                (pipeline, keys) ->
+                    Collections.singletonList(pipeline.del(keys.toArray(new String[0]))))
+            .size();
+
+    final Map<String, List<String>> keysByHashesId = byHashesId(type, delKeys);
+    final int hdelOperations =
+        cluster
+            .pipelinePerSlot(
+                keysByHashesId.keySet(),
+                1,
+                (pipeline, hashesIds) ->
+                    Lists.partition(keysByHashesId.get(hashesIds.get(0)), options.getMaxDelSize())
+                        .stream()
+                        .map(part -> pipeline.hdel(hashesIds.get(0), part.toArray(new String[0])))
+                        .collect(Collectors.toList()))
+            .values()
+            .stream()
+            .mapToInt(List::size)
+            .sum();
+
+    int sremOperations = 0;
+    for (List<String> idPartition : Iterables.partition(identifiers, options.getMaxDelSize())) {
+      cluster.srem(allOfTypeId(type), idPartition.toArray(new String[0]));
+      sremOperations++;
+    }
+
+    cacheMetrics.evict(
+        prefix,
+        type,
+        identifiers.size(),
+        delKeys.size(),
+        delKeys.size(),
+        delOperations,
+        hdelOperations,
+        sremOperations);
+  }
+
+  private Map<String, List<String>> getKnownRelationships(
+      Collection<String> types, CacheFilter cacheFilter) {
+    final Map<String, String> typesByKey = new LinkedHashMap<>();
+    for (String type : types) {
+      typesByKey.put(allRelationshipsId(type), type);
+    }
+
+    final Map<List<String>, List<Response<Set<String>>>> responses =
+        cluster.pipelinePerSlot(
+            typesByKey.keySet(),
+            1,
+            (pipeline, keys) -> Collections.singletonList(pipeline.smembers(keys.get(0))));
+
+    final Map<String, List<String>> knownRels = new HashMap<>();
+    responses.forEach(
+        (keys, members) -> {
+          Set<String> allRelationships = members.get(0).get();
+          knownRels.put(
+              typesByKey.get(keys.get(0)),
+              new ArrayList<>(
+                  cacheFilter == null
+                      ? allRelationships
+                      : cacheFilter.filter(CacheFilter.Type.RELATIONSHIP, allRelationships)));
+        });
+    return knownRels;
+  }
+
+  private Map<String, String> getHashes(String type, Collection<CacheData> items) {
+    if (!options.isHashingEnabled() || cluster.exists(hashesDisabled(type))) {
+      return Collections.emptyMap();
+    }
+
+    final Set<String> keys = new LinkedHashSet<>();
+    for (CacheData item : items) {
+      if (!item.getAttributes().isEmpty()) {
+        keys.add(attributesId(type, item.getId()));
+      }
+      for (String relationship : item.getRelationships().keySet()) {
+        keys.add(relationshipId(type, item.getId(), relationship));
+      }
+    }
+
+    final Map<String, List<String>> keysByHashesId = byHashesId(type, keys);
+    final Map<List<String>, List<Response<List<String>>>> responses =
+        cluster.pipelinePerSlot(
+            keysByHashesId.keySet(),
+            1,
+            (pipeline, hashesIds) ->
+                Lists.partition(keysByHashesId.get(hashesIds.get(0)), options.getMaxHmgetSize())
+                    .stream()
+                    .map(part -> pipeline.hmget(hashesIds.get(0), part.toArray(new String[0])))
+                    .collect(Collectors.toList()));
+
+    final Map<String, String> hashes = new HashMap<>(keys.size());
+    responses.forEach(
+        (hashesIds, hmgets) -> {
+          List<List<String>> parts =
+              Lists.partition(keysByHashesId.get(hashesIds.get(0)), options.getMaxHmgetSize());
+          for (int p = 0; p < parts.size(); p++) {
+            List<String> values = hmgets.get(p).get();
+            for (int i = 0; i < parts.get(p).size(); i++) {
+              if (values.get(i) != null) {
+                hashes.put(parts.get(p).get(i), values.get(i));
+              }
+            }
+          }
+        });
+    return hashes;
+  }
+
+  private Set<String> scanMembers(String setKey, Optional<String> glob) {
+    final Set<String> matches = new HashSet<>();
+    final ScanParams scanParams = new ScanParams().count(options.getScanSize());
+    glob.ifPresent(scanParams::match);
+    String cursor = ScanParams.SCAN_POINTER_START;
+    do {
+      ScanResult<String> scanResult = cluster.sscan(setKey, cursor, scanParams);
+      matches.addAll(scanResult.getResult());
+      cursor = scanResult.getCursor();
+    } while (!ScanParams.SCAN_POINTER_START.equals(cursor));
+    return matches;
+  }
+
+  private CacheData extractItem(
+      String type, String id, List<String> knownRels, Map<String, String> values) {
+    final String attributes = values.get(attributesId(type, id));
+    if (attributes == null) {
+      return null;
+    }
+
+    try {
+      final Map<String, Collection<String>> relationships = new HashMap<>(knownRels.size());
+      for (String rel : knownRels) {
+        String value = values.get(relationshipId(type, id, rel));
+        if (value != null) {
+          relationships.put(
+              rel,
+              objectMapper.readValue(
+                  value,
+                  options.isTreatRelationshipsAsSet() ? RELATIONSHIPS_SET : RELATIONSHIPS_LIST));
+        }
+      }
+      return new DefaultCacheData(
+          id, objectMapper.readValue(attributes, ATTRIBUTES), relationships);
+    } catch (IOException deserializationException) {
+      throw new RuntimeException("Deserialization failed", deserializationException);
+    }
+  }
+
+  private String serialize(Object value) {
+    try {
+      return objectMapper.writeValueAsString(value);
+    } catch (JsonProcessingException serializationException) {
+      throw new RuntimeException("Serialization failed", serializationException);
+    }
+  }
+
+  String attributesId(String type, String id) {
+    return String.join(":", prefix, itemTag(type, id), "attributes");
+  }
+
+  String relationshipId(String type, String id, String relationship) {
+    return String.join(":", prefix, itemTag(type, id), "relationships", relationship);
+  }
+
+  String allOfTypeId(String type) {
+    return String.join(":", prefix, typeTag(type), "members");
+  }
+
+  String allRelationshipsId(String type) {
+    return String.join(":", prefix, typeTag(type), "relationships");
+  }
+
+  /** @return the hashes key holding the hash of {@code key}, an item key of {@code type} */
+  String hashesId(String type, String key) {
+    int bucket = Math.floorMod(key.hashCode(), HASH_BUCKETS);
+    return String.join(":", prefix, "{" + type + ":hashes:" + bucket + "}", "hashes");
+  }
+
+  /** Groups item keys of {@code type} by the hashes key holding their hashes. */
+  private Map<String, List<String>> byHashesId(String type, Collection<String> keys) {
+    final Map<String, List<String>> keysByHashesId = new LinkedHashMap<>();
+    for (String key : keys) {
+      keysByHashesId.computeIfAbsent(hashesId(type, key), k -> new ArrayList<>()).add(key);
+    }
+    return keysByHashesId;
+  }
+
+  private String hashesDisabled(String type) {
+    return String.join(":", prefix, typeTag(type), "hashes.disabled");
+  }
+
+  private static String itemTag(String type, String id) {
+    return "{" + type + ":" + id + "}";
+  }
+
+  private static String typeTag(String type) {
+    return "{" + type + "}";
+  }
+}
@@ -24,6 +24,7 @@ import com.netflix.spinnaker.cats.cache.CacheData;
 import com.netflix.spinnaker.cats.cache.DefaultCacheData;
 import com.netflix.spinnaker.kork.jedis.RedisClientDelegate;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
@@ -31,6 +32,7 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.LinkedList;
 import java.util.List;
@@ -39,6 +41,8 @@ import java.util.NavigableMap;
 import java.util.Set;
 import java.util.TreeMap;
 import java.util.concurrent.atomic.AtomicInteger;
+import redis.clients.jedis.Response;
+import redis.clients.jedis.exceptions.JedisNoScriptException;
 
 public class RedisCache extends AbstractRedisCache {
 
@@ -85,6 +89,58 @@ public class RedisCache extends AbstractRedisCache {
     class NOOP implements CacheMetrics {}
   }
 
+  /**
+   * Finds the values that changed. KEYS is the hashes hash and ARGV a (hashes field, hash) pair per
+   * value. Returns the 1-based positions of the pairs whose stored hash differs.
+   */
+  private static final String CHANGED_SCRIPT =
+      "local changed = {}\n"
+          + "for i = 1, #ARGV, 2 do\n"
+          + "  if redis.call('HGET', KEYS[1], ARGV[i]) ~= ARGV[i + 1] then\n"
+          + "    changed[#changed + 1] = (i + 1) / 2\n"
+          + "  end\n"
+          + "end\n"
+          + "return changed\n";
+
+  private static final String CHANGED_SCRIPT_SHA =
+      Hashing.sha1().hashString(CHANGED_SCRIPT, StandardCharsets.UTF_8).toString();
+
+  /**
+   * Writes one batch of changed values on the server.
+   *
+   * <p>KEYS are the all-of-type set, the relationship names set, the hashes hash and then one key
+   * per serialized value. ARGV starts with the count and the ids to add to the all-of-type set, the
+   * count and the relationship names, and then a (hash, ttl seconds, value) triple per value key.
+   * An empty hash means the value is not hashed. Returns the number of values written and hashed.
+   */
+  private static final String MERGE_SCRIPT =
+      "local pos = 1\n"
+          + "for _, set in ipairs({KEYS[1], KEYS[2]}) do\n"
+          + "  local count = tonumber(ARGV[pos])\n"
+          + "  for from = pos + 1, pos + count, 1000 do\n"
+          + "    redis.call('SADD', set, unpack(ARGV, from, math.min(from + 999, pos + count)))\n"
+          + "  end\n"
+          + "  pos = pos + count + 1\n"
+          + "end\n"
+          + "local hashed = 0\n"
+          + "for k = 4, #KEYS do\n"
+          + "  local hash, ttl, value = ARGV[pos], tonumber(ARGV[pos + 1]), ARGV[pos + 2]\n"
+          + "  pos = pos + 3\n"
+          + "  if ttl > 0 then\n"
+          + "    redis.call('SET', KEYS[k], value, 'EX', ttl)\n"
+          + "  else\n"
+          + "    redis.call('SET', KEYS[k], value)\n"
+          + "  end\n"
+          + "  if hash ~= '' then\n"
+          + "    redis.call('HSET', KEYS[3], KEYS[k], hash)\n"
+          + "    hashed = hashed + 1\n"
+          + "  end\n"
+          + "end\n"
+          + "return {#KEYS - 3, hashed}\n";
+
+  private static final String MERGE_SCRIPT_SHA =
+      Hashing.sha1().hashString(MERGE_SCRIPT, StandardCharsets.UTF_8).toString();
+
   private final CacheMetrics cacheMetrics;
 
   public RedisCache(
@@ -102,6 +158,10 @@ public class RedisCache extends AbstractRedisCache {
     if (items.isEmpty()) {
       return;
     }
+    if (options.isServerSideMergeEnabled()) {
+      mergeItemsOnServer(type, items);
+      return;
+    }
     final Set<String> relationshipNames = new HashSet<>();
     final List<String> keysToSet = new LinkedList<>();
     final Set<String> idSet = new HashSet<>();
@@ -142,6 +202,15 @@ public class RedisCache extends AbstractRedisCache {
               saddOperations.incrementAndGet();
             }
 
+            for (Map.Entry<String, List<String>> component :
+                idsByKeyComponent(type, idSet).entrySet()) {
+              for (List<String> idPart :
+                  Iterables.partition(component.getValue(), options.getMaxSaddSize())) {
+                pipeline.sadd(component.getKey(), idPart.toArray(new String[idPart.size()]));
+                saddOperations.incrementAndGet();
+              }
+            }
+
             for (List<String> keys : Lists.partition(keysToSet, options.getMaxMsetSize())) {
               pipeline.mset(keys.toArray(new String[keys.size()]));
               msetOperations.incrementAndGet();
@@ -200,6 +269,183 @@ public class RedisCache extends AbstractRedisCache {
         expireOperations.get());
   }
 
+  /**
+   * Merges in two script calls per {@link RedisCacheOptions#getMaxMergeScriptItems()} items, since
+   * Redis runs nothing else while a script runs. {@link #CHANGED_SCRIPT} first compares the hashes
+   * of the values, so only their keys and hashes are sent; {@link #MERGE_SCRIPT} then receives the
+   * bodies of the changed values only, and adds every id of the batch to the all-of-type set like
+   * the client-side merge does. Compared to that merge, the stored hashes are not read back to the
+   * client and the writes take one round trip instead of a pipeline per kind of command.
+   */
+  private void mergeItemsOnServer(String type, Collection<CacheData> items) {
+    final Set<String> idSet = new LinkedHashSet<>();
+    final Set<String> relationshipNames = new LinkedHashSet<>();
+    final boolean compare = !isHashingDisabled(type);
+    int written = 0;
+    int skipped = 0;
+    int hashed = 0;
+
+    for (List<CacheData> part : Iterables.partition(items, options.getMaxMergeScriptItems())) {
+      final Set<String> partIds = new LinkedHashSet<>();
+      final Set<String> partRelationshipNames = new LinkedHashSet<>();
+      final List<ScriptValue> values = new ArrayList<>();
+      boolean itemWithoutValues = false;
+
+      for (CacheData item : part) {
+        final boolean hashedItem = options.isHashingEnabled() && item.getTtlSeconds() <= 0;
+        final String ttl = Integer.toString(Math.max(item.getTtlSeconds(), 0));
+        final int valueCount = values.size();
+
+        final String serializedAttributes = serializeAttributes(item);
+        if (serializedAttributes != null) {
+          values.add(
+              new ScriptValue(
+                  attributesId(type, item.getId()),
+                  hashedItem ? hash(serializedAttributes) : "",
+                  ttl,
+                  serializedAttributes));
+        }
+        for (Map.Entry<String, Collection<String>> relationship :
+            item.getRelationships().entrySet()) {
+          final String relationshipValue = serializeRelationship(relationship.getValue());
+          values.add(
+              new ScriptValue(
+                  relationshipId(type, item.getId(), relationship.getKey()),
+                  hashedItem ? hash(relationshipValue) : "",
+                  ttl,
+                  relationshipValue));
+        }
+
+        itemWithoutValues |= values.size() == valueCount;
+        partIds.add(item.getId());
+        partRelationshipNames.addAll(item.getRelationships().keySet());
+      }
+      idSet.addAll(partIds);
+      relationshipNames.addAll(partRelationshipNames);
+
+      final List<ScriptValue> changed = compare ? changedValues(type, values) : values;
+      skipped += values.size() - changed.size();
+      if (changed.isEmpty() && !itemWithoutValues) {
+        // Unchanged values were written before, along with their ids and relationship names
+        continue;
+      }
+
+      final List<String> keys = new ArrayList<>(changed.size() + 3);
+      keys.add(allOfTypeId(type));
+      keys.add(allRelationshipsId(type));
+      keys.add(hashesId(type));
+
+      final List<String> args =
+          new ArrayList<>(partIds.size() + partRelationshipNames.size() + changed.size() * 3 + 2);
+      args.add(Integer.toString(partIds.size()));
+      args.addAll(partIds);
+      args.add(Integer.toString(partRelationshipNames.size()));
+      args.addAll(partRelationshipNames);
+      for (ScriptValue value : changed) {
+        keys.add(value.key);
+        args.add(value.hash);
+        args.add(value.ttl);
+        args.add(value.value);
+      }
+
+      final List<Long> result = evalScript(MERGE_SCRIPT_SHA, MERGE_SCRIPT, keys, args);
+      written += result.get(0).intValue();
+      hashed += result.get(1).intValue();
+    }
+
+    if (idSet.isEmpty()) {
+      return;
+    }
+
+    AtomicInteger saddOperations = new AtomicInteger();
+    AtomicInteger pipelineOperations = new AtomicInteger();
+    final Map<String, List<String>> idsByKeyComponent = idsByKeyComponent(type, idSet);
+    if (!idsByKeyComponent.isEmpty()) {
+      redisClientDelegate.withMultiKeyPipeline(
+          pipeline -> {
+            for (Map.Entry<String, List<String>> component : idsByKeyComponent.entrySet()) {
+              for (List<String> idPart :
+                  Iterables.partition(component.getValue(), options.getMaxSaddSize())) {
+                pipeline.sadd(component.getKey(), idPart.toArray(new String[idPart.size()]));
+                saddOperations.incrementAndGet();
+              }
+            }
+            pipeline.sync();
+            pipelineOperations.incrementAndGet();
+          });
+    }
+
+    cacheMetrics.merge(
+        prefix,
+        type,
+        items.size(),
+        written,
+        relationshipNames.size(),
+        skipped,
+        hashed,
+        saddOperations.get(),
+        0,
+        0,
+        pipelineOperations.get(),
+        0);
+  }
+
+  /**
+   * Returns the values that are not hashed or whose hash differs from the stored one, comparing the
+   * hashes with {@link #CHANGED_SCRIPT}.
+   */
+  private List<ScriptValue> changedValues(String type, List<ScriptValue> values) {
+    final List<ScriptValue> changed = new ArrayList<>(values.size());
+    final List<ScriptValue> hashedValues = new ArrayList<>(values.size());
+    final List<String> args = new ArrayList<>(values.size() * 2);
+    for (ScriptValue value : values) {
+      if (value.hash.isEmpty()) {
+        changed.add(value);
+      } else {
+        hashedValues.add(value);
+        args.add(value.key);
+        args.add(value.hash);
+      }
+    }
+    if (hashedValues.isEmpty()) {
+      return changed;
+    }
+
+    for (Long position :
+        evalScript(CHANGED_SCRIPT_SHA, CHANGED_SCRIPT, List.of(hashesId(type)), args)) {
+      changed.add(hashedValues.get(position.intValue() - 1));
+    }
+    return changed;
+  }
+
+  @SuppressWarnings("unchecked")
+  private List<Long> evalScript(String sha, String script, List<String> keys, List<String> args) {
+    return (List<Long>)
+        redisClientDelegate.withScriptingClient(
+            c -> {
+              try {
+                return c.evalsha(sha, keys, args);
+              } catch (JedisNoScriptException e) {
+                return c.eval(script, keys, args);
+              }
+            });
+  }
+
+  /** A serialized value handed to {@link #MERGE_SCRIPT}, with its hash and ttl as script args. */
+  private static class ScriptValue {
+    final String key;
+    final String hash;
+    final String ttl;
+    final String value;
+
+    ScriptValue(String key, String hash, String ttl, String value) {
+      this.key = key;
+      this.hash = hash;
+      this.ttl = ttl;
+      this.value = value;
+    }
+  }
+
   @Override
   protected void evictItems(
       String type, List<String> identifiers, Collection<String> allRelationships) {
@@ -229,6 +475,16 @@ public class RedisCache extends AbstractRedisCache {
             sremOperations.incrementAndGet();
           }
 
+          for (Map.Entry<String, List<String>> component :
+              idsByKeyComponent(type, identifiers).entrySet()) {
+            for (List<String> idPartition :
+                Lists.partition(component.getValue(), options.getMaxDelSize())) {
+              pipeline.srem(
+                  component.getKey(), idPartition.toArray(new String[idPartition.size()]));
+              sremOperations.incrementAndGet();
+            }
+          }
+
           pipeline.sync();
         });
 
@@ -245,15 +501,7 @@ public class RedisCache extends AbstractRedisCache {
 
   @Override
   protected Collection<CacheData> getItems(String type, List<String> ids, List<String> knownRels) {
-    final int singleResultSize = knownRels.size() + 1;
-
-    final List<String> keysToGet = new ArrayList<>(singleResultSize * ids.size());
-    for (String id : ids) {
-      keysToGet.add(attributesId(type, id));
-      for (String rel : knownRels) {
-        keysToGet.add(relationshipId(type, id, rel));
-      }
-    }
+    final List<String> keysToGet = getItemKeys(type, ids, knownRels);
 
     final List<String> keyResult = new ArrayList<>(keysToGet.size());
 
@@ -268,6 +516,72 @@ public class RedisCache extends AbstractRedisCache {
               return ops;
             });
 
+    return extractItems(type, ids, knownRels, keysToGet, keyResult, mgetOperations);
+  }
+
+  /** Issues the MGETs of every type in a single pipeline. */
+  @Override
+  protected Map<String, Collection<CacheData>> getItems(
+      Map<String, List<String>> idsByType, Map<String, List<String>> knownRelsByType) {
+    final Map<String, List<String>> keysByType = new LinkedHashMap<>();
+    idsByType.forEach(
+        (type, ids) -> keysByType.put(type, getItemKeys(type, ids, knownRelsByType.get(type))));
+
+    final Map<String, List<Response<List<String>>>> responsesByType = new LinkedHashMap<>();
+    redisClientDelegate.withMultiKeyPipeline(
+        pipeline -> {
+          keysByType.forEach(
+              (type, keys) -> {
+                List<Response<List<String>>> responses = new ArrayList<>();
+                for (List<String> part : Lists.partition(keys, options.getMaxMgetSize())) {
+                  responses.add(pipeline.mget(part.toArray(new String[part.size()])));
+                }
+                responsesByType.put(type, responses);
+              });
+          pipeline.sync();
+        });
+
+    final Map<String, Collection<CacheData>> result = new LinkedHashMap<>();
+    responsesByType.forEach(
+        (type, responses) -> {
+          List<String> keysToGet = keysByType.get(type);
+          List<String> keyResult = new ArrayList<>(keysToGet.size());
+          for (Response<List<String>> response : responses) {
+            keyResult.addAll(response.get());
+          }
+          result.put(
+              type,
+              extractItems(
+                  type,
+                  idsByType.get(type),
+                  knownRelsByType.get(type),
+                  keysToGet,
+                  keyResult,
+                  responses.size()));
+        });
+    return result;
+  }
+
+  private List<String> getItemKeys(String type, List<String> ids, List<String> knownRels) {
+    final List<String> keysToGet = new ArrayList<>((knownRels.size() + 1) * ids.size());
+    for (String id : ids) {
+      keysToGet.add(attributesId(type, id));
+      for (String rel : knownRels) {
+        keysToGet.add(relationshipId(type, id, rel));
+      }
+    }
+    return keysToGet;
+  }
+
+  private Collection<CacheData> extractItems(
+      String type,
+      List<String> ids,
+      List<String> knownRels,
+      List<String> keysToGet,
+      List<String> keyResult,
+      int mgetOperations) {
+    final int singleResultSize = knownRels.size() + 1;
+
     if (keyResult.size() != keysToGet.size()) {
       throw new RuntimeException("Expected same size result as request");
     }
@@ -338,17 +652,8 @@ public class RedisCache extends AbstractRedisCache {
 
   private MergeOp buildMergeOp(String type, CacheData cacheData, Map<String, String> hashes) {
     int skippedWrites = 0;
-    final String serializedAttributes;
+    final String serializedAttributes = serializeAttributes(cacheData);
     boolean hasTtl = cacheData.getTtlSeconds() > 0;
-    try {
-      if (cacheData.getAttributes().isEmpty()) {
-        serializedAttributes = null;
-      } else {
-        serializedAttributes = objectMapper.writeValueAsString(cacheData.getAttributes());
-      }
-    } catch (JsonProcessingException serializationException) {
-      throw new RuntimeException("Attribute serialization failed", serializationException);
-    }
 
     final Map<String, String> hashesToSet = new HashMap<>();
     final List<String> keysToSet = new ArrayList<>((cacheData.getRelationships().size() + 1) * 2);
@@ -366,13 +671,7 @@ public class RedisCache extends AbstractRedisCache {
     if (!cacheData.getRelationships().isEmpty()) {
       for (Map.Entry<String, Collection<String>> relationship :
           cacheData.getRelationships().entrySet()) {
-        final String relationshipValue;
-        try {
-          relationshipValue =
-              objectMapper.writeValueAsString(new LinkedHashSet<>(relationship.getValue()));
-        } catch (JsonProcessingException serializationException) {
-          throw new RuntimeException("Relationship serialization failed", serializationException);
-        }
+        final String relationshipValue = serializeRelationship(relationship.getValue());
         if (hashCheck(
             hashes,
             relationshipId(type, cacheData.getId(), relationship.getKey()),
@@ -389,6 +688,29 @@ public class RedisCache extends AbstractRedisCache {
         cacheData.getRelationships().keySet(), keysToSet, hashesToSet, skippedWrites);
   }
 
+  private String serializeAttributes(CacheData cacheData) {
+    if (cacheData.getAttributes().isEmpty()) {
+      return null;
+    }
+    try {
+      return objectMapper.writeValueAsString(cacheData.getAttributes());
+    } catch (JsonProcessingException serializationException) {
+      throw new RuntimeException("Attribute serialization failed", serializationException);
+    }
+  }
+
+  private String serializeRelationship(Collection<String> relationship) {
+    try {
+      return objectMapper.writeValueAsString(new LinkedHashSet<>(relationship));
+    } catch (JsonProcessingException serializationException) {
+      throw new RuntimeException("Relationship serialization failed", serializationException);
+    }
+  }
+
+  private static String hash(String serializedValue) {
+    return Hashing.sha1().newHasher().putUnencodedChars(serializedValue).hash().toString();
+  }
+
   private List<String> getKeys(String type, Collection<CacheData> cacheDatas) {
     final Collection<String> keys = new HashSet<>();
     for (CacheData cacheData : cacheDatas) {
@@ -439,8 +761,7 @@ public class RedisCache extends AbstractRedisCache {
       Map<String, String> updatedHashes,
       boolean hasTtl) {
     if (options.isHashingEnabled() && !hasTtl) {
-      final String hash =
-          Hashing.sha1().newHasher().putUnencodedChars(serializedValue).hash().toString();
+      final String hash = hash(serializedValue);
       final String existingHash = hashes.get(id);
       if (hash.equals(existingHash)) {
         return true;
@@ -36,6 +36,9 @@ public class RedisCacheOptions {
   private final int maxGetBatchSize;
   private final boolean hashingEnabled;
   private final boolean treatRelationshipsAsSet;
+  private final boolean keyComponentIndexEnabled;
+  private final boolean serverSideMergeEnabled;
+  private final int maxMergeScriptItems;
 
   private static int posInt(String name, int value) {
     Preconditions.checkArgument(value > 0, "%s must be a positive integer (%s)", name, value);
@@ -62,6 +65,108 @@ public class RedisCacheOptions {
       int maxGetBatchSize,
       boolean hashingEnabled,
       boolean treatRelationshipsAsSet) {
+    this(
+        maxMsetSize,
+        maxMgetSize,
+        maxHmgetSize,
+        maxHmsetSize,
+        maxSaddSize,
+        maxDelSize,
+        maxPipelineSize,
+        scanSize,
+        maxMergeBatchSize,
+        maxEvictBatchSize,
+        maxGetBatchSize,
+        hashingEnabled,
+        treatRelationshipsAsSet,
+        false);
+  }
+
+  public RedisCacheOptions(
+      int maxMsetSize,
+      int maxMgetSize,
+      int maxHmgetSize,
+      int maxHmsetSize,
+      int maxSaddSize,
+      int maxDelSize,
+      int maxPipelineSize,
+      int scanSize,
+      int maxMergeBatchSize,
+      int maxEvictBatchSize,
+      int maxGetBatchSize,
+      boolean hashingEnabled,
+      boolean treatRelationshipsAsSet,
+      boolean keyComponentIndexEnabled) {
+    this(
+        maxMsetSize,
+        maxMgetSize,
+        maxHmgetSize,
+        maxHmsetSize,
+        maxSaddSize,
+        maxDelSize,
+        maxPipelineSize,
+        scanSize,
+        maxMergeBatchSize,
+        maxEvictBatchSize,
+        maxGetBatchSize,
+        hashingEnabled,
+        treatRelationshipsAsSet,
+        keyComponentIndexEnabled,
+        false);
+  }
+
+  public RedisCacheOptions(
+      int maxMsetSize,
+      int maxMgetSize,
+      int maxHmgetSize,
+      int maxHmsetSize,
+      int maxSaddSize,
+      int maxDelSize,
+      int maxPipelineSize,
+      int scanSize,
+      int maxMergeBatchSize,
+      int maxEvictBatchSize,
+      int maxGetBatchSize,
+      boolean hashingEnabled,
+      boolean treatRelationshipsAsSet,
+      boolean keyComponentIndexEnabled,
+      boolean serverSideMergeEnabled) {
+    this(
+        maxMsetSize,
+        maxMgetSize,
+        maxHmgetSize,
+        maxHmsetSize,
+        maxSaddSize,
+        maxDelSize,
+        maxPipelineSize,
+        scanSize,
+        maxMergeBatchSize,
+        maxEvictBatchSize,
+        maxGetBatchSize,
+        hashingEnabled,
+        treatRelationshipsAsSet,
+        keyComponentIndexEnabled,
+        serverSideMergeEnabled,
+        Builder.DEFAULT_MAX_MERGE_SCRIPT_ITEMS);
+  }
+
+  public RedisCacheOptions(
+      int maxMsetSize,
+      int maxMgetSize,
+      int maxHmgetSize,
+      int maxHmsetSize,
+      int maxSaddSize,
+      int maxDelSize,
+      int maxPipelineSize,
+      int scanSize,
+      int maxMergeBatchSize,
+      int maxEvictBatchSize,
+      int maxGetBatchSize,
+      boolean hashingEnabled,
+      boolean treatRelationshipsAsSet,
+      boolean keyComponentIndexEnabled,
+      boolean serverSideMergeEnabled,
+      int maxMergeScriptItems) {
     this.maxMsetSize = posEven("maxMsetSize", maxMsetSize);
     this.maxMgetSize = posInt("maxMgetSize", maxMgetSize);
     this.maxHmgetSize = posInt("maxHmgetSize", maxHmgetSize);
@@ -75,6 +180,9 @@ public class RedisCacheOptions {
     this.maxGetBatchSize = posInt("maxGetBatchSize", maxGetBatchSize);
     this.hashingEnabled = hashingEnabled;
     this.treatRelationshipsAsSet = treatRelationshipsAsSet;
+    this.keyComponentIndexEnabled = keyComponentIndexEnabled;
+    this.serverSideMergeEnabled = serverSideMergeEnabled;
+    this.maxMergeScriptItems = posInt("maxMergeScriptItems", maxMergeScriptItems);
   }
 
   public int getMaxMsetSize() {
@@ -129,6 +237,33 @@ public class RedisCacheOptions {
     return treatRelationshipsAsSet;
   }
 
+  /**
+   * Whether identifiers are also indexed by key component, see {@link
+   * com.netflix.spinnaker.cats.cache.KeyComponents}. The index is built from the existing members
+   * the first time it is needed; if it is disabled and enabled again, the {@code
+   * {prefix}:{type}:components.indexed} markers have to be deleted so that it is rebuilt.
+   */
+  public boolean isKeyComponentIndexEnabled() {
+    return keyComponentIndexEnabled;
+  }
+
+  /**
+   * Whether {@link RedisCache} merges items with a Lua script that compares hashes and writes
+   * changed values on the server, instead of reading the hashes and writing the changes from the
+   * client.
+   */
+  public boolean isServerSideMergeEnabled() {
+    return serverSideMergeEnabled;
+  }
+
+  /**
+   * The most items a single server-side merge script call covers. A merge batch is split into
+   * several calls so that one call does not block Redis for the whole batch.
+   */
+  public int getMaxMergeScriptItems() {
+    return maxMergeScriptItems;
+  }
+
   public static class Builder {
     public static final int DEFAULT_MULTI_OP_SIZE = 200;
     public static final int DEFAULT_BATCH_SIZE = 200;
@@ -136,6 +271,9 @@ public class RedisCacheOptions {
     public static final int DEFAULT_MAX_PIPELINE_SIZE = 200;
     public static final boolean DEFAULT_HASHING_ENABLED = true;
     public static final boolean DEFAULT_TREAT_RELATIONSHIPS_AS_SET_DISABLED = false;
+    public static final boolean DEFAULT_KEY_COMPONENT_INDEX_ENABLED = false;
+    public static final boolean DEFAULT_SERVER_SIDE_MERGE_ENABLED = false;
+    public static final int DEFAULT_MAX_MERGE_SCRIPT_ITEMS = 50;
 
     int maxMsetSize;
     int maxMgetSize;
@@ -150,6 +288,9 @@ public class RedisCacheOptions {
     int maxGetBatchSize;
     boolean hashingEnabled;
     boolean treatRelationshipsAsSet;
+    boolean keyComponentIndexEnabled;
+    boolean serverSideMergeEnabled;
+    int maxMergeScriptItems;
 
     public Builder() {
       batchSize(DEFAULT_BATCH_SIZE);
@@ -158,6 +299,9 @@ public class RedisCacheOptions {
       maxPipeline(DEFAULT_MAX_PIPELINE_SIZE);
       hashing(DEFAULT_HASHING_ENABLED);
       treatRelationshipsAsSet(DEFAULT_TREAT_RELATIONSHIPS_AS_SET_DISABLED);
+      keyComponentIndex(DEFAULT_KEY_COMPONENT_INDEX_ENABLED);
+      serverSideMerge(DEFAULT_SERVER_SIDE_MERGE_ENABLED);
+      maxMergeScriptItems(DEFAULT_MAX_MERGE_SCRIPT_ITEMS);
     }
 
     public Builder maxMergeBatch(int maxMergeBatch) {
@@ -241,6 +385,21 @@ public class RedisCacheOptions {
       return this;
     }
 
+    public Builder keyComponentIndex(boolean keyComponentIndexEnabled) {
+      this.keyComponentIndexEnabled = keyComponentIndexEnabled;
+      return this;
+    }
+
+    public Builder serverSideMerge(boolean serverSideMergeEnabled) {
+      this.serverSideMergeEnabled = serverSideMergeEnabled;
+      return this;
+    }
+
+    public Builder maxMergeScriptItems(int maxMergeScriptItems) {
+      this.maxMergeScriptItems = maxMergeScriptItems;
+      return this;
+    }
+
     public RedisCacheOptions build() {
       return new RedisCacheOptions(
           maxMsetSize,
@@ -255,7 +414,10 @@ public class RedisCacheOptions {
           maxEvictBatchSize,
           maxGetBatchSize,
           hashingEnabled,
-          treatRelationshipsAsSet);
+          treatRelationshipsAsSet,
+          keyComponentIndexEnabled,
+          serverSideMergeEnabled,
+          maxMergeScriptItems);
     }
 
     public void setBatchSize(int batchSize) {
@@ -369,5 +531,29 @@ public class RedisCacheOptions {
     public void setTreatRelationshipsAsSet(boolean treatRelationshipsAsSet) {
       this.treatRelationshipsAsSet = treatRelationshipsAsSet;
     }
+
+    public boolean isKeyComponentIndexEnabled() {
+      return keyComponentIndexEnabled;
+    }
+
+    public void setKeyComponentIndexEnabled(boolean keyComponentIndexEnabled) {
+      this.keyComponentIndexEnabled = keyComponentIndexEnabled;
+    }
+
+    public boolean isServerSideMergeEnabled() {
+      return serverSideMergeEnabled;
+    }
+
+    public void setServerSideMergeEnabled(boolean serverSideMergeEnabled) {
+      this.serverSideMergeEnabled = serverSideMergeEnabled;
+    }
+
+    public int getMaxMergeScriptItems() {
+      return maxMergeScriptItems;
+    }
+
+    public void setMaxMergeScriptItems(int maxMergeScriptItems) {
+      this.maxMergeScriptItems = maxMergeScriptItems;
+    }
   }
 }
@@ -0,0 +1,139 @@
+/*
+ * Copyright 2026 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.netflix.spinnaker.cats.redis.cache;
+
+import com.google.common.collect.Lists;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.BiFunction;
+import org.apache.commons.pool2.impl.GenericObjectPoolConfig;
+import redis.clients.jedis.HostAndPort;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisCluster;
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.Response;
+import redis.clients.jedis.exceptions.JedisRedirectionException;
+import redis.clients.jedis.util.JedisClusterCRC16;
+
+/**
+ * A {@link JedisCluster} that can pipeline commands over keys of many slots.
+ *
+ * <p>Redis Cluster rejects multi-key commands whose keys hash to different slots, and JedisCluster
+ * does not pipeline. {@link #pipelinePerSlot} groups keys by slot, queues the commands of every
+ * slot served by a node on one pipeline to that node, and syncs one pipeline per node. A batch is
+ * retried once against a refreshed slot map if a slot moved while it was in flight.
+ */
+public class SlotAwareJedisCluster extends JedisCluster {
+
+  private static final int REDIRECTION_ATTEMPTS = 2;
+
+  public SlotAwareJedisCluster(
+      Set<HostAndPort> nodes,
+      int timeout,
+      int maxAttempts,
+      String password,
+      GenericObjectPoolConfig<Jedis> poolConfig) {
+    super(nodes, timeout, timeout, maxAttempts, password, poolConfig);
+  }
+
+  /** @return the slot of {@code key}, honouring hash tags */
+  public static int slot(String key) {
+    return JedisClusterCRC16.getSlot(key);
+  }
+
+  /**
+   * @return a connection to the node currently serving {@code slot}, to be closed by the caller
+   */
+  public Jedis getConnectionForSlot(int slot) {
+    return connectionHandler.getConnectionFromSlot(slot);
+  }
+
+  /**
+   * Queues {@code command} for batches of up to {@code batchSize} keys sharing a slot, on one
+   * pipeline per node.
+   *
+   * @param keys the keys to operate on
+   * @param batchSize the maximum number of keys passed to a single invocation of {@code command}
+   * @param command queues the commands for a batch of keys, returning their responses
+   * @return the responses of every batch, keyed by the batch of keys they were queued for
+   */
+  public <R> Map<List<String>, List<Response<R>>> pipelinePerSlot(
+      Collection<String> keys,
+      int batchSize,
+      BiFunction<Pipeline, List<String>, List<Response<R>>> command) {
+    final Map<Integer, List<String>> keysBySlot = new TreeMap<>();
+    for (String key : keys) {
+      keysBySlot.computeIfAbsent(slot(key), s -> new ArrayList<>()).add(key);
+    }
+
+    for (int attempt = 1; ; attempt++) {
+      try {
+        return pipelinePerSlot(keysBySlot, batchSize, command);
+      } catch (JedisRedirectionException e) {
+        if (attempt >= REDIRECTION_ATTEMPTS) {
+          throw e;
+        }
+        connectionHandler.renewSlotCache();
+      }
+    }
+  }
+
+  private <R> Map<List<String>, List<Response<R>>> pipelinePerSlot(
+      Map<Integer, List<String>> keysBySlot,
+      int batchSize,
+      BiFunction<Pipeline, List<String>, List<Response<R>>> command) {
+    final Map<String, Jedis> connections = new LinkedHashMap<>();
+    final Map<String, List<List<String>>> batchesByNode = new LinkedHashMap<>();
+    try {
+      for (Map.Entry<Integer, List<String>> slot : keysBySlot.entrySet()) {
+        Jedis connection = getConnectionForSlot(slot.getKey());
+        String node =
+            connection.getClient().getHost() + ":" + connection.getClient().getPort();
+        if (connections.putIfAbsent(node, connection) != null) {
+          connection.close();
+        }
+        batchesByNode
+            .computeIfAbsent(node, n -> new ArrayList<>())
+            .addAll(Lists.partition(slot.getValue(), batchSize));
+      }
+
+      final Map<List<String>, List<Response<R>>> responses = new LinkedHashMap<>();
+      for (Map.Entry<String, List<List<String>>> node : batchesByNode.entrySet()) {
+        Pipeline pipeline = connections.get(node.getKey()).pipelined();
+        for (List<String> batch : node.getValue()) {
+          responses.put(batch, command.apply(pipeline, batch));
+        }
+        pipeline.sync();
+      }
+
+      // surfaces MOVED and ASK replies, which pipelines only report when a response is read
+      for (List<Response<R>> batchResponses : responses.values()) {
+        for (Response<R> response : batchResponses) {
+          response.get();
+        }
+      }
+      return responses;
+    } finally {
+      connections.values().forEach(Jedis::close);
+    }
+  }
+}
@@ -18,6 +18,7 @@ package com.netflix.spinnaker.cats.redis.cluster;
 
 import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.netflix.spinnaker.cats.agent.Agent;
+import com.netflix.spinnaker.cats.cluster.ConsistentHashRing;
 import com.netflix.spinnaker.cats.cluster.NodeIdentity;
 import com.netflix.spinnaker.cats.cluster.ShardingFilter;
 import com.netflix.spinnaker.kork.dynamicconfig.DynamicConfigService;
@@ -25,6 +26,7 @@ import com.netflix.spinnaker.kork.jedis.RedisClientDelegate;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.Objects;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
@@ -40,9 +42,10 @@ public class CachingPodsObserver implements ShardingFilter, Runnable {
       "com.netflix.spinnaker.clouddriver.core.provider.CoreProvider";
   private final RedisClientDelegate redisClientDelegate;
   private final NodeIdentity nodeIdentity;
+  private final DynamicConfigService dynamicConfigService;
   private final long replicaKeyTtl;
-  private int podCount = 0;
-  private int podIndex = -1;
+  private volatile ConsistentHashRing ring;
+  private List<Object> ringConfig;
   // this script adds or updates a unique id as a member of a sorted set with score equal to current
   // time plus sharding.replica-key-ttl-seconds, deletes the members having scores less than current
   // time(ms) and finally fetches list of all members of the sorted set which represent the live
@@ -58,6 +61,7 @@ public class CachingPodsObserver implements ShardingFilter, Runnable {
       DynamicConfigService dynamicConfigService) {
     this.redisClientDelegate = redisClientDelegate;
     this.nodeIdentity = nodeIdentity;
+    this.dynamicConfigService = dynamicConfigService;
     long observerIntervalSeconds =
         dynamicConfigService.getConfig(
             Integer.class, "cache-sharding.heartbeat-interval-seconds", 30);
@@ -95,23 +99,46 @@ public class CachingPodsObserver implements ShardingFilter, Runnable {
                   Collections.singletonList(REPLICA_SSET_KEY),
                   Arrays.asList(expiry, nodeIdentity.getNodeIdentity(), now));
             });
-    if (evalResponse instanceof List) {
-      List<String> replicaList = (List) evalResponse;
-      podCount = replicaList.size();
-      podIndex =
-          replicaList.stream()
-              .sorted()
-              .collect(Collectors.toList())
-              .indexOf(nodeIdentity.getNodeIdentity());
-      logger.debug("caching pods = {} and this pod's index = {}", podCount, podIndex);
-    } else {
+    if (!(evalResponse instanceof List)) {
       logger.error("Something is wrong, please check if the eval script and params are valid");
+      return;
     }
 
-    if (podCount == 0 || podIndex == -1) {
+    List<String> replicaList = (List) evalResponse;
+    if (!replicaList.contains(nodeIdentity.getNodeIdentity())) {
       logger.error(
           "No caching pod heartbeat records detected. Sharding logic can't be applied!!!!");
+      return;
     }
+
+    // the ring is only rebuilt when membership or its configuration changes
+    int virtualNodes =
+        dynamicConfigService.getConfig(
+            Integer.class,
+            "cache-sharding.virtual-nodes",
+            ConsistentHashRing.DEFAULT_VIRTUAL_NODES);
+    double loadFactor =
+        dynamicConfigService.getConfig(
+            Double.class, "cache-sharding.load-factor", ConsistentHashRing.DEFAULT_LOAD_FACTOR);
+    String weights =
+        dynamicConfigService.getConfig(String.class, "cache-sharding.account-weights", "");
+    List<Object> config = Arrays.asList(virtualNodes, loadFactor, weights);
+
+    List<String> members = replicaList.stream().sorted().distinct().collect(Collectors.toList());
+    ConsistentHashRing current = ring;
+    if (current == null
+        || !current.getMembers().equals(members)
+        || !Objects.equals(ringConfig, config)) {
+      ring =
+          new ConsistentHashRing(
+              replicaList, virtualNodes, ConsistentHashRing.parseWeights(weights), loadFactor);
+      ringConfig = config;
+      logger.info("Caching pods changed, sharding accounts across {} pods", replicaList.size());
+    }
+    logger.debug(
+        "caching pods = {} and this pod = {}",
+        replicaList.size(),
+        nodeIdentity.getNodeIdentity());
   }
 
   @Override
@@ -119,8 +146,13 @@ public class CachingPodsObserver implements ShardingFilter, Runnable {
     if (agent.getProviderName().equals(CORE_PROVIDER)) {
       return true;
     }
-    return podCount == 1
-        || Math.abs(getAccountName(agent.getAgentType()).hashCode() % podCount) == podIndex;
+    ConsistentHashRing ring = this.ring;
+    if (ring == null) {
+      return false;
+    }
+    return ring.getMembers().size() == 1
+        || ring.ownerOf(getAccountName(agent.getAgentType()))
+            .equals(nodeIdentity.getNodeIdentity());
   }
 
   private String getAccountName(String agentType) {
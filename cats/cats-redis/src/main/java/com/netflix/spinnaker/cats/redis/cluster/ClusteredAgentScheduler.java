@@ -28,6 +28,7 @@ import com.netflix.spinnaker.cats.agent.ExecutionInstrumentation;
 import com.netflix.spinnaker.cats.cluster.AgentIntervalProvider;
 import com.netflix.spinnaker.cats.cluster.NodeIdentity;
 import com.netflix.spinnaker.cats.cluster.NodeStatusProvider;
+import com.netflix.spinnaker.cats.cluster.PrioritizedAgentExecutor;
 import com.netflix.spinnaker.cats.cluster.ShardingFilter;
 import com.netflix.spinnaker.cats.module.CatsModuleAware;
 import com.netflix.spinnaker.kork.dynamicconfig.DynamicConfigService;
@@ -74,6 +75,9 @@ public class ClusteredAgentScheduler extends CatsModuleAware
   private final DynamicConfigService dynamicConfigService;
   private final ShardingFilter shardingFilter;
 
+  /** when set, picks the agents to run by priority and deadline and runs them on its lanes */
+  private final PrioritizedAgentExecutor prioritizedExecutor;
+
   private static final long MIN_TTL_THRESHOLD = 500L;
   private static final String SET_IF_NOT_EXIST = "NX";
   private static final String SET_EXPIRE_TIME_MILLIS = "PX";
@@ -97,6 +101,28 @@ public class ClusteredAgentScheduler extends CatsModuleAware
       Integer agentLockAcquisitionIntervalSeconds,
       DynamicConfigService dynamicConfigService,
       ShardingFilter shardingFilter) {
+    this(
+        redisClientDelegate,
+        nodeIdentity,
+        intervalProvider,
+        nodeStatusProvider,
+        enabledAgentPattern,
+        agentLockAcquisitionIntervalSeconds,
+        dynamicConfigService,
+        shardingFilter,
+        null);
+  }
+
+  public ClusteredAgentScheduler(
+      RedisClientDelegate redisClientDelegate,
+      NodeIdentity nodeIdentity,
+      AgentIntervalProvider intervalProvider,
+      NodeStatusProvider nodeStatusProvider,
+      String enabledAgentPattern,
+      Integer agentLockAcquisitionIntervalSeconds,
+      DynamicConfigService dynamicConfigService,
+      ShardingFilter shardingFilter,
+      PrioritizedAgentExecutor prioritizedExecutor) {
     this(
         redisClientDelegate,
         nodeIdentity,
@@ -113,7 +139,8 @@ public class ClusteredAgentScheduler extends CatsModuleAware
         enabledAgentPattern,
         agentLockAcquisitionIntervalSeconds,
         dynamicConfigService,
-        shardingFilter);
+        shardingFilter,
+        prioritizedExecutor);
   }
 
   public ClusteredAgentScheduler(
@@ -127,6 +154,32 @@ public class ClusteredAgentScheduler extends CatsModuleAware
       Integer agentLockAcquisitionIntervalSeconds,
       DynamicConfigService dynamicConfigService,
       ShardingFilter shardingFilter) {
+    this(
+        redisClientDelegate,
+        nodeIdentity,
+        intervalProvider,
+        nodeStatusProvider,
+        lockPollingScheduler,
+        agentExecutionPool,
+        enabledAgentPattern,
+        agentLockAcquisitionIntervalSeconds,
+        dynamicConfigService,
+        shardingFilter,
+        null);
+  }
+
+  public ClusteredAgentScheduler(
+      RedisClientDelegate redisClientDelegate,
+      NodeIdentity nodeIdentity,
+      AgentIntervalProvider intervalProvider,
+      NodeStatusProvider nodeStatusProvider,
+      ScheduledExecutorService lockPollingScheduler,
+      ExecutorService agentExecutionPool,
+      String enabledAgentPattern,
+      Integer agentLockAcquisitionIntervalSeconds,
+      DynamicConfigService dynamicConfigService,
+      ShardingFilter shardingFilter,
+      PrioritizedAgentExecutor prioritizedExecutor) {
     this.redisClientDelegate = redisClientDelegate;
     this.nodeIdentity = nodeIdentity;
     this.intervalProvider = intervalProvider;
@@ -135,6 +188,7 @@ public class ClusteredAgentScheduler extends CatsModuleAware
     this.enabledAgentPattern = Pattern.compile(enabledAgentPattern);
     this.dynamicConfigService = dynamicConfigService;
     this.shardingFilter = shardingFilter;
+    this.prioritizedExecutor = prioritizedExecutor;
     Integer lockInterval =
         agentLockAcquisitionIntervalSeconds == null ? 1 : agentLockAcquisitionIntervalSeconds;
 
@@ -155,13 +209,22 @@ public class ClusteredAgentScheduler extends CatsModuleAware
       return Collections.emptyMap();
     }
     Map<String, NextAttempt> acquired = new HashMap<>(agents.size());
-    // Shuffle the list before grabbing so that we don't favor some agents accidentally
-    List<Map.Entry<String, AgentExecutionAction>> agentsEntrySet =
-        new ArrayList<>(agents.entrySet());
-    Collections.shuffle(agentsEntrySet);
+    List<Map.Entry<String, AgentExecutionAction>> agentsEntrySet;
+    if (prioritizedExecutor == null) {
+      // Shuffle the list before grabbing so that we don't favor some agents accidentally
+      agentsEntrySet = new ArrayList<>(agents.entrySet());
+      Collections.shuffle(agentsEntrySet);
+    } else {
+      agentsEntrySet = prioritizedCandidates(skip);
+    }
+    Set<String> attempted = new HashSet<>();
     for (Map.Entry<String, AgentExecutionAction> agent : agentsEntrySet) {
+      if (acquired.size() >= availableAgents) {
+        break;
+      }
       if (shardingFilter.filter(agent.getValue().getAgent()) && !skip.contains(agent.getKey())) {
         final String agentType = agent.getKey();
+        attempted.add(agentType);
         AgentIntervalProvider.Interval interval =
             intervalProvider.getInterval(agent.getValue().getAgent());
         if (acquireRunKey(agentType, interval.getTimeout())) {
@@ -172,15 +235,69 @@ public class ClusteredAgentScheduler extends CatsModuleAware
                   interval.getInterval(),
                   interval.getErrorInterval(),
                   interval.getTimeout()));
+        } else if (prioritizedExecutor != null) {
+          observeLock(agentType);
         }
       }
-      if (acquired.size() >= availableAgents) {
-        return acquired;
-      }
+    }
+    if (prioritizedExecutor != null) {
+      // Agents that were not tried this time may be kept fresh by another node
+      agents.keySet().stream()
+          .filter(agentType -> !attempted.contains(agentType) && !skip.contains(agentType))
+          .filter(agentType -> prioritizedExecutor.getStalenessMs(agentType) > 0)
+          .forEach(this::observeLock);
     }
     return acquired;
   }
 
+  /** Registers the agents this node may run with the prioritized executor, and only those. */
+  private void trackOwnedAgents() {
+    agents.forEach(
+        (agentType, action) -> {
+          if (shardingFilter.filter(action.getAgent())) {
+            prioritizedExecutor.register(action.getAgent());
+          } else {
+            prioritizedExecutor.unregister(agentType);
+          }
+        });
+  }
+
+  /** Moves the deadline of an agent whose lock is held, by this or another node, to its expiry. */
+  private void observeLock(String agentType) {
+    Long ttl = redisClientDelegate.withCommandsClient(client -> client.pttl(agentType));
+    if (ttl != null && ttl > 0) {
+      prioritizedExecutor.lockHeldUntil(agentType, System.currentTimeMillis() + ttl);
+    }
+  }
+
+  /**
+   * Orders the agents that may run by priority and deadline. Locks held by other nodes are only
+   * discovered while acquiring, so candidates are only limited by the free capacity of each lane,
+   * not by the number of agents that may still run.
+   */
+  private List<Map.Entry<String, AgentExecutionAction>> prioritizedCandidates(Set<String> skip) {
+    trackOwnedAgents();
+    Map<String, AgentExecutionAction> candidates = new HashMap<>();
+    agents.forEach(
+        (agentType, action) -> {
+          if (!skip.contains(agentType) && prioritizedExecutor.isRegistered(agentType)) {
+            candidates.put(agentType, action);
+          }
+        });
+
+    List<Agent> selected =
+        prioritizedExecutor.select(
+            candidates.values().stream()
+                .map(AgentExecutionAction::getAgent)
+                .collect(Collectors.toList()),
+            Integer.MAX_VALUE);
+    List<Map.Entry<String, AgentExecutionAction>> ordered = new ArrayList<>(selected.size());
+    for (Agent agent : selected) {
+      ordered.add(Map.entry(agent.getAgentType(), candidates.get(agent.getAgentType())));
+    }
+    return ordered;
+  }
+
   @Override
   public void run() {
     if (!nodeStatusProvider.isNodeEnabled()) {
@@ -246,7 +363,12 @@ public class ClusteredAgentScheduler extends CatsModuleAware
         activeAgents.size());
     for (final Map.Entry<String, NextAttempt> toRun : thisRun.entrySet()) {
       final AgentExecutionAction exec = agents.get(toRun.getKey());
-      agentExecutionPool.submit(new AgentJob(toRun.getValue(), exec, this));
+      final AgentJob job = new AgentJob(toRun.getValue(), exec, this);
+      if (prioritizedExecutor == null) {
+        agentExecutionPool.submit(job);
+      } else {
+        prioritizedExecutor.submit(exec.getAgent(), () -> job.execute() == Status.SUCCESS);
+      }
     }
   }
 
@@ -332,6 +454,9 @@ public class ClusteredAgentScheduler extends CatsModuleAware
     AgentExecutionAction agentExecutionAction =
         new AgentExecutionAction(agent, agentExecution, executionInstrumentation);
     agents.put(agent.getAgentType(), agentExecutionAction);
+    if (prioritizedExecutor != null && shardingFilter.filter(agent)) {
+      prioritizedExecutor.register(agent);
+    }
   }
 
   /**
@@ -361,6 +486,9 @@ public class ClusteredAgentScheduler extends CatsModuleAware
       agents.remove(agent.getAgentType());
       // explicitly remove it from the active agents map
       activeAgents.remove(agent.getAgentType());
+      if (prioritizedExecutor != null) {
+        prioritizedExecutor.unregister(agent.getAgentType());
+      }
     }
   }
 
@@ -400,6 +528,10 @@ public class ClusteredAgentScheduler extends CatsModuleAware
 
     @Override
     public void run() {
+      execute();
+    }
+
+    Status execute() {
       Status status = Status.FAILURE;
       try {
         status = action.execute();
@@ -407,6 +539,7 @@ public class ClusteredAgentScheduler extends CatsModuleAware
         scheduler.agentCompleted(
             action.getAgent().getAgentType(), lockReleaseTime.getNextTime(status));
       }
+      return status;
     }
   }
 
@@ -42,6 +42,7 @@ import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import redis.clients.jedis.Jedis;
@@ -65,7 +66,9 @@ public class ClusteredSortAgentScheduler extends CatsModuleAware
     FAILURE
   }
 
-  private final JedisPool jedisPool;
+  private final Supplier<Jedis> connections;
+  private final String waitingSet;
+  private final String workingSet;
   private final NodeStatusProvider nodeStatusProvider;
   private final AgentIntervalProvider intervalProvider;
   private final ExecutorService agentWorkPool;
@@ -95,7 +98,25 @@ public class ClusteredSortAgentScheduler extends CatsModuleAware
       NodeStatusProvider nodeStatusProvider,
       AgentIntervalProvider intervalProvider,
       Integer parallelism) {
-    this.jedisPool = jedisPool;
+    this(jedisPool::getResource, "", nodeStatusProvider, intervalProvider, parallelism);
+  }
+
+  /**
+   * @param connections supplies connections to the Redis node holding the scheduler's sets, which
+   *     are closed after use
+   * @param keyPrefix prefixes the names of the waiting and working sets. Against a Redis Cluster
+   *     it should be a hash tag such as {@code {agents}:}, so that both sets share a slot and the
+   *     scripts moving agents between them can run
+   */
+  public ClusteredSortAgentScheduler(
+      Supplier<Jedis> connections,
+      String keyPrefix,
+      NodeStatusProvider nodeStatusProvider,
+      AgentIntervalProvider intervalProvider,
+      Integer parallelism) {
+    this.connections = connections;
+    this.waitingSet = keyPrefix + WAITING_SET;
+    this.workingSet = keyPrefix + WORKING_SET;
     this.nodeStatusProvider = nodeStatusProvider;
     this.agents = new ConcurrentHashMap<>();
     this.intervalProvider = intervalProvider;
@@ -126,7 +147,7 @@ public class ClusteredSortAgentScheduler extends CatsModuleAware
   }
 
   private void storeScripts() {
-    try (Jedis jedis = jedisPool.getResource()) {
+    try (Jedis jedis = connections.get()) {
       // When we switch an agent from one set to another, we first make sure it exists in the set we
       // are removing it
       // from, and then we perform the swap. If this check fails, the thread performing the swap
@@ -219,12 +240,12 @@ public class ClusteredSortAgentScheduler extends CatsModuleAware
         agent.getAgentType(),
         new AgentWorker(
             agent, (CachingAgent.CacheExecution) agentExecution, executionInstrumentation, this));
-    try (Jedis jedis = jedisPool.getResource()) {
+    try (Jedis jedis = connections.get()) {
       jedis.evalsha(
           getScriptSha(ADD_AGENT_SCRIPT, jedis),
           2,
-          WAITING_SET,
-          WORKING_SET,
+          waitingSet,
+          workingSet,
           agent.getAgentType(),
           score(jedis, NOW));
     }
@@ -248,11 +269,11 @@ public class ClusteredSortAgentScheduler extends CatsModuleAware
 
   @Override
   public boolean lockValid(ClusteredSortAgentLock lock) {
-    try (Jedis jedis = jedisPool.getResource()) {
+    try (Jedis jedis = connections.get()) {
       return jedis.evalsha(
               getScriptSha(VALID_SCORE_SCRIPT, jedis),
               1,
-              WORKING_SET,
+              workingSet,
               lock.getAgent().getAgentType(),
               lock.getAcquireScore())
           != null;
@@ -261,12 +282,12 @@ public class ClusteredSortAgentScheduler extends CatsModuleAware
 
   public void unschedule(Agent agent) {
     agents.remove(agent.getAgentType());
-    try (Jedis jedis = jedisPool.getResource()) {
+    try (Jedis jedis = connections.get()) {
       jedis.evalsha(
           getScriptSha(REMOVE_AGENT_SCRIPT, jedis),
           2,
-          WAITING_SET,
-          WORKING_SET,
+          waitingSet,
+          workingSet,
           agent.getAgentType());
     }
   }
@@ -300,13 +321,13 @@ public class ClusteredSortAgentScheduler extends CatsModuleAware
   }
 
   private String agentScore(Agent agent) {
-    try (Jedis jedis = jedisPool.getResource()) {
-      Double score = jedis.zscore(WORKING_SET, agent.getAgentType());
+    try (Jedis jedis = connections.get()) {
+      Double score = jedis.zscore(workingSet, agent.getAgentType());
       if (score != null) {
         return score.toString();
       }
 
-      score = jedis.zscore(WAITING_SET, agent.getAgentType());
+      score = jedis.zscore(waitingSet, agent.getAgentType());
       if (score != null) {
         return score.toString();
       }
@@ -316,12 +337,12 @@ public class ClusteredSortAgentScheduler extends CatsModuleAware
   }
 
   private ScoreTuple acquireAgent(Agent agent) {
-    try (Jedis jedis = jedisPool.getResource()) {
+    try (Jedis jedis = connections.get()) {
       String acquireScore = score(jedis, intervalProvider.getInterval(agent).getTimeout());
       Object releaseScore =
           jedis.evalsha(
               getScriptSha(SWAP_SET_SCRIPT, jedis),
-              Arrays.asList(WAITING_SET, WORKING_SET),
+              Arrays.asList(waitingSet, workingSet),
               Arrays.asList(agent.getAgentType(), acquireScore));
 
       return releaseScore != null ? new ScoreTuple(acquireScore, releaseScore.toString()) : null;
@@ -329,7 +350,7 @@ public class ClusteredSortAgentScheduler extends CatsModuleAware
   }
 
   private ScoreTuple conditionalReleaseAgent(Agent agent, String acquireScore, Status status) {
-    try (Jedis jedis = jedisPool.getResource()) {
+    try (Jedis jedis = connections.get()) {
       long newInterval =
           status == Status.SUCCESS
               ? intervalProvider.getInterval(agent).getInterval()
@@ -338,7 +359,7 @@ public class ClusteredSortAgentScheduler extends CatsModuleAware
       Object releaseScore =
           jedis.evalsha(
               getScriptSha(CONDITIONAL_SWAP_SET_SCRIPT, jedis),
-              Arrays.asList(WORKING_SET, WAITING_SET),
+              Arrays.asList(workingSet, waitingSet),
               Arrays.asList(agent.getAgentType(), newAcquireScore, acquireScore));
 
       return releaseScore != null ? new ScoreTuple(newAcquireScore, releaseScore.toString()) : null;
@@ -347,12 +368,12 @@ public class ClusteredSortAgentScheduler extends CatsModuleAware
 
   private ScoreTuple conditionalReleaseAgent(
       Agent agent, String acquireScore, String newAcquireScore) {
-    try (Jedis jedis = jedisPool.getResource()) {
+    try (Jedis jedis = connections.get()) {
       Object releaseScore =
           jedis
               .evalsha(
                   getScriptSha(CONDITIONAL_SWAP_SET_SCRIPT, jedis),
-                  Arrays.asList(WORKING_SET, WAITING_SET),
+                  Arrays.asList(workingSet, waitingSet),
                   Arrays.asList(agent.getAgentType(), newAcquireScore, acquireScore))
               .toString();
 
@@ -361,13 +382,13 @@ public class ClusteredSortAgentScheduler extends CatsModuleAware
   }
 
   private ScoreTuple releaseAgent(Agent agent) {
-    try (Jedis jedis = jedisPool.getResource()) {
+    try (Jedis jedis = connections.get()) {
       String acquireScore = score(jedis, intervalProvider.getInterval(agent).getInterval());
       Object releaseScore =
           jedis
               .evalsha(
                   getScriptSha(SWAP_SET_SCRIPT, jedis),
-                  Arrays.asList(WORKING_SET, WAITING_SET),
+                  Arrays.asList(workingSet, waitingSet),
                   Arrays.asList(agent.getAgentType(), acquireScore))
               .toString();
 
@@ -377,7 +398,7 @@ public class ClusteredSortAgentScheduler extends CatsModuleAware
 
   @VisibleForTesting
   void saturatePool() {
-    try (Jedis jedis = jedisPool.getResource()) {
+    try (Jedis jedis = connections.get()) {
       // Occasionally repopulate the agents in case redis went down. If they already exist, this is
       // a NOOP
       if (runCount % REDIS_REFRESH_PERIOD == 0) {
@@ -385,15 +406,15 @@ public class ClusteredSortAgentScheduler extends CatsModuleAware
           jedis.evalsha(
               getScriptSha(ADD_AGENT_SCRIPT, jedis),
               2,
-              WAITING_SET,
-              WORKING_SET,
+              waitingSet,
+              workingSet,
               agent,
               score(jedis, NOW));
         }
       }
 
       // First cull threads in the WORKING set that have been there too long (TIMEOUT time).
-      Set<String> oldKeys = jedis.zrangeByScore(WORKING_SET, "-inf", score(jedis, NOW));
+      Set<String> oldKeys = jedis.zrangeByScore(workingSet, "-inf", score(jedis, NOW));
       for (String key : oldKeys) {
         // Ignore result, since if this agent was released between now and the above jedis call, our
         // work was done
@@ -406,7 +427,7 @@ public class ClusteredSortAgentScheduler extends CatsModuleAware
 
       // Now look for agents that have been in the queue for at least INTERVAL time.
       List<String> keys = new ArrayList<>();
-      keys.addAll(jedis.zrangeByScore(WAITING_SET, "-inf", score(jedis, NOW)));
+      keys.addAll(jedis.zrangeByScore(waitingSet, "-inf", score(jedis, NOW)));
       Set<AgentWorker> workers = new HashSet<>();
 
       // Loop until we either run out of threads to use, or agents (which are keys) to run.
@@ -0,0 +1,59 @@
+/*
+ * Copyright 2026 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.netflix.spinnaker.cats.redis.cache
+
+import com.fasterxml.jackson.databind.ObjectMapper
+import spock.lang.Specification
+import spock.lang.Subject
+import spock.lang.Unroll
+
+class ClusterRedisCacheKeysSpec extends Specification {
+
+  @Subject
+  ClusterRedisCache cache = new ClusterRedisCache('test', null, new ObjectMapper(), RedisCacheOptions.builder().build(), null)
+
+  @Unroll
+  def "keys for #type:#id share a slot"() {
+    expect:
+    SlotAwareJedisCluster.slot(cache.attributesId(type, id)) == SlotAwareJedisCluster.slot(cache.relationshipId(type, id, 'instances'))
+    SlotAwareJedisCluster.slot(cache.allOfTypeId(type)) == SlotAwareJedisCluster.slot(cache.allRelationshipsId(type))
+
+    where:
+    type             | id
+    'serverGroups'   | 'aws:serverGroups:app-main:test:us-east-1:app-main-v001'
+    'instances'      | 'aws:instances:test:us-east-1:i-1234'
+    'loadBalancers'  | 'lb-1'
+  }
+
+  def "items of a type are spread across slots"() {
+    given:
+    def slots = (1..100).collect { SlotAwareJedisCluster.slot(cache.attributesId('instances', "i-$it")) } as Set
+
+    expect:
+    slots.size() > 1
+  }
+
+  def "hashes of a type are spread across slots"() {
+    given:
+    def slots = (1..100).collect {
+      SlotAwareJedisCluster.slot(cache.hashesId('instances', cache.attributesId('instances', "i-$it")))
+    } as Set
+
+    expect:
+    slots.size() > 1
+  }
+}
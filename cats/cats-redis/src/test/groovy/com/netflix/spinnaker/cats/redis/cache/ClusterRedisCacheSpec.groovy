@@ -0,0 +1,99 @@
+/*
+ * Copyright 2026 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.netflix.spinnaker.cats.redis.cache
+
+import com.fasterxml.jackson.annotation.JsonInclude
+import com.fasterxml.jackson.databind.ObjectMapper
+import com.netflix.spinnaker.cats.cache.Cache
+import com.netflix.spinnaker.cats.cache.WriteableCacheSpec
+import org.apache.commons.pool2.impl.GenericObjectPoolConfig
+import org.testcontainers.DockerClientFactory
+import org.testcontainers.containers.FixedHostPortGenericContainer
+import org.testcontainers.containers.wait.strategy.Wait
+import redis.clients.jedis.HostAndPort
+import redis.clients.jedis.Jedis
+import redis.clients.jedis.JedisPool
+import spock.lang.AutoCleanup
+import spock.lang.Requires
+import spock.lang.Shared
+
+/** Runs the cache contract against a three master, three replica Redis Cluster. */
+@Requires({ DockerClientFactory.instance().isDockerAvailable() })
+class ClusterRedisCacheSpec extends WriteableCacheSpec {
+  static int MAX_MSET_SIZE = 2
+  static int MAX_MERGE_COUNT = 1
+
+  @Shared
+  @AutoCleanup("stop")
+  FixedHostPortGenericContainer redisCluster
+
+  @Shared
+  @AutoCleanup
+  SlotAwareJedisCluster cluster
+
+  @Override
+  Cache getSubject() {
+    if (!redisCluster) {
+      // the nodes announce 0.0.0.0 to clients, so each one must be reachable on the same port here
+      redisCluster = new FixedHostPortGenericContainer("grokzen/redis-cluster:6.2.14")
+      (7000..7005).each { redisCluster.withFixedExposedPort(it, it) }
+      redisCluster
+        .withEnv("IP", "0.0.0.0")
+        .waitingFor(Wait.forLogMessage(".*Cluster state changed: ok.*\\n", 6))
+        .start()
+      cluster = new SlotAwareJedisCluster(
+        [new HostAndPort("localhost", 7000)] as Set, 2000, 5, null, new GenericObjectPoolConfig<Jedis>())
+    }
+    cluster.clusterNodes.values().each { JedisPool pool ->
+      pool.resource.withCloseable { Jedis jedis ->
+        if (jedis.info("replication").contains("role:master")) {
+          jedis.flushAll()
+        }
+      }
+    }
+
+    def mapper = new ObjectMapper()
+    mapper.setSerializationInclusion(JsonInclude.Include.NON_NULL)
+
+    return new ClusterRedisCache(
+      'test',
+      cluster,
+      mapper,
+      RedisCacheOptions.builder().maxMset(MAX_MSET_SIZE).maxMergeBatch(MAX_MERGE_COUNT).build(),
+      null)
+  }
+
+  def 'merges and evicts items spread across every node'() {
+    given:
+    def ids = (1..50).collect { "aws:instances:test:us-east-1:i-$it".toString() }
+
+    when:
+    cache.mergeAll('instances', ids.collect { createData(it, [id: it], [serverGroups: ["sg-$it".toString()]]) })
+
+    then:
+    cache.getIdentifiers('instances') as Set == ids as Set
+    cache.getAll('instances', ids).collect { it.relationships.serverGroups[0] } as Set ==
+      ids.collect { "sg-$it".toString() } as Set
+
+    when:
+    cache.evictAll('instances', ids.take(25))
+
+    then:
+    cache.getIdentifiers('instances') as Set == ids.drop(25) as Set
+    cache.existingIdentifiers('instances', ids) as Set == ids.drop(25) as Set
+  }
+}
@@ -0,0 +1,166 @@
+/*
+ * Copyright 2026 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.netflix.spinnaker.cats.redis.cache
+
+import com.fasterxml.jackson.annotation.JsonInclude
+import com.fasterxml.jackson.databind.ObjectMapper
+import com.netflix.spinnaker.cats.cache.Cache
+import com.netflix.spinnaker.cats.cache.DefaultCacheData
+import com.netflix.spinnaker.cats.cache.WriteableCacheSpec
+import com.netflix.spinnaker.cats.redis.cache.RedisCache.CacheMetrics
+import com.netflix.spinnaker.kork.jedis.EmbeddedRedis
+import com.netflix.spinnaker.kork.jedis.JedisClientDelegate
+import redis.clients.jedis.Jedis
+import redis.clients.jedis.JedisPool
+import spock.lang.AutoCleanup
+import spock.lang.Shared
+
+class RedisCacheServerSideMergeSpec extends WriteableCacheSpec {
+
+  CacheMetrics cacheMetrics = Mock()
+
+  JedisPool pool
+
+  @Shared
+  @AutoCleanup("destroy")
+  EmbeddedRedis embeddedRedis
+
+  @Override
+  Cache getSubject() {
+    if (!embeddedRedis) {
+      embeddedRedis = EmbeddedRedis.embed()
+    }
+    pool = embeddedRedis.pool as JedisPool
+    withJedis { it.flushAll() }
+
+    def mapper = new ObjectMapper()
+    mapper.setSerializationInclusion(JsonInclude.Include.NON_NULL)
+
+    return new RedisCache('test', new JedisClientDelegate(pool), mapper, RedisCacheOptions.builder().maxMergeBatch(2).serverSideMerge(true).build(), cacheMetrics)
+  }
+
+  def 'should only write changed values'() {
+    setup:
+    def data = createData('blerp', [a: 'b'], [rel: ['rel:1']])
+
+    when:
+    cache.merge('foo', data)
+
+    then:
+    1 * cacheMetrics.merge('test', 'foo', 1, 2, 1, 0, 2, 0, 0, 0, 0, 0)
+    withJedis { it.smembers('test:foo:members') } == ['blerp'] as Set
+    withJedis { it.smembers('test:foo:relationships') } == ['rel'] as Set
+
+    when:
+    cache.merge('foo', data)
+
+    then:
+    1 * cacheMetrics.merge('test', 'foo', 1, 0, 1, 2, 0, 0, 0, 0, 0, 0)
+
+    when:
+    cache.merge('foo', createData('blerp', [a: 'c'], [rel: ['rel:1']]))
+
+    then:
+    1 * cacheMetrics.merge('test', 'foo', 1, 1, 1, 1, 1, 0, 0, 0, 0, 0)
+    cache.get('foo', 'blerp').attributes == [a: 'c']
+  }
+
+  def 'should only send the hashes of unchanged values'() {
+    setup:
+    def data = createData('blerp', [a: 'b'], [rel: ['rel:1']])
+    cache.merge('foo', data)
+    withJedis { it.configResetStat() }
+
+    when:
+    cache.merge('foo', data)
+
+    then:
+    withJedis { it.info('commandstats') } =~ /cmdstat_evalsha:calls=1,/
+    !(withJedis { it.info('commandstats') } =~ /cmdstat_set:/)
+  }
+
+  def 'should add items without values to the members set'() {
+    when:
+    cache.merge('foo', createData('blerp', [:]))
+
+    then:
+    1 * cacheMetrics.merge('test', 'foo', 1, 0, 0, 0, 0, 0, 0, 0, 0, 0)
+    withJedis { it.smembers('test:foo:members') } == ['blerp'] as Set
+  }
+
+  def 'should rewrite values when hashes are disabled for a type'() {
+    setup:
+    def data = createData('blerp', [a: 'b'])
+    cache.merge('foo', data)
+    withJedis { it.set('test:foo:hashes.disabled', 'true') }
+
+    when:
+    cache.merge('foo', data)
+
+    then:
+    1 * cacheMetrics.merge('test', 'foo', 1, 1, 0, 0, 1, 0, 0, 0, 0, 0)
+  }
+
+  def 'should expire values with a ttl without hashing them'() {
+    when:
+    cache.merge('foo', new DefaultCacheData('ttl', 60, [a: 'b'], [:]))
+
+    then:
+    1 * cacheMetrics.merge('test', 'foo', 1, 1, 0, 0, 0, 0, 0, 0, 0, 0)
+    withJedis { it.ttl('test:foo:attributes:ttl') } > 0
+    !withJedis { it.hexists('test:foo:hashes', 'test:foo:attributes:ttl') }
+  }
+
+  def 'should split a merge batch into bounded script calls'() {
+    setup:
+    def mapper = new ObjectMapper()
+    def options = RedisCacheOptions.builder().maxMergeBatch(10).maxMergeScriptItems(2).serverSideMerge(true).build()
+    def redisCache = new RedisCache('test', new JedisClientDelegate(pool), mapper, options, cacheMetrics)
+    redisCache.merge('foo', createData('primer'))
+    withJedis { it.configResetStat() }
+
+    when:
+    redisCache.mergeAll('foo', (1..5).collect { createData("blerp$it", [a: it]) })
+
+    then:
+    1 * cacheMetrics.merge('test', 'foo', 5, 5, 0, 0, 5, 0, 0, 0, 0, 0)
+    // one hash comparison and one write per script call
+    withJedis { it.info('commandstats') } =~ /cmdstat_evalsha:calls=6,/
+    redisCache.getAll('foo').size() == 6
+  }
+
+  def 'should reload the script if it is not cached by the server'() {
+    setup:
+    cache.merge('foo', createData('blerp'))
+    withJedis { it.scriptFlush() }
+
+    when:
+    cache.merge('foo', createData('blerp', [a: 'b']))
+
+    then:
+    cache.get('foo', 'blerp').attributes == [a: 'b']
+  }
+
+  private <T> T withJedis(Closure<T> closure) {
+    Jedis jedis = pool.resource
+    try {
+      return closure.call(jedis)
+    } finally {
+      jedis.close()
+    }
+  }
+}
@@ -233,6 +233,33 @@ class RedisCacheSpec extends WriteableCacheSpec {
       itemTwoAttributes.equals(cache.get(type, id).attributes)
   }
 
+  def 'filterIdentifiers uses the key component index once it is built from existing members'() {
+    given: 'items written before the index was enabled'
+    cache.mergeAll('serverGroups', [createData('aws:serverGroups:app:prod:app-v001'), createData('aws:serverGroups:app:test:app-v002')])
+    def indexed = new RedisCache('test', new JedisClientDelegate(pool), new ObjectMapper(), RedisCacheOptions.builder().keyComponentIndex(true).build(), cacheMetrics)
+
+    expect:
+    indexed.filterIdentifiers('serverGroups', '*:prod:*') as List == ['aws:serverGroups:app:prod:app-v001']
+
+    when: 'items are written and evicted through the indexed cache'
+    indexed.merge('serverGroups', createData('aws:serverGroups:other:prod:other-v003'))
+    indexed.evict('serverGroups', 'aws:serverGroups:app:prod:app-v001')
+
+    then:
+    indexed.filterIdentifiers('serverGroups', '*:prod:*') as List == ['aws:serverGroups:other:prod:other-v003']
+    indexed.filterIdentifiers('serverGroups', '*:staging:*').isEmpty()
+    withJedis { it.smembers('test:serverGroups:components:prod') } == ['aws:serverGroups:other:prod:other-v003'] as Set
+  }
+
+  private <T> T withJedis(Closure<T> closure) {
+    Jedis jedis = pool.resource
+    try {
+      return closure.call(jedis)
+    } finally {
+      jedis.close()
+    }
+  }
+
   private static class Bean {
     String key
     Integer key2
@@ -21,10 +21,14 @@ import com.netflix.spinnaker.cats.agent.Agent
 import com.netflix.spinnaker.cats.agent.AgentExecution
 import com.netflix.spinnaker.cats.agent.CachingAgent
 import com.netflix.spinnaker.cats.agent.ExecutionInstrumentation
+import com.netflix.spinnaker.cats.cluster.AgentPriority
 import com.netflix.spinnaker.cats.cluster.DefaultAgentIntervalProvider
+import com.netflix.spinnaker.cats.cluster.DefaultAgentPriorityProvider
 import com.netflix.spinnaker.cats.cluster.DefaultNodeIdentity
 import com.netflix.spinnaker.cats.cluster.DefaultNodeStatusProvider
 import com.netflix.spinnaker.cats.cluster.NoopShardingFilter
+import com.netflix.spinnaker.cats.cluster.PrioritizedAgentExecutor
+import com.netflix.spinnaker.cats.cluster.ShardingFilter
 import com.netflix.spinnaker.cats.test.ManualRunnableScheduler
 import com.netflix.spinnaker.cats.test.TestAgent
 import com.netflix.spinnaker.kork.dynamicconfig.DynamicConfigService
@@ -309,6 +313,49 @@ class ClusteredAgentSchedulerSpec extends Specification {
       realScheduler.activeAgents.containsKey(agent.agentType)
     }
 
+    def 'only tracks owned agents and takes their deadline from locks held by other nodes'() {
+      given:
+      def executor = new PrioritizedAgentExecutor(
+        new DefaultAgentPriorityProvider([:]),
+        new DefaultAgentIntervalProvider(60000),
+        AgentPriority.values().collectEntries { [(it): 1] })
+      def otherShard = new TestAgent()
+      def prioritizedScheduler = new ClusteredAgentScheduler(
+        new JedisClientDelegate(jedisPool),
+        new DefaultNodeIdentity(),
+        new DefaultAgentIntervalProvider(60000),
+        new DefaultNodeStatusProvider(),
+        lockPollingScheduler,
+        agentExecutionScheduler,
+        ".*",
+        null,
+        dcs,
+        { Agent a -> a != otherShard } as ShardingFilter,
+        executor
+      )
+
+      when:
+      prioritizedScheduler.schedule(agent, exec, inst)
+      prioritizedScheduler.schedule(otherShard, exec, inst)
+
+      then:
+      executor.isRegistered(agent.agentType)
+      !executor.isRegistered(otherShard.agentType)
+
+      when: 'another node holds the lock for the next 50 seconds'
+      lockPollingScheduler.runAll()
+
+      then:
+      1 * jedis.set(agent.agentType, _ as String, _ as SetParams) >> null
+      1 * jedis.pttl(agent.agentType) >> 50000L
+      0 * jedis.set(otherShard.agentType, _, _)
+      executor.getStalenessMs(agent.agentType) == 0
+      executor.staleAgentCounts.values().every { it == 0 }
+
+      cleanup:
+      executor.shutdown()
+    }
+
     /**
      * a test {@link AgentExecution} class that simulates a long-running/stuck agent execution
      */
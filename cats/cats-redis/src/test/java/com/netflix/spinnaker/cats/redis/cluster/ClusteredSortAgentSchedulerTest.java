@@ -23,6 +23,7 @@ import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import com.netflix.spinnaker.cats.agent.CachingAgent;
@@ -119,4 +120,23 @@ public class ClusteredSortAgentSchedulerTest {
         .isPresent()
         .hasValueSatisfying(s -> assertThat(s.availablePermits()).isEqualTo(parallelism));
   }
+
+  @Test
+  public void testKeyPrefixedSets() {
+    ClusteredSortAgentScheduler scheduler =
+        new ClusteredSortAgentScheduler(
+            () -> jedis,
+            "{agents}:",
+            () -> false,
+            new DefaultAgentIntervalProvider(6000000),
+            parallelism);
+    when(jedis.zrangeByScore(eq("{agents}:WORKZ"), anyString(), anyString()))
+        .thenReturn(new HashSet<>());
+    when(jedis.zrangeByScore(eq("{agents}:WAITZ"), anyString(), anyString()))
+        .thenReturn(Set.of("testAgentType"));
+
+    scheduler.saturatePool();
+
+    verify(jedis).zrangeByScore(eq("{agents}:WAITZ"), anyString(), anyString());
+  }
 }
@@ -0,0 +1,161 @@
+/*
+ * Copyright 2026 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.spinnaker.cats.sql.cache
+
+import com.fasterxml.jackson.databind.ObjectMapper
+import com.netflix.spinnaker.cats.cache.CacheData
+import com.netflix.spinnaker.cats.cache.DefaultCacheData
+import java.util.concurrent.TimeUnit
+import org.openjdk.jmh.annotations.Benchmark
+import org.openjdk.jmh.annotations.BenchmarkMode
+import org.openjdk.jmh.annotations.Fork
+import org.openjdk.jmh.annotations.Level
+import org.openjdk.jmh.annotations.Measurement
+import org.openjdk.jmh.annotations.Mode
+import org.openjdk.jmh.annotations.OutputTimeUnit
+import org.openjdk.jmh.annotations.Param
+import org.openjdk.jmh.annotations.Scope
+import org.openjdk.jmh.annotations.Setup
+import org.openjdk.jmh.annotations.State
+import org.openjdk.jmh.annotations.Warmup
+import org.openjdk.jmh.infra.Blackhole
+
+/**
+ * Compares change detection in [SqlCache.storeAuthoritative] before and after bodies were only
+ * materialized for changed items, for a caching cycle in which [changedPercent] of the items changed.
+ *
+ * `./gradlew :cats:cats-sql:jmh`
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+open class SqlBodyHashBenchmark {
+
+  @Param("aws", "kubernetes")
+  var shape: String = "aws"
+
+  @Param("100000")
+  var itemCount: Int = 100_000
+
+  @Param("5")
+  var changedPercent: Int = 5
+
+  private lateinit var codec: SqlBodyCodec
+  private lateinit var items: List<CacheData>
+  private lateinit var existingHashes: Set<String>
+
+  @Setup(Level.Trial)
+  fun setup() {
+    codec = SqlBodyCodec(ObjectMapper())
+    items = (0 until itemCount).map { if (shape == "kubernetes") kubernetesPod(it) else awsInstance(it) }
+
+    val changedEvery = if (changedPercent > 0) 100 / changedPercent else Int.MAX_VALUE
+    existingHashes = items
+      .filterIndexed { index, _ -> index % changedEvery != 0 }
+      .map { codec.hash(codec.encode(it)) }
+      .toSet()
+  }
+
+  @Benchmark
+  fun encodeThenHash(blackhole: Blackhole) {
+    items.forEach {
+      val body = codec.encode(it)
+      val hash = codec.hash(body)
+      if (!existingHashes.contains(hash)) {
+        blackhole.consume(body)
+      }
+    }
+  }
+
+  @Benchmark
+  fun hashThenEncodeChanged(blackhole: Blackhole) {
+    items.forEach {
+      val hash = codec.hash(it)
+      if (!existingHashes.contains(hash)) {
+        blackhole.consume(codec.encode(it))
+      }
+    }
+  }
+
+  private fun awsInstance(index: Int): CacheData {
+    val instanceId = "i-%017x".format(index)
+    val serverGroup = "app${index % 200}-main-v%03d".format(index % 7)
+    return DefaultCacheData(
+      "aws:instances:prod:us-east-1:$instanceId",
+      mutableMapOf<String, Any>(
+        "instanceId" to instanceId,
+        "instanceType" to "m5.large",
+        "imageId" to "ami-%08x".format(index % 50),
+        "launchTime" to 1700000000000L + index,
+        "privateIpAddress" to "10.${index shr 16 and 255}.${index shr 8 and 255}.${index and 255}",
+        "placement" to mapOf("availabilityZone" to "us-east-1${"abc"[index % 3]}", "tenancy" to "default"),
+        "state" to mapOf("code" to 16, "name" to "running"),
+        "securityGroups" to listOf(mapOf("groupId" to "sg-%08x".format(index % 20), "groupName" to "app${index % 200}")),
+        "tags" to listOf(
+          mapOf("key" to "spinnaker:application", "value" to "app${index % 200}"),
+          mapOf("key" to "aws:autoscaling:groupName", "value" to serverGroup)
+        )
+      ),
+      mutableMapOf<String, Collection<String>>(
+        "serverGroups" to listOf("aws:serverGroups:app${index % 200}-main:prod:us-east-1:$serverGroup"),
+        "loadBalancers" to listOf("aws:loadBalancers:prod:us-east-1:app${index % 200}-frontend")
+      )
+    )
+  }
+
+  private fun kubernetesPod(index: Int): CacheData {
+    val namespace = "ns-${index % 50}"
+    val replicaSet = "app${index % 200}-%08x".format(index % 1000)
+    val name = "$replicaSet-%05x".format(index)
+    return DefaultCacheData(
+      "kubernetes.v2:infrastructure:pod:prod-cluster:$namespace:$name",
+      mutableMapOf<String, Any>(
+        "name" to name,
+        "namespace" to namespace,
+        "account" to "prod-cluster",
+        "manifest" to mapOf(
+          "apiVersion" to "v1",
+          "kind" to "Pod",
+          "metadata" to mapOf(
+            "name" to name,
+            "namespace" to namespace,
+            "labels" to mapOf("app.kubernetes.io/name" to "app${index % 200}", "pod-template-hash" to replicaSet),
+            "annotations" to mapOf("moniker.spinnaker.io/application" to "app${index % 200}"),
+            "ownerReferences" to listOf(mapOf("kind" to "ReplicaSet", "name" to replicaSet))
+          ),
+          "spec" to mapOf(
+            "containers" to listOf(
+              mapOf(
+                "name" to "main",
+                "image" to "registry.example.com/app${index % 200}:1.${index % 10}",
+                "ports" to listOf(mapOf("containerPort" to 8080, "protocol" to "TCP")),
+                "resources" to mapOf("requests" to mapOf("cpu" to "500m", "memory" to "512Mi"))
+              )
+            )
+          ),
+          "status" to mapOf("phase" to "Running", "podIP" to "172.16.${index shr 8 and 255}.${index and 255}")
+        )
+      ),
+      mutableMapOf<String, Collection<String>>(
+        "replicaSet" to listOf("kubernetes.v2:infrastructure:replicaSet:prod-cluster:$namespace:$replicaSet"),
+        "applications" to listOf("kubernetes.v2:logical:applications:app${index % 200}")
+      )
+    )
+  }
+}
@@ -8,6 +8,7 @@ import com.netflix.spinnaker.cats.cache.WriteableCache
 import com.netflix.spinnaker.cats.provider.ProviderCache
 import com.netflix.spinnaker.cats.sql.cache.SqlCache
 import com.netflix.spinnaker.clouddriver.core.provider.agent.Namespace.*
+import java.util.function.Consumer
 import org.slf4j.LoggerFactory
 import org.slf4j.MDC
 import kotlin.contracts.ExperimentalContracts
@@ -77,6 +78,19 @@ class SqlProviderCache(private val backingStore: WriteableCache) : ProviderCache
     return backingStore.getAll(type, identifiers, cacheFilter)
   }
 
+  override fun getAllMulti(
+    identifiersByType: Map<String, Collection<String>>,
+    cacheFilter: CacheFilter?
+  ): Map<String, Collection<CacheData>> {
+    validateTypes(identifiersByType.keys)
+    return backingStore.getAllMulti(identifiersByType, cacheFilter)
+  }
+
+  override fun forEachItem(type: String, cacheFilter: CacheFilter?, consumer: Consumer<CacheData>) {
+    validateTypes(type)
+    backingStore.forEachItem(type, cacheFilter, consumer)
+  }
+
   override fun supportsGetAllByApplication(): Boolean {
     return true
   }
@@ -46,6 +46,10 @@ class SpectatorSqlCacheMetrics(
     registry.counter(id("cats.sqlCache.merge", "duplicates", tags)).increment(duplicates.toLong())
   }
 
+  override fun writeFailures(prefix: String, type: String, failures: Int) {
+    registry.counter(id("cats.sqlCache.merge", "writeFailures", tags(prefix, type))).increment(failures.toLong())
+  }
+
   override fun evict(
     prefix: String,
     type: String,
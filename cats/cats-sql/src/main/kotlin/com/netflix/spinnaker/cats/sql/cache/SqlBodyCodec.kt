@@ -0,0 +1,155 @@
+/*
+ * Copyright 2026 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.spinnaker.cats.sql.cache
+
+import com.fasterxml.jackson.databind.ObjectMapper
+import com.fasterxml.jackson.dataformat.smile.SmileFactory
+import com.netflix.spinnaker.cats.cache.CacheData
+import com.netflix.spinnaker.cats.cache.DefaultJsonCacheData
+import java.io.ByteArrayInputStream
+import java.io.ByteArrayOutputStream
+import java.io.InputStream
+import java.io.OutputStream
+import java.nio.charset.StandardCharsets
+import java.security.DigestOutputStream
+import java.security.MessageDigest
+import java.util.Base64
+import java.util.zip.Deflater
+import java.util.zip.DeflaterOutputStream
+import java.util.zip.InflaterInputStream
+
+/**
+ * Encodes and decodes the `body` column of cats resource tables.
+ *
+ * Bodies are prefixed with the header of the [Format] they were written with, followed by the
+ * Base64 encoded payload. The column stays textual so that existing tables don't need to be
+ * migrated: bodies written as plain JSON always start with `{` and remain readable, and are
+ * rewritten in the configured format the next time their content hash changes.
+ *
+ * Base64 makes a payload a third larger than its raw bytes. Deflate has to more than make up for
+ * that, which is why Smile is only offered compressed: uncompressed, it would typically take more
+ * room than the JSON it replaces. Storing raw bytes would need a blob column in every resource
+ * table.
+ */
+class SqlBodyCodec(
+  private val jsonMapper: ObjectMapper,
+  val writeFormat: Format = Format.JSON
+) {
+
+  /**
+   * @property header written before the payload. Encoded formats use a marker followed by the
+   * version of their payload layout, so that the layout can change without older rows being
+   * misread.
+   */
+  enum class Format(val header: String) {
+    /** Plain Jackson JSON, as written before codecs were introduced. */
+    JSON("{"),
+
+    /** Jackson Smile (binary JSON), compressed with deflate; layout version 1. */
+    SMILE_DEFLATE("Z1");
+
+    companion object {
+      fun fromBody(body: String): Format = values().firstOrNull { body.startsWith(it.header) }
+        ?: throw IllegalArgumentException("Unsupported cache body encoding '${body.take(2)}'")
+
+      /**
+       * Parses a configuration value such as `smile-deflate`.
+       */
+      fun fromConfig(value: String): Format = valueOf(value.trim().toUpperCase().replace('-', '_'))
+    }
+  }
+
+  private val smileMapper: ObjectMapper = jsonMapper.copyWith(SmileFactory())
+
+  private val digests = ThreadLocal.withInitial { MessageDigest.getInstance("SHA-256") }
+
+  fun encode(cacheData: CacheData): String {
+    val out = ByteArrayOutputStream(256)
+    write(cacheData, out)
+    return out.toString(StandardCharsets.UTF_8)
+  }
+
+  fun decode(body: String): DefaultJsonCacheData {
+    return when (val format = Format.fromBody(body)) {
+      Format.JSON -> jsonMapper.readValue(body, DefaultJsonCacheData::class.java)
+      Format.SMILE_DEFLATE -> InflaterInputStream(payload(body, format)).use {
+        smileMapper.readValue(it, DefaultJsonCacheData::class.java)
+      }
+    }
+  }
+
+  /**
+   * Computes the hex encoded SHA-256 of the body [encode] would produce, streaming the encoded bytes
+   * straight into the digest rather than building the body.
+   */
+  fun hash(cacheData: CacheData): String {
+    val digest = digests.get()
+    digest.reset()
+    write(cacheData, DigestOutputStream(OutputStream.nullOutputStream(), digest))
+    return toHex(digest.digest())
+  }
+
+  /**
+   * Computes the hex encoded SHA-256 of an already encoded body.
+   */
+  fun hash(body: String): String {
+    val digest = digests.get()
+    digest.reset()
+    return toHex(digest.digest(body.toByteArray(StandardCharsets.UTF_8)))
+  }
+
+  private fun write(cacheData: CacheData, out: OutputStream) {
+    if (writeFormat == Format.JSON) {
+      jsonMapper.writeValue(out, cacheData)
+      return
+    }
+
+    out.write(writeFormat.header.toByteArray(StandardCharsets.US_ASCII))
+    Base64.getEncoder().wrap(out).use { base64 ->
+      val deflater = Deflater(Deflater.BEST_SPEED)
+      try {
+        DeflaterOutputStream(base64, deflater).use { smileMapper.writeValue(it, cacheData) }
+      } finally {
+        // DeflaterOutputStream only releases the native zlib stream of its own default deflater
+        deflater.end()
+      }
+    }
+  }
+
+  private fun payload(body: String, format: Format): InputStream {
+    val bytes = body.toByteArray(StandardCharsets.ISO_8859_1)
+    val offset = format.header.length
+    return Base64.getDecoder().wrap(ByteArrayInputStream(bytes, offset, bytes.size - offset))
+  }
+
+  companion object {
+    // Pre-generating string representations for all possible byte values
+    // to avoid using `String#format` in frequently invoked methods like `hash`.
+    // Invoking `String#format` in these hot methods creates excessive garbage.
+    private val hexStrings: List<String> = (Byte.MIN_VALUE..Byte.MAX_VALUE).map { "%02x".format(it.toByte()) }
+
+    private fun toHex(digest: ByteArray): String {
+      // The hash length is known, so a `StringBuilder` with a predefined capacity is used
+      // to prevent unnecessary array allocations inside the StringBuilder.
+      val builder = StringBuilder(digest.size * 2)
+      for (byte in digest) {
+        // Uses pre-generated string representations for each byte to optimize performance.
+        builder.append(hexStrings[byte - Byte.MIN_VALUE])
+      }
+      return builder.toString()
+    }
+  }
+}
@@ -1,9 +1,10 @@
 package com.netflix.spinnaker.cats.sql.cache
 
 import com.fasterxml.jackson.databind.ObjectMapper
+import com.google.common.hash.Hashing
 import com.netflix.spinnaker.cats.cache.CacheData
 import com.netflix.spinnaker.cats.cache.CacheFilter
-import com.netflix.spinnaker.cats.cache.DefaultJsonCacheData
+import com.netflix.spinnaker.cats.cache.KeyComponents
 import com.netflix.spinnaker.cats.cache.RelationshipCacheFilter
 import com.netflix.spinnaker.cats.cache.WriteableCache
 import com.netflix.spinnaker.cats.provider.ProviderCacheConfiguration
@@ -17,15 +18,17 @@ import de.huxhorn.sulky.ulid.ULID
 import io.github.resilience4j.retry.Retry
 import io.github.resilience4j.retry.RetryConfig
 import io.vavr.control.Try
-import java.security.MessageDigest
 import java.sql.ResultSet
 import java.sql.SQLException
 import java.sql.SQLSyntaxErrorException
 import java.time.Clock
 import java.time.Duration
 import java.util.Arrays
+import java.util.concurrent.ConcurrentHashMap
 import java.util.concurrent.ConcurrentSkipListSet
+import java.util.concurrent.TimeUnit
 import java.util.concurrent.atomic.AtomicInteger
+import java.util.function.Consumer
 import javax.annotation.PreDestroy
 import kotlin.contracts.ExperimentalContracts
 import kotlin.contracts.contract
@@ -37,6 +40,7 @@ import kotlinx.coroutines.awaitAll
 import kotlinx.coroutines.runBlocking
 import org.jooq.Condition
 import org.jooq.DSLContext
+import org.jooq.Record
 import org.jooq.SQLDialect
 import org.jooq.exception.DataAccessException
 import org.jooq.exception.SQLDialectNotSupportedException
@@ -49,7 +53,7 @@ import org.slf4j.LoggerFactory
 import org.springframework.jdbc.BadSqlGrammarException
 
 @ExperimentalContracts
-class SqlCache(
+class SqlCache @JvmOverloads constructor(
   private val name: String,
   private val jooq: DSLContext,
   private val mapper: ObjectMapper,
@@ -60,12 +64,17 @@ class SqlCache(
   private val cacheMetrics: SqlCacheMetrics,
   private val dynamicConfigService: DynamicConfigService,
   private val sqlConstraints: SqlConstraints,
-  private val providerCacheConfiguration: ProviderCacheConfiguration
+  private val providerCacheConfiguration: ProviderCacheConfiguration,
+  private val bodyCodec: SqlBodyCodec = SqlBodyCodec(mapper),
+  private val nearCache: SqlNearCache? = null
 ) : WriteableCache {
 
   companion object {
     private const val onDemandType = "onDemand"
 
+    /** Stored for relationship groups whose rows are not up to date; no computed hash is empty. */
+    private const val STALE_RELATIONSHIP_HASH = ""
+
     private val schemaVersion = SqlSchemaVersion.current()
     private val useRegexp =
       """.*[\?\[].*""".toRegex()
@@ -79,38 +88,49 @@ class SqlCache(
 
   private var createdTables = ConcurrentSkipListSet<String>()
 
-  private val hexStrings: List<String>
+  private val keyComponentIndexedTypes = ConcurrentSkipListSet<String>()
+  private val keyComponentIndexChecks = ConcurrentHashMap<String, Long>()
 
   init {
     log.info("Configured for $name")
-
-    // Pre-generating string representations for all possible byte values
-    // to avoid using `String#format` in frequently invoked methods like `getHash`.
-    // Invoking `String#format` in these hot methods creates excessive garbage.
-    this.hexStrings = arrayListOf()
-    for (byte in Byte.MIN_VALUE..Byte.MAX_VALUE) {
-      val str = "%02x".format(byte.toByte())
-      this.hexStrings.add(str)
-    }
   }
 
   /**
    * Only evicts cache records but not relationship rows
    */
   override fun evictAll(type: String, ids: Collection<String>) {
+    evictAll(type, ids, null)
+  }
+
+  /**
+   * Evicts the rows of [ids] written by [agent], or by every agent if it is null. The key components of an id are
+   * only deleted once no agent has a row for it any more.
+   */
+  private fun evictAll(type: String, ids: Collection<String>, agent: String?) {
     if (ids.isEmpty()) {
       return
     }
 
     log.info("evicting ${ids.size} $type records")
 
+    val resourceTable = sqlNames.resourceTableName(type)
+    val keyComponentTable = sqlNames.keyComponentTableName(type)
     var deletedCount = 0
     var opCount = 0
     try {
       ids.chunked(dynamicConfigService.getConfig(Int::class.java, "sql.cache.read-batch-size", 500)) { chunk ->
         withRetry(RetryCategory.WRITE) {
-          jooq.deleteFrom(table(sqlNames.resourceTableName(type)))
+          jooq.deleteFrom(table(resourceTable))
             .where(field("id").`in`(*chunk.toTypedArray()))
+            .and(if (agent == null) noCondition() else field("agent").eq(agent))
+            .execute()
+          jooq.deleteFrom(table(keyComponentTable))
+            .where(field("id").`in`(*chunk.toTypedArray()))
+            .andNotExists(
+              jooq.selectOne()
+                .from(table(resourceTable))
+                .where(field("$resourceTable.id").eq(field("$keyComponentTable.id")))
+            )
             .execute()
         }
         deletedCount += chunk.size
@@ -120,6 +140,8 @@ class SqlCache(
       log.error("error evicting records", e)
     }
 
+    nearCache?.invalidate(type, ids)
+
     cacheMetrics.evict(
       prefix = name,
       type = type,
@@ -174,6 +196,14 @@ class SqlCache(
       storeInformative(type, items ?: mutableListOf(), cleanup)
     }
 
+    if (nearCache != null && items != null) {
+      nearCache.invalidate(type, items.map { it.id })
+      items
+        .flatMap { it.relationships.entries }
+        .groupBy({ it.key.substringBefore(":") }, { it.value })
+        .forEach { (relType, relIds) -> nearCache.invalidate(relType, relIds.flatten()) }
+    }
+
     cacheMetrics.merge(
       prefix = name,
       type = type,
@@ -186,6 +216,9 @@ class SqlCache(
       deleteOperations = storeResult.deleteQueries.get(),
       duplicates = storeResult.duplicates.get()
     )
+    if (storeResult.writeFailures.get() > 0) {
+      cacheMetrics.writeFailures(prefix = name, type = type, failures = storeResult.writeFailures.get())
+    }
   }
 
   override fun mergeAll(type: String, items: MutableCollection<CacheData>?) {
@@ -256,10 +289,16 @@ class SqlCache(
 
     val relationshipPrefixes = getRelationshipFilterPrefixes(cacheFilter)
 
+    val lookup = nearCache?.getAll(type, ids, relationshipPrefixes)
+    if (lookup != null && lookup.misses.isEmpty()) {
+      return lookup.hits.toMutableList()
+    }
+    val toRead = lookup?.misses ?: ids
+
     val result = if (relationshipPrefixes.isEmpty()) {
-      getDataWithoutRelationships(type, ids)
+      getDataWithoutRelationships(type, toRead)
     } else {
-      getDataWithRelationships(type, ids, relationshipPrefixes)
+      getDataWithRelationships(type, toRead, relationshipPrefixes)
     }
 
     if (result.selectQueries > -1) {
@@ -267,14 +306,52 @@ class SqlCache(
         prefix = name,
         type = type,
         itemCount = result.data.size,
-        requestedSize = ids.size,
+        requestedSize = toRead.size,
         relationshipsRequested = result.relPointers.size,
         selectOperations = result.selectQueries,
         async = result.withAsync
       )
     }
 
-    return mergeDataAndRelationships(result.data, result.relPointers, relationshipPrefixes)
+    val items = mergeDataAndRelationships(result.data, result.relPointers, relationshipPrefixes)
+    if (lookup == null) {
+      return items
+    }
+
+    nearCache!!.putAll(type, items, relationshipPrefixes, lookup.generation)
+    return (lookup.hits + items).toMutableList()
+  }
+
+  /**
+   * Retrieves the items of several types, querying up to `sql.cache.max-query-concurrency` types concurrently.
+   */
+  override fun getAllMulti(
+    identifiersByType: Map<String, Collection<String>>,
+    cacheFilter: CacheFilter?
+  ): Map<String, Collection<CacheData>> {
+    val result = LinkedHashMap<String, Collection<CacheData>>()
+    identifiersByType.keys.forEach { result[it] = mutableListOf() }
+
+    val types = identifiersByType.filterValues { it.isNotEmpty() }.keys.toList()
+    if (coroutineContext.useAsync(this::asyncEnabled) && types.size > 1) {
+      val scope = CatsCoroutineScope(coroutineContext)
+
+      types.chunked(dynamicConfigService.getConfig(Int::class.java, "sql.cache.max-query-concurrency", 4)) { batch ->
+        val deferred = batch.map { type ->
+          scope.async { type to getAll(type, identifiersByType.getValue(type).toMutableList(), cacheFilter) }
+        }
+
+        runBlocking {
+          deferred.awaitAll().forEach { result[it.first] = it.second }
+        }
+      }
+    } else {
+      types.forEach { type ->
+        result[type] = getAll(type, identifiersByType.getValue(type).toMutableList(), cacheFilter)
+      }
+    }
+
+    return result
   }
 
   /**
@@ -290,6 +367,98 @@ class SqlCache(
     return getAll(type, ids)
   }
 
+  /**
+   * Streams all the items for the specified type a page at a time, so that at most
+   * `sql.cache.read-batch-size` items (plus their relationships) are held in memory at a time.
+   *
+   * Pages are read in id order, starting after the last id of the previous page, so that bodies
+   * written by multiple agents for the same id are merged exactly as they are by [getAll]. Reads
+   * are not retried as items may already have been handed to the consumer.
+   *
+   * @param type the type for which to retrieve items
+   * @param cacheFilter the cacheFilter to govern which relationships to fetch
+   * @param consumer invoked once for each item of the type
+   */
+  override fun forEachItem(type: String, cacheFilter: CacheFilter?, consumer: Consumer<CacheData>) {
+    val relationshipPrefixes = getRelationshipFilterPrefixes(cacheFilter)
+    val batchSize = dynamicConfigService.getConfig(Int::class.java, "sql.cache.read-batch-size", 500)
+
+    var itemCount = 0
+    var relationshipCount = 0
+    var selectQueries = 0
+
+    val chunk = ArrayList<CacheData>(batchSize)
+    val flush = {
+      val relPointers = if (relationshipPrefixes.isEmpty()) {
+        emptySet<RelPointer>()
+      } else {
+        selectQueries += 1
+        selectRelationships(type, relationshipPrefixes, chunk.map { it.id })
+      }
+      relationshipCount += relPointers.size
+
+      val merged = mergeDataAndRelationships(chunk, relPointers, relationshipPrefixes)
+      itemCount += merged.size
+      chunk.clear()
+      merged.forEach(consumer)
+    }
+
+    val resourceTable = table(sqlNames.resourceTableName(type))
+    val selectPage = { condition: Condition, limit: Int? ->
+      selectQueries += 1
+      val query = jooq.select(field("id"), field("body"))
+        .from(resourceTable)
+        .where(condition)
+        .orderBy(field("id"))
+      if (limit == null) query.fetch() else query.limit(limit).fetch()
+    }
+
+    try {
+      // Each page is a separate query whose result is fully read before the relationships of its
+      // items are selected, so no result set stays open across queries and only one connection
+      // is used at a time.
+      var after: String? = null
+      do {
+        var page: List<Record> = selectPage(after?.let { field("id").gt(it) } ?: noCondition(), batchSize)
+        val full = page.size >= batchSize
+        if (full) {
+          // The rows written by other agents for the last id may be on the next page; leave that
+          // id for the next page unless it is the only one on this page.
+          val lastId = page.last().get(0, String::class.java)
+          val complete = page.filter { it.get(0, String::class.java) != lastId }
+          page = if (complete.isEmpty()) selectPage(field("id").eq(lastId), null) else complete
+        }
+
+        page.forEach { record ->
+          val id = record.get(0, String::class.java)
+          try {
+            chunk.add(bodyCodec.decode(record.get(1, String::class.java)))
+          } catch (e: Exception) {
+            log.error("Failed to deserialize cached value: type $type, id $id", e)
+          }
+          after = id
+        }
+
+        if (chunk.isNotEmpty()) {
+          flush()
+        }
+      } while (full)
+    } catch (e: DataAccessException) {
+      suppressedLog("Failed streaming items for type $type", e)
+    } catch (e: BadSqlGrammarException) {
+      suppressedLog("Failed streaming items for type $type", e)
+    }
+
+    cacheMetrics.get(
+      prefix = name,
+      type = type,
+      itemCount = itemCount,
+      requestedSize = itemCount,
+      relationshipsRequested = relationshipCount,
+      selectOperations = selectQueries
+    )
+  }
+
   override fun supportsGetAllByApplication(): Boolean {
     return true
   }
@@ -447,23 +616,29 @@ class SqlCache(
       return mutableSetOf()
     }
 
-    val sql = if (glob.matches(useRegexp)) {
+    val condition = if (glob.matches(useRegexp)) {
       val filter = glob.replace("?", ".", true).replace("*", ".*").replace(cleanRegexp, ".*")
-      jooq
-        .select(field("id"))
-        .from(table(sqlNames.resourceTableName(type)))
-        .where(field("id").likeRegex("^$filter$"))
+      val literalPrefix = KeyComponents.literalPrefix(glob)
+      // lets the id index narrow the rows the regular expression has to be evaluated against
+      val prefixCondition = if (literalPrefix.isEmpty()) {
+        noCondition()
+      } else {
+        field("id").like(escapeLike(literalPrefix) + "%")
+      }
+      prefixCondition.and(field("id").likeRegex("^$filter$"))
     } else {
-      jooq
-        .select(field("id"))
-        .from(table(sqlNames.resourceTableName(type)))
-        // The underscore is treated as a single character wildcard in currently supported sql backends (mysql/psql)
-        // leading to inconsistencies in current usages of `filterIdentifiers()`.
-        //
-        // If single character wildcard is desired, use '?' rather than '_'.
-        .where(field("id").like(glob.replace('*', '%').replace("_", """\_""")))
+      // The underscore is treated as a single character wildcard in currently supported sql backends (mysql/psql)
+      // leading to inconsistencies in current usages of `filterIdentifiers()`.
+      //
+      // If single character wildcard is desired, use '?' rather than '_'.
+      field("id").like(glob.replace('*', '%').replace("_", """\_"""))
     }
 
+    val sql = jooq
+      .select(field("id"))
+      .from(table(sqlNames.resourceTableName(type)))
+      .where(condition.and(keyComponentCondition(type, glob)))
+
     val ids = try {
       withRetry(RetryCategory.READ) {
         sql
@@ -586,12 +761,12 @@ class SqlCache(
           it.relationships.putAll(normalized)
         }
 
-        val body: String? = mapper.writeValueAsString(it)
-        val bodyHash = getHash(body)
+        // the hash is streamed from the serializer, so the body is only materialized for new or changed items
+        val bodyHash = getHash(it)
 
-        if (body != null && bodyHash != null && !existingHashes.contains(bodyHash)) {
+        if (bodyHash != null && !existingHashes.contains(bodyHash)) {
           toStore.add(it.id)
-          bodies[it.id] = body
+          bodies[it.id] = bodyCodec.encode(it)
           hashes[it.id] = bodyHash
         }
       }
@@ -687,6 +862,10 @@ class SqlCache(
       }
     }
 
+    if (!storeKeyComponents(type, toStore.filter { !existingIds.contains(it) })) {
+      dropKeyComponentMarker(type)
+    }
+
     if (!cleanup) {
       return result
     }
@@ -696,198 +875,342 @@ class SqlCache(
       .filter { !currentIds.contains(it) }
       .toSet()
 
-    evictAll(type, toDelete)
+    // other agents may still have rows for these ids
+    evictAll(type, toDelete, sqlNames.checkAgentName(agent))
 
     return result
   }
 
+  /**
+   * Stores relationships as the difference between the current and the stored `(id, rel_id, rel_agent)` tuples.
+   *
+   * Relationships are grouped by source id and source agent, and a hash of each group is stored in the type's
+   * relationship hash table. Groups whose hash did not change are skipped without reading their rows; only the rows
+   * of changed groups are read, and only the added and removed tuples are written. Stored hashes are only trusted for
+   * `sql.cache.relationship-hash-ttl-seconds`, which bounds how long rows modified out of band can go unnoticed.
+   *
+   * Agents without any stored hash, e.g. after an upgrade, are diffed against all of their rows once.
+   */
   private fun storeInformative(type: String, items: MutableCollection<CacheData>, cleanup: Boolean): StoreResult {
     val result = StoreResult()
 
-    val sourceAgents = items.filter { it.relationships.isNotEmpty() }
-      .map { it.relationships.keys }
-      .flatten()
-      .toSet()
+    val groups = mutableMapOf<RelGroup, MutableSet<String>>()
+    items
+      .filter { it.id != "_ALL_" && it.id.length <= sqlConstraints.maxIdLength }
+      .forEach { cacheData ->
+        cacheData.relationships.forEach { (relAgent, relIds) ->
+          val group = groups.getOrPut(RelGroup(cacheData.id, sqlNames.checkAgentName(relAgent)!!)) { mutableSetOf() }
+          relIds.filter { it.length <= sqlConstraints.maxIdLength }
+            .forEach {
+              result.relationshipCount.incrementAndGet()
+              group.add(it)
+            }
+        }
+      }
 
-    if (sourceAgents.isEmpty()) {
+    if (groups.isEmpty()) {
       log.info("no relationships found for type $type")
       return result
     }
 
-    val existingFwdRelIds = sourceAgents
-      .map {
-        result.selectQueries.incrementAndGet()
-        getRelationshipKeys(type, it)
-      }
-      .flatten()
+    groups.keys.map { it.relType() }.toSet()
+      .filter { !createdTables.contains(it) }
+      .forEach { createTables(it) }
 
-    val existingRevRelTypes = mutableSetOf<String>()
-    items
-      .filter { it.id != "_ALL_" }
-      .forEach { cacheData ->
-        cacheData.relationships.entries.forEach { rels ->
-          val relType = rels.key.substringBefore(delimiter = ":", missingDelimiterValue = "")
-          existingRevRelTypes.add(relType)
+    val now = clock.millis()
+    val hashTtl = TimeUnit.SECONDS.toMillis(
+      dynamicConfigService.getConfig(Int::class.java, "sql.cache.relationship-hash-ttl-seconds", 3600).toLong()
+    )
+    val hashes = groups.mapValues { relationshipHash(it.value) }
+
+    val sourceAgents = groups.keys.map { it.relAgent }.toSet()
+    val storedHashes = getRelationshipHashes(type, sourceAgents, result)
+    val trackedAgents = storedHashes.keys.map { it.relAgent }.toSet()
+
+    val existingFwd = mutableMapOf<RelGroup, MutableList<RelId>>()
+    val existingRev = mutableMapOf<RelGroup, MutableList<RelId>>()
+
+    // agents that have never stored a hash are diffed against all of their rows
+    sourceAgents.filter { !trackedAgents.contains(it) }
+      .forEach { agent ->
+        result.selectQueries.addAndGet(2)
+        getRelationshipKeys(type, agent).forEach {
+          existingFwd.getOrPut(RelGroup(it.id, agent)) { mutableListOf() }.add(it)
+        }
+        getRelationshipKeys(RelGroup.relType(agent), type, agent).forEach {
+          existingRev.getOrPut(RelGroup(it.rel_id, agent)) { mutableListOf() }.add(it)
         }
       }
 
-    existingRevRelTypes.filter { !createdTables.contains(it) }
-      .forEach { createTables(it) }
+    val changed = groups.keys.filter { group ->
+      val stored = storedHashes[group]
+      !trackedAgents.contains(group.relAgent) ||
+        stored == null ||
+        stored.rel_hash != hashes[group] ||
+        stored.last_updated <= now - hashTtl
+    }
+    val removed = if (cleanup) {
+      (storedHashes.keys + existingFwd.keys + existingRev.keys).filter { !groups.containsKey(it) }.toSet()
+    } else {
+      emptySet()
+    }
+
+    if (changed.isEmpty() && removed.isEmpty()) {
+      return result
+    }
 
-    val existingRevRelIds = existingRevRelTypes
-      .map { relType ->
-        sourceAgents
-          .map { agent ->
-            result.selectQueries.incrementAndGet()
-            getRelationshipKeys(relType, type, agent)
+    (changed + removed)
+      .filter { trackedAgents.contains(it.relAgent) }
+      .groupBy({ it.relAgent }, { it.id })
+      .forEach { (agent, ids) ->
+        ids.chunked(dynamicConfigService.getConfig(Int::class.java, "sql.cache.read-batch-size", 500)) { chunk ->
+          result.selectQueries.addAndGet(2)
+          getRelationshipKeys(type, agent, field("id").`in`(chunk)).forEach {
+            existingFwd.getOrPut(RelGroup(it.id, agent)) { mutableListOf() }.add(it)
           }
-          .flatten()
+          getRelationshipKeys(
+            RelGroup.relType(agent), agent, field("rel_type").eq(type).and(field("rel_id").`in`(chunk))
+          ).forEach {
+            existingRev.getOrPut(RelGroup(it.rel_id, agent)) { mutableListOf() }.add(it)
+          }
+        }
       }
-      .flatten()
 
-    val oldFwdIds: Map<String, String> = existingFwdRelIds
-      .asSequence()
-      .map { it.key() to it.uuid }
-      .toMap()
+    val fwdInserts = mutableMapOf<String, MutableList<RelPointer>>()
+    val revInserts = mutableMapOf<String, MutableList<RelPointer>>()
+    val fwdDeletes = mutableListOf<String>()
+    val revDeletes = mutableMapOf<String, MutableList<String>>()
+    val pendingDeletes = mutableSetOf<RelGroup>()
 
-    val oldRevIds = mutableMapOf<String, String>()
-    val oldRevIdsToType = mutableMapOf<String, String>()
+    (changed + removed).forEach { group ->
+      val current = groups[group] ?: emptySet<String>()
+      val relType = group.relType()
 
-    existingRevRelIds
-      .forEach {
-        oldRevIds[it.key()] = it.uuid
-        oldRevIdsToType[it.key()] = it.rel_agent.substringBefore(delimiter = ":", missingDelimiterValue = "")
+      val fwd = diffRelationships(existingFwd[group], current) { it.rel_id }
+      fwd.first.forEach {
+        fwdInserts.getOrPut(relType) { mutableListOf() }.add(RelPointer(group.id, it, group.relAgent))
       }
 
-    val currentIds = mutableSetOf<String>()
-    val newFwdRelPointers = mutableMapOf<String, MutableList<RelPointer>>()
-    val newRevRelIds = mutableSetOf<String>()
+      val rev = diffRelationships(existingRev[group], current) { it.id }
+      rev.first.forEach {
+        revInserts.getOrPut(relType) { mutableListOf() }.add(RelPointer(it, group.id, group.relAgent))
+      }
 
-    items
-      .filter { it.id != "_ALL_" && it.id.length <= sqlConstraints.maxIdLength }
-      .forEach { cacheData ->
-        cacheData.relationships.entries.forEach { rels ->
-          val relType = rels.key.substringBefore(delimiter = ":", missingDelimiterValue = "")
-          rels.value.filter { it.length <= sqlConstraints.maxIdLength }
-            .forEach { r ->
-              val fwdKey = "${cacheData.id}|$r"
-              val revKey = "$r|${cacheData.id}"
-              currentIds.add(fwdKey)
-              currentIds.add(revKey)
+      if (fwd.second.isNotEmpty() || rev.second.isNotEmpty()) {
+        if (cleanup) {
+          fwdDeletes.addAll(fwd.second)
+          revDeletes.getOrPut(relType) { mutableListOf() }.addAll(rev.second)
+        } else {
+          pendingDeletes.add(group)
+        }
+      }
+    }
 
-              result.relationshipCount.incrementAndGet()
+    var succeeded = true
+    fwdInserts.forEach { (relType, pointers) ->
+      succeeded = insertRelationships(sqlNames.relTableName(type), relType, pointers, result) && succeeded
+    }
+    revInserts.forEach { (relType, pointers) ->
+      succeeded = insertRelationships(sqlNames.relTableName(relType), type, pointers, result) && succeeded
+    }
+    succeeded = deleteRelationships(sqlNames.relTableName(type), fwdDeletes, result) && succeeded
+    revDeletes.forEach { (relType, uuids) ->
+      succeeded = deleteRelationships(sqlNames.relTableName(relType), uuids, result) && succeeded
+    }
 
-              if (!oldFwdIds.contains(fwdKey)) {
-                newFwdRelPointers.getOrPut(relType) { mutableListOf() }
-                  .add(RelPointer(cacheData.id, r, rels.key))
-              }
+    if (!succeeded) {
+      // leave the stored hashes as they were so that the affected groups are diffed again on the next write
+      return result
+    }
 
-              if (!oldRevIds.containsKey(revKey)) {
-                newRevRelIds.add(revKey)
-              }
-            }
-        }
+    storeRelationshipHashes(
+      type,
+      changed
+        // rows of untracked agents that are not current are only known to be gone after a cleanup
+        .filter { !pendingDeletes.contains(it) && (cleanup || trackedAgents.contains(it.relAgent)) }
+        .associateWith { hashes.getValue(it) } +
+        // groups with rows left to delete keep a hash that matches nothing, so that they are diffed again on the
+        // next write, and deleted by the next cleanup if they are gone by then
+        pendingDeletes.associateWith { STALE_RELATIONSHIP_HASH },
+      now,
+      result
+    )
+    deleteRelationshipHashes(type, removed.filter { storedHashes.containsKey(it) }, result)
+
+    return result
+  }
+
+  /**
+   * @return the values of [current] that have no row, and the uuids of the rows that are not in [current], including
+   * duplicates
+   */
+  private fun diffRelationships(
+    existing: List<RelId>?,
+    current: Set<String>,
+    value: (RelId) -> String
+  ): Pair<List<String>, List<String>> {
+    if (existing.isNullOrEmpty()) {
+      return Pair(current.toList(), emptyList())
+    }
+
+    val seen = mutableSetOf<String>()
+    val toDelete = mutableListOf<String>()
+    existing.forEach {
+      val v = value(it)
+      if (!current.contains(v) || !seen.add(v)) {
+        toDelete.add(it.uuid)
       }
+    }
+    return Pair(current.filter { !seen.contains(it) }, toDelete)
+  }
 
-    newFwdRelPointers.forEach { (relType, pointers) ->
-      val now = clock.millis()
-      var ulid = ULID().nextValue()
+  private fun insertRelationships(
+    tableName: String,
+    relType: String,
+    pointers: List<RelPointer>,
+    result: StoreResult
+  ): Boolean {
+    val now = clock.millis()
+    var ulid = ULID().nextValue()
+    var succeeded = true
 
-      pointers.chunked(dynamicConfigService.getConfig(Int::class.java, "sql.cache.write-batch-size", 100)) { chunk ->
-        try {
-          val insert = jooq.insertInto(
-            table(sqlNames.relTableName(type)),
-            field("uuid"),
-            field("id"),
-            field("rel_id"),
-            field("rel_agent"),
-            field("rel_type"),
-            field("last_updated")
-          )
+    pointers.chunked(dynamicConfigService.getConfig(Int::class.java, "sql.cache.write-batch-size", 100)) { chunk ->
+      try {
+        val insert = jooq.insertInto(
+          table(tableName),
+          field("uuid"),
+          field("id"),
+          field("rel_id"),
+          field("rel_agent"),
+          field("rel_type"),
+          field("last_updated")
+        )
 
-          insert.apply {
-            chunk.forEach {
-              values(ulid.toString(), it.id, it.rel_id, sqlNames.checkAgentName(it.rel_type), relType, now)
-              ulid = ULID().nextMonotonicValue(ulid)
-            }
+        insert.apply {
+          chunk.forEach {
+            values(ulid.toString(), it.id, it.rel_id, it.rel_type, relType, now)
+            ulid = ULID().nextMonotonicValue(ulid)
           }
+        }
 
-          withRetry(RetryCategory.WRITE) {
-            insert.execute()
-          }
-          result.writeQueries.incrementAndGet()
-          result.relationshipsStored.addAndGet(chunk.size)
-        } catch (e: Exception) {
-          log.error("Error inserting forward relationships for $type -> $relType", e)
+        withRetry(RetryCategory.WRITE) {
+          insert.execute()
         }
+        result.writeQueries.incrementAndGet()
+        result.relationshipsStored.addAndGet(chunk.size)
+      } catch (e: Exception) {
+        log.error("Error inserting relationships into $tableName", e)
+        result.writeFailures.incrementAndGet()
+        succeeded = false
       }
+    }
+    return succeeded
+  }
 
-      pointers.asSequence().filter { newRevRelIds.contains("${it.rel_id}|${it.id}") }
-        .chunked(dynamicConfigService.getConfig(Int::class.java, "sql.cache.write-batch-size", 100)) { chunk ->
-          try {
-            val insert = jooq.insertInto(
-              table(sqlNames.relTableName(relType)),
-              field("uuid"),
-              field("id"),
-              field("rel_id"),
-              field("rel_agent"),
-              field("rel_type"),
-              field("last_updated")
-            )
+  private fun deleteRelationships(tableName: String, uuids: List<String>, result: StoreResult): Boolean {
+    var succeeded = true
+    uuids.chunked(dynamicConfigService.getConfig(Int::class.java, "sql.cache.write-batch-size", 100)) { chunk ->
+      try {
+        withRetry(RetryCategory.WRITE) {
+          jooq.deleteFrom(table(tableName))
+            .where(field("uuid").`in`(chunk))
+            .execute()
+        }
+        result.deleteQueries.incrementAndGet()
+      } catch (e: Exception) {
+        log.error("Error deleting stale relationships from $tableName", e)
+        result.writeFailures.incrementAndGet()
+        succeeded = false
+      }
+    }
+    return succeeded
+  }
 
-            insert.apply {
-              chunk.forEach {
-                values(ulid.toString(), it.rel_id, it.id, sqlNames.checkAgentName(it.rel_type), type, now)
-                ulid = ULID().nextMonotonicValue(ulid)
-              }
-            }
+  private fun getRelationshipHashes(
+    type: String,
+    agents: Collection<String>,
+    result: StoreResult
+  ): Map<RelGroup, RelHash> {
+    val hashes = mutableMapOf<RelGroup, RelHash>()
+    agents.chunked(dynamicConfigService.getConfig(Int::class.java, "sql.cache.read-batch-size", 500)) { chunk ->
+      result.selectQueries.incrementAndGet()
+      withRetry(RetryCategory.READ) {
+        jooq
+          .select(field("id"), field("rel_agent"), field("rel_hash"), field("last_updated"))
+          .from(table(sqlNames.relHashTableName(type)))
+          .where(field("rel_agent").`in`(chunk))
+          .fetch()
+          .into(RelHash::class.java)
+      }.forEach {
+        hashes[RelGroup(it.id, it.rel_agent)] = it
+      }
+    }
+    return hashes
+  }
 
-            withRetry(RetryCategory.WRITE) {
-              insert.execute()
+  private fun storeRelationshipHashes(type: String, hashes: Map<RelGroup, String>, now: Long, result: StoreResult) {
+    hashes.entries.chunked(dynamicConfigService.getConfig(Int::class.java, "sql.cache.write-batch-size", 100)) { chunk ->
+      try {
+        val insert = jooq.insertInto(
+          table(sqlNames.relHashTableName(type)),
+          field("id"),
+          field("rel_agent"),
+          field("rel_hash"),
+          field("last_updated")
+        )
+
+        insert.apply {
+          chunk.forEach {
+            values(it.key.id, it.key.relAgent, it.value, now)
+            when (jooq.dialect()) {
+              SQLDialect.POSTGRES ->
+                onConflict(field("id"), field("rel_agent"))
+                  .doUpdate()
+                  .set(field("rel_hash"), SqlUtil.excluded(field("rel_hash")) as Any)
+                  .set(field("last_updated"), SqlUtil.excluded(field("last_updated")) as Any)
+              else ->
+                onDuplicateKeyUpdate()
+                  .set(field("rel_hash"), MySQLDSL.values(field("rel_hash")) as Any)
+                  .set(field("last_updated"), MySQLDSL.values(field("last_updated")) as Any)
             }
-            result.writeQueries.incrementAndGet()
-            result.relationshipsStored.addAndGet(chunk.size)
-          } catch (e: Exception) {
-            log.error("Error inserting reverse relationships for $relType -> $type", e)
           }
-        }.toList()
-    }
+        }
 
-    if (!cleanup) {
-      return result
+        withRetry(RetryCategory.WRITE) {
+          insert.execute()
+        }
+        result.writeQueries.incrementAndGet()
+      } catch (e: DataAccessException) {
+        log.error("Error storing relationship hashes for $type", e)
+        result.writeFailures.incrementAndGet()
+      }
     }
+  }
 
-    val fwdToDelete = oldFwdIds.filter { !currentIds.contains(it.key) }
-    val revToDelete = oldRevIds.filter { !currentIds.contains(it.key) }
-
-    if (fwdToDelete.isNotEmpty() || revToDelete.isNotEmpty()) {
-      try {
-        fwdToDelete.forEach {
+  private fun deleteRelationshipHashes(type: String, groups: Collection<RelGroup>, result: StoreResult) {
+    groups.groupBy({ it.relAgent }, { it.id }).forEach { (agent, ids) ->
+      ids.chunked(dynamicConfigService.getConfig(Int::class.java, "sql.cache.write-batch-size", 100)) { chunk ->
+        try {
           withRetry(RetryCategory.WRITE) {
-            jooq.deleteFrom(table(sqlNames.relTableName(type)))
-              .where(field("uuid").eq(it.value))
+            jooq.deleteFrom(table(sqlNames.relHashTableName(type)))
+              .where(field("rel_agent").eq(agent).and(field("id").`in`(chunk)))
               .execute()
           }
           result.deleteQueries.incrementAndGet()
+        } catch (e: DataAccessException) {
+          log.error("Error deleting relationship hashes for $type", e)
+          result.writeFailures.incrementAndGet()
         }
-        revToDelete.forEach {
-          if (oldRevIdsToType.getOrDefault(it.key, "").isNotBlank()) {
-            withRetry(RetryCategory.WRITE) {
-              jooq.deleteFrom(table(sqlNames.relTableName(oldRevIdsToType[it.key]!!)))
-                .where(field("uuid").eq(it.value))
-                .execute()
-            }
-            result.deleteQueries.incrementAndGet()
-          } else {
-            log.warn("Couldn't delete ${it.key}, no mapping to type")
-          }
-        }
-      } catch (e: Exception) {
-        log.error("Error deleting stale relationships", e)
       }
     }
+  }
 
-    return result
+  private fun relationshipHash(relIds: Set<String>): String {
+    val hasher = Hashing.sha256().newHasher()
+    relIds.sorted().forEach {
+      hasher.putString(it, Charsets.UTF_8).putByte(0)
+    }
+    return hasher.hash().toString()
   }
 
   private fun createTables(type: String) {
@@ -896,12 +1219,19 @@ class SqlCache(
         withRetry(RetryCategory.WRITE) {
           SqlUtil.createTableLike(jooq, sqlNames.resourceTableName(type), "cats_v${schemaVersion}_resource_template")
           SqlUtil.createTableLike(jooq, sqlNames.relTableName(type), "cats_v${schemaVersion}_rel_template")
+          SqlUtil.createTableLike(
+            jooq, sqlNames.relHashTableName(type), "cats_v${schemaVersion}_rel_hash_template"
+          )
+          SqlUtil.createTableLike(
+            jooq, sqlNames.keyComponentTableName(type), "cats_v${schemaVersion}_key_component_template"
+          )
         }
 
         createdTables.add(type)
       } catch (e: Exception) {
         log.error("Error creating tables for type $type", e)
       }
+      indexKeyComponents(type)
     }
     if (!createdTables.contains(onDemandType)) {
       // TODO not sure if best schema for onDemand
@@ -909,15 +1239,173 @@ class SqlCache(
         withRetry(RetryCategory.WRITE) {
           SqlUtil.createTableLike(jooq, sqlNames.resourceTableName(onDemandType), "cats_v${schemaVersion}_resource_template")
           SqlUtil.createTableLike(jooq, sqlNames.relTableName(onDemandType), "cats_v${schemaVersion}_rel_template")
+          SqlUtil.createTableLike(
+            jooq, sqlNames.relHashTableName(onDemandType), "cats_v${schemaVersion}_rel_hash_template"
+          )
+          SqlUtil.createTableLike(
+            jooq, sqlNames.keyComponentTableName(onDemandType), "cats_v${schemaVersion}_key_component_template"
+          )
         }
 
         createdTables.add(onDemandType)
       } catch (e: Exception) {
         log.error("Error creating $onDemandType table", e)
       }
+      indexKeyComponents(onDemandType)
+    }
+  }
+
+  /**
+   * Records the key components of [ids] in the type's key component table, which [filterIdentifiers] uses to narrow
+   * glob queries to the ids containing the glob's required components. Rows are added for ids that are new to the
+   * writing agent and removed by [evictAll] once no agent has the id; a leftover row only adds a candidate, since the
+   * glob is always matched against the resource table.
+   */
+  private fun storeKeyComponents(type: String, ids: Collection<String>): Boolean {
+    var succeeded = true
+    val rows = ids.flatMap { id -> KeyComponents.of(id).map { it to id } }
+    rows.chunked(dynamicConfigService.getConfig(Int::class.java, "sql.cache.write-batch-size", 100)) { chunk ->
+      try {
+        val insert = jooq.insertInto(
+          table(sqlNames.keyComponentTableName(type)),
+          field("component"),
+          field("id")
+        )
+        chunk.forEach { insert.values(it.first, it.second) }
+        withRetry(RetryCategory.WRITE) {
+          insert.onDuplicateKeyIgnore().execute()
+        }
+      } catch (e: Exception) {
+        log.error("Error indexing key components of ${chunk.size} $type ids", e)
+        succeeded = false
+      }
+    }
+    return succeeded
+  }
+
+  /**
+   * Stops [filterIdentifiers] from trusting a key component table that is missing rows; the next [indexKeyComponents]
+   * backfills it again.
+   */
+  private fun dropKeyComponentMarker(type: String) {
+    keyComponentIndexedTypes.remove(type)
+    try {
+      withRetry(RetryCategory.WRITE) {
+        jooq.deleteFrom(table(sqlNames.keyComponentTableName(type)))
+          .where(field("component").eq(""), field("id").eq(""))
+          .execute()
+      }
+    } catch (e: Exception) {
+      log.error("Error dropping the key component index marker of $type", e)
+    }
+  }
+
+  /**
+   * Backfills the key component table of a type from its resource table once. Completion is recorded by a row with
+   * an empty component and id, which is never matched by a lookup.
+   */
+  private fun indexKeyComponents(type: String) {
+    if (keyComponentIndexedTypes.contains(type)) {
+      return
+    }
+
+    try {
+      if (!hasKeyComponentMarker(type)) {
+        val batchSize = dynamicConfigService.getConfig(Int::class.java, "sql.cache.read-batch-size", 500)
+        var cursor = ""
+        do {
+          val ids = withRetry(RetryCategory.READ) {
+            jooq
+              .selectDistinct(field("id"))
+              .from(table(sqlNames.resourceTableName(type)))
+              .where(field("id").gt(cursor))
+              .orderBy(field("id"))
+              .limit(batchSize)
+              .fetch(field("id"), String::class.java)
+          }
+          check(storeKeyComponents(type, ids)) { "Failed indexing key components of $type" }
+          cursor = ids.lastOrNull() ?: cursor
+        } while (ids.size == batchSize)
+
+        withRetry(RetryCategory.WRITE) {
+          jooq.insertInto(table(sqlNames.keyComponentTableName(type)), field("component"), field("id"))
+            .values("", "")
+            .onDuplicateKeyIgnore()
+            .execute()
+        }
+        log.info("Indexed key components of $type")
+      }
+      keyComponentIndexedTypes.add(type)
+    } catch (e: Exception) {
+      log.error("Error indexing key components of $type", e)
     }
   }
 
+  private fun hasKeyComponentMarker(type: String): Boolean {
+    return withRetry(RetryCategory.READ) {
+      jooq.fetchExists(
+        jooq.select(field("id"))
+          .from(table(sqlNames.keyComponentTableName(type)))
+          .where(field("component").eq(""), field("id").eq(""))
+      )
+    }
+  }
+
+  /**
+   * Restricts a [filterIdentifiers] query to the ids containing the last few required components of [glob] that are
+   * not already pinned by the glob's literal prefix. Only applies once `sql.cache.key-component-index.enabled` is set,
+   * which should happen after every writer maintains the key component tables, and once the type has been backfilled.
+   */
+  private fun keyComponentCondition(type: String, glob: String): Condition {
+    if (!dynamicConfigService.isEnabled("sql.cache.key-component-index", false)) {
+      return noCondition()
+    }
+
+    val pinned = KeyComponents.of(KeyComponents.literalPrefix(glob).substringBeforeLast(KeyComponents.SEPARATOR, ""))
+    val components = KeyComponents.required(glob).filter { !pinned.contains(it) }.takeLast(2)
+    if (components.isEmpty() || !isKeyComponentIndexed(type)) {
+      return noCondition()
+    }
+
+    return components
+      .map {
+        field("id").`in`(
+          jooq.select(field("id"))
+            .from(table(sqlNames.keyComponentTableName(type)))
+            .where(field("component").eq(it))
+        )
+      }
+      .reduce { a, b -> a.and(b) }
+  }
+
+  private fun isKeyComponentIndexed(type: String): Boolean {
+    if (keyComponentIndexedTypes.contains(type)) {
+      return true
+    }
+
+    val now = clock.millis()
+    val lastChecked = keyComponentIndexChecks[type]
+    if (lastChecked != null && now - lastChecked < TimeUnit.MINUTES.toMillis(1)) {
+      return false
+    }
+    keyComponentIndexChecks[type] = now
+
+    val indexed = try {
+      hasKeyComponentMarker(type)
+    } catch (e: Exception) {
+      suppressedLog("Failed checking key component index of $type reason: ${e.message}", e)
+      false
+    }
+    if (indexed) {
+      keyComponentIndexedTypes.add(type)
+    }
+    return indexed
+  }
+
+  private fun escapeLike(value: String): String {
+    return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_")
+  }
+
   private fun getRelationshipFilterPrefixes(cacheFilter: CacheFilter?): List<String> {
     return if (cacheFilter == null) {
       listOf("ALL")
@@ -931,23 +1419,11 @@ class SqlCache(
     }
   }
 
-  private fun getHash(body: String?): String? {
-    if (body.isNullOrBlank()) {
-      return null
-    }
+  private fun getHash(cacheData: CacheData): String? {
     return try {
-      val digest = MessageDigest.getInstance("SHA-256")
-        .digest(body.toByteArray())
-      // The hash length is known, so a `StringBuilder` with a predefined capacity is used
-      // to prevent unnecessary array allocations inside the StringBuilder.
-      val builder = StringBuilder(64)
-      for (byte in digest) {
-        // Uses pre-generated string representations for each byte to optimize performance.
-        builder.append(this.hexStrings[byte - Byte.MIN_VALUE])
-      }
-      builder.toString()
+      bodyCodec.hash(cacheData)
     } catch (e: Exception) {
-      log.error("error calculating hash for body: $body", e)
+      log.error("error calculating hash for item: ${cacheData.id}", e)
       null
     }
   }
@@ -976,6 +1452,17 @@ class SqlCache(
     }
   }
 
+  private fun getRelationshipKeys(type: String, sourceAgent: String, condition: Condition): MutableList<RelId> {
+    return withRetry(RetryCategory.READ) {
+      jooq
+        .select(field("uuid"), field("id"), field("rel_id"), field("rel_agent"))
+        .from(table(sqlNames.relTableName(type)))
+        .where(field("rel_agent").eq(sqlNames.checkAgentName(sourceAgent)), condition)
+        .fetch()
+        .into(RelId::class.java)
+    }
+  }
+
   private fun getRelationshipKeys(type: String, origType: String, sourceAgent: String): MutableList<RelId> {
     return withRetry(RetryCategory.READ) {
       jooq
@@ -1013,7 +1500,7 @@ class SqlCache(
               .fetch()
               .getValues(0)
               .asSequence()
-              .map { mapper.readValue(it as String, DefaultJsonCacheData::class.java) }
+              .map { bodyCodec.decode(it as String) }
               .toList()
           )
         }
@@ -1076,7 +1563,7 @@ class SqlCache(
             .fetch()
             .getValues(0)
             .asSequence()
-            .map { mapper.readValue(it as String, DefaultJsonCacheData::class.java) }
+            .map { bodyCodec.decode(it as String) }
             .toList()
         )
       }
@@ -1290,7 +1777,7 @@ class SqlCache(
         .where(field("ID").`in`(*ids.toTypedArray()))
         .fetch()
         .getValues(0)
-        .map { mapper.readValue(it as String, DefaultJsonCacheData::class.java) }
+        .map { bodyCodec.decode(it as String) }
         .toList()
     }
   }
@@ -1329,6 +1816,23 @@ class SqlCache(
     }
   }
 
+  private fun selectRelationships(
+    type: String,
+    relationshipPrefixes: List<String>,
+    ids: List<String>
+  ): Set<RelPointer> {
+    val relWhere = getRelWhere(relationshipPrefixes, field("id").`in`(*ids.toTypedArray()))
+
+    return withRetry(RetryCategory.READ) {
+      jooq.select(field("id"), field("rel_id"), field("rel_type"))
+        .from(table(sqlNames.relTableName(type)))
+        .where(relWhere)
+        .fetch()
+        .into(RelPointer::class.java)
+        .toSet()
+    }
+  }
+
   private fun selectIdentifiers(type: String, ids: List<String>): MutableCollection<String> {
     return withRetry(RetryCategory.READ) {
       jooq.select(field("id"))
@@ -1348,7 +1852,7 @@ class SqlCache(
     while (resultSet.next()) {
       if (!resultSet.getString(1).isNullOrBlank()) {
         try {
-          cacheData.add(mapper.readValue(resultSet.getString(1), DefaultJsonCacheData::class.java))
+          cacheData.add(bodyCodec.decode(resultSet.getString(1)))
         } catch (e: Exception) {
           log.error("Failed to deserialize cached value: type $type, body ${resultSet.getString(1)}", e)
         }
@@ -1583,6 +2087,27 @@ class SqlCache(
     val rel_type: String
   )
 
+  /**
+   * The relationships of one source id written by one source agent, `{relType}:{agent}`.
+   */
+  data class RelGroup(
+    val id: String,
+    val relAgent: String
+  ) {
+    fun relType(): String = relType(relAgent)
+
+    companion object {
+      fun relType(relAgent: String): String = relAgent.substringBefore(delimiter = ":", missingDelimiterValue = "")
+    }
+  }
+
+  data class RelHash(
+    val id: String,
+    val rel_agent: String,
+    val rel_hash: String,
+    val last_updated: Long
+  )
+
   private data class DataWithRelationshipPointersResult(
     val data: MutableList<CacheData>,
     val relPointers: MutableSet<RelPointer>,
@@ -1599,6 +2124,7 @@ class SqlCache(
     val writeQueries = AtomicInteger(0)
     val deleteQueries = AtomicInteger(0)
     val duplicates = AtomicInteger(0)
+    val writeFailures = AtomicInteger(0)
   }
 }
 
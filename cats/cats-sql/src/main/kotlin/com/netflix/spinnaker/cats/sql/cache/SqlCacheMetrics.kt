@@ -29,6 +29,15 @@ interface SqlCacheMetrics {
     duplicates: Int
   ) {}
 
+  /**
+   * Reports the writes of a merge that failed and were left to the next merge of the type.
+   */
+  fun writeFailures(
+    prefix: String,
+    type: String,
+    failures: Int
+  ) {}
+
   fun evict(
     prefix: String,
     type: String,
@@ -39,6 +39,18 @@ class SqlNames(
   fun relTableName(type: String): String =
     checkTableName("cats_v${schemaVersion}_", sanitizeType(type), "_rel")
 
+  /**
+   * Get the relationship hash table name for a given agent type.
+   */
+  fun relHashTableName(type: String): String =
+    checkTableName("cats_v${schemaVersion}_", sanitizeType(type), "_rel_hash")
+
+  /**
+   * Get the key component index table name for a given agent type.
+   */
+  fun keyComponentTableName(type: String): String =
+    checkTableName("cats_v${schemaVersion}_", sanitizeType(type), "_key_components")
+
   private fun sanitizeType(type: String): String {
     return type.replace(typeSanitization, "_")
   }
@@ -0,0 +1,272 @@
+/*
+ * Copyright 2026 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.netflix.spinnaker.cats.sql.cache
+
+import com.github.benmanes.caffeine.cache.Cache
+import com.github.benmanes.caffeine.cache.Caffeine
+import com.github.benmanes.caffeine.cache.Ticker
+import com.netflix.spectator.api.Registry
+import com.netflix.spectator.api.patterns.PolledMeter
+import com.netflix.spinnaker.cats.cache.CacheData
+import com.netflix.spinnaker.cats.cache.DefaultCacheData
+import java.time.Duration
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.Executors
+import java.util.concurrent.ScheduledExecutorService
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicLong
+import org.jooq.DSLContext
+import org.jooq.impl.DSL.field
+import org.jooq.impl.DSL.max
+import org.jooq.impl.DSL.table
+import org.slf4j.LoggerFactory
+
+/**
+ * A per-pod, read-through cache of [CacheData] by type and id in front of [SqlCache].
+ *
+ * Entries are invalidated by polling the `last_updated` high-water mark of the resource, relationship and relationship
+ * hash tables of every cached type, and evicting only the ids of rows written since the previous poll. Deleted rows
+ * leave nothing to poll for, so every entry also expires [maxStaleness] after it was loaded: nothing older than that is
+ * ever served, even while polling fails.
+ *
+ * An entry keeps the relationships it was loaded with, and only serves requests whose relationship filter it covers.
+ * Served items are shallow copies, their attributes are shared and must not be modified.
+ */
+class SqlNearCache(
+  private val jooq: DSLContext,
+  private val sqlNames: SqlNames,
+  private val registry: Registry,
+  maximumWeightBytes: Long,
+  maxStaleness: Duration,
+  pollInterval: Duration,
+  private val writeLag: Duration = Duration.ofSeconds(5),
+  ticker: Ticker = Ticker.systemTicker()
+) {
+
+  private val log = LoggerFactory.getLogger(javaClass)
+
+  private val entries: Cache<Key, Entry> = Caffeine.newBuilder()
+    .maximumWeight(maximumWeightBytes)
+    .weigher<Key, Entry> { _, entry -> entry.weight }
+    .expireAfterWrite(maxStaleness)
+    .ticker(ticker)
+    .build()
+
+  private val types = ConcurrentHashMap<String, TypeState>()
+
+  private val poller: ScheduledExecutorService? = if (pollInterval.isZero || pollInterval.isNegative) {
+    null
+  } else {
+    Executors.newSingleThreadScheduledExecutor { r ->
+      Thread(r, "sqlNearCachePoller").apply { isDaemon = true }
+    }.apply {
+      scheduleWithFixedDelay(::poll, pollInterval.toMillis(), pollInterval.toMillis(), TimeUnit.MILLISECONDS)
+    }
+  }
+
+  init {
+    PolledMeter.using(registry)
+      .withName("cats.sqlCache.nearCache.weightBytes")
+      .monitorValue(entries) { it.policy().eviction().map { e -> e.weightedSize().orElse(0L) }.orElse(0L).toDouble() }
+  }
+
+  /**
+   * @return the cached items among [ids] that cover [relationshipPrefixes], the ids that have to be read from SQL, and
+   * the generation to pass back to [putAll] along with the items read for them
+   */
+  fun getAll(type: String, ids: Collection<String>, relationshipPrefixes: List<String>): Lookup {
+    val generation = state(type).generation.get()
+    val hits = mutableListOf<CacheData>()
+    val misses = mutableListOf<String>()
+
+    ids.forEach { id ->
+      val entry = entries.getIfPresent(Key(type, id))
+      if (entry != null && entry.covers(relationshipPrefixes)) {
+        hits.add(entry.copy(relationshipPrefixes))
+      } else {
+        misses.add(id)
+      }
+    }
+
+    registry.counter("cats.sqlCache.nearCache.hits", "type", type).increment(hits.size.toLong())
+    registry.counter("cats.sqlCache.nearCache.misses", "type", type).increment(misses.size.toLong())
+    return Lookup(hits, misses, generation)
+  }
+
+  /**
+   * Caches [items] as read with [relationshipPrefixes], unless the type was invalidated since [generation] was
+   * obtained, in which case the items may already be stale.
+   */
+  fun putAll(type: String, items: Collection<CacheData>, relationshipPrefixes: List<String>, generation: Long) {
+    val state = state(type)
+    if (state.generation.get() != generation) {
+      return
+    }
+
+    items.forEach {
+      entries.put(
+        Key(type, it.id),
+        Entry(
+          DefaultCacheData(it.id, it.ttlSeconds, it.attributes, copyRelationships(it.relationships) { true }),
+          relationshipPrefixes,
+          estimateWeight(it).coerceAtMost(Int.MAX_VALUE.toLong()).toInt()
+        )
+      )
+    }
+
+    // an invalidation that raced with the puts above may not have seen them
+    if (state.generation.get() != generation) {
+      items.forEach { entries.invalidate(Key(type, it.id)) }
+    }
+  }
+
+  /**
+   * Invalidates [ids] of [type] right away, for writes made through this pod.
+   */
+  fun invalidate(type: String, ids: Collection<String>) {
+    val state = types[type] ?: return
+    state.generation.incrementAndGet()
+    entries.invalidateAll(ids.map { Key(type, it) })
+  }
+
+  /**
+   * Evicts the ids of every cached type whose rows were written since the previous poll.
+   *
+   * Rows are read back to [writeLag] before the previous high-water mark, so that rows committed slightly out of
+   * `last_updated` order are not missed as long as the high-water mark moves.
+   */
+  fun poll() {
+    types.forEach { (type, state) ->
+      try {
+        poll(type, state)
+      } catch (e: Exception) {
+        log.warn("Failed to poll for changes to '$type', entries expire when they are stale", e)
+      }
+    }
+  }
+
+  fun shutdown() {
+    poller?.shutdownNow()
+  }
+
+  private fun poll(type: String, state: TypeState) {
+    val tables = listOf(sqlNames.resourceTableName(type), sqlNames.relTableName(type), sqlNames.relHashTableName(type))
+    val highWaterMarks = tables.associateWith { maxLastUpdated(it) }
+    val highWaterMark = highWaterMarks.values.filterNotNull().maxOrNull() ?: return
+    val previous = state.highWaterMark
+
+    if (previous == null) {
+      // entries were loaded before there was a high-water mark to compare against
+      state.generation.incrementAndGet()
+      entries.invalidateAll(entries.asMap().keys.filter { it.type == type })
+    } else if (highWaterMark > previous) {
+      val since = previous - writeLag.toMillis()
+      val ids = tables
+        .filter { (highWaterMarks[it] ?: Long.MIN_VALUE) > since }
+        .flatMap { changedIds(it, since) }
+        .toSet()
+
+      state.generation.incrementAndGet()
+      entries.invalidateAll(ids.map { Key(type, it) })
+      registry.counter("cats.sqlCache.nearCache.invalidations", "type", type).increment(ids.size.toLong())
+    }
+
+    state.highWaterMark = highWaterMark
+  }
+
+  private fun maxLastUpdated(tableName: String): Long? =
+    try {
+      jooq.select(max(field("last_updated", Long::class.javaObjectType)))
+        .from(table(tableName))
+        .fetchOne(0, Long::class.javaObjectType)
+    } catch (e: Exception) {
+      // not every type has relationships or relationship hashes
+      log.debug("Unable to read the high-water mark of $tableName", e)
+      null
+    }
+
+  private fun changedIds(tableName: String, since: Long): List<String> =
+    jooq.selectDistinct(field("id"))
+      .from(table(tableName))
+      .where(field("last_updated").gt(since))
+      .fetch(0, String::class.java)
+
+  private fun state(type: String): TypeState = types.computeIfAbsent(type) { TypeState() }
+
+  data class Lookup(
+    val hits: List<CacheData>,
+    val misses: List<String>,
+    val generation: Long
+  )
+
+  private data class Key(
+    val type: String,
+    val id: String
+  )
+
+  private class Entry(
+    val data: CacheData,
+    val relationshipPrefixes: List<String>,
+    val weight: Int
+  ) {
+    fun covers(requested: List<String>): Boolean =
+      requested.isEmpty() ||
+        relationshipPrefixes.contains(ALL) ||
+        (!requested.contains(ALL) && requested.all { r -> relationshipPrefixes.any { r.startsWith(it) } })
+
+    fun copy(requested: List<String>): CacheData {
+      val relationships = copyRelationships(data.relationships) { relType ->
+        requested.contains(ALL) || requested.any { relType.startsWith(it) }
+      }
+      return DefaultCacheData(data.id, data.ttlSeconds, data.attributes, relationships)
+    }
+  }
+
+  private class TypeState {
+    val generation = AtomicLong()
+
+    @Volatile
+    var highWaterMark: Long? = null
+  }
+
+  companion object {
+    private const val ALL = "ALL"
+
+    private fun copyRelationships(
+      relationships: Map<String, Collection<String>>,
+      include: (String) -> Boolean
+    ): MutableMap<String, Collection<String>> =
+      relationships
+        .filterKeys(include)
+        .mapValuesTo(mutableMapOf()) { it.value.toMutableList() }
+
+    /**
+     * A rough estimate of the heap retained by [value], which only needs to be proportional to it for weighing.
+     */
+    internal fun estimateWeight(value: Any?): Long =
+      when (value) {
+        null -> 8
+        is CacheData -> 64 + estimateWeight(value.id) + estimateWeight(value.attributes) +
+          estimateWeight(value.relationships)
+        is CharSequence -> 40 + 2L * value.length
+        is Map<*, *> -> 48 + value.entries.sumOf { 32 + estimateWeight(it.key) + estimateWeight(it.value) }
+        is Collection<*> -> 40 + value.sumOf { 8 + estimateWeight(it) }
+        is Array<*> -> 16 + value.sumOf { 8 + estimateWeight(it) }
+        else -> 24
+      }
+  }
+}
@@ -29,7 +29,6 @@ import com.netflix.spinnaker.kork.sql.routing.withPool
 import java.sql.SQLException
 import java.util.concurrent.TimeUnit
 import org.jooq.DSLContext
-import org.jooq.Field
 import org.jooq.impl.DSL.field
 import org.jooq.impl.DSL.table
 import org.slf4j.LoggerFactory
@@ -67,6 +66,7 @@ class SqlUnknownAgentCleanupAgent(
         try {
           registry.timer(timingId.withTag("dataType", dataType)).record {
             cleanTable(CacheTable.RELATIONSHIP, dataType, runState)
+            cleanTable(CacheTable.RELATIONSHIP_HASH, dataType, runState)
             cleanTable(CacheTable.RESOURCE, dataType, runState)
           }
         } catch (e: SQLException) {
@@ -100,30 +100,36 @@ class SqlUnknownAgentCleanupAgent(
       return
     }
 
-    val rs = jooq.select(*cacheTable.fields)
+    val rs = jooq.select(field(cacheTable.idColumn), field(cacheTable.agentColumn))
       .from(table(tableName))
       .fetch()
       .intoResultSet()
 
     val cleanedAgentTypes = mutableSetOf<String>()
-    val idsToClean = mutableListOf<String>()
+    val idsToClean = mutableMapOf<String, MutableSet<String>>()
     while (rs.next()) {
-      val agentType = processRelAgentTypeValue(rs.getString(2))
+      val agent = rs.getString(2)
+      val agentType = processRelAgentTypeValue(agent)
       if (!state.agentTypes.contains(agentType)) {
-        idsToClean.add(rs.getString(1))
+        idsToClean.getOrPut(agent) { mutableSetOf() }.add(rs.getString(1))
         cleanedAgentTypes.add(agentType)
       }
     }
 
-    if (idsToClean.isNotEmpty()) {
+    val cleanedCount = idsToClean.values.sumOf { it.size }
+    if (cleanedCount > 0) {
       log.info(
-        "Found ${idsToClean.size} records to cleanup from '$tableName' for data type '$dataType'. " +
+        "Found $cleanedCount records to cleanup from '$tableName' for data type '$dataType'. " +
           "Reason: Data generated by unknown caching agents ($cleanedAgentTypes})"
       )
-      idsToClean.chunked(100) { chunk ->
-        jooq.deleteFrom(table(tableName))
-          .where(field(cacheTable.idColumn()).`in`(*chunk.toTypedArray()))
-          .execute()
+      // Rows are deleted by id and agent, as other agents may have rows with the same id
+      idsToClean.forEach { (agent, ids) ->
+        ids.chunked(100) { chunk ->
+          jooq.deleteFrom(table(tableName))
+            .where(field(cacheTable.agentColumn).eq(agent))
+            .and(field(cacheTable.idColumn).`in`(*chunk.toTypedArray()))
+            .execute()
+        }
       }
     }
 
@@ -131,7 +137,7 @@ class SqlUnknownAgentCleanupAgent(
 
     registry
       .counter(deletedId.withTags("dataType", dataType, "table", cacheTable.name))
-      .increment(idsToClean.size.toLong())
+      .increment(cleanedCount.toLong())
   }
 
   /**
@@ -191,24 +197,20 @@ class SqlUnknownAgentCleanupAgent(
   )
 
   /**
-   * Abstracts the logical differences--as far as this agent is concerned--between the two
-   * varieties of cache tables: The table names and the associated fields we need to read
-   * from the database.
+   * Abstracts the logical differences--as far as this agent is concerned--between the
+   * varieties of cache tables: The table names and the columns that, together, identify a row
+   * and the agent that wrote it.
    */
-  private enum class CacheTable(val fields: Array<Field<*>>) {
-    RESOURCE(arrayOf(field("id"), field("agent"))),
-    RELATIONSHIP(arrayOf(field("uuid"), field("rel_agent")));
-
-    fun idColumn(): String =
-      when (this) {
-        RESOURCE -> "id"
-        RELATIONSHIP -> "uuid"
-      }
+  private enum class CacheTable(val idColumn: String, val agentColumn: String) {
+    RESOURCE("id", "agent"),
+    RELATIONSHIP("uuid", "rel_agent"),
+    RELATIONSHIP_HASH("id", "rel_agent");
 
     fun getName(sqlNames: SqlNames, dataType: String): String =
       when (this) {
         RESOURCE -> sqlNames.resourceTableName(dataType)
         RELATIONSHIP -> sqlNames.relTableName(dataType)
+        RELATIONSHIP_HASH -> sqlNames.relHashTableName(dataType)
       }
   }
 
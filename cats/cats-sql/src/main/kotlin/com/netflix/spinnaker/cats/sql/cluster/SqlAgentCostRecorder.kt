@@ -0,0 +1,187 @@
+/*
+ * Copyright 2026 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.netflix.spinnaker.cats.sql.cluster
+
+import com.netflix.spinnaker.cats.agent.Agent
+import com.netflix.spinnaker.cats.agent.ExecutionInstrumentation
+import com.netflix.spinnaker.cats.cache.CacheIntrospectionStore
+import com.netflix.spinnaker.cats.sql.SqlUtil
+import com.netflix.spinnaker.clouddriver.core.provider.CoreProvider
+import com.netflix.spinnaker.config.ConnectionPools
+import com.netflix.spinnaker.kork.dynamicconfig.DynamicConfigService
+import com.netflix.spinnaker.kork.sql.routing.withPool
+import org.jooq.DSLContext
+import org.jooq.SQLDialect
+import org.jooq.exception.DataAccessException
+import org.jooq.impl.DSL.field
+import org.jooq.impl.DSL.table
+import org.jooq.util.mysql.MySQLDSL
+import org.slf4j.LoggerFactory
+import java.time.Clock
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.TimeUnit
+
+/**
+ * Keeps a rolling average of the execution time and item count of each agent run by this pod, and persists them to
+ * the shared `caching_agent_costs` table so that every pod can balance accounts by their observed cost.
+ *
+ * Item counts are the additions recorded by the agent's [CacheIntrospectionStore] entry for the same execution.
+ */
+class SqlAgentCostRecorder(
+  private val jooq: DSLContext,
+  tableNamespace: String? = null,
+  private val dynamicConfigService: DynamicConfigService,
+  private val clock: Clock = Clock.systemUTC()
+) : ExecutionInstrumentation {
+
+  private val log = LoggerFactory.getLogger(javaClass)
+
+  private val costs: MutableMap<String, AgentCost> = ConcurrentHashMap()
+  private val dirty: MutableSet<String> = ConcurrentHashMap.newKeySet()
+
+  private val costsTable = if (tableNamespace.isNullOrBlank()) {
+    REFERENCE_TABLE
+  } else {
+    "${REFERENCE_TABLE}_$tableNamespace"
+  }
+
+  init {
+    if (!tableNamespace.isNullOrBlank()) {
+      withPool(POOL_NAME) {
+        SqlUtil.createTableLike(jooq, costsTable, REFERENCE_TABLE)
+      }
+    }
+  }
+
+  override fun executionStarted(agent: Agent) {
+    // do nothing
+  }
+
+  override fun executionCompleted(agent: Agent, elapsedMs: Long) {
+    record(agent, elapsedMs)
+  }
+
+  override fun executionFailed(agent: Agent, cause: Throwable?, elapsedMs: Long) {
+    // failed executions occupy the pod all the same
+    record(agent, elapsedMs)
+  }
+
+  private fun record(agent: Agent, elapsedMs: Long) {
+    if (agent.providerName == CoreProvider.PROVIDER_NAME) {
+      return
+    }
+    val items = CacheIntrospectionStore.getStore().getAgentIntrospection(agent.agentType)?.totalAdditions ?: 0
+    val smoothing = dynamicConfigService.getConfig(Double::class.java, "cache-sharding.cost-aware.smoothing", 0.3)
+
+    costs.compute(agent.agentType) { _, previous ->
+      if (previous == null) {
+        AgentCost(elapsedMs.toDouble(), items.toDouble())
+      } else {
+        AgentCost(
+          previous.executionTimeMs + smoothing * (elapsedMs - previous.executionTimeMs),
+          previous.itemCount + smoothing * (items - previous.itemCount)
+        )
+      }
+    }
+    dirty.add(agent.agentType)
+  }
+
+  /**
+   * Writes the costs recorded since the previous flush.
+   */
+  fun flush() {
+    val agentTypes = dirty.toList()
+    if (agentTypes.isEmpty()) {
+      return
+    }
+    dirty.removeAll(agentTypes)
+
+    val now = clock.millis()
+    agentTypes.chunked(dynamicConfigService.getConfig(Int::class.java, "sql.cache.write-batch-size", 100)) { chunk ->
+      try {
+        withPool(POOL_NAME) {
+          val insert = jooq.insertInto(
+            table(costsTable),
+            field("agent_type"),
+            field("account"),
+            field("execution_time_ms"),
+            field("item_count"),
+            field("last_updated")
+          )
+
+          insert.apply {
+            chunk.forEach {
+              val cost = costs[it] ?: return@forEach
+              values(it, SqlCachingPodsObserver.accountName(it), cost.executionTimeMs.toLong(), cost.itemCount.toLong(), now)
+              when (jooq.dialect()) {
+                SQLDialect.POSTGRES ->
+                  onConflict(field("agent_type"))
+                    .doUpdate()
+                    .set(field("account"), SqlUtil.excluded(field("account")) as Any)
+                    .set(field("execution_time_ms"), SqlUtil.excluded(field("execution_time_ms")) as Any)
+                    .set(field("item_count"), SqlUtil.excluded(field("item_count")) as Any)
+                    .set(field("last_updated"), SqlUtil.excluded(field("last_updated")) as Any)
+                else ->
+                  onDuplicateKeyUpdate()
+                    .set(field("account"), MySQLDSL.values(field("account")) as Any)
+                    .set(field("execution_time_ms"), MySQLDSL.values(field("execution_time_ms")) as Any)
+                    .set(field("item_count"), MySQLDSL.values(field("item_count")) as Any)
+                    .set(field("last_updated"), MySQLDSL.values(field("last_updated")) as Any)
+              }
+            }
+          }
+
+          insert.execute()
+        }
+      } catch (e: DataAccessException) {
+        log.error("Failed to record agent costs for $chunk", e)
+        dirty.addAll(chunk)
+      }
+    }
+  }
+
+  /**
+   * Reads the cost of every account recently cached by any pod, as the sum over its agents of their average
+   * execution time plus `cache-sharding.cost-aware.item-cost-ms` per cached item.
+   */
+  fun accountCosts(): Map<String, Double> {
+    val itemCostMs = dynamicConfigService.getConfig(Double::class.java, "cache-sharding.cost-aware.item-cost-ms", 1.0)
+    val maxAgeMs = TimeUnit.SECONDS.toMillis(
+      dynamicConfigService.getConfig(Long::class.java, "cache-sharding.cost-aware.max-age-seconds", 3600)
+    )
+
+    val accountCosts = mutableMapOf<String, Double>()
+    withPool(POOL_NAME) {
+      jooq.select(field("account"), field("execution_time_ms"), field("item_count"))
+        .from(table(costsTable))
+        .where(field("last_updated").gt(clock.millis() - maxAgeMs))
+        .fetch()
+        .forEach {
+          val cost = it.get(1, Long::class.java) + itemCostMs * it.get(2, Long::class.java)
+          accountCosts.merge(it.get(0, String::class.java), cost, Double::plus)
+        }
+    }
+    return accountCosts
+  }
+
+  private data class AgentCost(val executionTimeMs: Double, val itemCount: Double)
+
+  companion object {
+    private val POOL_NAME = ConnectionPools.CACHE_WRITER.value
+    private const val REFERENCE_TABLE = "caching_agent_costs"
+  }
+}
@@ -19,6 +19,8 @@ package com.netflix.spinnaker.cats.sql.cluster
 
 import com.google.common.util.concurrent.ThreadFactoryBuilder
 import com.netflix.spinnaker.cats.agent.Agent
+import com.netflix.spinnaker.cats.cluster.ConsistentHashRing
+import com.netflix.spinnaker.cats.cluster.CostAwareAssignment
 import com.netflix.spinnaker.cats.cluster.NodeIdentity
 import com.netflix.spinnaker.cats.cluster.ShardingFilter
 import com.netflix.spinnaker.cats.sql.SqlUtil
@@ -35,26 +37,34 @@ import java.sql.SQLException
 import java.util.concurrent.Executors
 import java.util.concurrent.ScheduledExecutorService
 import java.util.concurrent.TimeUnit
-import kotlin.math.abs
 
 class SqlCachingPodsObserver (
   private val jooq: DSLContext,
   private val nodeIdentity: NodeIdentity,
   private val tableNamespace: String? = null,
   private val dynamicConfigService : DynamicConfigService,
+  private val agentCostRecorder: SqlAgentCostRecorder? = null,
   private val liveReplicasScheduler: ScheduledExecutorService = Executors.newSingleThreadScheduledExecutor(
     ThreadFactoryBuilder().setNameFormat(SqlCachingPodsObserver::class.java.simpleName + "-%d").build()
   )
 ) : ShardingFilter, Runnable{
   private val log = LoggerFactory.getLogger(javaClass)
-  private var podCount: Int = 0
-  private var podIndex: Int = -1
+  @Volatile
+  private var ring: ConsistentHashRing? = null
+  private var ringConfig: Triple<Int, Double, String>? = null
+  @Volatile
+  private var assignment: Map<String, String> = emptyMap()
+  private var lastRebalance: Long = 0
   private var ttlSeconds = dynamicConfigService.getConfig(Long::class.java, "cache-sharding.replica-ttl-seconds", 60)
 
   companion object {
     private val POOL_NAME = ConnectionPools.CACHE_WRITER.value
     const val LAST_HEARTBEAT_TIME = "last_heartbeat_time"
     const val POD_ID = "pod_id"
+
+    fun accountName(agentType: String): String {
+      return if(agentType.contains("/")) agentType.substring(0,agentType.indexOf('/')) else agentType
+    }
   }
   private val replicasReferenceTable = "caching_replicas"
   private val replicasTable = if (tableNamespace.isNullOrBlank()) {
@@ -88,7 +98,51 @@ class SqlCachingPodsObserver (
   private fun refreshHeartbeat(newTtl: Long){
     recordHeartbeat(newTtl)
     deleteExpiredReplicas()
-    preFilter()
+    recordAgentCosts()
+    val ringChanged = preFilter()
+    rebalance(ringChanged)
+  }
+
+  private fun recordAgentCosts() {
+    try {
+      agentCostRecorder?.flush()
+    } catch (e: Exception) {
+      log.error("Failed to record agent costs", e)
+    }
+  }
+
+  /**
+   * When cost-aware sharding is enabled, recomputes the account assignment from the shared agent costs. This happens
+   * whenever membership changes, and otherwise at most every `cache-sharding.cost-aware.rebalance-interval-seconds`
+   * so that pods are working from similar snapshots of the costs.
+   */
+  private fun rebalance(ringChanged: Boolean) {
+    val recorder = agentCostRecorder ?: return
+    val ring = ring ?: return
+    val now = System.currentTimeMillis()
+    val interval = TimeUnit.SECONDS.toMillis(
+      dynamicConfigService.getConfig(Long::class.java, "cache-sharding.cost-aware.rebalance-interval-seconds", 300)
+    )
+    if (!ringChanged && now - lastRebalance < interval) {
+      return
+    }
+
+    try {
+      val tolerance = dynamicConfigService.getConfig(
+        Double::class.java, "cache-sharding.cost-aware.tolerance", CostAwareAssignment.DEFAULT_TOLERANCE
+      )
+      val updated = CostAwareAssignment.assign(ring, recorder.accountCosts(), tolerance)
+      val moved = updated.count { (account, owner) -> owner != (assignment[account] ?: ring.ownerOf(account)) }
+      assignment = updated
+      lastRebalance = now
+      log.info("Rebalanced {} accounts by cost across {} pods, {} moved", updated.size, ring.members.size, moved)
+    } catch (e: Exception) {
+      if (ringChanged) {
+        // the previous assignment may refer to pods that are gone, fall back to the ring until the next attempt
+        assignment = emptyMap()
+      }
+      log.error("Failed to rebalance accounts by cost", e)
+    }
   }
 
   private fun recordHeartbeat( newTtl: Long) {
@@ -162,13 +216,11 @@ class SqlCachingPodsObserver (
     }
   }
 
-  private fun getAccountName(agentType: String): String{
-    return if(agentType.contains("/")) agentType.substring(0,agentType.indexOf('/')) else agentType
-  }
-
-  private fun preFilter(){
-    var counter = 0
-    var index = -1
+  /**
+   * @return whether the set of live pods or the ring configuration changed
+   */
+  private fun preFilter(): Boolean {
+    val pods = mutableListOf<String>()
     try {
       withPool(POOL_NAME) {
         val cachingPods = jooq.select()
@@ -178,31 +230,43 @@ class SqlCachingPodsObserver (
           .intoResultSet()
 
         while (cachingPods.next()) {
-          if (cachingPods.getString(POD_ID).equals(nodeIdentity.nodeIdentity)) {
-            index = counter;
-          }
-          counter++
+          pods.add(cachingPods.getString(POD_ID))
         }
       }
     }catch (e: SQLException){
       log.error( "Failed to fetch live pods count ${e.message}")
     }
-    if(counter == 0 || index == -1){
+    if(pods.isEmpty() || !pods.contains(nodeIdentity.nodeIdentity)){
       throw RuntimeException("No caching pod heartbeat records detected. Sharding logic can't be applied!!!!")
     }
-    podCount = counter
-    podIndex = index
-    log.debug("Pod count : {} and current pod's index : {}", podCount, podIndex)
+
+    // the ring is only rebuilt when membership or its configuration changes
+    val config = Triple(
+      dynamicConfigService.getConfig(Int::class.java, "cache-sharding.virtual-nodes", ConsistentHashRing.DEFAULT_VIRTUAL_NODES),
+      dynamicConfigService.getConfig(Double::class.java, "cache-sharding.load-factor", ConsistentHashRing.DEFAULT_LOAD_FACTOR),
+      dynamicConfigService.getConfig(String::class.java, "cache-sharding.account-weights", "")
+    )
+    val current = ring
+    if (current == null || current.members != pods.sorted() || ringConfig != config) {
+      ring = ConsistentHashRing(pods, config.first, ConsistentHashRing.parseWeights(config.third), config.second)
+      ringConfig = config
+      log.info("Caching pods changed, sharding accounts across {} pods", pods.size)
+      return true
+    }
+    log.debug("Pod count : {} and current pod : {}", pods.size, nodeIdentity.nodeIdentity)
+    return false
   }
 
   override fun filter(agent: Agent) : Boolean{
     if(agent.providerName.equals(CoreProvider.PROVIDER_NAME)){
       return true
     }
-    if (podCount == 1 || abs(getAccountName(agent.agentType).hashCode() % podCount) == podIndex) {
+    val ring = ring ?: return false
+    if (ring.members.size == 1) {
       return true
     }
-    return false
+    val account = accountName(agent.agentType)
+    return (assignment[account] ?: ring.ownerOf(account)) == nodeIdentity.nodeIdentity
   }
 
 
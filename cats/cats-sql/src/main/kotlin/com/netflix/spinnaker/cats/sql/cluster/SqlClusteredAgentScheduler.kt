@@ -16,6 +16,8 @@
 package com.netflix.spinnaker.cats.sql.cluster
 
 import com.google.common.util.concurrent.ThreadFactoryBuilder
+import com.netflix.spectator.api.NoopRegistry
+import com.netflix.spectator.api.Registry
 import com.netflix.spinnaker.cats.agent.Agent
 import com.netflix.spinnaker.cats.agent.AgentExecution
 import com.netflix.spinnaker.cats.agent.AgentLock
@@ -26,6 +28,7 @@ import com.netflix.spinnaker.cats.agent.ExecutionInstrumentation.elapsedTimeMs
 import com.netflix.spinnaker.cats.cluster.AgentIntervalProvider
 import com.netflix.spinnaker.cats.cluster.NodeIdentity
 import com.netflix.spinnaker.cats.cluster.NodeStatusProvider
+import com.netflix.spinnaker.cats.cluster.PrioritizedAgentExecutor
 import com.netflix.spinnaker.cats.cluster.ShardingFilter
 import com.netflix.spinnaker.cats.module.CatsModuleAware
 import com.netflix.spinnaker.cats.sql.SqlUtil
@@ -33,9 +36,12 @@ import com.netflix.spinnaker.config.ConnectionPools
 import com.netflix.spinnaker.kork.dynamicconfig.DynamicConfigService
 import com.netflix.spinnaker.kork.sql.routing.withPool
 import java.sql.SQLException
+import java.util.Queue
 import java.util.regex.Pattern
 import java.util.regex.Pattern.CASE_INSENSITIVE
 import org.jooq.DSLContext
+import org.jooq.Query
+import org.jooq.exception.DataAccessException
 import org.jooq.impl.DSL.field
 import org.jooq.impl.DSL.table
 import org.slf4j.LoggerFactory
@@ -48,6 +54,13 @@ import java.util.concurrent.*
  * recommended for real workloads. Instead, use the Redis scheduler (`redis.scheduler.enabled=true` and
  * `sql.scheduler.enabled=false`) or implement a scheduler based on ZooKeeper, etcd, consul, and so-on.
  *
+ * With `sql.agent.batch-locks.enabled`, each scheduler tick claims all of its candidate locks with a single multi-row
+ * `INSERT ... ON DUPLICATE KEY IGNORE` (`ON CONFLICT DO NOTHING` on Postgres) and reads back the rows it won, and
+ * releases the locks of agents that completed since the previous tick in one statement, instead of one round trip
+ * per agent.
+ *
+ * When a [PrioritizedAgentExecutor] is provided, it picks which candidates to run, most important and most overdue
+ * first, and runs them on its per-priority lanes instead of [agentExecutionPool].
  */
 class SqlClusteredAgentScheduler(
   private val jooq: DSLContext,
@@ -65,7 +78,9 @@ class SqlClusteredAgentScheduler(
   lockPollingScheduler: ScheduledExecutorService = Executors.newSingleThreadScheduledExecutor(
     ThreadFactoryBuilder().setNameFormat(SqlClusteredAgentScheduler::class.java.simpleName + "-%d").build()
   ),
-  private val shardingFilter: ShardingFilter
+  private val shardingFilter: ShardingFilter,
+  private val registry: Registry = NoopRegistry(),
+  private val prioritizedExecutor: PrioritizedAgentExecutor? = null
 ) : CatsModuleAware(), AgentScheduler<AgentLock>, Runnable {
 
   private val log = LoggerFactory.getLogger(javaClass)
@@ -73,8 +88,13 @@ class SqlClusteredAgentScheduler(
   private val agents: MutableMap<String, AgentExecutionAction> = ConcurrentHashMap()
   private val activeAgents: MutableMap<String, NextAttempt> = ConcurrentHashMap()
   private val activeAgentsFutures: MutableMap<String, Future<*>> = ConcurrentHashMap()
+  private val pendingReleases: Queue<PendingRelease> = ConcurrentLinkedQueue()
   private val enabledAgents: Pattern
 
+  private val acquireLocksId = registry.createId("cats.sqlAgentScheduler.acquireLocks")
+  private val releaseLocksId = registry.createId("cats.sqlAgentScheduler.releaseLocks")
+  private val locksId = registry.createId("cats.sqlAgentScheduler.locks")
+
   private val referenceTable = "cats_agent_locks"
   private val lockTable = if (tableNamespace.isNullOrBlank()) {
     referenceTable
@@ -103,14 +123,24 @@ class SqlClusteredAgentScheduler(
       agent.agentScheduler = this
     }
     agents[agent.agentType] = AgentExecutionAction(agent, agentExecution, executionInstrumentation)
+    if (shardingFilter.filter(agent)) {
+      prioritizedExecutor?.register(agent)
+    }
   }
 
   override fun unschedule(agent: Agent) {
     releaseLock(agent.agentType, 0) // Release the lock immediately
     agents.remove(agent.agentType)
+    prioritizedExecutor?.unregister(agent.agentType)
   }
 
   override fun run() {
+    try {
+      releasePendingLocks()
+    } catch (t: Throwable) {
+      log.error("Failed releasing agent locks", t)
+    }
+
     if (nodeStatusProvider.isNodeEnabled) {
       try {
         runAgents()
@@ -126,13 +156,32 @@ class SqlClusteredAgentScheduler(
     acquiredAgents.forEach { agentType, nextAttempt ->
       val exec = agents[agentType]
       if (exec != null) {
-        activeAgentsFutures[agentType] = agentExecutionPool.submit(AgentJob(nextAttempt, exec, this::agentCompleted))
+        val job = AgentJob(nextAttempt, exec, this::agentCompleted)
+        activeAgentsFutures[agentType] = prioritizedExecutor?.submit(exec.agent) { job.execute() == Status.SUCCESS }
+          ?: agentExecutionPool.submit(job)
       }
     }
   }
 
   private fun tryAcquire(): Map<String, NextAttempt> {
-    return findCandidateAgentLocks()
+    val batched = batchLocksEnabled()
+    val candidates = findCandidateAgentLocks(batched)
+    if (candidates.isEmpty()) {
+      return emptyMap()
+    }
+
+    val startTime = System.nanoTime()
+    val acquired = if (batched) tryAcquireBatch(candidates) else tryAcquireEach(candidates)
+    registry.timer(acquireLocksId.withTag("batched", batched))
+      .record(System.nanoTime() - startTime, TimeUnit.NANOSECONDS)
+    registry.counter(locksId.withTag("result", "acquired")).increment(acquired.size.toLong())
+    registry.counter(locksId.withTag("result", "contended")).increment((candidates.size - acquired.size).toLong())
+
+    return acquired
+  }
+
+  private fun tryAcquireEach(candidates: Map<String, AgentExecutionAction>): Map<String, NextAttempt> {
+    return candidates
       .map {
         val agentType = it.key
         val agentExecution = it.value
@@ -149,7 +198,53 @@ class SqlClusteredAgentScheduler(
       .toMap()
   }
 
-  private fun findCandidateAgentLocks(): Map<String, AgentExecutionAction> {
+  /**
+   * Inserts a lock row for every candidate, ignoring those that already exist, then selects the rows this node
+   * inserted. Rows are identified by their owner and acquisition time, which is unique to this attempt.
+   */
+  private fun tryAcquireBatch(candidates: Map<String, AgentExecutionAction>): Map<String, NextAttempt> {
+    val currentTime = System.currentTimeMillis()
+    val intervals = candidates.mapValues { intervalProvider.getInterval(it.value.agent) }
+
+    val won = try {
+      withPool(POOL_NAME) {
+        jooq.insertInto(
+          table(lockTable),
+          field("agent_name"),
+          field("owner_id"),
+          field("lock_acquired"),
+          field("lock_expiry")
+        )
+          .apply {
+            intervals.forEach { (agentType, interval) ->
+              values(agentType, nodeIdentity.nodeIdentity, currentTime, currentTime + interval.timeout)
+            }
+          }
+          .onDuplicateKeyIgnore()
+          .execute()
+
+        jooq.select(field("agent_name"))
+          .from(table(lockTable))
+          .where(
+            field("owner_id").eq(nodeIdentity.nodeIdentity)
+              .and(field("lock_acquired").eq(currentTime))
+              .and(field("agent_name").`in`(intervals.keys))
+          )
+          .fetch(0, String::class.java)
+      }
+    } catch (e: DataAccessException) {
+      log.error("Unexpected sql exception while trying to acquire ${candidates.size} agent locks", e)
+      return emptyMap()
+    }
+
+    return won
+      .mapNotNull { agentType ->
+        intervals[agentType]?.let { Pair(agentType, NextAttempt(currentTime, it.interval, it.errorInterval)) }
+      }
+      .toMap()
+  }
+
+  private fun findCandidateAgentLocks(batched: Boolean): Map<String, AgentExecutionAction> {
     cleanupZombieAgents()
     val skip = HashMap(activeAgents).entries
     val maxConcurrentAgents = dynamicConfigService.getConfig(Int::class.java, "sql.agent.max-concurrent-agents", 100)
@@ -170,8 +265,14 @@ class SqlClusteredAgentScheduler(
       disabledAgentsConfig.joinToString(",")
     ).split(",").map { it.trim() }
 
-    val candidateAgentLocks = agents
-      .filter { shardingFilter.filter(it.value.agent) }
+    val ownedAgents = agents.filter { shardingFilter.filter(it.value.agent) }
+    if (prioritizedExecutor != null) {
+      // Only agents this node may run are tracked, so that agents of other shards don't look stale
+      agents.keys.filterNot { ownedAgents.containsKey(it) }.forEach { prioritizedExecutor.unregister(it) }
+      ownedAgents.values.forEach { prioritizedExecutor.register(it.agent) }
+    }
+
+    val candidateAgentLocks = ownedAgents
       .filter { !activeAgents.containsKey(it.key) }
       .filter { enabledAgents.matcher(it.key).matches() }
       .filterNot { disabledAgents.contains(it.key) }
@@ -187,9 +288,12 @@ class SqlClusteredAgentScheduler(
         .intoResultSet()
 
       val now = System.currentTimeMillis()
+      val expiredLocks = mutableListOf<String>()
       while (existingLocks.next()) {
         val lockExpiry = existingLocks.getLong("lock_expiry")
-        if (now > lockExpiry) {
+        if (batched && now > lockExpiry) {
+          expiredLocks.add(existingLocks.getString("agent_name"))
+        } else if (now > lockExpiry) {
           try {
             jooq.deleteFrom(table(lockTable))
               .where(
@@ -208,12 +312,37 @@ class SqlClusteredAgentScheduler(
           }
         } else {
           candidateAgentLocks.remove(existingLocks.getString("agent_name"))
+          // whichever node holds the lock, the agent isn't due before it expires
+          prioritizedExecutor?.lockHeldUntil(existingLocks.getString("agent_name"), lockExpiry)
+        }
+      }
+
+      if (expiredLocks.isNotEmpty()) {
+        try {
+          // a lock that was renewed since it was read has an expiry in the future and is left alone
+          jooq.deleteFrom(table(lockTable))
+            .where(field("agent_name").`in`(expiredLocks).and(field("lock_expiry").lt(now)))
+            .execute()
+        } catch (e: DataAccessException) {
+          log.error("Failed deleting ${expiredLocks.size} expired agent locks", e)
+          expiredLocks.forEach { candidateAgentLocks.remove(it) }
         }
       }
     }
 
     log.debug("Next agents to run: {}, max: {}", candidateAgentLocks.keys, availableAgents)
 
+    if (prioritizedExecutor != null) {
+      val selected = prioritizedExecutor.select(candidateAgentLocks.values.map { it.agent }, availableAgents)
+      if (selected.size < candidateAgentLocks.size) {
+        log.debug(
+          "Deferring {} of {} due agents (maxConcurrentAgents: {}, activeAgents: {})",
+          candidateAgentLocks.size - selected.size, candidateAgentLocks.size, maxConcurrentAgents, skip.size
+        )
+      }
+      return selected.associate { it.agentType to candidateAgentLocks.getValue(it.agentType) }
+    }
+
     val trimmedCandidates = mutableMapOf<String, AgentExecutionAction>()
     candidateAgentLocks.entries
       .shuffled()
@@ -301,9 +430,58 @@ class SqlClusteredAgentScheduler(
     }
   }
 
+  /**
+   * Releases the locks of every agent that completed since the previous tick: locks that are due within the release
+   * threshold are deleted with a single statement, the others have their expiry moved in one batch.
+   */
+  private fun releasePendingLocks() {
+    val releases = generateSequence { pendingReleases.poll() }.toList()
+    if (releases.isEmpty()) {
+      return
+    }
+
+    val startTime = System.nanoTime()
+    val now = System.currentTimeMillis()
+    val releaseThreshold = dynamicConfigService.getConfig(Long::class.java, "sql.agent.release-threshold-ms", 500)
+    val (deletes, updates) = releases.partition { it.nextExecutionTime - now < releaseThreshold }
+
+    withPool(POOL_NAME) {
+      if (deletes.isNotEmpty()) {
+        try {
+          jooq.delete(table(lockTable)).where(field("agent_name").`in`(deletes.map { it.agentType })).execute()
+        } catch (e: DataAccessException) {
+          log.error("Failed to immediately release locks for agents: ${deletes.map { it.agentType }}", e)
+        }
+      }
+      if (updates.isNotEmpty()) {
+        try {
+          jooq.batch(
+            updates.map<PendingRelease, Query> {
+              jooq.update(table(lockTable))
+                .set(field("lock_expiry"), it.nextExecutionTime)
+                .where(field("agent_name").eq(it.agentType))
+            }
+          ).execute()
+        } catch (e: DataAccessException) {
+          log.error("Failed to update lock TTL for agents: ${updates.map { it.agentType }}", e)
+        }
+      }
+    }
+
+    registry.timer(releaseLocksId).record(System.nanoTime() - startTime, TimeUnit.NANOSECONDS)
+  }
+
+  private fun batchLocksEnabled(): Boolean =
+    dynamicConfigService.isEnabled("sql.agent.batch-locks", false)
+
   private fun agentCompleted(agentType: String, nextExecutionTime: Long) {
     try {
-      releaseLock(agentType, nextExecutionTime)
+      if (batchLocksEnabled()) {
+        // the lock stays held until the next tick releases it along with the others
+        pendingReleases.add(PendingRelease(agentType, nextExecutionTime))
+      } else {
+        releaseLock(agentType, nextExecutionTime)
+      }
     } finally {
       activeAgents.remove(agentType)
       activeAgentsFutures.remove(agentType)
@@ -346,15 +524,25 @@ private class AgentJob(
 ) : Runnable {
 
   override fun run() {
+    execute()
+  }
+
+  fun execute(): Status {
     var status = Status.FAILURE
     try {
       status = action.execute()
     } finally {
       schedulerCallback(action.agent.agentType, lockReleaseTime.getNextTime(status))
     }
+    return status
   }
 }
 
+private data class PendingRelease(
+  val agentType: String,
+  val nextExecutionTime: Long
+)
+
 private data class NextAttempt(
   val currentTime: Long,
   val successInterval: Long,
@@ -15,14 +15,17 @@
  */
 package com.netflix.spinnaker.config
 
+import com.netflix.spectator.api.Registry
 import com.netflix.spinnaker.cats.agent.AgentScheduler
 import com.netflix.spinnaker.cats.cluster.AgentIntervalProvider
 import com.netflix.spinnaker.cats.cluster.DefaultNodeIdentity
 import com.netflix.spinnaker.cats.cluster.NodeStatusProvider
+import com.netflix.spinnaker.cats.cluster.PrioritizedAgentExecutor
 import com.netflix.spinnaker.cats.cluster.ShardingFilter
 import com.netflix.spinnaker.cats.sql.cluster.SqlClusteredAgentScheduler
 import com.netflix.spinnaker.kork.dynamicconfig.DynamicConfigService
 import org.jooq.DSLContext
+import org.springframework.beans.factory.ObjectProvider
 import org.springframework.beans.factory.annotation.Value
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty
 import org.springframework.context.annotation.Bean
@@ -46,7 +49,9 @@ class SqlAgentSchedulerConfiguration {
     dynamicConfigService: DynamicConfigService,
     @Value("\${sql.table-namespace:#{null}}") tableNamespace: String?,
     sqlAgentProperties: SqlAgentProperties,
-    shardingFilter: ShardingFilter
+    shardingFilter: ShardingFilter,
+    registry: Registry,
+    prioritizedAgentExecutor: ObjectProvider<PrioritizedAgentExecutor>
   ): AgentScheduler<*> {
     return SqlClusteredAgentScheduler(
       jooq = jooq,
@@ -58,7 +63,9 @@ class SqlAgentSchedulerConfiguration {
       disabledAgentsConfig = sqlAgentProperties.disabledAgents,
       tableNamespace = tableNamespace,
       agentLockAcquisitionIntervalSeconds = sqlAgentProperties.agentLockAcquisitionIntervalSeconds,
-      shardingFilter = shardingFilter
+      shardingFilter = shardingFilter,
+      registry = registry,
+      prioritizedExecutor = prioritizedAgentExecutor.ifAvailable
     )
   }
 }
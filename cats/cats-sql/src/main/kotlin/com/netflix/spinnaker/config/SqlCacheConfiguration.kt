@@ -12,10 +12,12 @@ import com.netflix.spinnaker.cats.provider.Provider
 import com.netflix.spinnaker.cats.provider.ProviderRegistry
 import com.netflix.spinnaker.cats.sql.SqlProviderRegistry
 import com.netflix.spinnaker.cats.sql.cache.SpectatorSqlCacheMetrics
+import com.netflix.spinnaker.cats.sql.cache.SqlBodyCodec
 import com.netflix.spinnaker.cats.sql.cache.SqlCacheMetrics
 import com.netflix.spinnaker.cats.sql.cache.SqlCleanupStaleOnDemandCachesAgent
 import com.netflix.spinnaker.cats.sql.cache.SqlNamedCacheFactory
 import com.netflix.spinnaker.cats.sql.cache.SqlNames
+import com.netflix.spinnaker.cats.sql.cache.SqlNearCache
 import com.netflix.spinnaker.cats.sql.cache.SqlTableMetricsAgent
 import com.netflix.spinnaker.cats.sql.cache.SqlUnknownAgentCleanupAgent
 import com.netflix.spinnaker.cats.cluster.NoopShardingFilter
@@ -54,7 +56,11 @@ const val coroutineThreadPrefix = "catsSql"
 @Configuration
 @ConditionalOnProperty("sql.cache.enabled")
 @Import(DefaultSqlConfiguration::class)
-@EnableConfigurationProperties(SqlAgentProperties::class, SqlConstraintsProperties::class)
+@EnableConfigurationProperties(
+  SqlAgentProperties::class,
+  SqlConstraintsProperties::class,
+  SqlNearCacheProperties::class
+)
 @ComponentScan("com.netflix.spinnaker.cats.sql.controllers")
 class SqlCacheConfiguration {
 
@@ -86,12 +92,38 @@ class SqlCacheConfiguration {
   fun sqlConstraints(jooq: DSLContext, sqlConstraintsProperties: SqlConstraintsProperties): SqlConstraints =
     SqlConstraints(SqlConstraintsInitializer.getDefaultSqlConstraints(jooq.dialect()), sqlConstraintsProperties)
 
+  /**
+   * sql.cache.near-cache.enabled: Keeps recently read items in memory, see [SqlNearCache].
+   */
+  @Bean(destroyMethod = "shutdown")
+  @ConditionalOnProperty("sql.cache.near-cache.enabled")
+  fun sqlNearCache(
+    jooq: DSLContext,
+    registry: Registry,
+    sqlConstraints: SqlConstraints,
+    properties: SqlNearCacheProperties,
+    @Value("\${sql.table-namespace:#{null}}") tableNamespace: String?
+  ): SqlNearCache =
+    SqlNearCache(
+      jooq,
+      SqlNames(tableNamespace, sqlConstraints),
+      registry,
+      properties.maximumWeightMb * 1024 * 1024,
+      Duration.ofSeconds(properties.maxStalenessSeconds),
+      Duration.ofMillis(properties.pollIntervalMillis),
+      Duration.ofMillis(properties.writeLagMillis)
+    )
+
   /**
    * sql.cache.async.poolSize: If set to a positive integer, a fixed thread pool of this size is created
    * as part of a coroutineContext. If sql.cache.maxQueryConcurrency is also >1 (default value: 4),
    * sql queries to fetch > 2 * sql.cache.readBatchSize cache keys will be made asynchronously in batches of
    * maxQueryConcurrency size.
    *
+   * sql.cache.bodyFormat: The format new or changed resource bodies are written in; either `json` (default)
+   * or `smile-deflate`. Bodies are always readable regardless of the format they were written in, so
+   * this can be changed at any time and existing rows migrate as they are rewritten.
+   *
    * sql.tableNamespace: Name spaces data tables, as well as the agent lock table if using the SqlAgentScheduler.
    * Table namespacing allows flipping to new/empty data tables within the same master if necessary to rebuild
    * the cache from scratch, such as after disabling caching agents for an account/region.
@@ -107,7 +139,9 @@ class SqlCacheConfiguration {
     sqlConstraints: SqlConstraints,
     mapper: ObjectMapper,
     @Value("\${sql.cache.async-pool-size:0}") poolSize: Int,
-    @Value("\${sql.table-namespace:#{null}}") tableNamespace: String?
+    @Value("\${sql.cache.body-format:json}") bodyFormat: String,
+    @Value("\${sql.table-namespace:#{null}}") tableNamespace: String?,
+    nearCache: ObjectProvider<SqlNearCache>
   ): NamedCacheFactory {
     if (tableNamespace != null && !tableNamespace.matches("""^\w+$""".toRegex())) {
       throw IllegalArgumentException("tableNamespace can only contain characters [a-z, A-Z, 0-9, _]")
@@ -139,7 +173,9 @@ class SqlCacheConfiguration {
       tableNamespace,
       cacheMetrics,
       dynamicConfigService,
-      sqlConstraints
+      sqlConstraints,
+      SqlBodyCodec(mapper, SqlBodyCodec.Format.fromConfig(bodyFormat)),
+      nearCache.ifAvailable
     )
   }
 
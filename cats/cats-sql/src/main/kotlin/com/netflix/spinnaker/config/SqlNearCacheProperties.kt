@@ -0,0 +1,41 @@
+/*
+ * Copyright 2026 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.netflix.spinnaker.config
+
+import org.springframework.boot.context.properties.ConfigurationProperties
+
+@ConfigurationProperties("sql.cache.near-cache")
+class SqlNearCacheProperties {
+  var enabled: Boolean = false
+
+  /**
+   * Approximate upper bound of the heap held by cached items.
+   */
+  var maximumWeightMb: Long = 256
+
+  /**
+   * No item is served longer than this after it was read from SQL, whether or not a change was noticed.
+   */
+  var maxStalenessSeconds: Long = 30
+
+  var pollIntervalMillis: Long = 2000
+
+  /**
+   * How far back from the previous high-water mark each poll looks, for rows committed out of `last_updated` order.
+   */
+  var writeLagMillis: Long = 5000
+}
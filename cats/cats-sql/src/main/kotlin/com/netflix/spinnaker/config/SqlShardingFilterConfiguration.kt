@@ -18,9 +18,11 @@
 package com.netflix.spinnaker.config
 
 import com.netflix.spinnaker.cats.cluster.DefaultNodeIdentity
+import com.netflix.spinnaker.cats.sql.cluster.SqlAgentCostRecorder
 import com.netflix.spinnaker.cats.sql.cluster.SqlCachingPodsObserver
 import com.netflix.spinnaker.kork.dynamicconfig.DynamicConfigService
 import org.jooq.DSLContext
+import org.springframework.beans.factory.ObjectProvider
 import org.springframework.beans.factory.annotation.Value
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty
 import org.springframework.context.annotation.Bean
@@ -41,15 +43,41 @@ class SqlShardingFilterConfiguration {
   fun shardingFilter(
     jooq: DSLContext,
     @Value("\${sql.table-namespace:#{null}}") tableNamespace: String?,
-    dynamicConfigService: DynamicConfigService
+    dynamicConfigService: DynamicConfigService,
+    agentCostRecorder: ObjectProvider<SqlAgentCostRecorder>
   ): SqlCachingPodsObserver {
     return SqlCachingPodsObserver(
       jooq = jooq,
       nodeIdentity = DefaultNodeIdentity(),
       tableNamespace = tableNamespace,
-      dynamicConfigService = dynamicConfigService
+      dynamicConfigService = dynamicConfigService,
+      agentCostRecorder = agentCostRecorder.ifAvailable
     )
   }
 
+  /**
+   * Records agent execution costs so that accounts are balanced across caching pods by observed cost, rather than by
+   * consistent hashing alone.
+   */
+  @Bean
+  @ConditionalOnProperty(
+    value = [
+      "sql.enabled",
+      "sql.scheduler.enabled",
+      "cache-sharding.enabled",
+      "cache-sharding.cost-aware.enabled"
+    ]
+  )
+  fun sqlAgentCostRecorder(
+    jooq: DSLContext,
+    @Value("\${sql.table-namespace:#{null}}") tableNamespace: String?,
+    dynamicConfigService: DynamicConfigService
+  ): SqlAgentCostRecorder {
+    return SqlAgentCostRecorder(
+      jooq = jooq,
+      tableNamespace = tableNamespace,
+      dynamicConfigService = dynamicConfigService
+    )
+  }
 
 }
@@ -59,6 +59,73 @@ abstract class SqlCacheSpec extends WriteableCacheSpec {
     1 * ((SqlCache) cache).cacheMetrics.merge('test', 'foo', 1, 0, 0, 0, 1, 0, 0, 0)
   }
 
+  def 'only writes relationships that changed since the last write'() {
+    given:
+    def sqlCache = (SqlCache) cache
+    def data = createData('blerp', [a: 'b'], ['bar:agent': ['bar-1', 'bar-2']])
+    sqlCache.mergeAll('foo', 'agent', [data], false, true)
+
+    when: 'storing the same relationships again'
+    sqlCache.mergeAll('foo', 'agent', [data], false, true)
+
+    then: 'only the relationship hashes are read'
+    1 * sqlCache.cacheMetrics.merge('test', 'foo', 0, 0, 2, 0, 1, 0, 0, 0)
+
+    when: 'one relationship is replaced'
+    sqlCache.mergeAll('foo', 'agent', [createData('blerp', [a: 'b'], ['bar:agent': ['bar-1', 'bar-3']])], false, true)
+
+    then: 'only the added and removed relationships are written, in both directions'
+    1 * sqlCache.cacheMetrics.merge('test', 'foo', 0, 0, 2, 2, 3, 3, 2, 0)
+    relIds('cats_v1_test_foo_rel', 'rel_id') == ['bar-1', 'bar-3']
+    relIds('cats_v1_test_bar_rel', 'id') == ['bar-1', 'bar-3']
+  }
+
+  def 'relationships left by a merge without cleanup are deleted once their item is gone'() {
+    given:
+    def sqlCache = (SqlCache) cache
+    sqlCache.mergeAll('foo', 'agent', [createData('blerp', [a: 'b'], ['bar:agent': ['bar-1', 'bar-2']])], false, true)
+
+    when: 'a merge without cleanup drops a relationship, which is only deleted by a cleanup'
+    sqlCache.mergeAll('foo', 'agent', [createData('blerp', [a: 'b'], ['bar:agent': ['bar-1']])], false, false)
+
+    and: 'the item is gone by the next cleanup'
+    sqlCache.mergeAll('foo', 'agent', [createData('other', [a: 'b'], ['bar:agent': ['bar-9']])], false, true)
+
+    then:
+    relIds('cats_v1_test_foo_rel', 'rel_id') == ['bar-9']
+    relIds('cats_v1_test_bar_rel', 'id') == ['bar-9']
+  }
+
+  def 'filterIdentifiers still finds an id that another agent has after one agent evicts it'() {
+    given: 'the key component index is used, and two agents have the same id'
+    def sqlCache = (SqlCache) cache
+    sqlCache.dynamicConfigService.isEnabled('sql.cache.key-component-index', _) >> true
+    def shared = 'aws:instances:us-east-1:i-1'
+    def other = 'aws:instances:us-east-1:i-2'
+    sqlCache.mergeAll('foo', 'agent-1', [createData(shared), createData(other)], true, true)
+    sqlCache.mergeAll('foo', 'agent-2', [createData(shared)], true, true)
+
+    when: 'the first agent no longer has the shared id'
+    sqlCache.mergeAll('foo', 'agent-1', [createData(other)], true, true)
+
+    then:
+    sqlCache.get('foo', shared) != null
+    sqlCache.filterIdentifiers('foo', '*:i-1') as List == [shared]
+
+    when: 'the second agent no longer has it either'
+    sqlCache.mergeAll('foo', 'agent-2', [createData(other)], true, true)
+
+    then:
+    sqlCache.filterIdentifiers('foo', '*:i-1').isEmpty()
+  }
+
+  private List<String> relIds(String table, String column) {
+    context.select(DSL.field(column))
+      .from(DSL.table(table))
+      .fetch(0, String)
+      .sort()
+  }
+
   def 'mergeAll with two items that have the same id preserves the existing item'() {
       given: 'one item in the cache'
       String id = 'bar'
@@ -102,6 +169,21 @@ abstract class SqlCacheSpec extends WriteableCacheSpec {
     retrieved.findAll { it.id == "fnord-5" }.size() == 1
   }
 
+  def 'forEachItem pages through items written by several agents'() {
+    given: 'ids written by two agents, so that their rows straddle page boundaries'
+    def sqlCache = (SqlCache) cache
+    sqlCache.mergeAll('foo', 'agent-1', (1..5).collect { createData("foo-$it", [a: 'b']) }, false, true)
+    sqlCache.mergeAll('foo', 'agent-2', (3..7).collect { createData("foo-$it", [c: 'd']) }, false, true)
+
+    when:
+    def items = []
+    sqlCache.forEachItem('foo', null) { items << it }
+
+    then: 'each id is handed over once, with the bodies of both agents merged'
+    items*.id == (1..7).collect { "foo-$it" }
+    items.find { it.id == 'foo-4' }.attributes == [a: 'b', c: 'd']
+  }
+
   @Unroll
   def 'generates where clause based on cacheFilters'() {
     when:
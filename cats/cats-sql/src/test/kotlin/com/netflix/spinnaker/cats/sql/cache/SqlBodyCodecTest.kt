@@ -0,0 +1,99 @@
+/*
+ * Copyright 2026 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.spinnaker.cats.sql.cache
+
+import com.fasterxml.jackson.databind.ObjectMapper
+import com.netflix.spinnaker.cats.cache.DefaultCacheData
+import dev.minutest.junit.JUnit5Minutests
+import dev.minutest.rootContext
+import java.security.MessageDigest
+import strikt.api.expectThat
+import strikt.api.expectThrows
+import strikt.assertions.isEqualTo
+import strikt.assertions.isNotEqualTo
+import strikt.assertions.startsWith
+
+class SqlBodyCodecTest : JUnit5Minutests {
+
+  private val mapper = ObjectMapper()
+
+  private val cacheData = DefaultCacheData(
+    "aws:instances:prod:us-east-1:i-1234",
+    mapOf("name" to "i-1234", "tags" to listOf(mapOf("key" to "app", "value" to "clouddriver"))),
+    mapOf("serverGroups" to listOf("aws:serverGroups:clouddriver-main:prod:us-east-1:clouddriver-main-v001"))
+  )
+
+  fun tests() = rootContext {
+    SqlBodyCodec.Format.values().forEach { format ->
+      test("round trips bodies written as $format") {
+        val codec = SqlBodyCodec(mapper, format)
+        val body = codec.encode(cacheData)
+
+        expectThat(body).startsWith(format.header)
+
+        val decoded = codec.decode(body)
+        expectThat(decoded.id).isEqualTo(cacheData.id)
+        expectThat(decoded.attributes).isEqualTo(cacheData.attributes)
+        expectThat(decoded.relationships.mapValues { it.value.toList() })
+          .isEqualTo(cacheData.relationships.mapValues { it.value.toList() })
+      }
+
+      test("streamed hash matches the hash of the encoded $format body") {
+        val codec = SqlBodyCodec(mapper, format)
+
+        expectThat(codec.hash(cacheData)).isEqualTo(codec.hash(codec.encode(cacheData)))
+      }
+
+      test("reads legacy json bodies when writing $format") {
+        val legacyBody = mapper.writeValueAsString(cacheData)
+
+        expectThat(SqlBodyCodec(mapper, format).decode(legacyBody).attributes)
+          .isEqualTo(cacheData.attributes)
+      }
+    }
+
+    test("encoding is deterministic so that body hashes are stable") {
+      val codec = SqlBodyCodec(mapper, SqlBodyCodec.Format.SMILE_DEFLATE)
+
+      expectThat(codec.encode(cacheData)).isEqualTo(codec.encode(cacheData))
+      expectThat(codec.encode(cacheData)).isNotEqualTo(SqlBodyCodec(mapper).encode(cacheData))
+    }
+
+    test("json hashes are unchanged from the previously stored sha256 of the serialized body") {
+      val legacyHash = MessageDigest.getInstance("SHA-256")
+        .digest(mapper.writeValueAsString(cacheData).toByteArray())
+        .joinToString("") { "%02x".format(it) }
+
+      expectThat(SqlBodyCodec(mapper).hash(cacheData)).isEqualTo(legacyHash)
+    }
+
+    test("parses configuration values") {
+      expectThat(SqlBodyCodec.Format.fromConfig("smile-deflate")).isEqualTo(SqlBodyCodec.Format.SMILE_DEFLATE)
+      expectThat(SqlBodyCodec.Format.fromConfig("json")).isEqualTo(SqlBodyCodec.Format.JSON)
+      expectThrows<IllegalArgumentException> { SqlBodyCodec.Format.fromConfig("smile") }
+    }
+
+    test("legacy json bodies start with the json header") {
+      expectThat(mapper.writeValueAsString(cacheData)).startsWith(SqlBodyCodec.Format.JSON.header)
+    }
+
+    test("rejects bodies written with an unknown layout version") {
+      val body = SqlBodyCodec(mapper, SqlBodyCodec.Format.SMILE_DEFLATE).encode(cacheData)
+
+      expectThrows<IllegalArgumentException> { SqlBodyCodec(mapper).decode("Z2" + body.drop(2)) }
+    }
+  }
+}
@@ -0,0 +1,169 @@
+/*
+ * Copyright 2026 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.netflix.spinnaker.cats.sql.cache
+
+import com.fasterxml.jackson.databind.ObjectMapper
+import com.github.benmanes.caffeine.cache.Ticker
+import com.netflix.spectator.api.DefaultRegistry
+import com.netflix.spinnaker.cats.cache.CacheData
+import com.netflix.spinnaker.cats.cache.DefaultCacheData
+import com.netflix.spinnaker.cats.cache.RelationshipCacheFilter
+import com.netflix.spinnaker.config.SqlConstraintsInitializer
+import com.netflix.spinnaker.kork.dynamicconfig.DynamicConfigService
+import com.netflix.spinnaker.kork.sql.config.RetryProperties
+import com.netflix.spinnaker.kork.sql.config.SqlRetryProperties
+import com.netflix.spinnaker.kork.sql.test.SqlTestUtil
+import com.nhaarman.mockito_kotlin.mock
+import dev.minutest.junit.JUnit5Minutests
+import dev.minutest.rootContext
+import java.time.Clock
+import java.time.Duration
+import java.time.Instant
+import java.time.ZoneOffset
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicLong
+import kotlin.contracts.ExperimentalContracts
+import org.jooq.SQLDialect
+import org.junit.jupiter.api.Assumptions.assumeTrue
+import org.testcontainers.DockerClientFactory
+import strikt.api.expectThat
+import strikt.assertions.isEqualTo
+import strikt.assertions.isNull
+
+@ExperimentalContracts
+class SqlNearCacheTest : JUnit5Minutests {
+
+  fun tests() = rootContext<Fixture> {
+    fixture { Fixture() }
+
+    beforeAll {
+      assumeTrue(DockerClientFactory.instance().isDockerAvailable)
+    }
+
+    after {
+      nearCache.shutdown()
+      SqlTestUtil.cleanupDb(dslContext)
+    }
+
+    test("serves repeated reads from memory") {
+      write(writeTime, "v1")
+
+      expectThat(read()?.attributes?.get("version")).isEqualTo("v1")
+      expectThat(read()?.attributes?.get("version")).isEqualTo("v1")
+
+      expectThat(registry.counter("cats.sqlCache.nearCache.misses", "type", "instances").count()).isEqualTo(1)
+      expectThat(registry.counter("cats.sqlCache.nearCache.hits", "type", "instances").count()).isEqualTo(1)
+    }
+
+    test("evicts items written by other pods once they are polled") {
+      write(writeTime, "v1")
+      read()
+      nearCache.poll()
+      read()
+
+      write(writeTime.plusSeconds(1), "v2")
+      expectThat(read()?.attributes?.get("version")).isEqualTo("v1")
+
+      nearCache.poll()
+      expectThat(read()?.attributes?.get("version")).isEqualTo("v2")
+      expectThat(registry.counter("cats.sqlCache.nearCache.invalidations", "type", "instances").count())
+        .isEqualTo(1)
+    }
+
+    test("never serves items older than the staleness bound") {
+      write(writeTime, "v1")
+      read()
+      writer.evict("instances", "instance-1")
+
+      ticks.addAndGet(TimeUnit.SECONDS.toNanos(29))
+      expectThat(read()?.attributes?.get("version")).isEqualTo("v1")
+
+      ticks.addAndGet(TimeUnit.SECONDS.toNanos(2))
+      expectThat(read()).isNull()
+    }
+
+    test("only serves the relationships an item was read with") {
+      write(writeTime, "v1")
+
+      read(RelationshipCacheFilter.none())
+      read(RelationshipCacheFilter.include("serverGroups"))
+      expectThat(registry.counter("cats.sqlCache.nearCache.misses", "type", "instances").count()).isEqualTo(2)
+
+      expectThat(read(RelationshipCacheFilter.none())?.relationships?.keys).isEqualTo(emptySet())
+      expectThat(read(RelationshipCacheFilter.include("serverGroups"))?.relationships?.keys)
+        .isEqualTo(setOf("serverGroups"))
+      expectThat(registry.counter("cats.sqlCache.nearCache.hits", "type", "instances").count()).isEqualTo(2)
+    }
+  }
+
+  private inner class Fixture {
+    val testDatabase = SqlTestUtil.initTcMysqlDatabase()
+    val dslContext = testDatabase.context
+    val registry = DefaultRegistry()
+    val ticks = AtomicLong()
+    val writeTime: Instant = Instant.parse("2026-10-17T00:00:00Z")
+
+    val sqlConstraints = SqlConstraintsInitializer.getDefaultSqlConstraints(SQLDialect.MYSQL)
+
+    val nearCache = SqlNearCache(
+      jooq = dslContext,
+      sqlNames = SqlNames(null, sqlConstraints),
+      registry = registry,
+      maximumWeightBytes = 1024 * 1024,
+      maxStaleness = Duration.ofSeconds(30),
+      pollInterval = Duration.ZERO,
+      ticker = Ticker { ticks.get() }
+    )
+
+    val reader = sqlCache(Clock.systemUTC(), nearCache)
+    val writer = sqlCache(Clock.systemUTC(), null)
+
+    fun sqlCache(clock: Clock, nearCache: SqlNearCache?) = SqlCache(
+      "test",
+      dslContext,
+      ObjectMapper(),
+      null,
+      clock,
+      SqlRetryProperties(RetryProperties(1, 10), RetryProperties(1, 10)),
+      null,
+      mock(),
+      DynamicConfigService.NoopDynamicConfig(),
+      sqlConstraints,
+      SqlNamedCacheFactory.DefaultProviderCacheConfiguration(),
+      SqlBodyCodec(ObjectMapper()),
+      nearCache
+    )
+
+    fun write(at: Instant, version: String) {
+      sqlCache(Clock.fixed(at, ZoneOffset.UTC), null).mergeAll(
+        "instances",
+        "agent",
+        mutableListOf<CacheData>(
+          DefaultCacheData(
+            "instance-1",
+            mapOf("version" to version),
+            mapOf("serverGroups:agent" to listOf("sg-1"), "loadBalancers:agent" to listOf("lb-1"))
+          )
+        ),
+        true,
+        true
+      )
+    }
+
+    fun read(filter: RelationshipCacheFilter? = null) = reader.get("instances", "instance-1", filter)
+  }
+}
@@ -0,0 +1,150 @@
+/*
+ * Copyright 2026 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.netflix.spinnaker.cats.sql.cluster
+
+import com.netflix.spinnaker.cats.agent.Agent
+import com.netflix.spinnaker.cats.cache.CacheIntrospectionStore
+import com.netflix.spinnaker.cats.cache.DefaultAgentIntrospection
+import com.netflix.spinnaker.kork.dynamicconfig.DynamicConfigService
+import com.netflix.spinnaker.kork.sql.test.SqlTestUtil
+import com.nhaarman.mockito_kotlin.mock
+import com.nhaarman.mockito_kotlin.whenever
+import dev.minutest.junit.JUnit5Minutests
+import dev.minutest.rootContext
+import org.jooq.impl.DSL.field
+import org.jooq.impl.DSL.table
+import org.junit.jupiter.api.Assumptions.assumeTrue
+import org.testcontainers.DockerClientFactory
+import strikt.api.expectThat
+import strikt.assertions.isEqualTo
+import java.time.Clock
+import java.time.Instant
+import java.time.ZoneId
+import java.time.ZoneOffset
+
+class SqlAgentCostRecorderTest : JUnit5Minutests {
+
+  fun tests() = rootContext<Fixture> {
+    fixture { Fixture() }
+
+    beforeAll {
+      assumeTrue(DockerClientFactory.instance().isDockerAvailable)
+    }
+
+    after {
+      SqlTestUtil.cleanupDb(dslContext)
+    }
+
+    test("writes recorded costs on flush and reads them back per account") {
+      complete("prod/us-east-1/ClusterCachingAgent", elapsedMs = 1_000, items = 50)
+      complete("prod/us-west-2/ClusterCachingAgent", elapsedMs = 500, items = 10)
+      complete("test/us-east-1/ClusterCachingAgent", elapsedMs = 200, items = 0)
+
+      subject.flush()
+
+      expectThat(rows()).isEqualTo(
+        mapOf(
+          "prod/us-east-1/ClusterCachingAgent" to Row("prod", 1_000, 50, 10_000),
+          "prod/us-west-2/ClusterCachingAgent" to Row("prod", 500, 10, 10_000),
+          "test/us-east-1/ClusterCachingAgent" to Row("test", 200, 0, 10_000)
+        )
+      )
+      // one millisecond per cached item by default
+      expectThat(subject.accountCosts()).isEqualTo(mapOf("prod" to 1_560.0, "test" to 200.0))
+    }
+
+    test("a later flush updates the rows of agents that ran again") {
+      complete("prod/us-east-1/ClusterCachingAgent", elapsedMs = 1_000, items = 50)
+      complete("test/us-east-1/ClusterCachingAgent", elapsedMs = 200, items = 0)
+      subject.flush()
+
+      now = 20_000
+      complete("prod/us-east-1/ClusterCachingAgent", elapsedMs = 2_000, items = 150)
+      subject.flush()
+
+      // the new execution moves the average by the default smoothing of 0.3
+      expectThat(rows()).isEqualTo(
+        mapOf(
+          "prod/us-east-1/ClusterCachingAgent" to Row("prod", 1_300, 80, 20_000),
+          "test/us-east-1/ClusterCachingAgent" to Row("test", 200, 0, 10_000)
+        )
+      )
+    }
+
+    test("a flush without new executions writes nothing") {
+      complete("prod/us-east-1/ClusterCachingAgent", elapsedMs = 1_000, items = 50)
+      subject.flush()
+
+      now = 20_000
+      subject.flush()
+
+      expectThat(rows()["prod/us-east-1/ClusterCachingAgent"]?.lastUpdated).isEqualTo(10_000)
+    }
+  }
+
+  private data class Row(val account: String, val executionTimeMs: Long, val itemCount: Long, val lastUpdated: Long)
+
+  private inner class Fixture {
+    val testDatabase = SqlTestUtil.initTcMysqlDatabase()
+    val dslContext = testDatabase.context
+
+    var now = 10_000L
+    private val clock = object : Clock() {
+      override fun getZone(): ZoneId = ZoneOffset.UTC
+      override fun withZone(zone: ZoneId?): Clock = this
+      override fun instant(): Instant = Instant.ofEpochMilli(now)
+    }
+
+    val subject = SqlAgentCostRecorder(
+      jooq = dslContext,
+      dynamicConfigService = DynamicConfigService.NoopDynamicConfig(),
+      clock = clock
+    )
+
+    fun complete(agentType: String, elapsedMs: Long, items: Int) {
+      val agent: Agent = mock()
+      whenever(agent.agentType).thenReturn(agentType)
+      whenever(agent.providerName).thenReturn("aws")
+      CacheIntrospectionStore.getStore().recordAgent(
+        DefaultAgentIntrospection().apply {
+          id = agentType
+          totalAdditions = items
+        }
+      )
+      subject.executionCompleted(agent, elapsedMs)
+    }
+
+    fun rows(): Map<String, Row> =
+      dslContext.select(
+        field("agent_type"),
+        field("account"),
+        field("execution_time_ms"),
+        field("item_count"),
+        field("last_updated")
+      )
+        .from(table("caching_agent_costs"))
+        .fetch()
+        .associate {
+          it.get(0, String::class.java) to Row(
+            it.get(1, String::class.java),
+            it.get(2, Long::class.java),
+            it.get(3, Long::class.java),
+            it.get(4, Long::class.java)
+          )
+        }
+  }
+}
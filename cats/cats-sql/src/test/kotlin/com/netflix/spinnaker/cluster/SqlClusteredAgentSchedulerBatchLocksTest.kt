@@ -0,0 +1,153 @@
+/*
+ * Copyright 2026 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.netflix.spinnaker.cluster
+
+import com.netflix.spectator.api.DefaultRegistry
+import com.netflix.spinnaker.cats.agent.Agent
+import com.netflix.spinnaker.cats.agent.AgentExecution
+import com.netflix.spinnaker.cats.cluster.AgentIntervalProvider
+import com.netflix.spinnaker.cats.cluster.NodeIdentity
+import com.netflix.spinnaker.cats.cluster.NodeStatusProvider
+import com.netflix.spinnaker.cats.cluster.NoopShardingFilter
+import com.netflix.spinnaker.cats.sql.cluster.SqlClusteredAgentScheduler
+import com.netflix.spinnaker.kork.dynamicconfig.DynamicConfigService
+import com.netflix.spinnaker.kork.sql.test.SqlTestUtil
+import com.nhaarman.mockito_kotlin.any
+import com.nhaarman.mockito_kotlin.mock
+import com.nhaarman.mockito_kotlin.whenever
+import dev.minutest.junit.JUnit5Minutests
+import dev.minutest.rootContext
+import org.jooq.impl.DSL.field
+import org.jooq.impl.DSL.table
+import org.junit.jupiter.api.Assumptions.assumeTrue
+import org.mockito.stubbing.Answer
+import org.testcontainers.DockerClientFactory
+import strikt.api.expectThat
+import strikt.assertions.containsExactlyInAnyOrder
+import strikt.assertions.isEqualTo
+import strikt.assertions.isLessThan
+import java.util.concurrent.ExecutorService
+import java.util.concurrent.FutureTask
+import java.util.concurrent.ScheduledExecutorService
+
+class SqlClusteredAgentSchedulerBatchLocksTest : JUnit5Minutests {
+
+  fun tests() = rootContext<Fixture> {
+    fixture { Fixture() }
+
+    beforeAll {
+      assumeTrue(DockerClientFactory.instance().isDockerAvailable)
+    }
+
+    after {
+      SqlTestUtil.cleanupDb(dslContext)
+    }
+
+    test("acquires every free lock in one round and skips locks held by other nodes") {
+      val now = System.currentTimeMillis()
+      insertLock("agent-2", "node2", now, now + 60_000)
+      insertLock("agent-3", "node2", now - 60_000, now - 1_000)
+
+      (1..3).forEach { scheduleAgent("agent-$it") }
+      subject.run()
+
+      expectThat(invocations).containsExactlyInAnyOrder("agent-1", "agent-3")
+      expectThat(lockOwners()).isEqualTo(mapOf("agent-1" to "node1", "agent-2" to "node2", "agent-3" to "node1"))
+      expectThat(registry.counter("cats.sqlAgentScheduler.locks", "result", "acquired").count()).isEqualTo(2)
+      expectThat(registry.counter("cats.sqlAgentScheduler.locks", "result", "contended").count()).isEqualTo(0)
+    }
+
+    test("moves the expiry of completed agents to their next run on the next tick") {
+      scheduleAgent("agent-1")
+      subject.run()
+      val acquiredExpiry = lockExpiry("agent-1")
+
+      subject.run()
+
+      expectThat(invocations).isEqualTo(listOf("agent-1"))
+      expectThat(lockExpiry("agent-1")).isLessThan(acquiredExpiry)
+    }
+  }
+
+  private inner class Fixture {
+    val testDatabase = SqlTestUtil.initTcMysqlDatabase()
+    val dslContext = testDatabase.context
+    val registry = DefaultRegistry()
+    val invocations = mutableListOf<String>()
+
+    val nodeIdentity: NodeIdentity = mock()
+    val nodeStatusProvider: NodeStatusProvider = mock()
+    val intervalProvider: AgentIntervalProvider = mock()
+    val agentExecutionPool: ExecutorService = mock()
+    val lockPollingScheduler: ScheduledExecutorService = mock()
+
+    val dynamicConfigService = object : DynamicConfigService.NoopDynamicConfig() {
+      override fun isEnabled(flagName: String, defaultValue: Boolean): Boolean =
+        flagName == "sql.agent.batch-locks" || super.isEnabled(flagName, defaultValue)
+    }
+
+    val subject = SqlClusteredAgentScheduler(
+      jooq = dslContext,
+      nodeIdentity = nodeIdentity,
+      intervalProvider = intervalProvider,
+      nodeStatusProvider = nodeStatusProvider,
+      dynamicConfigService = dynamicConfigService,
+      enabledAgentPattern = ".*",
+      disabledAgentsConfig = emptyList(),
+      agentExecutionPool = agentExecutionPool,
+      lockPollingScheduler = lockPollingScheduler,
+      shardingFilter = NoopShardingFilter(),
+      registry = registry
+    )
+
+    init {
+      whenever(nodeStatusProvider.isNodeEnabled).thenReturn(true)
+      whenever(nodeIdentity.nodeIdentity).thenReturn("node1")
+      whenever(intervalProvider.getInterval(any())).thenReturn(AgentIntervalProvider.Interval(30_000L, 300_000L))
+      whenever(agentExecutionPool.submit(any())).thenAnswer(Answer {
+        val r: Runnable = it.getArgument(0)
+        r.run()
+        object : FutureTask<Runnable>({ r }) {}
+      })
+    }
+
+    fun scheduleAgent(name: String) {
+      val agent: Agent = mock()
+      whenever(agent.agentType).thenReturn(name)
+      subject.schedule(agent, AgentExecution { invocations.add(it.agentType) }, mock())
+    }
+
+    fun insertLock(agentName: String, owner: String, acquired: Long, expiry: Long) {
+      dslContext.insertInto(table("cats_agent_locks"))
+        .columns(field("agent_name"), field("owner_id"), field("lock_acquired"), field("lock_expiry"))
+        .values(agentName, owner, acquired, expiry)
+        .execute()
+    }
+
+    fun lockOwners(): Map<String, String> =
+      dslContext.select(field("agent_name"), field("owner_id"))
+        .from(table("cats_agent_locks"))
+        .fetch()
+        .associate { it.get(0, String::class.java) to it.get(1, String::class.java) }
+
+    fun lockExpiry(agentName: String): Long =
+      dslContext.select(field("lock_expiry"))
+        .from(table("cats_agent_locks"))
+        .where(field("agent_name").eq(agentName))
+        .fetchOne(0, Long::class.java)!!
+  }
+}
@@ -105,6 +105,54 @@ abstract class CacheSpec extends Specification {
         identifiers = ['blaTEST', 'TESTbla', 'blaTESTbla', 'blaPest', 'blaFEST']
     }
 
+    def 'filterIdentifiers behaviour with structured keys'() {
+        setup:
+        for (String id : identifiers) {
+            populateOne('serverGroups', id)
+        }
+
+        expect:
+        cache.filterIdentifiers('serverGroups', filter).toSet() == expected as Set
+
+        where:
+        filter                            | expected
+        '*:prod:*'                        | ['aws:serverGroups:app-main:prod:us-east-1:app-main-v001', 'aws:serverGroups:app-canary:prod:us-west-2:app-canary-v002']
+        'aws:serverGroups:*:test:*'       | ['aws:serverGroups:app-main:test:us-east-1:app-main-v003']
+        '*:us-east-1:app-main-v00?'       | ['aws:serverGroups:app-main:prod:us-east-1:app-main-v001', 'aws:serverGroups:app-main:test:us-east-1:app-main-v003']
+        '*:staging:*'                     | []
+        '*prod*'                          | ['aws:serverGroups:app-main:prod:us-east-1:app-main-v001', 'aws:serverGroups:app-canary:prod:us-west-2:app-canary-v002', 'aws:serverGroups:production:test:eu-west-1:production-v004']
+        '*:app-main:pro*'                 | ['aws:serverGroups:app-main:prod:us-east-1:app-main-v001']
+
+        identifiers = [
+            'aws:serverGroups:app-main:prod:us-east-1:app-main-v001',
+            'aws:serverGroups:app-canary:prod:us-west-2:app-canary-v002',
+            'aws:serverGroups:app-main:test:us-east-1:app-main-v003',
+            'aws:serverGroups:production:test:eu-west-1:production-v004'
+        ]
+    }
+
+    def 'forEachItem visits every item'() {
+        setup:
+        populateOne('foo', 'bar')
+        populateOne('foo', 'baz')
+
+        when:
+        def visited = []
+        cache.forEachItem('foo') { visited << it.id }
+
+        then:
+        visited.sort() == ['bar', 'baz']
+    }
+
+    def 'forEachItem on an empty type visits nothing'() {
+        when:
+        def visited = []
+        cache.forEachItem('foo') { visited << it.id }
+
+        then:
+        visited.isEmpty()
+    }
+
     def 'can getAll empty id collection'() {
         when:
         def results = cache.getAll('foo', [])
@@ -129,6 +177,23 @@ abstract class CacheSpec extends Specification {
         results.find { it.id == 'baz' }
     }
 
+    def 'getAllMulti fetches several types at once'() {
+        setup:
+        populateOne('foo', 'bar', createData('bar', [bar: "bar"], [baz: ["baz"]]))
+        populateOne('foo', 'bar2')
+        populateOne('baz', 'baz')
+
+        when:
+        def results = cache.getAllMulti([foo: ['bar', 'bar2', 'doesntexist'], baz: ['baz'], qux: []], null)
+
+        then:
+        results.keySet() == ['foo', 'baz', 'qux'] as Set
+        results.foo*.id.sort() == ['bar', 'bar2']
+        results.foo.find { it.id == 'bar' }.relationships.baz == ['baz']
+        results.baz*.id == ['baz']
+        results.qux.isEmpty()
+    }
+
     @Unroll
     def 'relationship filtering behaviour'() {
         setup:
@@ -141,6 +206,12 @@ abstract class CacheSpec extends Specification {
         cache.getAll('foo').iterator().next().relationships.keySet() == ["rel1", "rel2"] as Set
         cache.getAll('foo', filter).iterator().next().relationships.keySet() == expectedRelationships as Set
 
+        def streamed = []
+        cache.forEachItem('foo', filter) { streamed << it }
+        streamed.first().relationships.keySet() == expectedRelationships as Set
+
+        cache.getAllMulti([foo: ['bar']], filter).foo.first().relationships.keySet() == expectedRelationships as Set
+
         where:
         filter                                          || expectedRelationships
         RelationshipCacheFilter.include("rel1")         || ["rel1"]
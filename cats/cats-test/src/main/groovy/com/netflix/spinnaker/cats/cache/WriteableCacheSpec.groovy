@@ -213,4 +213,15 @@ abstract class WriteableCacheSpec extends CacheSpec {
         then:
         noExceptionThrown()
     }
+
+    def 'filterIdentifiers does not return evicted items'() {
+        setup:
+        cache.mergeAll('foo', [createData('aws:foo:prod:one'), createData('aws:foo:prod:two')])
+
+        when:
+        cache.evict('foo', 'aws:foo:prod:one')
+
+        then:
+        cache.filterIdentifiers('foo', '*:prod:*') as List == ['aws:foo:prod:two']
+    }
 }
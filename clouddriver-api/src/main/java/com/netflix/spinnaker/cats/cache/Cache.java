@@ -17,15 +17,22 @@
 package com.netflix.spinnaker.cats.cache;
 
 import com.netflix.spinnaker.kork.annotations.Beta;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
 
 /** Cache provides view access to data keyed by type and identifier. */
 @Beta
 public interface Cache {
 
+  /** Number of items fetched per round trip by the default {@link #forEachItem} implementation. */
+  int DEFAULT_STREAMING_BATCH_SIZE = 500;
+
   /**
    * Gets a single item from the cache by type and id
    *
@@ -119,6 +126,62 @@ public interface Cache {
    */
   Collection<CacheData> getAll(String type, String... identifiers);
 
+  /**
+   * Retrieves the items matching the provided identifiers for several types at once.
+   *
+   * <p>The default implementation fetches each type in turn. Implementations that can batch reads
+   * across types into fewer round trips should override it.
+   *
+   * @param identifiersByType the identifiers to retrieve, keyed by type
+   * @param cacheFilter the cacheFilter to govern which relationships to fetch
+   * @return the items matching the identifiers, keyed by type, with an entry for every requested
+   *     type
+   */
+  default Map<String, Collection<CacheData>> getAllMulti(
+      Map<String, Collection<String>> identifiersByType, CacheFilter cacheFilter) {
+    Map<String, Collection<CacheData>> result = new LinkedHashMap<>();
+    identifiersByType.forEach(
+        (type, identifiers) -> result.put(type, getAll(type, identifiers, cacheFilter)));
+    return result;
+  }
+
+  /**
+   * Streams all the items for the specified type to the supplied consumer.
+   *
+   * @param type the type for which to retrieve items
+   * @param consumer invoked once for each item of the type
+   * @see #forEachItem(String, CacheFilter, Consumer)
+   */
+  default void forEachItem(String type, Consumer<CacheData> consumer) {
+    forEachItem(type, null, consumer);
+  }
+
+  /**
+   * Streams all the items for the specified type to the supplied consumer, without holding the
+   * full result set in memory.
+   *
+   * <p>The default implementation pages through {@link #getIdentifiers(String)} and fetches items
+   * in batches of {@link #DEFAULT_STREAMING_BATCH_SIZE}. Implementations that can read with a
+   * server-side cursor should override it.
+   *
+   * @param type the type for which to retrieve items
+   * @param cacheFilter the cacheFilter to govern which relationships to fetch
+   * @param consumer invoked once for each item of the type
+   */
+  default void forEachItem(String type, CacheFilter cacheFilter, Consumer<CacheData> consumer) {
+    List<String> batch = new ArrayList<>(DEFAULT_STREAMING_BATCH_SIZE);
+    for (String id : getIdentifiers(type)) {
+      batch.add(id);
+      if (batch.size() == DEFAULT_STREAMING_BATCH_SIZE) {
+        getAll(type, batch, cacheFilter).forEach(consumer);
+        batch.clear();
+      }
+    }
+    if (!batch.isEmpty()) {
+      getAll(type, batch, cacheFilter).forEach(consumer);
+    }
+  }
+
   /** Returns whether or not the three {@code getAllByApplication} methods are supported */
   default boolean supportsGetAllByApplication() {
     return false;
@@ -35,6 +35,10 @@ public class CacheIntrospectionStore {
     return agents.values();
   }
 
+  public AgentIntrospection getAgentIntrospection(String id) {
+    return agents.get(id);
+  }
+
   public void recordAgent(AgentIntrospection agentIntrospection) {
     agents.put(agentIntrospection.getId(), agentIntrospection);
   }
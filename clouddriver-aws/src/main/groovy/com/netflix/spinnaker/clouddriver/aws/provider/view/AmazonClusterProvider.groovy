@@ -331,6 +331,24 @@ class AmazonClusterProvider implements ClusterProvider<AmazonCluster>, ServerGro
 
     Map<String, AmazonInstance> instances = translateInstances(allInstances)
 
+    Map<String, String> launchConfigurations = serverGroupData.findAll {
+      it.relationships[LAUNCH_CONFIGS.ns]
+    }.collectEntries {
+      [(it.relationships[LAUNCH_CONFIGS.ns].first()): it.id]
+    }
+
+    Map<String, String> templates = serverGroupData.findAll {
+      it.relationships[LAUNCH_TEMPLATES.ns]
+    }.collectEntries {
+      [(it.relationships[LAUNCH_TEMPLATES.ns].first()): it.id]
+    }
+
+    // launch configs and launch templates only need their image relationships, so are fetched together
+    Map<String, Collection<CacheData>> related = cacheView.getAllMulti([
+      (LAUNCH_CONFIGS.ns)  : launchConfigurations.keySet(),
+      (LAUNCH_TEMPLATES.ns): templates.keySet()
+    ] as Map<String, Collection<String>>, RelationshipCacheFilter.include(IMAGES.ns))
+
     Map<String, AmazonServerGroup> serverGroups = serverGroupData.collectEntries { serverGroupEntry ->
       Map<String, String> serverGroupKey = Keys.parse(serverGroupEntry.id)
 
@@ -363,19 +381,7 @@ class AmazonClusterProvider implements ClusterProvider<AmazonCluster>, ServerGro
       [(serverGroupEntry.id): serverGroup]
     }
 
-    Map<String, String> launchConfigurations = serverGroupData.findAll {
-      it.relationships[LAUNCH_CONFIGS.ns]
-    }.collectEntries {
-      [(it.relationships[LAUNCH_CONFIGS.ns].first()): it.id]
-    }
-
-    Map<String, String> templates = serverGroupData.findAll {
-      it.relationships[LAUNCH_TEMPLATES.ns]
-    }.collectEntries {
-      [(it.relationships[LAUNCH_TEMPLATES.ns].first()): it.id]
-    }
-
-    Collection<CacheData> launchConfigs = cacheView.getAll(LAUNCH_CONFIGS.ns, launchConfigurations.keySet())
+    Collection<CacheData> launchConfigs = related[LAUNCH_CONFIGS.ns] ?: []
     Map<String, Collection<String>> allImages = [:]
     launchConfigs.each { launchConfig ->
       def serverGroupId = launchConfigurations[launchConfig.id]
@@ -389,7 +395,7 @@ class AmazonClusterProvider implements ClusterProvider<AmazonCluster>, ServerGro
       }
     }
 
-    Collection<CacheData> launchTemplates = cacheView.getAll(LAUNCH_TEMPLATES.ns, templates.keySet())
+    Collection<CacheData> launchTemplates = related[LAUNCH_TEMPLATES.ns] ?: []
     launchTemplates.each { launchTemplate ->
       def serverGroupId = templates[launchTemplate.id]
       populateServerGroupWithLtOrMip(serverGroups[serverGroupId], launchTemplate)
@@ -457,10 +463,14 @@ class AmazonClusterProvider implements ClusterProvider<AmazonCluster>, ServerGro
   }
 
   private Collection<CacheData> resolveRelationshipDataForCollection(Collection<CacheData> sources, String relationship, CacheFilter cacheFilter = null) {
-    Collection<String> relationships = sources?.findResults { it.relationships[relationship] ?: [] }?.flatten() ?: []
+    Collection<String> relationships = relationshipIds(sources, relationship)
     relationships ? cacheView.getAll(relationship, relationships, cacheFilter) : []
   }
 
+  private static Collection<String> relationshipIds(Collection<CacheData> sources, String relationship) {
+    sources?.findResults { it.relationships[relationship] ?: [] }?.flatten() ?: []
+  }
+
   private Collection<CacheData> resolveRelationshipData(CacheData source, String relationship, Closure<Boolean> relFilter, CacheFilter cacheFilter = null) {
     Collection<String> filteredRelationships = source.relationships[relationship]?.findAll(relFilter)
     filteredRelationships ? cacheView.getAll(relationship, filteredRelationships, cacheFilter) : []
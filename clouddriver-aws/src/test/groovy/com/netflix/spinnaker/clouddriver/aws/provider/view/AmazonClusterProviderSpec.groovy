@@ -33,6 +33,7 @@ import spock.lang.Unroll
 import static com.netflix.spinnaker.clouddriver.core.provider.agent.Namespace.APPLICATIONS
 import static com.netflix.spinnaker.clouddriver.core.provider.agent.Namespace.CLUSTERS
 import static com.netflix.spinnaker.clouddriver.core.provider.agent.Namespace.IMAGES
+import static com.netflix.spinnaker.clouddriver.core.provider.agent.Namespace.INSTANCES
 import static com.netflix.spinnaker.clouddriver.core.provider.agent.Namespace.LAUNCH_CONFIGS
 import static com.netflix.spinnaker.clouddriver.core.provider.agent.Namespace.LAUNCH_TEMPLATES
 import static com.netflix.spinnaker.clouddriver.core.provider.agent.Namespace.SERVER_GROUPS
@@ -86,17 +87,17 @@ class AmazonClusterProviderSpec extends Specification {
       [imageId: imageId],
       [images: [imageKey]]
     )
+    def instanceId = Keys.getInstanceKey("i-1", account, region)
 
     and:
     cacheView.supportsGetAllByApplication() >> false
     cacheView.get(APPLICATIONS.ns, Keys.getApplicationKey(app)) >> new DefaultCacheData(
       Keys.getApplicationKey(app), [name: app], [serverGroups: [serverGroupId], clusters: [clusterId]]
     )
-    cacheView.getAll(LAUNCH_CONFIGS.ns, _ as Set) >> [launchConfiguration]
     cacheView.filterIdentifiers(CLUSTERS.ns, _) >> [clusterId]
     cacheView.getAll(CLUSTERS.ns, _ as Collection<String>) >> [new DefaultCacheData(clusterId, clusterAttributes, [serverGroups: [serverGroupId]])]
     cacheView.getAll(SERVER_GROUPS.ns, [ serverGroupId ], _ as CacheFilter) >> [
-      new DefaultCacheData(serverGroupId, serverGroup, [launchConfigs: [launchConfiguration.id]])
+      new DefaultCacheData(serverGroupId, serverGroup, [launchConfigs: [launchConfiguration.id], instances: [instanceId]])
     ]
     cacheView.getAll(IMAGES.ns, _ as Set) >> [
       new DefaultCacheData(imageKey, imageAttributes, [:])
@@ -106,6 +107,13 @@ class AmazonClusterProviderSpec extends Specification {
     def result = provider.getClusterDetails(app)
 
     then:
+    1 * cacheView.getAll(INSTANCES.ns, [instanceId], { it.allowableRelationshipPrefixes.empty }) >> []
+    1 * cacheView.getAllMulti(
+      [(LAUNCH_CONFIGS.ns): [launchConfiguration.id] as Set, (LAUNCH_TEMPLATES.ns): [] as Set],
+      { it.allowableRelationshipPrefixes == [IMAGES.ns] }
+    ) >> [(LAUNCH_CONFIGS.ns): [launchConfiguration]]
+
+    and:
     def clusters = result.values()
     def allServerGroups = clusters*.serverGroups.flatten() as Set<AmazonServerGroup>
 
@@ -176,7 +184,6 @@ class AmazonClusterProviderSpec extends Specification {
       Keys.getLaunchConfigKey(launchConfigName, account, "us-east-1"), [ imageId: "ami-1"], [:])
 
     and:
-    cacheView.getAll(LAUNCH_CONFIGS.ns, _ as Set) >> [launchConfiguration]
     cacheView.get(CLUSTERS.ns, clusterId) >> new DefaultCacheData(clusterId, clusterAttributes, [serverGroups: [serverGroupId]])
     cacheView.getAll(SERVER_GROUPS.ns, [ serverGroupId ], _ as CacheFilter) >> [
       new DefaultCacheData(serverGroupId, serverGroup, [launchConfigs: [launchConfiguration.id]])
@@ -186,6 +193,12 @@ class AmazonClusterProviderSpec extends Specification {
     def result = provider.getCluster(app, account, clusterName)
 
     then:
+    1 * cacheView.getAllMulti(
+      [(LAUNCH_CONFIGS.ns): [launchConfiguration.id] as Set, (LAUNCH_TEMPLATES.ns): [] as Set],
+      { it.allowableRelationshipPrefixes == [IMAGES.ns] }
+    ) >> [(LAUNCH_CONFIGS.ns): [launchConfiguration]]
+
+    and:
     with(result) {
       def sg = serverGroups.first()
       type == "aws"
@@ -238,7 +251,6 @@ class AmazonClusterProviderSpec extends Specification {
       ], [:])
 
     and:
-    cacheView.getAll(LAUNCH_TEMPLATES.ns, _ as Set) >> [launchTemplate]
     cacheView.get(CLUSTERS.ns, clusterId) >> new DefaultCacheData(clusterId, clusterAttributes, [serverGroups: [serverGroupId]])
     cacheView.getAll(SERVER_GROUPS.ns, [ serverGroupId ], _ as CacheFilter) >> [
       new DefaultCacheData(serverGroupId, serverGroup, [launchTemplates: [launchTemplate.id]])
@@ -248,6 +260,12 @@ class AmazonClusterProviderSpec extends Specification {
     def result = provider.getCluster(app, account, clusterName)
 
     then:
+    1 * cacheView.getAllMulti(
+      [(LAUNCH_CONFIGS.ns): [] as Set, (LAUNCH_TEMPLATES.ns): [launchTemplate.id] as Set],
+      { it.allowableRelationshipPrefixes == [IMAGES.ns] }
+    ) >> [(LAUNCH_TEMPLATES.ns): [launchTemplate]]
+
+    and:
     result.serverGroups.size() == 1
     result.serverGroups[0].launchConfig == null
     result.serverGroups[0].mixedInstancesPolicy == null
@@ -33,7 +33,6 @@ import javax.annotation.PostConstruct
 import java.util.concurrent.Executors
 import java.util.concurrent.ScheduledExecutorService
 import java.util.concurrent.TimeUnit
-import java.util.concurrent.atomic.AtomicReference
 
 import static com.netflix.spinnaker.clouddriver.cache.SearchableProvider.SearchableResource
 
@@ -51,10 +50,7 @@ class CatsSearchProvider implements SearchProvider, Runnable {
   private final ProviderRegistry providerRegistry
 
 
-
-  private final AtomicReference<Map<String, Collection<String>>> cachedIdentifiersByType = new AtomicReference(
-    [:]
-  )
+  private final CatsSearchIndex searchIndex = new CatsSearchIndex()
 
   private final FiatPermissionEvaluator permissionEvaluator
   private final List<KeyParser> keyParsers
@@ -113,32 +109,33 @@ class CatsSearchProvider implements SearchProvider, Runnable {
   }
 
   /**
-   * Periodically refresh cache identifiers that can then be searched over in-memory vs. in-redis.
+   * Periodically refresh the in-memory search index over the identifiers of every default cache, rather than
+   * searching them in the backing cache.
    *
-   * This is beneficial for sets (like instances) that may have hundreds of thousands of keys.
+   * Only identifiers added since the previous refresh are checked with the provider's parseKey.
    */
   @Override
   void run() {
-    try {
-      log.info("Refreshing Cached Identifiers (instances)")
-      def instanceIdentifiers = providers.findAll { provider ->
-        provider.supportsSearch('instances', Collections.emptyMap())
-      }.collect { provider ->
-        def cache = providerRegistry.getProviderCache(provider.getProviderName())
-        return cache.getIdentifiers("instances").findResults { key ->
-          // Even though we don't need the parsed Map, we should still allow the provider to reject invalid keys
-          if (provider.parseKey(key))
-            return key?.toLowerCase()
+    for (String type : defaultCaches.unique(false)) {
+      try {
+        Set<String> identifiers = new HashSet<>()
+        providers.findAll { provider ->
+          provider.supportsSearch(type, Collections.emptyMap())
+        }.each { provider ->
+          def cache = providerRegistry.getProviderCache(provider.getProviderName())
+          cache.getIdentifiers(type).each { String key ->
+            // Even though we don't need the parsed Map, we should still allow the provider to reject invalid keys
+            if (key && (searchIndex.contains(type, key) || provider.parseKey(key))) {
+              identifiers.add(key)
+            }
+          }
         }
-      }.flatten()
 
-      if (instanceIdentifiers) {
-        cachedIdentifiersByType.set(["instances": instanceIdentifiers])
+        int changed = searchIndex.update(type, identifiers)
+        log.debug("Refreshed search index for ${type} (${identifiers.size()} identifiers, ${changed} changed)")
+      } catch (Exception e) {
+        log.error("Unable to refresh search index for ${type}", e)
       }
-
-      log.info("Refreshed Cached Identifiers (found ${instanceIdentifiers.size()} instances)")
-    } catch (Exception e) {
-      log.error("Unable to refresh cached identifiers (instances)", e)
     }
   }
 
@@ -167,6 +164,16 @@ class CatsSearchProvider implements SearchProvider, Runnable {
     // ensure we're only searching for types supported by the backing providers
     types = defaultCaches.intersect(types)
 
+    if (query && !filters && !permissionEvaluator && types && types.every { searchIndex.isIndexed(it) }) {
+      // page directly against the index when every match is a result
+      int offset = Math.max(pageSize * (pageNumber - 1), 0)
+      CatsSearchIndex.Page page = searchIndex.search(types, query, offset, pageSize)
+      Set<String> existing = types.collectMany { existingIdentifiers(it, filters, page.matches) } as Set<String>
+      List<String> resultPage = page.matches.findAll { existing.contains(it) }
+      int removed = page.matches.size() - resultPage.size()
+      return generateResultSet(query, resultPage, page.totalMatches - removed, pageNumber, pageSize)
+    }
+
     List<String> matches = findMatches(query, types, filters)
     if (permissionEvaluator) {
       Authentication auth = SecurityContextHolder.context.authentication
@@ -192,7 +199,14 @@ class CatsSearchProvider implements SearchProvider, Runnable {
   }
 
   private SearchResultSet generateResultSet(String query, List<String> matches, Integer pageNumber, Integer pageSize) {
-    List<String> resultPage = paginateResults(matches, pageSize, pageNumber)
+    generateResultSet(query, paginateResults(matches, pageSize, pageNumber), matches.size(), pageNumber, pageSize)
+  }
+
+  private SearchResultSet generateResultSet(String query,
+                                            List<String> resultPage,
+                                            int totalMatches,
+                                            Integer pageNumber,
+                                            Integer pageSize) {
     List<Map<String, String>> results = resultPage.findResults { String key ->
       Map<String, String> result = providers.findResult { it.parseKey(key) }
       if (result) {
@@ -209,7 +223,7 @@ class CatsSearchProvider implements SearchProvider, Runnable {
     int filteredItems = resultPage.size() - results.size()
 
     SearchResultSet resultSet = new SearchResultSet(
-      totalMatches: matches.size() - filteredItems,
+      totalMatches: totalMatches - filteredItems,
       platform: getPlatform(),
       query: query,
       pageNumber: pageNumber,
@@ -284,16 +298,12 @@ class CatsSearchProvider implements SearchProvider, Runnable {
       }
 
       def identifiers
-      def cached = cachedIdentifiersByType.get()
-      if (cached.containsKey(cache)) {
+      if (searchIndex.isIndexed(cache)) {
         /**
-         * Attempt an exact match of the query against any attribute of an instance key (account, region, etc.).
-         *
-         * This is not 100% consistent with doing `*:${cache}:*${normalizedWord}*` in redis _but_ for instances it
-         * should be sufficient.
+         * Matches the query anywhere after the provider and type of the identifier (account, region, etc.), as
+         * `*:${cache}:*${normalizedWord}*` does in the backing cache.
          */
-        def identifiersForCache = cached.get(cache)
-        identifiers = identifiersForCache.findAll { it.contains(normalizedWord) }
+        identifiers = existingIdentifiers(cache, filters, searchIndex.search(cache, normalizedWord))
       } else {
         List<SearchableProvider> validProviders = providers.findAll { it.supportsSearch(cache, filters) }
         identifiers = new HashSet<>()
@@ -320,6 +330,24 @@ class CatsSearchProvider implements SearchProvider, Runnable {
     }
   }
 
+  /**
+   * @return those of {@code identifiers} still in the cache of a provider searching {@code type}, since the index is
+   * only refreshed periodically
+   */
+  private Collection<String> existingIdentifiers(String type, Map<String, String> filters, Collection<String> identifiers) {
+    Set<String> existing = new HashSet<>()
+    Collection<String> remaining = identifiers
+    for (SearchableProvider sp : providers.findAll { it.supportsSearch(type, filters) }) {
+      if (!remaining) {
+        break
+      }
+      def providerCache = providerRegistry.getProviderCache(sp.getProviderName())
+      existing.addAll(providerCache.existingIdentifiers(type, remaining))
+      remaining = remaining.findAll { !existing.contains(it) }
+    }
+    return existing
+  }
+
   private static List<String> paginateResults(List<String> matches, Integer pageSize, Integer pageNumber) {
     log.info("Paginating ${matches.size()} results; page number: ${pageNumber}, items per page: ${pageSize}")
     Integer startingIndex = pageSize * (pageNumber - 1)
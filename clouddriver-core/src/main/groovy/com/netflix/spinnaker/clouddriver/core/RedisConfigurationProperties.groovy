@@ -38,12 +38,35 @@ class RedisConfigurationProperties {
     Integer agentLockAcquisitionIntervalSeconds
   }
 
+  @Canonical
+  static class ClusterConfiguration {
+    /**
+     * Stores the cats cache in a sharded Redis Cluster instead of the `connection` primary.
+     */
+    boolean enabled = false
+
+    /**
+     * Seed nodes of the cluster, as redis:// URIs.
+     */
+    List<String> nodes = []
+
+    int maxAttempts = 5
+
+    /**
+     * Hash tag prefixed to the sort scheduler's sets, keeping them in a single slot.
+     */
+    String schedulerKeyPrefix = "{agents}:"
+  }
+
   @NestedConfigurationProperty
   final PollConfiguration poll = new PollConfiguration()
 
   @NestedConfigurationProperty
   final AgentConfiguration agent = new AgentConfiguration()
 
+  @NestedConfigurationProperty
+  final ClusterConfiguration cluster = new ClusterConfiguration()
+
   String connection = "redis://localhost:6379"
   String connectionPrevious = null
 
@@ -15,27 +15,65 @@
  */
 package com.netflix.spinnaker.clouddriver.cache;
 
+import com.netflix.spectator.api.Registry;
+import com.netflix.spectator.api.patterns.PolledMeter;
 import com.netflix.spinnaker.cats.agent.AgentScheduler;
 import com.netflix.spinnaker.cats.cluster.AgentIntervalProvider;
+import com.netflix.spinnaker.cats.cluster.AgentPriority;
+import com.netflix.spinnaker.cats.cluster.DefaultAgentPriorityProvider;
 import com.netflix.spinnaker.cats.cluster.DefaultNodeIdentity;
 import com.netflix.spinnaker.cats.cluster.NodeStatusProvider;
+import com.netflix.spinnaker.cats.cluster.PrioritizedAgentExecutor;
 import com.netflix.spinnaker.cats.cluster.ShardingFilter;
+import com.netflix.spinnaker.cats.redis.cache.SlotAwareJedisCluster;
 import com.netflix.spinnaker.cats.redis.cluster.ClusteredAgentScheduler;
 import com.netflix.spinnaker.cats.redis.cluster.ClusteredSortAgentScheduler;
 import com.netflix.spinnaker.clouddriver.core.RedisConfigurationProperties;
 import com.netflix.spinnaker.kork.dynamicconfig.DynamicConfigService;
 import com.netflix.spinnaker.kork.jedis.RedisClientDelegate;
 import java.net.URI;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import redis.clients.jedis.JedisPool;
 
 @Configuration
 @ConditionalOnProperty(value = "caching.write-enabled", matchIfMissing = true)
+@EnableConfigurationProperties(AgentSchedulingProperties.class)
 public class AgentSchedulerConfig {
 
+  @Bean
+  @ConditionalOnProperty("caching.scheduling.enabled")
+  PrioritizedAgentExecutor prioritizedAgentExecutor(
+      AgentSchedulingProperties agentSchedulingProperties,
+      AgentIntervalProvider agentIntervalProvider,
+      Registry registry) {
+    PrioritizedAgentExecutor executor =
+        new PrioritizedAgentExecutor(
+            new DefaultAgentPriorityProvider(agentSchedulingProperties.getPriorityPatterns()),
+            agentIntervalProvider,
+            agentSchedulingProperties.getLaneCapacities());
+
+    for (AgentPriority priority : AgentPriority.values()) {
+      PolledMeter.using(registry)
+          .withName("cats.agentScheduler.maxStalenessMs")
+          .withTag("priority", priority.name())
+          .monitorValue(executor, e -> e.getMaxStalenessMs().get(priority));
+      PolledMeter.using(registry)
+          .withName("cats.agentScheduler.staleAgents")
+          .withTag("priority", priority.name())
+          .monitorValue(executor, e -> e.getStaleAgentCounts().get(priority));
+      PolledMeter.using(registry)
+          .withName("cats.agentScheduler.activeAgents")
+          .withTag("priority", priority.name())
+          .monitorValue(executor, e -> e.getActiveCount(priority));
+    }
+    return executor;
+  }
+
   @Bean
   @ConditionalOnExpression("${redis.enabled:true} && ${redis.scheduler.enabled:true}")
   AgentScheduler redisAgentScheduler(
@@ -45,7 +83,9 @@ public class AgentSchedulerConfig {
       AgentIntervalProvider agentIntervalProvider,
       NodeStatusProvider nodeStatusProvider,
       DynamicConfigService dynamicConfigService,
-      ShardingFilter shardingFilter) {
+      ShardingFilter shardingFilter,
+      ObjectProvider<PrioritizedAgentExecutor> prioritizedAgentExecutor,
+      ObjectProvider<SlotAwareJedisCluster> cacheJedisCluster) {
     if (redisConfigurationProperties.getScheduler().equalsIgnoreCase("default")) {
       URI redisUri = URI.create(redisConfigurationProperties.getConnection());
       String redisHost = redisUri.getHost();
@@ -61,8 +101,20 @@ public class AgentSchedulerConfig {
           redisConfigurationProperties.getAgent().getEnabledPattern(),
           redisConfigurationProperties.getAgent().getAgentLockAcquisitionIntervalSeconds(),
           dynamicConfigService,
-          shardingFilter);
+          shardingFilter,
+          prioritizedAgentExecutor.getIfAvailable());
     } else if (redisConfigurationProperties.getScheduler().equalsIgnoreCase("sort")) {
+      SlotAwareJedisCluster cluster = cacheJedisCluster.getIfAvailable();
+      if (cluster != null) {
+        String keyPrefix = redisConfigurationProperties.getCluster().getSchedulerKeyPrefix();
+        int slot = SlotAwareJedisCluster.slot(keyPrefix);
+        return new ClusteredSortAgentScheduler(
+            () -> cluster.getConnectionForSlot(slot),
+            keyPrefix,
+            nodeStatusProvider,
+            agentIntervalProvider,
+            redisConfigurationProperties.getParallelism());
+      }
       return new ClusteredSortAgentScheduler(
           jedisPool,
           nodeStatusProvider,
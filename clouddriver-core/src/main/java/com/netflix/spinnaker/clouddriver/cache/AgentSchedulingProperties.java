@@ -0,0 +1,64 @@
+/*
+ * Copyright 2026 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.spinnaker.clouddriver.cache;
+
+import com.netflix.spinnaker.cats.cluster.AgentPriority;
+import java.util.EnumMap;
+import java.util.Map;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/** Configures priority classes and per-priority lanes for the clustered agent schedulers. */
+@ConfigurationProperties("caching.scheduling")
+public class AgentSchedulingProperties {
+  private boolean enabled = false;
+
+  /** Regular expression matched against agent types and class names, per priority. */
+  private Map<AgentPriority, String> priorityPatterns = new EnumMap<>(AgentPriority.class);
+
+  /** Maximum number of agents of each priority that may run at once. */
+  private Map<AgentPriority, Integer> laneCapacities = new EnumMap<>(AgentPriority.class);
+
+  public AgentSchedulingProperties() {
+    laneCapacities.put(AgentPriority.CRITICAL, 50);
+    laneCapacities.put(AgentPriority.HIGH, 100);
+    laneCapacities.put(AgentPriority.NORMAL, 200);
+    laneCapacities.put(AgentPriority.LOW, 20);
+  }
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  public void setEnabled(boolean enabled) {
+    this.enabled = enabled;
+  }
+
+  public Map<AgentPriority, String> getPriorityPatterns() {
+    return priorityPatterns;
+  }
+
+  public void setPriorityPatterns(Map<AgentPriority, String> priorityPatterns) {
+    this.priorityPatterns = priorityPatterns;
+  }
+
+  public Map<AgentPriority, Integer> getLaneCapacities() {
+    return laneCapacities;
+  }
+
+  public void setLaneCapacities(Map<AgentPriority, Integer> laneCapacities) {
+    this.laneCapacities.putAll(laneCapacities);
+  }
+}
@@ -16,22 +16,29 @@
 
 package com.netflix.spinnaker.clouddriver.cache;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.netflix.spectator.api.Registry;
+import com.netflix.spectator.api.patterns.PolledMeter;
 import com.netflix.spinnaker.cats.agent.AgentLock;
 import com.netflix.spinnaker.cats.agent.AgentScheduler;
 import com.netflix.spinnaker.cats.agent.DefaultAgentScheduler;
 import com.netflix.spinnaker.cats.agent.ExecutionInstrumentation;
 import com.netflix.spinnaker.cats.cache.Cache;
 import com.netflix.spinnaker.cats.cache.NamedCacheFactory;
+import com.netflix.spinnaker.cats.mapped.MappedNamedCacheFactory;
 import com.netflix.spinnaker.cats.mem.InMemoryNamedCacheFactory;
 import com.netflix.spinnaker.cats.module.CatsModule;
 import com.netflix.spinnaker.cats.provider.Provider;
+import com.netflix.spinnaker.cats.provider.ProviderCacheSnapshotter;
 import com.netflix.spinnaker.cats.provider.ProviderRegistry;
 import com.netflix.spinnaker.clouddriver.search.SearchProvider;
 import com.netflix.spinnaker.fiat.shared.FiatPermissionEvaluator;
+import java.nio.file.Paths;
+import java.time.Duration;
 import java.util.List;
 import java.util.Optional;
 import java.util.concurrent.TimeUnit;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
@@ -43,12 +50,32 @@ import org.springframework.context.annotation.Configuration;
 @ComponentScan({
   "com.netflix.spinnaker.clouddriver.cache",
 })
-@EnableConfigurationProperties(CatsInMemorySearchProperties.class)
+@EnableConfigurationProperties({
+  CatsInMemorySearchProperties.class,
+  MappedCacheProperties.class,
+  CacheSnapshotProperties.class
+})
 public class CacheConfig {
   @Bean
   @ConditionalOnMissingBean(NamedCacheFactory.class)
-  NamedCacheFactory namedCacheFactory() {
-    return new InMemoryNamedCacheFactory();
+  @ConditionalOnProperty("caching.mapped.enabled")
+  NamedCacheFactory mappedNamedCacheFactory(
+      ObjectMapper objectMapper, MappedCacheProperties mappedCacheProperties) {
+    return new MappedNamedCacheFactory(
+        objectMapper,
+        mappedCacheProperties.getDirectory() == null
+            ? null
+            : Paths.get(mappedCacheProperties.getDirectory()),
+        mappedCacheProperties.getSegmentSizeBytes(),
+        mappedCacheProperties.getMinLiveRatio(),
+        Duration.ofSeconds(mappedCacheProperties.getMaintenanceIntervalSeconds()));
+  }
+
+  @Bean
+  @ConditionalOnMissingBean(NamedCacheFactory.class)
+  NamedCacheFactory namedCacheFactory(
+      @Value("${caching.in-memory.compact-relationships:false}") boolean compactRelationships) {
+    return new InMemoryNamedCacheFactory(compactRelationships);
   }
 
   @Bean
@@ -67,18 +94,46 @@ public class CacheConfig {
     };
   }
 
+  @Bean
+  @ConditionalOnProperty("caching.snapshot.enabled")
+  ProviderCacheSnapshotter providerCacheSnapshotter(
+      ObjectMapper objectMapper,
+      CacheSnapshotProperties cacheSnapshotProperties,
+      Registry registry,
+      List<Provider> providers) {
+    ProviderCacheSnapshotter snapshotter =
+        new ProviderCacheSnapshotter(
+            objectMapper,
+            Paths.get(cacheSnapshotProperties.getDirectory()),
+            cacheSnapshotProperties.getChunkSize(),
+            cacheSnapshotProperties.getParallelism(),
+            Duration.ofSeconds(cacheSnapshotProperties.getIntervalSeconds()));
+
+    for (Provider provider : providers) {
+      String providerName = provider.getProviderName();
+      PolledMeter.using(registry)
+          .withName("cats.snapshot.staleAgents")
+          .withTag("provider", providerName)
+          .monitorValue(snapshotter, s -> s.getStaleAgentTypes(providerName).size());
+    }
+    return snapshotter;
+  }
+
   @Bean
   @ConditionalOnMissingBean(CatsModule.class)
   CatsModule catsModule(
       List<Provider> providers,
       List<ExecutionInstrumentation> executionInstrumentation,
       NamedCacheFactory cacheFactory,
-      AgentScheduler agentScheduler) {
-    return new CatsModule.Builder()
-        .cacheFactory(cacheFactory)
-        .scheduler(agentScheduler)
-        .instrumentation(executionInstrumentation)
-        .build(providers);
+      AgentScheduler agentScheduler,
+      Optional<ProviderCacheSnapshotter> providerCacheSnapshotter) {
+    CatsModule.Builder builder =
+        new CatsModule.Builder()
+            .cacheFactory(cacheFactory)
+            .scheduler(agentScheduler)
+            .instrumentation(executionInstrumentation);
+    providerCacheSnapshotter.ifPresent(builder::snapshotter);
+    return builder.build(providers);
   }
 
   @Bean
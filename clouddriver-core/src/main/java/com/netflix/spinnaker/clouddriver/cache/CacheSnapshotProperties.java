@@ -0,0 +1,74 @@
+/*
+ * Copyright 2026 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.netflix.spinnaker.clouddriver.cache;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Snapshots the provider caches to local disk so that a restarted instance serves the last known
+ * state while its caching agents run, see {@link
+ * com.netflix.spinnaker.cats.provider.ProviderCacheSnapshotter}. Meant for the in-memory and redis
+ * caches, a sql cache is not restored.
+ */
+@ConfigurationProperties("caching.snapshot")
+public class CacheSnapshotProperties {
+  private boolean enabled = false;
+  private String directory = "/tmp/clouddriver/cache-snapshots";
+  private long intervalSeconds = 600;
+  private int chunkSize = 1000;
+  private int parallelism = 4;
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  public void setEnabled(boolean enabled) {
+    this.enabled = enabled;
+  }
+
+  public String getDirectory() {
+    return directory;
+  }
+
+  public void setDirectory(String directory) {
+    this.directory = directory;
+  }
+
+  public long getIntervalSeconds() {
+    return intervalSeconds;
+  }
+
+  public void setIntervalSeconds(long intervalSeconds) {
+    this.intervalSeconds = intervalSeconds;
+  }
+
+  public int getChunkSize() {
+    return chunkSize;
+  }
+
+  public void setChunkSize(int chunkSize) {
+    this.chunkSize = chunkSize;
+  }
+
+  public int getParallelism() {
+    return parallelism;
+  }
+
+  public void setParallelism(int parallelism) {
+    this.parallelism = parallelism;
+  }
+}
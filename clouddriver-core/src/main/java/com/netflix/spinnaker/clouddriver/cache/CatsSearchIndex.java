@@ -0,0 +1,382 @@
+/*
+ * Copyright 2026 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.netflix.spinnaker.clouddriver.cache;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * An in-memory trigram index over the identifiers of searchable cache types, used by {@link
+ * CatsSearchProvider} when in-memory search is enabled.
+ *
+ * <p>An identifier matches a query when its lower case form contains the query after the provider
+ * and type (the first two components), as the {@code provider:type:*query*} glob searched in the
+ * backing cache does. Queries of three or more characters intersect the postings of their trigrams
+ * and only check the identifiers in that intersection; shorter queries check every identifier of
+ * the type.
+ *
+ * <p>{@link #update} applies only the identifiers added and removed since the previous update.
+ * Removed identifiers are dropped from the postings once they make up half of a type's index.
+ */
+public class CatsSearchIndex {
+
+  private final ConcurrentMap<String, TypeIndex> types = new ConcurrentHashMap<>();
+
+  /** @return whether {@code type} has been indexed */
+  public boolean isIndexed(String type) {
+    return types.containsKey(type);
+  }
+
+  /** @return whether {@code identifier} is currently indexed under {@code type} */
+  public boolean contains(String type, String identifier) {
+    TypeIndex index = types.get(type);
+    return index != null && index.contains(identifier);
+  }
+
+  /** @return the number of identifiers indexed under {@code type} */
+  public int size(String type) {
+    TypeIndex index = types.get(type);
+    return index == null ? 0 : index.size();
+  }
+
+  /**
+   * Makes {@code identifiers} the indexed identifiers of {@code type}.
+   *
+   * @return the number of identifiers added and removed
+   */
+  public int update(String type, Collection<String> identifiers) {
+    TypeIndex index = types.get(type);
+    if (index == null) {
+      // build the first index of a type before it is visible to searches
+      index = new TypeIndex();
+      int changed = index.update(identifiers);
+      types.put(type, index);
+      return changed;
+    }
+    return index.update(identifiers);
+  }
+
+  /** @return every identifier of {@code type} that matches {@code query}, in no particular order */
+  public List<String> search(String type, String query) {
+    TypeIndex index = types.get(type);
+    if (index == null) {
+      return Collections.emptyList();
+    }
+    List<String> matches = new ArrayList<>();
+    index.search(normalize(query), (key, lowered) -> matches.add(key));
+    return matches;
+  }
+
+  /**
+   * Pages through the identifiers of {@code types} that match {@code query} without sorting every
+   * match. Identifiers where the query appears earliest after the provider (the first component)
+   * come first, then identifiers in lexicographic order of their lower case form after the
+   * provider, the same order {@link CatsSearchProvider} sorts other matches in.
+   *
+   * @param offset the number of matches to skip
+   * @param limit the maximum number of matches to return
+   */
+  public Page search(Collection<String> types, String query, int offset, int limit) {
+    String normalized = normalize(query);
+    int retained = (int) Math.min((long) offset + limit, Integer.MAX_VALUE);
+    PriorityQueue<Match> top =
+        new PriorityQueue<>(Math.min(retained, 1024) + 1, Comparator.reverseOrder());
+    int[] total = {0};
+    for (String type : new HashSet<>(types)) {
+      TypeIndex index = this.types.get(type);
+      if (index == null) {
+        continue;
+      }
+      index.search(
+          normalized,
+          (key, lowered) -> {
+            total[0]++;
+            if (retained == 0) {
+              return;
+            }
+            Match match = new Match(key, lowered, normalized);
+            if (top.size() < retained) {
+              top.add(match);
+            } else if (match.compareTo(top.peek()) < 0) {
+              top.poll();
+              top.add(match);
+            }
+          });
+    }
+    List<Match> sorted = new ArrayList<>(top);
+    Collections.sort(sorted);
+    List<String> page = new ArrayList<>(Math.max(sorted.size() - offset, 0));
+    for (int i = offset; i < sorted.size(); i++) {
+      page.add(sorted.get(i).key);
+    }
+    return new Page(total[0], page);
+  }
+
+  private static String normalize(String query) {
+    return query == null ? "" : query.toLowerCase(Locale.ROOT);
+  }
+
+  /** A page of matches and the total number of matches. */
+  public static class Page {
+    private final int totalMatches;
+    private final List<String> matches;
+
+    Page(int totalMatches, List<String> matches) {
+      this.totalMatches = totalMatches;
+      this.matches = matches;
+    }
+
+    public int getTotalMatches() {
+      return totalMatches;
+    }
+
+    public List<String> getMatches() {
+      return matches;
+    }
+  }
+
+  private interface MatchConsumer {
+    void accept(String key, String lowered);
+  }
+
+  private static class Match implements Comparable<Match> {
+    private final String key;
+    private final String lowered;
+    private final int start;
+    private final int position;
+
+    Match(String key, String lowered, String query) {
+      this.key = key;
+      this.lowered = lowered;
+      this.start = Math.max(lowered.indexOf(':'), 0);
+      int found = lowered.indexOf(query, start);
+      this.position = found < 0 ? -1 : found - start;
+    }
+
+    @Override
+    public int compareTo(Match other) {
+      if (position != other.position) {
+        return Integer.compare(position, other.position);
+      }
+      int length = Math.min(lowered.length() - start, other.lowered.length() - other.start);
+      for (int i = 0; i < length; i++) {
+        char c = lowered.charAt(start + i);
+        char o = other.lowered.charAt(other.start + i);
+        if (c != o) {
+          return c - o;
+        }
+      }
+      return (lowered.length() - start) - (other.lowered.length() - other.start);
+    }
+  }
+
+  /**
+   * Identifiers are numbered as they are added, so appending a new identifier to the postings of
+   * its trigrams keeps every posting list sorted. Removed identifiers leave holes until compacted.
+   */
+  private static class TypeIndex {
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, Integer> ids = new HashMap<>();
+    private final Map<Long, Postings> postings = new HashMap<>();
+    private final BitSet live = new BitSet();
+    private String[] keys = new String[16];
+    private String[] lowered = new String[16];
+    private int[] searchFrom = new int[16];
+    private int next;
+
+    boolean contains(String key) {
+      lock.readLock().lock();
+      try {
+        return ids.containsKey(key);
+      } finally {
+        lock.readLock().unlock();
+      }
+    }
+
+    int size() {
+      lock.readLock().lock();
+      try {
+        return ids.size();
+      } finally {
+        lock.readLock().unlock();
+      }
+    }
+
+    int update(Collection<String> identifiers) {
+      Set<String> current =
+          identifiers instanceof Set ? (Set<String>) identifiers : new HashSet<>(identifiers);
+      lock.writeLock().lock();
+      try {
+        int changed = 0;
+        for (Map.Entry<String, Integer> entry : new ArrayList<>(ids.entrySet())) {
+          if (!current.contains(entry.getKey())) {
+            ids.remove(entry.getKey());
+            live.clear(entry.getValue());
+            keys[entry.getValue()] = null;
+            lowered[entry.getValue()] = null;
+            searchFrom[entry.getValue()] = 0;
+            changed++;
+          }
+        }
+        for (String key : current) {
+          if (!ids.containsKey(key)) {
+            add(key);
+            changed++;
+          }
+        }
+        if (next - ids.size() > ids.size()) {
+          compact();
+        }
+        return changed;
+      } finally {
+        lock.writeLock().unlock();
+      }
+    }
+
+    void search(String query, MatchConsumer consumer) {
+      lock.readLock().lock();
+      try {
+        if (query.length() < 3) {
+          for (int id = live.nextSetBit(0); id >= 0; id = live.nextSetBit(id + 1)) {
+            if (matches(id, query)) {
+              consumer.accept(keys[id], lowered[id]);
+            }
+          }
+          return;
+        }
+        for (int id : candidates(query)) {
+          if (live.get(id) && matches(id, query)) {
+            consumer.accept(keys[id], lowered[id]);
+          }
+        }
+      } finally {
+        lock.readLock().unlock();
+      }
+    }
+
+    private boolean matches(int id, String query) {
+      return lowered[id].indexOf(query, searchFrom[id]) >= 0;
+    }
+
+    private int[] candidates(String query) {
+      Set<Long> trigrams = new HashSet<>();
+      for (int i = 0; i + 3 <= query.length(); i++) {
+        trigrams.add(trigram(query, i));
+      }
+      List<Postings> lists = new ArrayList<>(trigrams.size());
+      for (Long trigram : trigrams) {
+        Postings list = postings.get(trigram);
+        if (list == null) {
+          return new int[0];
+        }
+        lists.add(list);
+      }
+      lists.sort(Comparator.comparingInt(list -> list.size));
+      int[] result = Arrays.copyOf(lists.get(0).ids, lists.get(0).size);
+      int size = result.length;
+      for (int l = 1; l < lists.size() && size > 0; l++) {
+        Postings list = lists.get(l);
+        int retained = 0;
+        for (int i = 0; i < size; i++) {
+          if (Arrays.binarySearch(list.ids, 0, list.size, result[i]) >= 0) {
+            result[retained++] = result[i];
+          }
+        }
+        size = retained;
+      }
+      return size == result.length ? result : Arrays.copyOf(result, size);
+    }
+
+    private void add(String key) {
+      int id = next++;
+      if (id == keys.length) {
+        keys = Arrays.copyOf(keys, id * 2);
+        lowered = Arrays.copyOf(lowered, id * 2);
+        searchFrom = Arrays.copyOf(searchFrom, id * 2);
+      }
+      String lower = key.toLowerCase(Locale.ROOT);
+      int from = searchFrom(lower);
+      keys[id] = key;
+      lowered[id] = lower;
+      searchFrom[id] = from;
+      ids.put(key, id);
+      live.set(id);
+      for (int i = from; i + 3 <= lower.length(); i++) {
+        postings.computeIfAbsent(trigram(lower, i), t -> new Postings()).add(id);
+      }
+    }
+
+    private void compact() {
+      List<String> remaining = new ArrayList<>(ids.keySet());
+      ids.clear();
+      postings.clear();
+      live.clear();
+      keys = new String[Math.max(16, remaining.size())];
+      lowered = new String[keys.length];
+      searchFrom = new int[keys.length];
+      next = 0;
+      for (String key : remaining) {
+        add(key);
+      }
+    }
+
+    /** @return the start of the third component of {@code key}, or its length if it has none */
+    private static int searchFrom(String key) {
+      int type = key.indexOf(':');
+      int rest = type < 0 ? -1 : key.indexOf(':', type + 1);
+      return rest < 0 ? key.length() : rest + 1;
+    }
+
+    private static long trigram(String value, int offset) {
+      return ((long) value.charAt(offset) << 32)
+          | ((long) value.charAt(offset + 1) << 16)
+          | value.charAt(offset + 2);
+    }
+  }
+
+  /** The sorted identifiers containing one trigram. */
+  private static class Postings {
+    private int[] ids = new int[4];
+    private int size;
+
+    void add(int id) {
+      // a key adds each of its trigrams once, however often it contains them
+      if (size > 0 && ids[size - 1] == id) {
+        return;
+      }
+      if (size == ids.length) {
+        ids = Arrays.copyOf(ids, size * 2);
+      }
+      ids[size++] = id;
+    }
+  }
+}
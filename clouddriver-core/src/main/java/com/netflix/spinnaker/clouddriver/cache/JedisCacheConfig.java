@@ -31,7 +31,8 @@ import org.springframework.context.annotation.Configuration;
 import redis.clients.jedis.JedisPool;
 
 @Configuration
-@ConditionalOnExpression("${redis.enabled:true} && ${redis.cache.enabled:true}")
+@ConditionalOnExpression(
+    "${redis.enabled:true} && ${redis.cache.enabled:true} && !${redis.cluster.enabled:false}")
 @EnableConfigurationProperties(RedisConfigurationProperties.class)
 class JedisCacheConfig {
 
@@ -0,0 +1,93 @@
+/*
+ * Copyright 2026 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.netflix.spinnaker.clouddriver.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.netflix.spinnaker.cats.cache.NamedCacheFactory;
+import com.netflix.spinnaker.cats.redis.cache.ClusterRedisNamedCacheFactory;
+import com.netflix.spinnaker.cats.redis.cache.RedisCache.CacheMetrics;
+import com.netflix.spinnaker.cats.redis.cache.RedisCacheOptions;
+import com.netflix.spinnaker.cats.redis.cache.SlotAwareJedisCluster;
+import com.netflix.spinnaker.clouddriver.core.RedisConfigurationProperties;
+import java.net.URI;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import org.apache.commons.pool2.impl.GenericObjectPoolConfig;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import redis.clients.jedis.HostAndPort;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.Protocol;
+
+/**
+ * Stores the cats cache in a sharded Redis Cluster, configured with {@code redis.cluster.*}.
+ * Everything else that uses Redis, e.g. the task repository, keeps using {@code
+ * redis.connection}.
+ */
+@Configuration
+@ConditionalOnExpression(
+    "${redis.enabled:true} && ${redis.cache.enabled:true} && ${redis.cluster.enabled:false}")
+@EnableConfigurationProperties(RedisConfigurationProperties.class)
+class JedisClusterCacheConfig {
+
+  @Bean(destroyMethod = "close")
+  @SuppressWarnings("unchecked")
+  SlotAwareJedisCluster cacheJedisCluster(
+      RedisConfigurationProperties redisConfigurationProperties,
+      GenericObjectPoolConfig redisPoolConfig) {
+    List<String> seeds = redisConfigurationProperties.getCluster().getNodes();
+    if (seeds.isEmpty()) {
+      throw new IllegalStateException(
+          "redis.cluster.nodes must list at least one node when redis.cluster.enabled is set");
+    }
+
+    Set<HostAndPort> nodes = new LinkedHashSet<>();
+    String password = null;
+    for (String seed : seeds) {
+      URI uri = URI.create(seed);
+      nodes.add(
+          new HostAndPort(
+              uri.getHost(), uri.getPort() == -1 ? Protocol.DEFAULT_PORT : uri.getPort()));
+      if (password == null && uri.getUserInfo() != null) {
+        // Accept both redis://:password@host and redis://password@host.
+        String userInfo = uri.getUserInfo();
+        int colon = userInfo.indexOf(':');
+        password = colon == -1 ? userInfo : userInfo.substring(colon + 1);
+      }
+    }
+
+    return new SlotAwareJedisCluster(
+        nodes,
+        redisConfigurationProperties.getTimeout(),
+        redisConfigurationProperties.getCluster().getMaxAttempts(),
+        password,
+        (GenericObjectPoolConfig<Jedis>) redisPoolConfig);
+  }
+
+  @Bean
+  NamedCacheFactory cacheFactory(
+      SlotAwareJedisCluster cacheJedisCluster,
+      ObjectMapper objectMapper,
+      RedisCacheOptions redisCacheOptions,
+      CacheMetrics cacheMetrics) {
+    return new ClusterRedisNamedCacheFactory(
+        cacheJedisCluster, objectMapper, redisCacheOptions, cacheMetrics);
+  }
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright 2026 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.netflix.spinnaker.clouddriver.cache;
+
+import com.netflix.spinnaker.cats.mapped.MappedNamedCacheFactory;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Replaces the default in-memory cache with {@link MappedNamedCacheFactory}, which keeps the cached
+ * items outside of the heap. Like the in-memory cache it is only used when no other cache (e.g.
+ * redis or sql) is configured.
+ */
+@ConfigurationProperties("caching.mapped")
+public class MappedCacheProperties {
+  /** The largest segment size whose byte count still fits in a single buffer. */
+  static final int MAX_SEGMENT_SIZE_MB = Integer.MAX_VALUE / (1024 * 1024);
+
+  private boolean enabled = false;
+
+  /** Where the caches are persisted across restarts, in direct buffers if not set. */
+  private String directory;
+
+  /** Size of each mapped segment. A segment is a single buffer, so this must stay below 2 GiB. */
+  private int segmentSizeMb = MappedNamedCacheFactory.DEFAULT_SEGMENT_SIZE / (1024 * 1024);
+  private double minLiveRatio = MappedNamedCacheFactory.DEFAULT_MIN_LIVE_RATIO;
+  private long maintenanceIntervalSeconds =
+      MappedNamedCacheFactory.DEFAULT_MAINTENANCE_INTERVAL.getSeconds();
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  public void setEnabled(boolean enabled) {
+    this.enabled = enabled;
+  }
+
+  public String getDirectory() {
+    return directory;
+  }
+
+  public void setDirectory(String directory) {
+    this.directory = directory;
+  }
+
+  public int getSegmentSizeMb() {
+    return segmentSizeMb;
+  }
+
+  public void setSegmentSizeMb(int segmentSizeMb) {
+    if (segmentSizeMb < 1 || segmentSizeMb > MAX_SEGMENT_SIZE_MB) {
+      throw new IllegalArgumentException(
+          String.format(
+              "caching.mapped.segment-size-mb must be between 1 and %d (%d)",
+              MAX_SEGMENT_SIZE_MB, segmentSizeMb));
+    }
+    this.segmentSizeMb = segmentSizeMb;
+  }
+
+  /** The segment size in bytes, which always fits in an int. */
+  public int getSegmentSizeBytes() {
+    return Math.toIntExact(segmentSizeMb * 1024L * 1024L);
+  }
+
+  public double getMinLiveRatio() {
+    return minLiveRatio;
+  }
+
+  public void setMinLiveRatio(double minLiveRatio) {
+    this.minLiveRatio = minLiveRatio;
+  }
+
+  public long getMaintenanceIntervalSeconds() {
+    return maintenanceIntervalSeconds;
+  }
+
+  public void setMaintenanceIntervalSeconds(long maintenanceIntervalSeconds) {
+    this.maintenanceIntervalSeconds = maintenanceIntervalSeconds;
+  }
+}
@@ -362,13 +362,16 @@ class CloudDriverConfig {
       Optional<RedisClientDelegate> redisClientDelegate,
       ApplicationContext applicationContext,
       ProjectClustersService projectClustersService,
-      ProjectClustersCachingAgentProperties projectClustersCachingAgentProperties) {
+      ProjectClustersCachingAgentProperties projectClustersCachingAgentProperties,
+      @Value("${redis.cluster.enabled:false}") boolean redisClusterEnabled) {
     List<Agent> agents = new ArrayList<>();
     agents.add(
         new ProjectClustersCachingAgent(
             projectClustersService, projectClustersCachingAgentProperties));
 
-    if (redisCacheOptions.isPresent() && redisClientDelegate.isPresent()) {
+    // The cleanup agent pipelines commands against redis.connection, while a clustered cache keeps
+    // its on-demand sets in the cluster under hash-tagged keys, so it has nothing to clean there.
+    if (redisCacheOptions.isPresent() && redisClientDelegate.isPresent() && !redisClusterEnabled) {
       agents.add(
           new CleanupPendingOnDemandCachesAgent(
               redisCacheOptions.get(), redisClientDelegate.get(), applicationContext));
@@ -0,0 +1,248 @@
+/*
+ * Copyright 2026 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License")
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.netflix.spinnaker.clouddriver.requestqueue.pooled;
+
+import com.netflix.spectator.api.Counter;
+import com.netflix.spectator.api.Registry;
+import com.netflix.spectator.api.Timer;
+import java.util.Queue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The queued requests of one partition and its share of the request pool.
+ *
+ * <p>The {@link RequestDistributor} serves partitions by deficit round robin: each round a
+ * backlogged partition earns its weight in credit and starts one request per credit, so while
+ * partitions are backlogged a partition with weight 2 starts twice as many requests as one with
+ * weight 1. A partition may also be limited to a number of concurrent requests and a queue depth,
+ * beyond which requests are rejected immediately.
+ *
+ * <p>With a queue delay target, requests are shed as CoDel (RFC 8289) drops packets: once the
+ * requests leaving the queue have waited longer than the target for a whole interval, requests are
+ * rejected at an increasing rate until the queue delay falls below the target again.
+ *
+ * <p>Offering requests is thread-safe; everything else is only called by the distributor.
+ */
+class PartitionQueue {
+  private final String partition;
+  private final Queue<PooledRequest<?>> requests = new LinkedBlockingQueue<>();
+  private final AtomicInteger depth = new AtomicInteger();
+  private final AtomicInteger inFlight = new AtomicInteger();
+  private final AtomicBoolean waitingForSlot = new AtomicBoolean();
+
+  private final Timer startedWaitTime;
+  private final Timer shedWaitTime;
+  private final Counter queueFull;
+  private final Counter queueDelayExceeded;
+
+  private volatile int weight = 1;
+  private volatile int maxConcurrency = 0;
+  private volatile int maxQueueDepth = 0;
+  private volatile long queueDelayTargetNanos = 0;
+  private volatile long queueDelayIntervalNanos = TimeUnit.MILLISECONDS.toNanos(100);
+
+  private int deficit;
+  private boolean dropping;
+  private long firstAboveTime;
+  private long dropNext;
+  private int dropCount;
+
+  PartitionQueue(Registry registry, String partition) {
+    this.partition = partition;
+    this.startedWaitTime =
+        registry.timer(
+            registry.createId(
+                "pooledRequestQueue.partition.waitTime", "partition", partition, "shed", "false"));
+    this.shedWaitTime =
+        registry.timer(
+            registry.createId(
+                "pooledRequestQueue.partition.waitTime", "partition", partition, "shed", "true"));
+    this.queueFull =
+        registry.counter(
+            registry.createId(
+                "pooledRequestQueue.partition.rejected", "partition", partition, "cause", "full"));
+    this.queueDelayExceeded =
+        registry.counter(
+            registry.createId(
+                "pooledRequestQueue.partition.rejected", "partition", partition, "cause", "delay"));
+  }
+
+  String getPartition() {
+    return partition;
+  }
+
+  /**
+   * @param weight the requests started per round while backlogged
+   * @param maxConcurrency the maximum number of requests running at once, unbounded if not positive
+   * @param maxQueueDepth the maximum number of queued requests, unbounded if not positive
+   * @param queueDelayTargetMillis the acceptable queue delay, no requests are shed if not positive
+   * @param queueDelayIntervalMillis how long the queue delay may exceed its target before shedding
+   */
+  void configure(
+      int weight,
+      int maxConcurrency,
+      int maxQueueDepth,
+      long queueDelayTargetMillis,
+      long queueDelayIntervalMillis) {
+    this.weight = Math.max(weight, 1);
+    this.maxConcurrency = maxConcurrency;
+    this.maxQueueDepth = maxQueueDepth;
+    this.queueDelayTargetNanos = TimeUnit.MILLISECONDS.toNanos(queueDelayTargetMillis);
+    this.queueDelayIntervalNanos =
+        TimeUnit.MILLISECONDS.toNanos(Math.max(queueDelayIntervalMillis, 1));
+  }
+
+  /** @return false if the queue is full and {@code request} was not queued */
+  boolean offer(PooledRequest<?> request) {
+    int max = maxQueueDepth;
+    if (depth.incrementAndGet() > max && max > 0) {
+      depth.decrementAndGet();
+      queueFull.increment();
+      return false;
+    }
+    requests.offer(request);
+    return true;
+  }
+
+  int size() {
+    return depth.get();
+  }
+
+  boolean isEmpty() {
+    return requests.isEmpty();
+  }
+
+  int getInFlight() {
+    return inFlight.get();
+  }
+
+  /**
+   * Credits the partition when the round robin reaches it, after which {@link #next} returns up to
+   * weight requests until the round robin moves on.
+   */
+  void beginRound() {
+    if (requests.isEmpty()) {
+      deficit = 0;
+    } else {
+      // a partition that can't use its credit doesn't save more than a round of it
+      deficit = Math.min(deficit + weight, weight);
+    }
+  }
+
+  /**
+   * @return the next request to start in this round, or null if the partition is out of credit, at
+   *     its concurrency limit or empty
+   */
+  PooledRequest<?> next(long now) {
+    if (deficit < 1) {
+      return null;
+    }
+    int max = maxConcurrency;
+    if (max > 0 && inFlight.get() >= max) {
+      waitingForSlot.set(!requests.isEmpty());
+      return null;
+    }
+    PooledRequest<?> request = dequeue(now);
+    if (request == null) {
+      deficit = 0;
+      return null;
+    }
+    deficit--;
+    inFlight.incrementAndGet();
+    startedWaitTime.record(now - request.getStartTime(), TimeUnit.NANOSECONDS);
+    return request;
+  }
+
+  /**
+   * Called when a request returned by {@link #next} has finished.
+   *
+   * @return whether queued requests were waiting for it to finish
+   */
+  boolean finished() {
+    inFlight.decrementAndGet();
+    return waitingForSlot.compareAndSet(true, false);
+  }
+
+  private PooledRequest<?> dequeue(long now) {
+    PooledRequest<?> request = poll();
+    if (request == null || queueDelayTargetNanos <= 0) {
+      dropping = false;
+      firstAboveTime = 0;
+      return request;
+    }
+
+    boolean okToDrop = okToDrop(request, now);
+    if (dropping) {
+      if (!okToDrop) {
+        dropping = false;
+      } else {
+        while (now >= dropNext && dropping) {
+          shed(request, now);
+          dropCount++;
+          request = poll();
+          if (request == null || !okToDrop(request, now)) {
+            dropping = false;
+          } else {
+            dropNext = controlLaw(dropNext);
+          }
+        }
+      }
+    } else if (okToDrop) {
+      shed(request, now);
+      request = poll();
+      dropping = request != null && okToDrop(request, now);
+      // drop faster straight away if shedding stopped only recently
+      long interval = queueDelayIntervalNanos;
+      dropCount = dropCount > 2 && now - dropNext < 16 * interval ? dropCount - 2 : 1;
+      dropNext = controlLaw(now);
+    }
+    return request;
+  }
+
+  private boolean okToDrop(PooledRequest<?> request, long now) {
+    if (now - request.getStartTime() < queueDelayTargetNanos || requests.isEmpty()) {
+      firstAboveTime = 0;
+      return false;
+    }
+    if (firstAboveTime == 0) {
+      firstAboveTime = now + queueDelayIntervalNanos;
+      return false;
+    }
+    return now >= firstAboveTime;
+  }
+
+  private long controlLaw(long time) {
+    return time + (long) (queueDelayIntervalNanos / Math.sqrt(dropCount));
+  }
+
+  private PooledRequest<?> poll() {
+    PooledRequest<?> request = requests.poll();
+    if (request != null) {
+      depth.decrementAndGet();
+    }
+    return request;
+  }
+
+  private void shed(PooledRequest<?> request, long now) {
+    shedWaitTime.record(now - request.getStartTime(), TimeUnit.NANOSECONDS);
+    queueDelayExceeded.increment();
+    request.reject(new QueueDelayExceededException());
+  }
+}
@@ -29,6 +29,7 @@ class PooledRequest<T> implements Runnable {
   private final Promise<T> result;
   private final Callable<T> work;
   private final long startTime = System.nanoTime();
+  private volatile Runnable onFinished;
 
   PooledRequest(Registry registry, String partition, Callable<T> work) {
     this.timer =
@@ -46,7 +47,20 @@ class PooledRequest<T> implements Runnable {
   }
 
   void cancel() {
-    result.completeWithException(new CancellationException());
+    reject(new CancellationException());
+  }
+
+  void reject(Throwable cause) {
+    result.completeWithException(cause);
+  }
+
+  long getStartTime() {
+    return startTime;
+  }
+
+  /** Runs {@code onFinished} once this request has run, whether or not it started its work. */
+  void onFinished(Runnable onFinished) {
+    this.onFinished = onFinished;
   }
 
   private <T> Callable<T> wrapWithContext(final Callable<T> callable) {
@@ -66,11 +80,18 @@ class PooledRequest<T> implements Runnable {
     timer.record(System.nanoTime() - startTime, TimeUnit.NANOSECONDS);
     // request may have expired with a timeout prior to this point, lets not
     // issue the work if that is the case as the caller has already moved on
-    if (result.shouldStart()) {
-      try {
-        result.complete(work.call());
-      } catch (Throwable t) {
-        result.completeWithException(t);
+    try {
+      if (result.shouldStart()) {
+        try {
+          result.complete(work.call());
+        } catch (Throwable t) {
+          result.completeWithException(t);
+        }
+      }
+    } finally {
+      Runnable finished = onFinished;
+      if (finished != null) {
+        finished.run();
       }
     }
   }
@@ -20,8 +20,9 @@ import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.netflix.spectator.api.Id;
 import com.netflix.spectator.api.Registry;
 import com.netflix.spinnaker.clouddriver.requestqueue.RequestQueue;
+import com.netflix.spinnaker.kork.annotations.VisibleForTesting;
 import com.netflix.spinnaker.kork.dynamicconfig.DynamicConfigService;
-import java.util.Collection;
+import java.util.List;
 import java.util.Queue;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.Callable;
@@ -37,9 +38,27 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.scheduling.annotation.Scheduled;
 
+/**
+ * Runs requests on a fixed pool, sharing it fairly between partitions (usually applications).
+ *
+ * <p>Partitions are served by weighted deficit round robin (see {@link PartitionQueue}) and can be
+ * tuned through dynamic config, per partition under {@code request-queue.partitions.<partition>}
+ * or for every partition under {@code request-queue.partition}:
+ *
+ * <ul>
+ *   <li>{@code weight}: requests started per round while backlogged (1)
+ *   <li>{@code max-concurrency}: requests running at once, unbounded if 0 (0)
+ *   <li>{@code max-queue-depth}: queued requests, beyond which requests fail fast, unbounded if 0
+ *       (0)
+ * </ul>
+ *
+ * <p>{@code request-queue.queue-delay.target-ms} (0, disabled) and {@code
+ * request-queue.queue-delay.interval-ms} (100) shed requests whose partition has been queueing
+ * them for longer than the target.
+ */
 public class PooledRequestQueue implements RequestQueue {
   private final Logger log = LoggerFactory.getLogger(getClass());
-  private final ConcurrentMap<String, Queue<PooledRequest<?>>> partitionedRequests =
+  private final ConcurrentMap<String, PartitionQueue> partitionedRequests =
       new ConcurrentHashMap<>();
   private final PollCoordinator pollCoordinator = new PollCoordinator();
 
@@ -48,7 +67,7 @@ public class PooledRequestQueue implements RequestQueue {
   private final int defaultCorePoolSize;
   private final ThreadPoolExecutor executorService;
   private final BlockingQueue<Runnable> submittedRequests;
-  private final Collection<Queue<PooledRequest<?>>> requestQueues;
+  private final List<PartitionQueue> requestQueues;
   private final RequestDistributor requestDistributor;
 
   private final DynamicConfigService dynamicConfigService;
@@ -101,7 +120,13 @@ public class PooledRequestQueue implements RequestQueue {
 
     this.requestQueues = new CopyOnWriteArrayList<>();
     this.requestDistributor =
-        new RequestDistributor(registry, pollCoordinator, executorService, requestQueues);
+        new RequestDistributor(
+            registry,
+            pollCoordinator,
+            executorService,
+            requestQueues,
+            // one thread runs the distributor itself
+            () -> executorService.getCorePoolSize() - 1);
     executorService.submit(requestDistributor);
 
     registry.gauge("pooledRequestQueue.enabled", isEnabled, value -> value.get() ? 1.0 : 0.0);
@@ -136,17 +161,22 @@ public class PooledRequestQueue implements RequestQueue {
     }
 
     final long startTime = System.nanoTime();
-    final Queue<PooledRequest<?>> queue;
+    final PartitionQueue queue;
     if (!partitionedRequests.containsKey(partition)) {
-      Queue<PooledRequest<?>> newQueue = new LinkedBlockingQueue<>();
-      Queue<PooledRequest<?>> existing = partitionedRequests.putIfAbsent(partition, newQueue);
+      PartitionQueue newQueue = new PartitionQueue(registry, partition);
+      configure(newQueue);
+      PartitionQueue existing = partitionedRequests.putIfAbsent(partition, newQueue);
       if (existing == null) {
         requestQueues.add(newQueue);
         queue = newQueue;
         registry.gauge(
             registry.createId("pooledRequestQueue.partition.size", "partition", partition),
             queue,
-            Queue::size);
+            PartitionQueue::size);
+        registry.gauge(
+            registry.createId("pooledRequestQueue.partition.inFlight", "partition", partition),
+            queue,
+            PartitionQueue::getInFlight);
       } else {
         queue = existing;
       }
@@ -156,11 +186,13 @@ public class PooledRequestQueue implements RequestQueue {
 
     final PooledRequest<T> request = new PooledRequest<>(registry, partition, operation);
 
-    queue.offer(request);
-    pollCoordinator.notifyItemsAdded();
-
     Id id = registry.createId("pooledRequestQueue.totalTime", "partition", partition);
     try {
+      if (!queue.offer(request)) {
+        throw new PartitionQueueFullException();
+      }
+      pollCoordinator.notifyItemsAdded();
+
       T result = request.getPromise().blockingGetOrThrow(startWorkTimeout, timeout, unit);
       id = id.withTag("success", "true");
       return result;
@@ -190,5 +222,32 @@ public class PooledRequestQueue implements RequestQueue {
     }
 
     isEnabled.set(dynamicConfigService.isEnabled("request-queue", true));
+    requestQueues.forEach(this::configure);
+  }
+
+  @VisibleForTesting
+  int partitionDepth(String partition) {
+    PartitionQueue queue = partitionedRequests.get(partition);
+    return queue == null ? 0 : queue.size();
+  }
+
+  private void configure(PartitionQueue queue) {
+    String partition = queue.getPartition();
+    queue.configure(
+        partitionConfig(partition, "weight", 1),
+        partitionConfig(partition, "max-concurrency", 0),
+        partitionConfig(partition, "max-queue-depth", 0),
+        config("request-queue.queue-delay.target-ms", 0),
+        config("request-queue.queue-delay.interval-ms", 100));
+  }
+
+  private int partitionConfig(String partition, String name, int defaultValue) {
+    int fallback = config("request-queue.partition." + name, defaultValue);
+    return config("request-queue.partitions." + partition + "." + name, fallback);
+  }
+
+  private int config(String key, int defaultValue) {
+    Integer value = dynamicConfigService.getConfig(Integer.class, key, defaultValue);
+    return value == null ? defaultValue : value;
   }
 }
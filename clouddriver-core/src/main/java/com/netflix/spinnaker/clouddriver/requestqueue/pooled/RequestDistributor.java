@@ -18,31 +18,59 @@ package com.netflix.spinnaker.clouddriver.requestqueue.pooled;
 
 import com.netflix.spectator.api.Counter;
 import com.netflix.spectator.api.Registry;
-import java.util.Collection;
-import java.util.Queue;
+import java.util.List;
 import java.util.concurrent.Executor;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntSupplier;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+/**
+ * Starts queued requests by deficit round robin across their {@link PartitionQueue partitions}.
+ *
+ * <p>No more requests are started than the executor has threads for, so requests wait in their
+ * partition, where the next one started is chosen fairly, rather than in the executor's queue.
+ * When the pool is full the round robin stops where it is, and carries on from the same partition
+ * once a request has finished.
+ */
 class RequestDistributor implements Runnable {
   private final AtomicBoolean continueRunning = new AtomicBoolean(true);
+  private final AtomicBoolean waitingForCapacity = new AtomicBoolean();
+  private final AtomicInteger inFlight = new AtomicInteger();
   private final PollCoordinator pollCoordinator;
   private final Executor executor;
-  private final Collection<Queue<PooledRequest<?>>> requestQueues;
+  private final List<PartitionQueue> requestQueues;
+  private final IntSupplier capacity;
   private final Counter submissionCounter;
 
+  // the partition being served, and whether it has been credited for this visit
+  private int current;
+  private boolean creditedCurrent;
+
   private final Logger log = LoggerFactory.getLogger(getClass());
 
   RequestDistributor(
       Registry registry,
       PollCoordinator pollCoordinator,
       Executor executor,
-      Collection<Queue<PooledRequest<?>>> requestQueues) {
+      List<PartitionQueue> requestQueues) {
+    this(registry, pollCoordinator, executor, requestQueues, () -> Integer.MAX_VALUE);
+  }
+
+  /** @param capacity the number of requests the executor can run at once */
+  RequestDistributor(
+      Registry registry,
+      PollCoordinator pollCoordinator,
+      Executor executor,
+      List<PartitionQueue> requestQueues,
+      IntSupplier capacity) {
     this.pollCoordinator = pollCoordinator;
     this.executor = executor;
     this.requestQueues = requestQueues;
+    this.capacity = capacity;
     this.submissionCounter = registry.counter("pooledRequestQueue.submitted");
+    registry.gauge("pooledRequestQueue.inFlight", inFlight);
   }
 
   void shutdown() {
@@ -59,19 +87,51 @@ class RequestDistributor implements Runnable {
   void processPartitions() {
     try {
       boolean hadItems = false;
+      boolean saturated = false;
       pollCoordinator.reset();
-      for (Queue<PooledRequest<?>> queue : requestQueues) {
-        final PooledRequest<?> request = queue.poll();
-        if (request != null) {
+      int partitions = requestQueues.size();
+      for (int visited = 0; visited < partitions; visited++) {
+        final PartitionQueue queue = requestQueues.get(current % partitions);
+        if (!creditedCurrent) {
+          queue.beginRound();
+          creditedCurrent = true;
+        }
+        while (!(saturated = inFlight.get() >= capacity.getAsInt())) {
+          final PooledRequest<?> request = queue.next(System.nanoTime());
+          if (request == null) {
+            break;
+          }
           hadItems = true;
+          inFlight.incrementAndGet();
+          request.onFinished(() -> finished(queue));
           submissionCounter.increment();
           executor.execute(request);
         }
+        if (saturated) {
+          // resume with this partition's remaining credit once there is capacity again
+          break;
+        }
+        current = (current + 1) % partitions;
+        creditedCurrent = false;
       }
 
-      pollCoordinator.waitForItems(hadItems);
+      boolean skipWait = hadItems;
+      if (saturated) {
+        // wait for a request to finish, unless one already has
+        waitingForCapacity.set(true);
+        skipWait = inFlight.get() < capacity.getAsInt();
+      }
+      pollCoordinator.waitForItems(skipWait);
     } catch (Throwable t) {
       log.warn("Throwable during processPartitions", t);
     }
   }
+
+  private void finished(PartitionQueue queue) {
+    boolean partitionWaiting = queue.finished();
+    inFlight.decrementAndGet();
+    if (waitingForCapacity.compareAndSet(true, false) || partitionWaiting) {
+      pollCoordinator.notifyItemsAdded();
+    }
+  }
 }
@@ -0,0 +1,98 @@
+/*
+ * Copyright 2026 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.netflix.spinnaker.clouddriver.cache
+
+import spock.lang.Specification
+import spock.lang.Unroll
+
+class CatsSearchIndexSpec extends Specification {
+
+  def index = new CatsSearchIndex()
+
+  def setup() {
+    index.update("serverGroups", [
+      "aws:serverGroups:app:prod:us-east-1:app-main-v001",
+      "aws:serverGroups:app:prod:us-west-2:app-main-v002",
+      "aws:serverGroups:other:test:us-east-1:other-v000",
+      "aws:serverGroups:MixedCase:test:us-east-1:MixedCase-v003",
+    ])
+    index.update("instances", ["aws:instances:prod:us-east-1:i-app1"])
+  }
+
+  @Unroll
+  def "'#query' matches #expected"() {
+    expect:
+    index.search("serverGroups", query).sort() == expected
+
+    where:
+    query        || expected
+    "main-v00"   || ["aws:serverGroups:app:prod:us-east-1:app-main-v001", "aws:serverGroups:app:prod:us-west-2:app-main-v002"]
+    "us-west"    || ["aws:serverGroups:app:prod:us-west-2:app-main-v002"]
+    "mixedcase"  || ["aws:serverGroups:MixedCase:test:us-east-1:MixedCase-v003"]
+    "MIXEDCASE"  || ["aws:serverGroups:MixedCase:test:us-east-1:MixedCase-v003"]
+    "v0"         || ["aws:serverGroups:MixedCase:test:us-east-1:MixedCase-v003", "aws:serverGroups:app:prod:us-east-1:app-main-v001", "aws:serverGroups:app:prod:us-west-2:app-main-v002", "aws:serverGroups:other:test:us-east-1:other-v000"]
+    "east-1:app" || ["aws:serverGroups:app:prod:us-east-1:app-main-v001"]
+    "missing"    || []
+    "mainv"      || []
+    "aws"        || []
+    "serverg"    || []
+    "groups:app" || []
+  }
+
+  def "applies added and removed identifiers"() {
+    when:
+    def changed = index.update("serverGroups", [
+      "aws:serverGroups:app:prod:us-east-1:app-main-v001",
+      "aws:serverGroups:app:prod:us-east-1:app-main-v004",
+    ])
+
+    then:
+    changed == 4
+    index.size("serverGroups") == 2
+    index.search("serverGroups", "main-v00").sort() == [
+      "aws:serverGroups:app:prod:us-east-1:app-main-v001",
+      "aws:serverGroups:app:prod:us-east-1:app-main-v004",
+    ]
+    index.contains("serverGroups", "aws:serverGroups:app:prod:us-east-1:app-main-v004")
+    !index.contains("serverGroups", "aws:serverGroups:other:test:us-east-1:other-v000")
+  }
+
+  def "pages across types in search order"() {
+    when:
+    def page = index.search(["serverGroups", "instances"], "app", 1, 2)
+
+    then:
+    page.totalMatches == 3
+    page.matches == [
+      "aws:serverGroups:app:prod:us-west-2:app-main-v002",
+      "aws:instances:prod:us-east-1:i-app1",
+    ]
+  }
+
+  def "orders matches like the search provider"() {
+    given:
+    def keys = (1..50).collect { "aws:instances:prod:us-east-1:i-${String.format('%03d', it)}".toString() }
+    index.update("instances", keys)
+
+    when:
+    def page = index.search(["instances"], "i-0", 10, 5)
+
+    then:
+    page.totalMatches == 50
+    page.matches == keys[10..14]
+  }
+}
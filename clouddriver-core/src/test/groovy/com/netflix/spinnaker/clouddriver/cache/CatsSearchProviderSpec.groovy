@@ -34,11 +34,13 @@ class CatsSearchProviderSpec extends Specification {
   def providers = [
     Stub(SearchableProvider) {
       supportsSearch('instances', _) >> true
+      getDefaultCaches() >> ['instances']
       getAgents() >> [ instanceAgent ]
       parseKey(_) >> { String k -> return null }
     },
     Stub(SearchableProvider) {
       supportsSearch('instances', _) >> true
+      getDefaultCaches() >> ['instances']
       getAgents() >> [ instanceAgent ]
       parseKey(_) >> { String k -> return ["originalKey": k] }
     }
@@ -70,29 +72,92 @@ class CatsSearchProviderSpec extends Specification {
     catsSearchProvider.run()
 
     then:
-    catsSearchProvider.cachedIdentifiersByType.get() == [
-      "instances": instanceIdentifiers.collect { it.toLowerCase() }
-    ]
+    catsSearchProvider.searchIndex.size("instances") == instanceIdentifiers.size()
+    catsSearchProvider.searchIndex.search("instances", "i-12") == ["aws:instances:prod:us-west-2:I-1234"]
   }
 
-  def "should handle unparseable instance identifiers"() {
+  def "should apply removed identifiers on refresh"() {
+    given:
+    def identifiers = new ArrayList<>(instanceIdentifiers)
+    cache.getIdentifiers("instances") >> { return identifiers }
+
     when:
-    providers.clear()
+    catsSearchProvider.run()
+    identifiers.remove("aws:instances:prod:us-west-2:I-1234")
+    catsSearchProvider.run()
+
+    then:
+    catsSearchProvider.searchIndex.size("instances") == instanceIdentifiers.size() - 1
+    catsSearchProvider.searchIndex.search("instances", "i-12").isEmpty()
+  }
+
+  def "should page through indexed matches"() {
+    given:
+    cache.getIdentifiers("instances") >> { return instanceIdentifiers }
+    cache.existingIdentifiers("instances", _ as Collection<String>) >> { t, i -> return i }
+    catsSearchProvider.run()
+
+    when:
+    def firstPage = catsSearchProvider.search("i-", ["instances"], 1, 2)
+    def lastPage = catsSearchProvider.search("i-", ["instances"], 3, 2)
+
+    then:
+    firstPage.totalMatches == 5
+    firstPage.results*.originalKey == ["aws:instances:prod:us-west-2:I-1234", "aws:instances:prod:us-west-2:I-3456"]
+    lastPage.results*.originalKey == ["aws:instances:prod:us-west-2:I-9012"]
+  }
+
+  def "should not match the provider or type of indexed identifiers"() {
+    given:
+    cache.getIdentifiers("instances") >> { return instanceIdentifiers }
+    cache.existingIdentifiers("instances", _ as Collection<String>) >> { t, i -> return i }
+    catsSearchProvider.run()
+
+    expect:
+    catsSearchProvider.search("instances", ["instances"], 1, 10).totalMatches == 0
+    catsSearchProvider.search("aws", ["instances"], 1, 10).totalMatches == 0
+    catsSearchProvider.search("prod", ["instances"], 1, 10).totalMatches == instanceIdentifiers.size()
+  }
+
+  def "should not return indexed identifiers that are no longer cached"() {
+    given:
+    cache.getIdentifiers("instances") >> { return instanceIdentifiers }
+    cache.existingIdentifiers("instances", _ as Collection<String>) >> { t, Collection<String> i ->
+      return i.findAll { it != "aws:instances:prod:us-west-2:I-1234" }
+    }
+    catsSearchProvider.run()
+
+    when:
+    def paged = catsSearchProvider.search("i-", ["instances"], 1, 10)
+    def filtered = catsSearchProvider.search("i-", ["instances"], 1, 10, [cloudProvider: "aws"])
 
     then:
+    paged.totalMatches == instanceIdentifiers.size() - 1
+    !paged.results*.originalKey.contains("aws:instances:prod:us-west-2:I-1234")
+    !filtered.results*.originalKey.contains("aws:instances:prod:us-west-2:I-1234")
+  }
+
+  def "should handle unparseable instance identifiers"() {
+    given:
+    cache.getIdentifiers("instances") >> { return instanceIdentifiers }
+
+    when:
+    providers.clear()
     catsSearchProvider.run()
 
     then:
-    catsSearchProvider.cachedIdentifiersByType.get() == [:]
+    catsSearchProvider.searchIndex.size("instances") == 0
 
     when:
     providers.add(
-      Mock(SearchableProvider) {
+      Stub(SearchableProvider) {
+        supportsSearch('instances', _) >> true
         parseKey(_) >> { String k -> return null }
       }
     )
+    catsSearchProvider.run()
 
     then:
-    catsSearchProvider.cachedIdentifiersByType.get() == [:]
+    catsSearchProvider.searchIndex.size("instances") == 0
   }
 }
@@ -16,12 +16,12 @@
 
 package com.netflix.spinnaker.clouddriver.requestqueue.pooled
 
+import com.netflix.spectator.api.DefaultRegistry
 import com.netflix.spectator.api.NoopRegistry
 import com.netflix.spectator.api.Registry
 import spock.lang.Specification
 
 import java.util.concurrent.Executor
-import java.util.concurrent.LinkedBlockingQueue
 import java.util.concurrent.TimeUnit
 
 class RequestDistributorSpec extends Specification {
@@ -29,10 +29,10 @@ class RequestDistributorSpec extends Specification {
   def "should pop and dispatch one item per queue"() {
     given:
     Registry registry = new NoopRegistry()
-    Collection<Queue<PooledRequest>> queues = [new LinkedBlockingQueue<>(), new LinkedBlockingQueue<>(), new LinkedBlockingQueue<>()]
-    queues[0].add(new PooledRequest<Integer>(registry, "appA", {return 0}))
-    queues[0].add(new PooledRequest<Integer>(registry, "appA", {return 1}))
-    queues[2].add(new PooledRequest<Integer>(registry, "appC", {return 2}))
+    List<PartitionQueue> queues = [new PartitionQueue(registry, "appA"), new PartitionQueue(registry, "appB"), new PartitionQueue(registry, "appC")]
+    queues[0].offer(new PooledRequest<Integer>(registry, "appA", {return 0}))
+    queues[0].offer(new PooledRequest<Integer>(registry, "appA", {return 1}))
+    queues[2].offer(new PooledRequest<Integer>(registry, "appC", {return 2}))
     def coord = Mock(PollCoordinator)
     List<PooledRequest<Integer>> reqs = []
     def exec = Stub(Executor) {
@@ -57,4 +57,142 @@ class RequestDistributorSpec extends Specification {
     reqs[1].getPromise().blockingGetOrThrow(1, 1, TimeUnit.MILLISECONDS) == 2
 
   }
+
+  def "should start requests in proportion to partition weights"() {
+    given:
+    Registry registry = new NoopRegistry()
+    def heavy = new PartitionQueue(registry, "heavy")
+    def light = new PartitionQueue(registry, "light")
+    def heavyRequests = offer(registry, heavy, 6)
+    offer(registry, light, 6)
+    heavy.configure(2, 0, 0, 0, 100)
+    List<PooledRequest> started = []
+    def exec = { Runnable r -> started.add(r) } as Executor
+
+    RequestDistributor dist = new RequestDistributor(registry, Stub(PollCoordinator), exec, [heavy, light])
+
+    when:
+    dist.processPartitions()
+    dist.processPartitions()
+
+    then:
+    started.collect { heavyRequests.contains(it) ? "heavy" : "light" } == ["heavy", "heavy", "light", "heavy", "heavy", "light"]
+  }
+
+  def "should not start more requests than a partition's cap or the pool's capacity"() {
+    given:
+    Registry registry = new NoopRegistry()
+    def capped = new PartitionQueue(registry, "capped")
+    def other = new PartitionQueue(registry, "other")
+    def cappedRequests = offer(registry, capped, 3)
+    offer(registry, other, 3)
+    capped.configure(3, 1, 0, 0, 100)
+    List<PooledRequest> started = []
+    def exec = { Runnable r -> started.add(r) } as Executor
+
+    RequestDistributor dist = new RequestDistributor(registry, Stub(PollCoordinator), exec, [capped, other], { 3 })
+
+    when:
+    dist.processPartitions()
+
+    then:
+    started.collect { cappedRequests.contains(it) ? "capped" : "other" } == ["capped", "other"]
+
+    when:
+    dist.processPartitions()
+
+    then:
+    started.collect { cappedRequests.contains(it) ? "capped" : "other" } == ["capped", "other", "other"]
+
+    when:
+    dist.processPartitions()
+
+    then: 'the pool is full'
+    started.size() == 3
+
+    when:
+    started[1].run()
+    dist.processPartitions()
+
+    then: 'the slot goes to the next partition in turn with a slot free'
+    started.collect { cappedRequests.contains(it) ? "capped" : "other" } == ["capped", "other", "other", "other"]
+
+    when:
+    started[0].run()
+    dist.processPartitions()
+
+    then: 'the capped partition has a slot again'
+    started.collect { cappedRequests.contains(it) ? "capped" : "other" } == ["capped", "other", "other", "other", "capped"]
+  }
+
+  def "should serve backlogged partitions in turn as slots free up"() {
+    given:
+    Registry registry = new NoopRegistry()
+    def queues = ["appA", "appB", "appC"].collect { new PartitionQueue(registry, it) }
+    def requests = queues.collectEntries { [(it.partition): offer(registry, it, 3)] }
+    List<PooledRequest> started = []
+    def exec = { Runnable r -> started.add(r) } as Executor
+
+    RequestDistributor dist = new RequestDistributor(registry, Stub(PollCoordinator), exec, queues, { 1 })
+
+    when:
+    6.times {
+      dist.processPartitions()
+      started.last().run()
+    }
+
+    then:
+    started.collect { r -> requests.find { it.value.contains(r) }.key } == ["appA", "appB", "appC", "appA", "appB", "appC"]
+  }
+
+  def "should reject requests beyond the partition's queue depth"() {
+    given:
+    Registry registry = new NoopRegistry()
+    def queue = new PartitionQueue(registry, "app")
+    queue.configure(1, 0, 2, 0, 100)
+
+    expect:
+    queue.offer(new PooledRequest<Integer>(registry, "app", { 0 }))
+    queue.offer(new PooledRequest<Integer>(registry, "app", { 1 }))
+    !queue.offer(new PooledRequest<Integer>(registry, "app", { 2 }))
+    queue.size() == 2
+  }
+
+  def "should shed requests once the queue delay has exceeded its target for an interval"() {
+    given:
+    Registry registry = new DefaultRegistry()
+    def queue = new PartitionQueue(registry, "app")
+    def requests = offer(registry, queue, 4)
+    queue.configure(10, 0, 0, 10, 100)
+    long now = System.nanoTime()
+    long ms = TimeUnit.MILLISECONDS.toNanos(1)
+    queue.beginRound()
+
+    when: 'the queue delay first exceeds its target'
+    def first = queue.next(now + 20 * ms)
+
+    then: 'nothing is shed until it has done so for an interval'
+    first.is(requests[0])
+
+    when:
+    def next = queue.next(now + 200 * ms)
+
+    then: 'the head of the queue is shed'
+    next.is(requests[2])
+    queue.size() == 1
+    registry.counter(registry.createId(
+      "pooledRequestQueue.partition.rejected", "partition", "app", "cause", "delay")).count() == 1
+
+    when:
+    requests[1].promise.blockingGetOrThrow(1, 1, TimeUnit.MILLISECONDS)
+
+    then:
+    thrown(QueueDelayExceededException)
+  }
+
+  private static List<PooledRequest<Integer>> offer(Registry registry, PartitionQueue queue, int count) {
+    def requests = (0..<count).collect { int i -> new PooledRequest<Integer>(registry, queue.partition, { i }) }
+    requests.each { queue.offer(it) }
+    return requests
+  }
 }
@@ -0,0 +1,43 @@
+/*
+ * Copyright 2026 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.netflix.spinnaker.clouddriver.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import org.junit.jupiter.api.Test;
+
+class MappedCachePropertiesTest {
+
+  @Test
+  void largestSegmentSizeFitsInAnInt() {
+    MappedCacheProperties properties = new MappedCacheProperties();
+    properties.setSegmentSizeMb(2047);
+
+    assertThat(properties.getSegmentSizeBytes()).isEqualTo(2047 * 1024 * 1024);
+  }
+
+  @Test
+  void rejectsSegmentSizesThatOverflow() {
+    MappedCacheProperties properties = new MappedCacheProperties();
+
+    assertThatThrownBy(() -> properties.setSegmentSizeMb(2048))
+        .isInstanceOf(IllegalArgumentException.class);
+    assertThatThrownBy(() -> properties.setSegmentSizeMb(0))
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+}
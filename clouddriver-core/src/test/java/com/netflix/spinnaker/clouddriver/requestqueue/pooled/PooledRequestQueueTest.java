@@ -20,6 +20,7 @@ import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.assertj.core.api.Assertions.fail;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
 
 import ch.qos.logback.classic.Level;
 import com.netflix.spectator.api.NoopRegistry;
@@ -167,6 +168,47 @@ final class PooledRequestQueueTest {
     assertThat(testJobRan.get()).isFalse();
   }
 
+  @Test
+  void rejectsRequestsBeyondThePartitionQueueDepth() throws Exception {
+    when(dynamicConfigService.getConfig(
+            Integer.class, "request-queue.partition.max-queue-depth", 0))
+        .thenReturn(1);
+    PooledRequestQueue queue =
+        new PooledRequestQueue(dynamicConfigService, new NoopRegistry(), 5000, 5000, 1);
+
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+    CountDownLatch blockingJobStarted = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+
+    try {
+      // hold the only slot of the pool, then queue one more request for the partition
+      executor.submit(
+          safeRun(
+              () ->
+                  queue.execute(
+                      "foo",
+                      () -> {
+                        blockingJobStarted.countDown();
+                        release.await();
+                        return null;
+                      })));
+      blockingJobStarted.await();
+      Future<Void> queuedJob = executor.submit(safeRun(() -> queue.execute("foo", () -> null)));
+      while (queue.partitionDepth("foo") < 1) {
+        Thread.sleep(5);
+      }
+
+      assertThatThrownBy(() -> queue.execute("foo", () -> 12345L))
+          .isInstanceOf(PartitionQueueFullException.class);
+
+      release.countDown();
+      queuedJob.get(5, TimeUnit.SECONDS);
+    } finally {
+      release.countDown();
+      executor.shutdownNow();
+    }
+  }
+
   /**
    * Translates a {@link ThrowingRunnable} into a {@link Callable<Void>}.
    *
@@ -17,44 +17,67 @@
 
 package com.netflix.spinnaker.clouddriver.kubernetes.caching.agent;
 
+import com.fasterxml.jackson.core.JsonPointer;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.ImmutableSetMultimap;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.netflix.spectator.api.Id;
 import com.netflix.spectator.api.Registry;
+import com.netflix.spectator.api.histogram.PercentileTimer;
 import com.netflix.spinnaker.cats.agent.AccountAware;
+import com.netflix.spinnaker.cats.agent.Agent;
+import com.netflix.spinnaker.cats.agent.AgentExecution;
 import com.netflix.spinnaker.cats.agent.AgentIntervalAware;
 import com.netflix.spinnaker.cats.agent.CacheResult;
 import com.netflix.spinnaker.cats.agent.CachingAgent;
 import com.netflix.spinnaker.cats.agent.DefaultCacheResult;
 import com.netflix.spinnaker.cats.cache.CacheData;
 import com.netflix.spinnaker.cats.provider.ProviderCache;
+import com.netflix.spinnaker.cats.provider.ProviderRegistry;
 import com.netflix.spinnaker.clouddriver.kubernetes.KubernetesCloudProvider;
 import com.netflix.spinnaker.clouddriver.kubernetes.config.KubernetesCachingPolicy;
 import com.netflix.spinnaker.clouddriver.kubernetes.config.KubernetesConfigurationProperties;
+import com.netflix.spinnaker.clouddriver.kubernetes.config.KubernetesConfigurationProperties.Streaming;
 import com.netflix.spinnaker.clouddriver.kubernetes.description.KubernetesCoordinates;
 import com.netflix.spinnaker.clouddriver.kubernetes.description.KubernetesSpinnakerKindMap;
 import com.netflix.spinnaker.clouddriver.kubernetes.description.SpinnakerKind;
 import com.netflix.spinnaker.clouddriver.kubernetes.description.manifest.KubernetesCachingProperties;
 import com.netflix.spinnaker.clouddriver.kubernetes.description.manifest.KubernetesKind;
-import com.netflix.spinnaker.clouddriver.kubernetes.description.manifest.KubernetesKindProperties;
 import com.netflix.spinnaker.clouddriver.kubernetes.description.manifest.KubernetesKindProperties.ResourceScope;
 import com.netflix.spinnaker.clouddriver.kubernetes.description.manifest.KubernetesManifest;
 import com.netflix.spinnaker.clouddriver.kubernetes.description.manifest.KubernetesManifestAnnotater;
+import com.netflix.spinnaker.clouddriver.kubernetes.op.handler.KubernetesHandler;
 import com.netflix.spinnaker.clouddriver.kubernetes.op.job.KubectlJobExecutor;
+import com.netflix.spinnaker.clouddriver.kubernetes.op.job.KubernetesApiClient;
 import com.netflix.spinnaker.clouddriver.kubernetes.security.KubernetesCredentials;
 import com.netflix.spinnaker.clouddriver.kubernetes.security.KubernetesNamedAccountCredentials;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
-import java.util.stream.Stream;
 import javax.annotation.Nonnull;
 import lombok.Getter;
 import org.slf4j.Logger;
@@ -78,6 +101,14 @@ public abstract class KubernetesCachingAgent
           SpinnakerKind.LOAD_BALANCERS,
           SpinnakerKind.SECURITY_GROUPS);
 
+  /** Drops the informers of agents that stopped streaming on this node; shared by all agents. */
+  private static final ScheduledExecutorService informerSweeper =
+      Executors.newSingleThreadScheduledExecutor(
+          new ThreadFactoryBuilder()
+              .setNameFormat(KubernetesCachingAgent.class.getSimpleName() + "-sweeper-%d")
+              .setDaemon(true)
+              .build());
+
   @Getter @Nonnull protected final String accountName;
   protected final Registry registry;
   protected final KubernetesCredentials credentials;
@@ -96,6 +127,37 @@ public abstract class KubernetesCachingAgent
   protected final KubernetesSpinnakerKindMap kubernetesSpinnakerKindMap;
   @Nullable private final Front50ApplicationLoader front50ApplicationLoader;
 
+  /**
+   * Informers used in streaming mode, keyed by kind and namespace. They outlive a single execution
+   * so that the next one resumes watching instead of listing again.
+   */
+  private final Map<String, KubernetesInformer> informers = new ConcurrentHashMap<>();
+
+  /** Whether a streaming execution of this agent is running on this node. */
+  private boolean streamingNow = false;
+
+  /** When the last streaming execution of this agent on this node ended, or 0 if none has. */
+  private long lastStreamedAt = 0;
+
+  @Nullable private ScheduledFuture<?> informerEviction;
+
+  /**
+   * Runs the informers' watches in streaming mode. Its threads are kept between executions, and
+   * only time out once streaming stops.
+   */
+  @Nullable private ThreadPoolExecutor watchExecutor;
+
+  /** Changes received by the informers that have not been written to the cache yet. */
+  private final AtomicInteger pendingChanges = new AtomicInteger();
+
+  /** When the last streamed cache result was written, kept across executions. */
+  private volatile long lastWriteAt = 0;
+
+  private final Object changeSignal = new Object();
+
+  /** Estimated size of each namespace when it was last loaded. */
+  private final Map<String, Long> namespaceBytes = new ConcurrentHashMap<>();
+
   protected KubernetesCachingAgent(
       KubernetesNamedAccountCredentials namedAccountCredentials,
       ObjectMapper objectMapper,
@@ -175,34 +237,94 @@ public abstract class KubernetesCachingAgent
     return filteredPrimaryKinds;
   }
 
-  private ImmutableList<KubernetesManifest> loadResources(
-      @Nonnull Iterable<KubernetesKind> kubernetesKinds, Optional<String> optionalNamespace) {
+  private void loadResources(
+      @Nonnull Iterable<KubernetesKind> kubernetesKinds,
+      Optional<String> optionalNamespace,
+      @Nonnull Consumer<KubernetesManifest> sink) {
     String namespace = optionalNamespace.orElse(null);
-    return credentials.list(ImmutableList.copyOf(kubernetesKinds), namespace);
-  }
-
-  @Nonnull
-  private ImmutableList<KubernetesManifest> loadNamespaceScopedResources(
-      @Nonnull Iterable<KubernetesKind> kubernetesKinds) {
-    return getNamespaces()
-        // Not using parallelStream. In ForkJoin.commonPool, the number of threads == (CPU cores -
-        // 1). Since we're already running in the AgentExecutionAction thread pool and the number of
-        // threads to compute namespaces is already configurable at account level, this is not
-        // needed and most importantly, avoids contention in the common pool, increasing
-        // performance.
-        .stream()
-        .map(n -> loadResources(kubernetesKinds, Optional.of(n)))
-        .flatMap(Collection::stream)
-        .collect(ImmutableList.toImmutableList());
+    credentials.list(ImmutableList.copyOf(kubernetesKinds), namespace, sink);
+  }
+
+  /**
+   * Loads each namespace and hands its resources to {@code sink}. When the account has a {@link
+   * KubernetesNamespaceExecutor}, namespaces are loaded in parallel on its threads and each one is
+   * handed over on this thread once it is complete; otherwise they are loaded one by one and every
+   * resource is handed over as soon as it is read.
+   */
+  private void loadNamespaceScopedResources(
+      @Nonnull Iterable<KubernetesKind> kubernetesKinds,
+      @Nonnull Consumer<KubernetesManifest> sink) {
+    ImmutableList<String> namespaces = getNamespaces();
+    KubernetesNamespaceExecutor executor = credentials.getNamespaceExecutor();
+    // Not using parallelStream. In ForkJoin.commonPool, the number of threads == (CPU cores - 1).
+    // We're already running in the AgentExecutionAction thread pool, so the common pool would
+    // only add contention; the account's own bounded pool is used instead.
+    if (executor == null || namespaces.size() < 2) {
+      namespaces.forEach(n -> loadNamespace(kubernetesKinds, n, sink));
+      return;
+    }
+    executor.forEach(
+        namespaces,
+        n -> {
+          ImmutableList.Builder<KubernetesManifest> manifests = ImmutableList.builder();
+          loadNamespace(kubernetesKinds, n, manifests::add);
+          ImmutableList<KubernetesManifest> loaded = manifests.build();
+          namespaceBytes.put(
+              n, loaded.stream().mapToLong(KubernetesCachingAgent::estimateBytes).sum());
+          return loaded;
+        },
+        n -> namespaceBytes.getOrDefault(n, executor.getUnknownNamespaceBytes()),
+        (n, manifests) -> manifests.forEach(sink));
   }
 
-  @Nonnull
-  private ImmutableList<KubernetesManifest> loadClusterScopedResources(
-      @Nonnull Iterable<KubernetesKind> kubernetesKinds) {
+  private void loadNamespace(
+      @Nonnull Iterable<KubernetesKind> kubernetesKinds,
+      String namespace,
+      @Nonnull Consumer<KubernetesManifest> sink) {
+    long start = registry.clock().monotonicTime();
+    boolean success = false;
+    try {
+      loadResources(kubernetesKinds, Optional.of(namespace), sink);
+      success = true;
+    } finally {
+      Id id =
+          registry
+              .createId("kubernetes.cache.namespaceLoad")
+              .withTag("account", accountName)
+              .withTag("agent", getClass().getSimpleName())
+              .withTag("success", String.valueOf(success));
+      if (configurationProperties.getCache().isNamespaceLoadMetricsByNamespace()) {
+        id = id.withTag("namespace", namespace);
+      }
+      registry.timer(id).record(registry.clock().monotonicTime() - start, TimeUnit.NANOSECONDS);
+    }
+  }
+
+  /** Roughly how many bytes a value takes as JSON, used to bound the namespaces in flight. */
+  private static long estimateBytes(@Nullable Object value) {
+    if (value instanceof Map) {
+      long bytes = 2;
+      for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+        bytes += estimateBytes(entry.getKey()) + estimateBytes(entry.getValue()) + 2;
+      }
+      return bytes;
+    } else if (value instanceof Collection) {
+      long bytes = 2;
+      for (Object item : (Collection<?>) value) {
+        bytes += estimateBytes(item) + 1;
+      }
+      return bytes;
+    } else if (value instanceof String) {
+      return ((String) value).length() + 2;
+    }
+    return 8;
+  }
+
+  private void loadClusterScopedResources(
+      @Nonnull Iterable<KubernetesKind> kubernetesKinds,
+      @Nonnull Consumer<KubernetesManifest> sink) {
     if (handleClusterScopedResources()) {
-      return loadResources(kubernetesKinds, Optional.empty());
-    } else {
-      return ImmutableList.of();
+      loadResources(kubernetesKinds, Optional.empty(), sink);
     }
   }
 
@@ -213,42 +335,11 @@ public abstract class KubernetesCachingAgent
                 k -> credentials.getKindProperties(k).getResourceScope(), Function.identity()));
   }
 
-  protected Map<KubernetesKind, List<KubernetesManifest>> loadPrimaryResourceList() {
+  /** Hands every primary resource of this agent to {@code sink} as it is loaded. */
+  protected void loadPrimaryResources(Consumer<KubernetesManifest> sink) {
     ImmutableSetMultimap<ResourceScope, KubernetesKind> kindsByScope = primaryKindsByScope();
-
-    Map<KubernetesKind, List<KubernetesManifest>> result =
-        Stream.concat(
-                loadClusterScopedResources(
-                    kindsByScope.get(KubernetesKindProperties.ResourceScope.CLUSTER))
-                    .stream(),
-                loadNamespaceScopedResources(
-                    kindsByScope.get(KubernetesKindProperties.ResourceScope.NAMESPACE))
-                    .stream())
-            .collect(Collectors.groupingBy(KubernetesManifest::getKind));
-
-    for (KubernetesCachingPolicy policy : credentials.getCachingPolicies()) {
-      KubernetesKind policyKind = KubernetesKind.fromString(policy.getKubernetesKind());
-      if (!result.containsKey(policyKind)) {
-        continue;
-      }
-
-      List<KubernetesManifest> entries = result.get(policyKind);
-      if (entries == null) {
-        continue;
-      }
-
-      if (entries.size() > policy.getMaxEntriesPerAgent()) {
-        log.warn(
-            "{}: Pruning {} entries from kind {}",
-            getAgentType(),
-            entries.size() - policy.getMaxEntriesPerAgent(),
-            policyKind);
-        entries = entries.subList(0, policy.getMaxEntriesPerAgent());
-        result.put(policyKind, entries);
-      }
-    }
-
-    return result;
+    loadClusterScopedResources(kindsByScope.get(ResourceScope.CLUSTER), sink);
+    loadNamespaceScopedResources(kindsByScope.get(ResourceScope.NAMESPACE), sink);
   }
 
   /**
@@ -271,9 +362,347 @@ public abstract class KubernetesCachingAgent
     Map<String, Object> details = defaultIntrospectionDetails();
 
     long start = System.currentTimeMillis();
-    Map<KubernetesKind, List<KubernetesManifest>> primaryResourceList = loadPrimaryResourceList();
+    CacheResultBuilder builder = new CacheResultBuilder(filteredPrimaryKinds(), true);
+    loadPrimaryResources(builder);
     details.put("timeSpentInKubectlMs", System.currentTimeMillis() - start);
-    return buildCacheResult(primaryResourceList);
+    return builder.build();
+  }
+
+  /**
+   * In streaming mode ({@link Streaming#isEnabled()}) the agent keeps its kinds current through
+   * watches instead of listing them on every execution. Accounts whose credentials can't be used by
+   * the in-process API client keep using {@link #loadData(ProviderCache)}.
+   */
+  @Override
+  public AgentExecution getAgentExecution(ProviderRegistry providerRegistry) {
+    Streaming streaming = configurationProperties.getCache().getStreaming();
+    if (streaming.isEnabled() && buildWatchClient() != null) {
+      return new StreamingCacheExecution(providerRegistry);
+    }
+    return CachingAgent.super.getAgentExecution(providerRegistry);
+  }
+
+  /**
+   * Returns the client used to list and watch resources when streaming, or null to fall back to
+   * listing with kubectl. Defaults to the account's own API client, sharing its connection pool.
+   */
+  @Nullable
+  protected KubernetesWatchClient buildWatchClient() {
+    return credentials.getApiClient().orElse(null);
+  }
+
+  /**
+   * Called when the API server rejected the credentials of {@code watchClient}, so that the next
+   * {@link #buildWatchClient()} returns a client built from the account's current credentials.
+   */
+  protected void invalidateWatchClient(KubernetesWatchClient watchClient) {
+    if (watchClient instanceof KubernetesApiClient) {
+      credentials.invalidateApiClient((KubernetesApiClient) watchClient);
+    }
+  }
+
+  private void onChange(int changes) {
+    pendingChanges.addAndGet(changes);
+    synchronized (changeSignal) {
+      changeSignal.notifyAll();
+    }
+  }
+
+  /**
+   * Returns the informers for the kinds and namespaces this agent currently caches, creating the
+   * missing ones and dropping those that are no longer needed (for instance after a namespace was
+   * removed from the account).
+   */
+  private Collection<KubernetesInformer> activeInformers(
+      KubernetesWatchClient watchClient, Streaming streaming) {
+    ImmutableSetMultimap<ResourceScope, KubernetesKind> kindsByScope = primaryKindsByScope();
+    Map<String, KubernetesInformer> active = new LinkedHashMap<>();
+    if (handleClusterScopedResources()) {
+      for (KubernetesKind kind : kindsByScope.get(ResourceScope.CLUSTER)) {
+        active.put(
+            kind.toString(), informer(watchClient, streaming, kind.toString(), kind, null));
+      }
+    }
+    for (String namespace : getNamespaces()) {
+      for (KubernetesKind kind : kindsByScope.get(ResourceScope.NAMESPACE)) {
+        String key = kind + "/" + namespace;
+        active.put(key, informer(watchClient, streaming, key, kind, namespace));
+      }
+    }
+
+    if (informers.keySet().retainAll(active.keySet())) {
+      // The resources of dropped informers must disappear from the next cache result
+      onChange(1);
+    }
+    return active.values();
+  }
+
+  /**
+   * Marks the start of a streaming execution. Informers left idle for longer than {@link
+   * Streaming#getInformerIdleTtlMs()} are dropped first, so the agent lists again rather than
+   * resuming from a copy that is no longer being watched.
+   */
+  private synchronized void startStreaming(Streaming streaming) {
+    if (informerEviction != null) {
+      informerEviction.cancel(false);
+      informerEviction = null;
+    }
+    evictIdleInformers(streaming.getInformerIdleTtlMs());
+    streamingNow = true;
+  }
+
+  /**
+   * Marks the end of a streaming execution and schedules the informers to be dropped unless
+   * another execution starts on this node before {@link Streaming#getInformerIdleTtlMs()} has
+   * passed, e.g. because the agent is now scheduled on another node.
+   */
+  private synchronized void finishStreaming(Streaming streaming) {
+    streamingNow = false;
+    lastStreamedAt = System.currentTimeMillis();
+    long idleTtlMs = streaming.getInformerIdleTtlMs();
+    if (idleTtlMs > 0) {
+      informerEviction =
+          informerSweeper.schedule(
+              () -> evictIdleInformers(idleTtlMs), idleTtlMs, TimeUnit.MILLISECONDS);
+    }
+  }
+
+  private synchronized void evictIdleInformers(long idleTtlMs) {
+    if (streamingNow
+        || idleTtlMs <= 0
+        || informers.isEmpty()
+        || System.currentTimeMillis() - lastStreamedAt < idleTtlMs) {
+      return;
+    }
+    log.info(
+        "{}: dropping {} informers idle for more than {}ms",
+        getAgentType(),
+        informers.size(),
+        idleTtlMs);
+    informers.clear();
+    pendingChanges.set(0);
+    lastWriteAt = 0;
+  }
+
+  /**
+   * How long pending changes may wait for a write, {@link Streaming#getTimeThresholdMs()} or, when
+   * that is not set, the agent interval.
+   */
+  private long timeThresholdMs(Streaming streaming) {
+    if (streaming.getTimeThresholdMs() > 0) {
+      return streaming.getTimeThresholdMs();
+    }
+    return agentInterval != null && agentInterval > 0
+        ? agentInterval
+        : streaming.getWatchDurationMs();
+  }
+
+  private synchronized ExecutorService watchExecutor(Streaming streaming) {
+    if (watchExecutor == null) {
+      int threads = Math.max(1, streaming.getMaxWatchThreads());
+      watchExecutor =
+          new ThreadPoolExecutor(
+              threads,
+              threads,
+              1,
+              TimeUnit.MINUTES,
+              new LinkedBlockingQueue<>(),
+              new ThreadFactoryBuilder()
+                  .setNameFormat(KubernetesCachingAgent.class.getSimpleName() + "-watch-%d")
+                  .setDaemon(true)
+                  .build());
+      watchExecutor.allowCoreThreadTimeOut(true);
+    }
+    return watchExecutor;
+  }
+
+  private KubernetesInformer informer(
+      KubernetesWatchClient watchClient,
+      Streaming streaming,
+      String key,
+      KubernetesKind kind,
+      @Nullable String namespace) {
+    KubernetesInformer informer =
+        informers.computeIfAbsent(
+            key,
+            k ->
+                new KubernetesInformer(
+                    watchClient, kind, namespace, streaming.getRetryBackoffMs(), this::onChange));
+    // Informers kept from an earlier execution switch to a client rebuilt since then
+    informer.useClient(watchClient);
+    return informer;
+  }
+
+  /**
+   * Runs the informers of this agent for up to {@link Streaming#getWatchDurationMs()}, writing a
+   * complete cache result once every informer has synced and then whenever either {@link
+   * Streaming#getChangeThreshold()} changes are pending or the time threshold (by default the agent
+   * interval) has passed with at least one pending change. Nothing is written when nothing changed.
+   *
+   * <p>Each write rebuilds the cache result from the informers' in-memory copies rather than
+   * merging only the changed resources: relationships in {@link KubernetesCacheData} are
+   * bidirectional, so a partial result would drop the relationships of resources that did not
+   * change. Because each write costs about as much as a polling cycle, the time threshold defaults
+   * to the agent interval: a busy account is written about as often as polling would write it, and
+   * a quiet one much less often, without listing every kind again.
+   *
+   * <p>The watches run on at most {@link Streaming#getMaxWatchThreads()} threads, kept between
+   * executions, and take turns of up to {@link Streaming#getWatchSliceMs()} on them.
+   *
+   * <p>The watch client is looked up on every execution. When the API server rejects its
+   * credentials, it is invalidated and the informer resumes with a rebuilt client, once per
+   * execution; an execution that gets no client at all lists with kubectl instead.
+   */
+  private class StreamingCacheExecution implements AgentExecution {
+    private final ProviderRegistry providerRegistry;
+    private final Id metricId;
+
+    StreamingCacheExecution(ProviderRegistry providerRegistry) {
+      this.providerRegistry = providerRegistry;
+      this.metricId =
+          registry.createId("kubernetes.cache.streaming").withTag("account", accountName);
+    }
+
+    @Override
+    public void executeAgent(Agent agent) {
+      Streaming streaming = configurationProperties.getCache().getStreaming();
+      startStreaming(streaming);
+      try {
+        stream(agent, streaming);
+      } finally {
+        finishStreaming(streaming);
+      }
+    }
+
+    private void stream(Agent agent, Streaming streaming) {
+      long deadline = System.currentTimeMillis() + streaming.getWatchDurationMs();
+      long timeThresholdMs = timeThresholdMs(streaming);
+      KubernetesWatchClient watchClient = buildWatchClient();
+      if (watchClient == null) {
+        // The API client could not be rebuilt; list with kubectl this time
+        new CacheExecution(providerRegistry).executeAgent(agent);
+        return;
+      }
+      Collection<KubernetesInformer> active = activeInformers(watchClient, streaming);
+      if (active.isEmpty()) {
+        // Nothing to watch; let the regular execution record the (empty) result
+        new CacheExecution(providerRegistry).executeAgent(agent);
+        return;
+      }
+
+      ExecutorService executor = watchExecutor(streaming);
+      AtomicBoolean running = new AtomicBoolean(true);
+      try {
+        active.forEach(
+            informer ->
+                watchInTurn(
+                    executor,
+                    informer,
+                    watchClient,
+                    true,
+                    deadline,
+                    streaming.getWatchSliceMs(),
+                    running));
+
+        long now;
+        while ((now = System.currentTimeMillis()) < deadline) {
+          boolean synced = active.stream().allMatch(KubernetesInformer::isSynced);
+          int pending = pendingChanges.get();
+          if (synced
+              && pending > 0
+              && (pending >= streaming.getChangeThreshold()
+                  || now - lastWriteAt >= timeThresholdMs)) {
+            write(agent, active);
+            continue;
+          }
+          synchronized (changeSignal) {
+            changeSignal.wait(Math.max(1, Math.min(deadline - now, 250)));
+          }
+        }
+      } catch (InterruptedException e) {
+        log.warn("{}: interrupted while streaming updates", getAgentType());
+        Thread.currentThread().interrupt();
+      } finally {
+        running.set(false);
+        active.forEach(KubernetesInformer::stop);
+      }
+
+      if (!active.stream().allMatch(KubernetesInformer::isSynced)) {
+        log.warn(
+            "{}: {} of {} informers have not synced yet, cache not updated",
+            getAgentType(),
+            active.stream().filter(i -> !i.isSynced()).count(),
+            active.size());
+      } else if (pendingChanges.get() > 0) {
+        write(agent, active);
+      }
+    }
+
+    /**
+     * Runs {@code informer} for up to {@code sliceMs} at a time until {@code deadline}, queueing it
+     * behind the other informers between turns so that a bounded number of threads serves them all.
+     * An informer that is backing off after being forbidden waits for the next execution, as does
+     * one that is still unauthorized with a client rebuilt during this execution.
+     */
+    private void watchInTurn(
+        ExecutorService executor,
+        KubernetesInformer informer,
+        KubernetesWatchClient watchClient,
+        boolean rebuildWhenUnauthorized,
+        long deadline,
+        long sliceMs,
+        AtomicBoolean running) {
+      executor.execute(
+          () -> {
+            if (!running.get()) {
+              return;
+            }
+            informer.run(Math.min(deadline, System.currentTimeMillis() + sliceMs));
+            boolean rebuild = rebuildWhenUnauthorized;
+            if (informer.isUnauthorized() && rebuild) {
+              invalidateWatchClient(watchClient);
+              KubernetesWatchClient rebuilt = buildWatchClient();
+              if (rebuilt != null) {
+                informer.useClient(rebuilt);
+              }
+              rebuild = false;
+            }
+            if (running.get()
+                && !informer.isForbidden()
+                && !informer.isUnauthorized()
+                && System.currentTimeMillis() < deadline) {
+              watchInTurn(executor, informer, watchClient, rebuild, deadline, sliceMs, running);
+            }
+          });
+    }
+
+    private void write(Agent agent, Collection<KubernetesInformer> active) {
+      long start = System.currentTimeMillis();
+      int changes = pendingChanges.getAndSet(0);
+      try {
+        CacheResultBuilder builder = new CacheResultBuilder(filteredPrimaryKinds(), true);
+        // the builder strips manifests in place, so it gets copies of the informers' resources
+        active.forEach(informer -> informer.getItems().forEach(m -> builder.accept(copy(m))));
+        CacheResult result = builder.build();
+        new CacheExecution(providerRegistry).storeAgentResult(agent, result);
+        lastWriteAt = System.currentTimeMillis();
+        log.info(
+            "{}: wrote {} changes to the cache in {}ms",
+            getAgentType(),
+            changes,
+            System.currentTimeMillis() - start);
+      } catch (RuntimeException e) {
+        log.error("{}: failed to write streamed changes to the cache", getAgentType(), e);
+        pendingChanges.addAndGet(changes);
+      }
+      PercentileTimer.get(registry, metricId.withTag("operation", "write"))
+          .record(System.currentTimeMillis() - start, TimeUnit.MILLISECONDS);
+    }
+  }
+
+  /** Returns a deep copy of {@code manifest}, which the caller may modify freely. */
+  private KubernetesManifest copy(KubernetesManifest manifest) {
+    return objectMapper.convertValue(manifest, KubernetesManifest.class);
   }
 
   protected CacheResult buildCacheResult(KubernetesManifest resource) {
@@ -347,68 +776,143 @@ public abstract class KubernetesCachingAgent
   }
 
   protected CacheResult buildCacheResult(Map<KubernetesKind, List<KubernetesManifest>> resources) {
-    if (resources.isEmpty()) {
-      log.info("{} did not find anything to cache", getAgentType());
-      return new DefaultCacheResult(Map.of());
+    CacheResultBuilder builder = new CacheResultBuilder(resources.keySet(), false);
+    resources.values().forEach(manifests -> manifests.forEach(builder));
+    return builder.build();
+  }
+
+  /**
+   * Converts manifests into cache data as they are handed over, so that a manifest can be dropped
+   * as soon as it is converted. Each manifest goes through the same stages in order: pruning past
+   * {@link KubernetesCachingPolicy#getMaxEntriesPerAgent()}, removal of sensitive keys and of the
+   * {@link KubernetesConfigurationProperties.Cache#getOmitManifestPaths()}, {@link
+   * #shouldCacheManifest(KubernetesCredentials)} and conversion.
+   *
+   * <p>The only manifests held until {@link #build()} are those of the kinds some handler needs to
+   * add relationships (see {@link KubernetesHandler#relationshipKinds()}), since relationships can
+   * only be computed once all of them are known.
+   *
+   * <p>A list that is retried after part of it was read (a kubectl retry, or the API client falling
+   * back to kubectl) hands those manifests over again. Only the first manifest with a given kind,
+   * namespace and name is used, so a retry neither counts towards the pruning limits nor holds the
+   * same resource twice for the handlers, which expect each resource once.
+   */
+  private class CacheResultBuilder implements Consumer<KubernetesManifest> {
+    private final KubernetesCacheData kubernetesCacheData = new KubernetesCacheData();
+    private final Predicate<KubernetesManifest> shouldCache = shouldCacheManifest(credentials);
+    private final ImmutableList<JsonPointer> omittedPaths =
+        configurationProperties.getCache().getOmitManifestPaths().stream()
+            .map(JsonPointer::compile)
+            .collect(ImmutableList.toImmutableList());
+    private final ImmutableSet<KubernetesKind> relationshipKinds;
+    private final Map<KubernetesKind, Integer> maxEntries = new HashMap<>();
+    private final Map<KubernetesKind, Integer> seen = new HashMap<>();
+    private final Map<KubernetesKind, List<KubernetesManifest>> retained = new HashMap<>();
+    private final Set<KubernetesCoordinates> accepted = new HashSet<>();
+    private int total;
+    private int successfulCachedManifests;
+    private int cachingFailures;
+
+    CacheResultBuilder(Collection<KubernetesKind> kinds, boolean prune) {
+      this.relationshipKinds =
+          kinds.stream()
+              .flatMap(k -> handler(k).relationshipKinds().stream())
+              .collect(ImmutableSet.toImmutableSet());
+      if (prune) {
+        for (KubernetesCachingPolicy policy : credentials.getCachingPolicies()) {
+          maxEntries.merge(
+              KubernetesKind.fromString(policy.getKubernetesKind()),
+              policy.getMaxEntriesPerAgent(),
+              Math::min);
+        }
+      }
+    }
+
+    @Override
+    public void accept(KubernetesManifest manifest) {
+      if (!accepted.add(KubernetesCoordinates.fromManifest(manifest))) {
+        return;
+      }
+      KubernetesKind kind = manifest.getKind();
+      if (seen.merge(kind, 1, Integer::sum) > maxEntries.getOrDefault(kind, Integer.MAX_VALUE)) {
+        return;
+      }
+      total++;
+      handler(kind).removeSensitiveKeys(manifest);
+      manifest.removePaths(omittedPaths);
+      if (relationshipKinds.contains(kind)) {
+        retained.computeIfAbsent(kind, k -> new ArrayList<>()).add(manifest);
+      } else if (shouldCache.test(manifest)) {
+        convert(manifest, ImmutableList.of());
+      }
     }
 
-    KubernetesCacheData kubernetesCacheData = new KubernetesCacheData();
-    Map<KubernetesManifest, List<KubernetesManifest>> relationships =
-        loadSecondaryResourceRelationships(resources);
+    private void convert(KubernetesManifest manifest, List<KubernetesManifest> relationships) {
+      try {
+        KubernetesCacheDataConverter.convertAsResource(
+            kubernetesCacheData,
+            accountName,
+            credentials.getKubernetesSpinnakerKindMap(),
+            credentials.getNamer(),
+            manifest,
+            relationships,
+            credentials.isCacheAllApplicationRelationships());
+        successfulCachedManifests++;
+      } catch (RuntimeException e) {
+        log.warn(
+            "{}: Failure converting manifest: {}. Error: ",
+            getAgentType(),
+            manifest.getFullResourceName(),
+            e);
+        log.debug("{}: Failure converting {}. Error: ", getAgentType(), manifest, e);
+        cachingFailures++;
+      }
+    }
 
-    AtomicInteger successfulCachedManifests = new AtomicInteger();
-    AtomicInteger cachingFailures = new AtomicInteger();
-    resources.values().stream()
-        .flatMap(Collection::stream)
-        .peek(
-            m ->
-                credentials
-                    .getResourcePropertyRegistry()
-                    .get(m.getKind())
-                    .getHandler()
-                    .removeSensitiveKeys(m))
-        .filter(shouldCacheManifest(credentials))
-        .forEach(
-            rs -> {
-              try {
-                KubernetesCacheDataConverter.convertAsResource(
-                    kubernetesCacheData,
-                    accountName,
-                    credentials.getKubernetesSpinnakerKindMap(),
-                    credentials.getNamer(),
-                    rs,
-                    relationships.getOrDefault(rs, ImmutableList.of()),
-                    credentials.isCacheAllApplicationRelationships());
-                successfulCachedManifests.incrementAndGet();
-              } catch (RuntimeException e) {
-                log.warn(
-                    "{}: Failure converting manifest: {}. Error: ",
-                    getAgentType(),
-                    rs.getFullResourceName(),
-                    e);
-                log.debug("{}: Failure converting {}. Error: ", getAgentType(), rs, e);
-                cachingFailures.incrementAndGet();
-              }
-            });
+    CacheResult build() {
+      if (seen.isEmpty()) {
+        log.info("{} did not find anything to cache", getAgentType());
+        return new DefaultCacheResult(Map.of());
+      }
 
-    Map<String, Collection<CacheData>> entries = kubernetesCacheData.toStratifiedCacheData();
-    int total = resources.values().stream().mapToInt(List::size).sum();
-    int cachedEntriesTotal = entries.values().stream().mapToInt(Collection::size).sum();
-    log.info(
-        "{}: Results: Attempted to cache {} manifests, belonging to {} kinds."
-            + " Successful: {}, Failed: {}, Skipped: {},"
-            + " Total Kubernetes caching groups: {}, containing: {} entries",
-        getAgentType(),
-        total,
-        resources.size(),
-        successfulCachedManifests.get(),
-        cachingFailures.get(),
-        total - (successfulCachedManifests.get() + cachingFailures.get()),
-        entries.size(),
-        cachedEntriesTotal);
-    KubernetesCacheDataConverter.logStratifiedCacheData(getAgentType(), entries);
-
-    return new DefaultCacheResult(entries);
+      maxEntries.forEach(
+          (kind, max) -> {
+            int count = seen.getOrDefault(kind, 0);
+            if (count > max) {
+              log.warn("{}: Pruning {} entries from kind {}", getAgentType(), count - max, kind);
+            }
+          });
+
+      Map<KubernetesManifest, List<KubernetesManifest>> relationships =
+          loadSecondaryResourceRelationships(retained);
+      retained.values().stream()
+          .flatMap(Collection::stream)
+          .filter(shouldCache)
+          .forEach(m -> convert(m, relationships.getOrDefault(m, ImmutableList.of())));
+      retained.clear();
+
+      Map<String, Collection<CacheData>> entries = kubernetesCacheData.toStratifiedCacheData();
+      int cachedEntriesTotal = entries.values().stream().mapToInt(Collection::size).sum();
+      log.info(
+          "{}: Results: Attempted to cache {} manifests, belonging to {} kinds."
+              + " Successful: {}, Failed: {}, Skipped: {},"
+              + " Total Kubernetes caching groups: {}, containing: {} entries",
+          getAgentType(),
+          total,
+          seen.size(),
+          successfulCachedManifests,
+          cachingFailures,
+          total - (successfulCachedManifests + cachingFailures),
+          entries.size(),
+          cachedEntriesTotal);
+      KubernetesCacheDataConverter.logStratifiedCacheData(getAgentType(), entries);
+
+      return new DefaultCacheResult(entries);
+    }
+  }
+
+  private KubernetesHandler handler(KubernetesKind kind) {
+    return credentials.getResourcePropertyRegistry().get(kind).getHandler();
   }
 
   protected Map<KubernetesManifest, List<KubernetesManifest>> loadSecondaryResourceRelationships(
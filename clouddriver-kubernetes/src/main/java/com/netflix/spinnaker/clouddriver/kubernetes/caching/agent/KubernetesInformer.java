@@ -0,0 +1,287 @@
+/*
+ * Copyright 2026 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.netflix.spinnaker.clouddriver.kubernetes.caching.agent;
+
+import com.google.common.collect.ImmutableList;
+import com.netflix.spinnaker.clouddriver.kubernetes.caching.agent.KubernetesWatchClient.KubernetesApiException;
+import com.netflix.spinnaker.clouddriver.kubernetes.caching.agent.KubernetesWatchClient.ListResult;
+import com.netflix.spinnaker.clouddriver.kubernetes.caching.agent.KubernetesWatchClient.WatchEvent;
+import com.netflix.spinnaker.clouddriver.kubernetes.caching.agent.KubernetesWatchClient.WatchStream;
+import com.netflix.spinnaker.clouddriver.kubernetes.description.manifest.KubernetesKind;
+import com.netflix.spinnaker.clouddriver.kubernetes.description.manifest.KubernetesManifest;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntConsumer;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import lombok.Getter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Keeps an in-memory copy of every resource of one kind in one namespace (or cluster-wide) by
+ * listing it once and then applying watch events.
+ *
+ * <p>The informer remembers the resource version it last saw, so a later {@link #run(long)} resumes
+ * the watch where the previous one stopped instead of listing again. Bookmark events only advance
+ * that resource version. When the server no longer has the history the informer asks for (410
+ * Gone), the informer lists again and reports the difference with its previous contents as changes.
+ *
+ * <p>Every change to the store is reported to the change listener, which is how the caching agent
+ * decides when a new cache result is needed.
+ *
+ * <p>A kind the account is not allowed to list is cached as empty, like kubectl does, and listed
+ * again after a backoff that doubles up to {@link #MAX_FORBIDDEN_BACKOFF_MS} while it stays
+ * forbidden, so that granting access later takes effect without a restart.
+ *
+ * <p>A request rejected as unauthorized is not retried with the same client: its credentials may
+ * have been rotated, so the informer stops and reports {@link #isUnauthorized()} until it is handed
+ * a rebuilt client with {@link #useClient(KubernetesWatchClient)}. Its store and resource version
+ * are kept, so the new client resumes the watch.
+ */
+public class KubernetesInformer {
+  private static final Logger log = LoggerFactory.getLogger(KubernetesInformer.class);
+
+  static final long MAX_FORBIDDEN_BACKOFF_MS = TimeUnit.MINUTES.toMillis(5);
+
+  private volatile KubernetesWatchClient client;
+  @Getter private final KubernetesKind kind;
+  @Getter @Nullable private final String namespace;
+  private final long retryBackoffMs;
+  private final IntConsumer changeListener;
+
+  private final Map<String, KubernetesManifest> store = new ConcurrentHashMap<>();
+  @Nullable private volatile String resourceVersion;
+  @Getter private volatile boolean synced = false;
+  private volatile long forbiddenUntil = 0;
+  private long forbiddenBackoffMs;
+  private volatile boolean stopped = false;
+  @Getter private volatile boolean unauthorized = false;
+  @Nullable private volatile WatchStream stream;
+
+  public KubernetesInformer(
+      KubernetesWatchClient client,
+      KubernetesKind kind,
+      @Nullable String namespace,
+      long retryBackoffMs,
+      IntConsumer changeListener) {
+    this.client = client;
+    this.kind = kind;
+    this.namespace = namespace;
+    this.retryBackoffMs = retryBackoffMs;
+    this.forbiddenBackoffMs = retryBackoffMs;
+    this.changeListener = changeListener;
+  }
+
+  /** The resources currently in the store. */
+  public ImmutableList<KubernetesManifest> getItems() {
+    return ImmutableList.copyOf(store.values());
+  }
+
+  @Nullable
+  public String getResourceVersion() {
+    return resourceVersion;
+  }
+
+  /**
+   * Makes later runs use {@code client}, e.g. one rebuilt after this informer was {@link
+   * #isUnauthorized() unauthorized}.
+   */
+  public void useClient(KubernetesWatchClient client) {
+    if (client != this.client) {
+      this.client = client;
+      unauthorized = false;
+    }
+  }
+
+  /** Whether the account was not allowed to list this kind and the informer is backing off. */
+  public boolean isForbidden() {
+    return System.currentTimeMillis() < forbiddenUntil;
+  }
+
+  /**
+   * Lists (if needed) and then watches until the deadline passes or {@link #stop()} is called.
+   * Transient failures are retried after the configured backoff. Returns straight away while the
+   * informer {@link #isForbidden() is forbidden} or {@link #isUnauthorized() unauthorized}.
+   *
+   * @param deadline the wall clock time, in milliseconds, at which to stop watching
+   */
+  public synchronized void run(long deadline) {
+    stopped = false;
+    while (!stopped && !unauthorized && !isForbidden() && System.currentTimeMillis() < deadline) {
+      try {
+        if (resourceVersion == null) {
+          relist();
+          continue;
+        }
+        watch(deadline);
+      } catch (KubernetesApiException e) {
+        if (e.getCode() == KubernetesApiException.UNAUTHORIZED) {
+          // Backing off would only repeat the failure; the caller rebuilds the client instead
+          log.warn("{}: unauthorized, waiting for a rebuilt client: {}", this, e.getMessage());
+          unauthorized = true;
+        } else if (e.getCode() == KubernetesApiException.GONE) {
+          log.info("{}: resource version {} expired, relisting", this, resourceVersion);
+          resourceVersion = null;
+        } else if (e.getCode() == KubernetesApiException.FORBIDDEN && resourceVersion == null) {
+          // kubectl reports nothing for kinds the account can't read; do the same here
+          int removed = store.size();
+          store.clear();
+          if (removed > 0) {
+            changeListener.accept(removed);
+          }
+          log.warn(
+              "{}: not allowed to list resources, caching none and retrying in {}ms: {}",
+              this,
+              forbiddenBackoffMs,
+              e.getMessage());
+          forbiddenUntil = System.currentTimeMillis() + forbiddenBackoffMs;
+          forbiddenBackoffMs = Math.min(forbiddenBackoffMs * 2, MAX_FORBIDDEN_BACKOFF_MS);
+          synced = true;
+        } else if (!backOff(e)) {
+          return;
+        }
+      } catch (IOException | RuntimeException e) {
+        if (stopped || !backOff(e)) {
+          return;
+        }
+      }
+    }
+  }
+
+  /** Stops the current {@link #run(long)}, closing the open watch if there is one. */
+  public void stop() {
+    stopped = true;
+    WatchStream current = stream;
+    if (current != null) {
+      try {
+        current.close();
+      } catch (IOException | RuntimeException e) {
+        log.debug("{}: failed to close watch", this, e);
+      }
+    }
+  }
+
+  private void relist() {
+    ListResult result = client.list(kind, namespace);
+    Map<String, KubernetesManifest> listed = new HashMap<>();
+    result.getItems().forEach(m -> listed.put(key(m), m));
+
+    int changes = 0;
+    for (Map.Entry<String, KubernetesManifest> entry : listed.entrySet()) {
+      KubernetesManifest previous = store.put(entry.getKey(), entry.getValue());
+      if (previous == null
+          || !Objects.equals(resourceVersionOf(previous), resourceVersionOf(entry.getValue()))) {
+        changes++;
+      }
+    }
+    for (String key : ImmutableList.copyOf(store.keySet())) {
+      if (!listed.containsKey(key)) {
+        store.remove(key);
+        changes++;
+      }
+    }
+
+    resourceVersion = result.getResourceVersion();
+    forbiddenBackoffMs = retryBackoffMs;
+    boolean firstSync = !synced;
+    synced = true;
+    log.debug("{}: listed {} resources, {} changed", this, listed.size(), changes);
+    // The first list must produce a cache result even when the kind is empty
+    if (changes > 0 || firstSync) {
+      changeListener.accept(Math.max(changes, 1));
+    }
+  }
+
+  private void watch(long deadline) throws IOException {
+    long timeoutSeconds =
+        Math.max(1, TimeUnit.MILLISECONDS.toSeconds(deadline - System.currentTimeMillis()));
+    try (WatchStream watch = client.watch(kind, namespace, resourceVersion, timeoutSeconds)) {
+      stream = watch;
+      if (stopped) {
+        return;
+      }
+      WatchEvent event;
+      while ((event = watch.next()) != null) {
+        apply(event);
+      }
+    } finally {
+      stream = null;
+    }
+  }
+
+  private void apply(WatchEvent event) {
+    switch (event.getType()) {
+      case ADDED:
+      case MODIFIED:
+        store.put(key(event.getObject()), event.getObject());
+        changeListener.accept(1);
+        break;
+      case DELETED:
+        if (store.remove(key(event.getObject())) != null) {
+          changeListener.accept(1);
+        }
+        break;
+      case BOOKMARK:
+        break;
+      case ERROR:
+        throw new KubernetesApiException(
+            event.getCode(), "Watch failed: " + event.getObject().get("message"));
+    }
+    String version = event.getResourceVersion();
+    if (version != null) {
+      resourceVersion = version;
+    }
+  }
+
+  private boolean backOff(Exception e) {
+    log.warn("{}: watch failed, retrying in {}ms", this, retryBackoffMs, e);
+    try {
+      Thread.sleep(retryBackoffMs);
+      return true;
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      return false;
+    }
+  }
+
+  @Nonnull
+  private static String key(KubernetesManifest manifest) {
+    String ns = manifest.getNamespace();
+    return ns == null || ns.isEmpty() ? manifest.getName() : ns + "/" + manifest.getName();
+  }
+
+  @Nullable
+  @SuppressWarnings("unchecked")
+  static String resourceVersionOf(KubernetesManifest manifest) {
+    Object metadata = manifest.get("metadata");
+    if (!(metadata instanceof Map)) {
+      return null;
+    }
+    Object version = ((Map<String, Object>) metadata).get("resourceVersion");
+    return version == null ? null : version.toString();
+  }
+
+  @Override
+  public String toString() {
+    return namespace == null ? kind.toString() : kind + " in " + namespace;
+  }
+}
@@ -0,0 +1,147 @@
+/*
+ * Copyright 2026 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.netflix.spinnaker.clouddriver.kubernetes.caching.agent;
+
+import com.google.common.base.Throwables;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+import lombok.Getter;
+import lombok.Value;
+
+/**
+ * Loads the namespaces of one account in parallel for its caching agents. Every agent of the
+ * account shares one instance, so the account never runs more than {@code concurrency} loads at a
+ * time, however many agents it has.
+ *
+ * <p>Loads are also bounded by the bytes they are expected to return, so that a handful of very
+ * large namespaces cannot be held in memory at once. The caller estimates each namespace, usually
+ * from its size in the previous cycle, and {@link #getUnknownNamespaceBytes()} for one that has not
+ * been loaded yet. Every load is charged at least {@value #BYTES_PER_PERMIT} bytes, so empty
+ * estimates still count against the budget; a namespace larger than the whole budget still runs,
+ * but only on its own.
+ */
+public class KubernetesNamespaceExecutor {
+  private static final int BYTES_PER_PERMIT = 1024;
+
+  @Getter private final int concurrency;
+  @Getter private final long unknownNamespaceBytes;
+  private final int maxPermits;
+  private final Semaphore inFlightBytes;
+  private final ThreadPoolExecutor executor;
+
+  public KubernetesNamespaceExecutor(
+      String accountName, int concurrency, long maxInFlightBytes, long unknownNamespaceBytes) {
+    this.concurrency = concurrency;
+    this.unknownNamespaceBytes = unknownNamespaceBytes;
+    this.maxPermits =
+        (int) Math.max(1, Math.min(Integer.MAX_VALUE, maxInFlightBytes / BYTES_PER_PERMIT));
+    this.inFlightBytes = new Semaphore(maxPermits);
+    this.executor =
+        new ThreadPoolExecutor(
+            concurrency,
+            concurrency,
+            60,
+            TimeUnit.SECONDS,
+            new LinkedBlockingQueue<>(),
+            new ThreadFactoryBuilder()
+                .setNameFormat(getClass().getSimpleName() + "-" + accountName + "-%d")
+                .setDaemon(true)
+                .build());
+    // Idle threads exit, so an account that is reloaded does not leave its old pool behind
+    executor.allowCoreThreadTimeOut(true);
+  }
+
+  /**
+   * Loads every namespace on the shared pool, handing each result to {@code merge} on the calling
+   * thread as soon as it is ready, in the order the loads complete. The first failure cancels the
+   * remaining loads and is rethrown.
+   */
+  public <T> void forEach(
+      Collection<String> namespaces,
+      Function<String, T> load,
+      ToLongFunction<String> estimatedBytes,
+      BiConsumer<String, T> merge) {
+    Deque<String> pending = new ArrayDeque<>(namespaces);
+    CompletionService<Loaded<T>> completion = new ExecutorCompletionService<>(executor);
+    Set<Future<Loaded<T>>> running = new HashSet<>();
+    int reservedPermits = 0;
+    try {
+      while (!pending.isEmpty() || !running.isEmpty()) {
+        while (!pending.isEmpty() && running.size() < concurrency) {
+          String namespace = pending.peek();
+          int permits = permits(estimatedBytes.applyAsLong(namespace));
+          if (running.isEmpty()) {
+            // Nothing of ours is left to merge, so wait for other agents to release the budget
+            inFlightBytes.acquire(permits);
+          } else if (!inFlightBytes.tryAcquire(permits)) {
+            break;
+          }
+          pending.poll();
+          reservedPermits += permits;
+          running.add(
+              completion.submit(() -> new Loaded<>(namespace, load.apply(namespace), permits)));
+        }
+
+        Future<Loaded<T>> done = completion.take();
+        running.remove(done);
+        Loaded<T> loaded = done.get();
+        try {
+          merge.accept(loaded.getNamespace(), loaded.getResult());
+        } finally {
+          inFlightBytes.release(loaded.getPermits());
+          reservedPermits -= loaded.getPermits();
+        }
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while loading namespaces", e);
+    } catch (ExecutionException e) {
+      Throwables.throwIfUnchecked(e.getCause());
+      throw new IllegalStateException(e.getCause());
+    } finally {
+      running.forEach(f -> f.cancel(true));
+      inFlightBytes.release(reservedPermits);
+    }
+  }
+
+  private int permits(long bytes) {
+    long rounded = (Math.max(0, bytes) + BYTES_PER_PERMIT - 1) / BYTES_PER_PERMIT;
+    return (int) Math.max(1, Math.min(maxPermits, rounded));
+  }
+
+  @Value
+  private static class Loaded<T> {
+    String namespace;
+    T result;
+    int permits;
+  }
+}
@@ -0,0 +1,124 @@
+/*
+ * Copyright 2026 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.netflix.spinnaker.clouddriver.kubernetes.caching.agent;
+
+import com.google.common.collect.ImmutableList;
+import com.netflix.spinnaker.clouddriver.kubernetes.description.manifest.KubernetesKind;
+import com.netflix.spinnaker.clouddriver.kubernetes.description.manifest.KubernetesManifest;
+import java.io.Closeable;
+import java.io.IOException;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import lombok.Getter;
+import lombok.Value;
+
+/**
+ * Lists and watches a single kubernetes kind, either in one namespace or cluster-wide. This is the
+ * API surface a {@link KubernetesInformer} needs to keep an in-memory copy of that kind current.
+ */
+public interface KubernetesWatchClient {
+  /**
+   * Lists every resource of the given kind.
+   *
+   * @param namespace the namespace to list, or null for cluster-scoped kinds
+   * @throws KubernetesApiException if the API server rejects the request
+   */
+  @Nonnull
+  ListResult list(@Nonnull KubernetesKind kind, @Nullable String namespace);
+
+  /**
+   * Opens a watch delivering every change made after resourceVersion. The server ends the stream
+   * after timeoutSeconds; closing the returned stream ends it early.
+   *
+   * @throws KubernetesApiException if the API server rejects the request
+   */
+  @Nonnull
+  WatchStream watch(
+      @Nonnull KubernetesKind kind,
+      @Nullable String namespace,
+      @Nonnull String resourceVersion,
+      long timeoutSeconds);
+
+  @Value
+  class ListResult {
+    @Nonnull ImmutableList<KubernetesManifest> items;
+    @Nonnull String resourceVersion;
+  }
+
+  enum EventType {
+    ADDED,
+    MODIFIED,
+    DELETED,
+    BOOKMARK,
+    ERROR
+  }
+
+  @Value
+  class WatchEvent {
+    @Nonnull EventType type;
+
+    /** The changed resource, or the Status object the server sent along with an ERROR event. */
+    @Nonnull KubernetesManifest object;
+
+    @Nullable
+    public String getResourceVersion() {
+      return KubernetesInformer.resourceVersionOf(object);
+    }
+
+    /** The HTTP status code carried by an ERROR event, or 0 for any other event. */
+    public int getCode() {
+      Object code = object.get("code");
+      return type == EventType.ERROR && code instanceof Number ? ((Number) code).intValue() : 0;
+    }
+  }
+
+  interface WatchStream extends Closeable {
+    /**
+     * Blocks until the next event arrives.
+     *
+     * @return the next event, or null once the server has ended the watch
+     */
+    @Nullable
+    WatchEvent next() throws IOException;
+  }
+
+  class KubernetesApiException extends RuntimeException {
+    /** The resource version the client asked for is older than what the server still keeps. */
+    public static final int GONE = 410;
+
+    /** The API server rejected the client's credentials, e.g. an expired token. */
+    public static final int UNAUTHORIZED = 401;
+
+    public static final int FORBIDDEN = 403;
+
+    public static final int NOT_FOUND = 404;
+
+    public static final int SERVICE_UNAVAILABLE = 503;
+
+    @Getter private final int code;
+
+    public KubernetesApiException(int code, String message) {
+      super(message);
+      this.code = code;
+    }
+
+    public KubernetesApiException(String message, Throwable cause) {
+      super(message, cause);
+      this.code = 0;
+    }
+  }
+}
@@ -80,6 +80,14 @@ public class KubernetesAccountProperties {
     private boolean onlySpinnakerManaged = false;
     private Long cacheIntervalSeconds;
     private boolean cacheAllApplicationRelationships = false;
+    // Serve reads (get, list, events, metrics) in process instead of forking kubectl
+    private boolean useApiClientForReads = false;
+    // Namespaces loaded at once by the caching agents of this account, which share the threads
+    private int cacheNamespaceThreads = 1;
+    // Bounds the estimated size of the namespaces being loaded at once
+    private long cacheMaxInFlightBytes = 256L * 1024 * 1024;
+    // Estimated size of a namespace the caching agents have not loaded yet
+    private long cacheUnknownNamespaceBytes = 8L * 1024 * 1024;
     private RawResourcesEndpointConfig rawResourcesEndpointConfig =
         new RawResourcesEndpointConfig();
 
@@ -130,6 +130,73 @@ public class KubernetesConfigurationProperties {
      * enabled.
      */
     boolean checkApplicationInFront50 = false;
+
+    /**
+     * Parts of each manifest that are removed before it is cached, as JSON pointers. A "/" inside a
+     * key is written "~1", for instance
+     * /metadata/annotations/kubectl.kubernetes.io~1last-applied-configuration. Paths that a
+     * manifest doesn't have are ignored.
+     */
+    private List<String> omitManifestPaths = List.of("/metadata/managedFields");
+
+    /**
+     * Whether the kubernetes.cache.namespaceLoad timer is also tagged with the namespace. This
+     * creates a timer per account, agent and namespace, so it is meant for investigating a few
+     * accounts rather than for accounts with hundreds of namespaces.
+     */
+    private boolean namespaceLoadMetricsByNamespace = false;
+
+    /** Settings for keeping the cache current through watches rather than periodic listing. */
+    private Streaming streaming = new Streaming();
+  }
+
+  @Data
+  public static class Streaming {
+    /**
+     * When true, caching agents list each kind once and then keep an in-memory copy of it current
+     * with watch events, only writing a new cache result when something changed. Accounts
+     * authenticating with an oAuth service account keep listing with kubectl.
+     */
+    private boolean enabled = false;
+
+    /**
+     * How long one agent execution keeps its watches open before returning to the scheduler. The
+     * next execution resumes from the last resource version seen, so this should stay below the
+     * agent interval and timeout.
+     */
+    private long watchDurationMs = 25000;
+
+    /** Write a new cache result as soon as this many changes have been received. */
+    private int changeThreshold = 1000;
+
+    /**
+     * Otherwise write pending changes once this much time has passed since the last write. Every
+     * write rebuilds the agent's whole cache result, so when this is 0 the agent interval is used
+     * and an account with steady changes is written about as often as polling would write it.
+     */
+    private long timeThresholdMs = 0;
+
+    /** How long to wait before retrying a list or watch that failed. */
+    private long retryBackoffMs = 2000;
+
+    /**
+     * The most watches one agent keeps open at once. When an agent has more kinds and namespaces to
+     * watch, they take turns on these threads.
+     */
+    private int maxWatchThreads = 16;
+
+    /**
+     * How long a watch stays open before giving its thread to the next one waiting. It resumes from
+     * its last resource version on its next turn, so no events are missed in between.
+     */
+    private long watchSliceMs = 5000;
+
+    /**
+     * How long an agent keeps its informers' in-memory copies after its last execution on this
+     * node. Once the agent runs on another node they are dropped after this long, and listed again
+     * if it comes back. 0 keeps them for as long as the process runs.
+     */
+    private long informerIdleTtlMs = 300000;
   }
 
   /** kubectl configuration properties */
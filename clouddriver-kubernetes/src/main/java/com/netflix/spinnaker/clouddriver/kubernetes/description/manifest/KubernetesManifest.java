@@ -18,6 +18,7 @@
 package com.netflix.spinnaker.clouddriver.kubernetes.description.manifest;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.core.JsonPointer;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.common.base.Strings;
@@ -25,6 +26,7 @@ import com.google.common.collect.ImmutableList;
 import com.netflix.spinnaker.clouddriver.kubernetes.description.KubernetesCoordinates;
 import java.time.Instant;
 import java.time.format.DateTimeParseException;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -50,9 +52,26 @@ public class KubernetesManifest extends HashMap<String, Object> {
 
   @Nullable private transient KubernetesKind computedKind;
 
+  /**
+   * The fields read from {@code metadata}, extracted the first time one of them is needed. They are
+   * dropped whenever they are changed through this class or the metadata map is replaced.
+   */
+  @Nullable private transient CachedMetadata cachedMetadata;
+
+  /**
+   * Returns a shallow copy of this manifest, except for its metadata map which is copied so that
+   * renaming the copy doesn't rename this manifest.
+   */
   @Override
+  @SuppressWarnings("unchecked")
   public KubernetesManifest clone() {
-    return (KubernetesManifest) super.clone();
+    KubernetesManifest clone = (KubernetesManifest) super.clone();
+    Object metadata = get("metadata");
+    if (metadata instanceof Map) {
+      clone.put("metadata", new HashMap<>((Map<String, Object>) metadata));
+    }
+    clone.cachedMetadata = null;
+    return clone;
   }
 
   @JsonIgnore
@@ -111,14 +130,23 @@ public class KubernetesManifest extends HashMap<String, Object> {
         .orElseThrow(() -> MalformedManifestException.missingField(this, "metadata"));
   }
 
+  @JsonIgnore
+  private CachedMetadata getCachedMetadata() {
+    Map<String, Object> metadata = getMetadata();
+    if (cachedMetadata == null || cachedMetadata.source != metadata) {
+      cachedMetadata = new CachedMetadata(metadata);
+    }
+    return cachedMetadata;
+  }
+
   @JsonIgnore
   public String getName() {
-    return (String) getMetadata().get("name");
+    return getCachedMetadata().name;
   }
 
   @JsonIgnore
   public String getGenerateName() {
-    return (String) getMetadata().get("generateName");
+    return getCachedMetadata().generateName;
   }
 
   @JsonIgnore
@@ -132,39 +160,37 @@ public class KubernetesManifest extends HashMap<String, Object> {
 
   @JsonIgnore
   public String getUid() {
-    return (String) getMetadata().get("uid");
+    return getCachedMetadata().uid;
   }
 
   @JsonIgnore
   public void setName(String name) {
     getMetadata().put("name", name);
+    cachedMetadata = null;
   }
 
   @JsonIgnore
   public void setGenerateName(String name) {
     getMetadata().put("generateName", name);
+    cachedMetadata = null;
   }
 
   @JsonIgnore
   @Nonnull
   public String getNamespace() {
-    String namespace = (String) getMetadata().get("namespace");
-    return Strings.nullToEmpty(namespace);
+    return getCachedMetadata().namespace;
   }
 
   @JsonIgnore
   public void setNamespace(String namespace) {
     getMetadata().put("namespace", namespace);
+    cachedMetadata = null;
   }
 
   @JsonIgnore
   @Nonnull
   public String getCreationTimestamp() {
-    Object timestamp = getMetadata().get("creationTimestamp");
-    if (timestamp == null) {
-      return "";
-    }
-    return timestamp.toString();
+    return getCachedMetadata().creationTimestamp;
   }
 
   @JsonIgnore
@@ -181,10 +207,7 @@ public class KubernetesManifest extends HashMap<String, Object> {
   @JsonIgnore
   @Nonnull
   public List<OwnerReference> getOwnerReferences() {
-    Map<String, Object> metadata = getMetadata();
-    return Optional.ofNullable(metadata.get("ownerReferences"))
-        .map(r -> mapper.convertValue(r, new TypeReference<List<OwnerReference>>() {}))
-        .orElseGet(ImmutableList::of);
+    return getCachedMetadata().getOwnerReferences();
   }
 
   @JsonIgnore
@@ -357,6 +380,27 @@ public class KubernetesManifest extends HashMap<String, Object> {
     return String.join(" ", kind.toString(), name);
   }
 
+  /**
+   * Removes the value at each of {@code paths}, such as {@code /metadata/managedFields}. Paths only
+   * descend through maps; those that this manifest doesn't have are ignored.
+   */
+  @SuppressWarnings("unchecked")
+  public void removePaths(Collection<JsonPointer> paths) {
+    for (JsonPointer path : paths) {
+      Map<String, Object> parent = this;
+      JsonPointer pointer = path;
+      while (parent != null && !pointer.matches() && !pointer.tail().matches()) {
+        Object child = parent.get(pointer.getMatchingProperty());
+        parent = child instanceof Map ? (Map<String, Object>) child : null;
+        pointer = pointer.tail();
+      }
+      if (parent != null && !pointer.matches()) {
+        parent.remove(pointer.getMatchingProperty());
+      }
+    }
+    cachedMetadata = null;
+  }
+
   /*
    * The reasoning behind removing metadata for comparison is that it shouldn't affect the runtime behavior
    * of the resource we are creating.
@@ -387,6 +431,41 @@ public class KubernetesManifest extends HashMap<String, Object> {
     return new ImmutablePair<>(coords.getKind(), coords.getName());
   }
 
+  /** The fields of a manifest's metadata map, read once. */
+  private static final class CachedMetadata {
+    private final Map<String, Object> source;
+    private final String name;
+    private final String generateName;
+    private final String uid;
+    private final String namespace;
+    private final String creationTimestamp;
+    @Nullable private ImmutableList<OwnerReference> ownerReferences;
+
+    CachedMetadata(Map<String, Object> source) {
+      this.source = source;
+      this.name = (String) source.get("name");
+      this.generateName = (String) source.get("generateName");
+      this.uid = (String) source.get("uid");
+      this.namespace = Strings.nullToEmpty((String) source.get("namespace"));
+      this.creationTimestamp =
+          Optional.ofNullable(source.get("creationTimestamp")).map(Object::toString).orElse("");
+    }
+
+    /** Converted on first use, as most callers only need the name and namespace. */
+    ImmutableList<OwnerReference> getOwnerReferences() {
+      if (ownerReferences == null) {
+        ownerReferences =
+            Optional.ofNullable(source.get("ownerReferences"))
+                .map(
+                    r ->
+                        ImmutableList.copyOf(
+                            mapper.convertValue(r, new TypeReference<List<OwnerReference>>() {})))
+                .orElseGet(ImmutableList::of);
+      }
+      return ownerReferences;
+    }
+  }
+
   @Data
   public static class OwnerReference {
     KubernetesApiVersion apiVersion;
@@ -21,6 +21,7 @@ import static com.netflix.spinnaker.clouddriver.kubernetes.description.manifest.
 
 import com.google.common.base.Strings;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
 import com.netflix.spinnaker.clouddriver.kubernetes.caching.agent.KubernetesCacheDataConverter;
 import com.netflix.spinnaker.clouddriver.kubernetes.caching.agent.KubernetesCachingAgentFactory;
 import com.netflix.spinnaker.clouddriver.kubernetes.caching.agent.KubernetesCoreCachingAgent;
@@ -75,6 +76,11 @@ public class KubernetesEventHandler extends KubernetesHandler {
     return KubernetesCoreCachingAgent::new;
   }
 
+  @Override
+  public ImmutableSet<KubernetesKind> relationshipKinds() {
+    return ImmutableSet.of(EVENT);
+  }
+
   @Override
   public void addRelationships(
       Map<KubernetesKind, List<KubernetesManifest>> allResources,
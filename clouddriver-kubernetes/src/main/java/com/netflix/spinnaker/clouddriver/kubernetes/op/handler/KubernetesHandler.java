@@ -142,6 +142,15 @@ public abstract class KubernetesHandler implements CanDeploy, CanDelete, CanPatc
     return result;
   }
 
+  /**
+   * Kinds whose resources {@link #addRelationships} reads. Caching agents hold on to resources of
+   * these kinds until all of them are loaded, and convert resources of every other kind as soon as
+   * they are read, so handlers overriding {@link #addRelationships} must list what it reads here.
+   */
+  public ImmutableSet<KubernetesKind> relationshipKinds() {
+    return ImmutableSet.of();
+  }
+
   public void addRelationships(
       Map<KubernetesKind, List<KubernetesManifest>> allResources,
       Map<KubernetesManifest, List<KubernetesManifest>> relationshipMap) {}
@@ -193,6 +193,11 @@ public class KubernetesStatefulSetHandler extends KubernetesHandler
     return input == null ? 0 : input;
   }
 
+  @Override
+  public ImmutableSet<KubernetesKind> relationshipKinds() {
+    return ImmutableSet.of(KubernetesKind.STATEFUL_SET, KubernetesKind.SERVICE);
+  }
+
   @Override
   public void addRelationships(
       Map<KubernetesKind, List<KubernetesManifest>> allResources,
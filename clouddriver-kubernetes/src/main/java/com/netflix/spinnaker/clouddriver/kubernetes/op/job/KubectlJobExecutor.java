@@ -51,6 +51,7 @@ import java.io.EOFException;
 import java.nio.charset.StandardCharsets;
 import java.time.Duration;
 import java.util.*;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
@@ -63,7 +64,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 @Component
-public class KubectlJobExecutor {
+public class KubectlJobExecutor implements KubernetesReadExecutor {
   private static final Logger log = LoggerFactory.getLogger(KubectlJobExecutor.class);
   private static final String NOT_FOUND_STRING = "(NotFound)";
   private static final String KUBECTL_COMMAND_OPTION_TOKEN = "--token=";
@@ -412,6 +413,7 @@ public class KubectlJobExecutor {
     return null;
   }
 
+  @Override
   @Nullable
   public KubernetesManifest get(
       KubernetesCredentials credentials, KubernetesKind kind, String namespace, String name) {
@@ -454,6 +456,7 @@ public class KubectlJobExecutor {
     }
   }
 
+  @Override
   @Nonnull
   public ImmutableList<KubernetesManifest> eventsFor(
       KubernetesCredentials credentials, KubernetesKind kind, String namespace, String name) {
@@ -488,22 +491,58 @@ public class KubectlJobExecutor {
     return status.getOutput();
   }
 
+  @Override
   @Nonnull
   public ImmutableList<KubernetesManifest> list(
       KubernetesCredentials credentials,
       List<KubernetesKind> kinds,
       String namespace,
       KubernetesSelectorList selectors) {
+    List<String> command = listCommand(credentials, kinds, namespace, selectors);
+    JobResult<ImmutableList<KubernetesManifest>> status =
+        executeKubectlCommand(credentials, command, parseManifestList());
+    checkListResult(status, kinds, namespace);
+
+    if (status.getError().contains("No resources found")) {
+      return ImmutableList.of();
+    }
+
+    return status.getOutput();
+  }
+
+  /**
+   * Like {@link #list(KubernetesCredentials, List, String, KubernetesSelectorList)}, but hands
+   * each resource to {@code sink} as it is parsed from the output of kubectl rather than collecting
+   * them all first. If the command is retried, resources read before the failed attempt are handed
+   * over again.
+   */
+  @Override
+  public void list(
+      KubernetesCredentials credentials,
+      List<KubernetesKind> kinds,
+      String namespace,
+      KubernetesSelectorList selectors,
+      Consumer<KubernetesManifest> sink) {
+    List<String> command = listCommand(credentials, kinds, namespace, selectors);
+    JobResult<Integer> status = executeKubectlCommand(credentials, command, parseManifests(sink));
+    checkListResult(status, kinds, namespace);
+  }
+
+  private List<String> listCommand(
+      KubernetesCredentials credentials,
+      List<KubernetesKind> kinds,
+      String namespace,
+      KubernetesSelectorList selectors) {
     log.debug("Getting list of kinds {} in namespace {}", kinds, namespace);
     List<String> command = kubectlNamespacedGet(credentials, kinds, namespace);
     if (selectors.isNotEmpty()) {
       log.debug("with selectors: {}", selectors.toString());
       command.add("-l=" + selectors.toString());
     }
+    return command;
+  }
 
-    JobResult<ImmutableList<KubernetesManifest>> status =
-        executeKubectlCommand(credentials, command, parseManifestList());
-
+  private void checkListResult(JobResult<?> status, List<KubernetesKind> kinds, String namespace) {
     if (status.getResult() != JobResult.Result.SUCCESS) {
       boolean permissionError =
           org.apache.commons.lang3.StringUtils.containsIgnoreCase(status.getError(), "forbidden");
@@ -514,12 +553,6 @@ public class KubectlJobExecutor {
             "Failed to read " + kinds + " from " + namespace + ": " + status.getError());
       }
     }
-
-    if (status.getError().contains("No resources found")) {
-      return ImmutableList.of();
-    }
-
-    return status.getOutput();
   }
 
   public KubernetesManifest deploy(
@@ -723,6 +756,7 @@ public class KubectlJobExecutor {
     return status.getOutput();
   }
 
+  @Override
   public ImmutableList<KubernetesPodMetric> topPod(
       KubernetesCredentials credentials, String namespace, @Nonnull String pod) {
     List<String> command = kubectlNamespacedAuthPrefix(credentials, namespace);
@@ -833,21 +867,33 @@ public class KubectlJobExecutor {
   }
 
   private ReaderConsumer<ImmutableList<KubernetesManifest>> parseManifestList() {
+    return (@WillClose BufferedReader r) -> {
+      ImmutableList.Builder<KubernetesManifest> manifestList = new ImmutableList.Builder<>();
+      parseManifests(manifestList::add).consume(r);
+      return manifestList.build();
+    };
+  }
+
+  /**
+   * Parses the items of a list one at a time, handing each to {@code sink} before reading the next
+   * so that the whole list is never held in memory. Returns the number of items read.
+   */
+  private ReaderConsumer<Integer> parseManifests(Consumer<KubernetesManifest> sink) {
     return (@WillClose BufferedReader r) -> {
       try (JsonReader reader = new JsonReader(r)) {
         try {
           reader.beginObject();
         } catch (EOFException e) {
-          // If the stream we're parsing is empty, just return an empty list
-          return ImmutableList.of();
+          // If the stream we're parsing is empty, there is nothing to read
+          return 0;
         }
-        ImmutableList.Builder<KubernetesManifest> manifestList = new ImmutableList.Builder<>();
+        int count = 0;
         while (reader.hasNext()) {
           if (reader.nextName().equals("items")) {
             reader.beginArray();
             while (reader.hasNext()) {
-              KubernetesManifest manifest = gson.fromJson(reader, KubernetesManifest.class);
-              manifestList.add(manifest);
+              sink.accept(gson.fromJson(reader, KubernetesManifest.class));
+              count++;
             }
             reader.endArray();
           } else {
@@ -855,7 +901,7 @@ public class KubectlJobExecutor {
           }
         }
         reader.endObject();
-        return manifestList.build();
+        return count;
       } catch (IllegalStateException | JsonSyntaxException e) {
         // An IllegalStageException is thrown when we call beginObject, nextName(), etc. and the
         // next token is not what we are asserting it to be. A JsonSyntaxException is thrown when
@@ -0,0 +1,571 @@
+/*
+ * Copyright 2026 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.netflix.spinnaker.clouddriver.kubernetes.op.job;
+
+import com.google.common.base.Strings;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.gson.Gson;
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.netflix.spinnaker.clouddriver.kubernetes.caching.agent.KubernetesWatchClient;
+import com.netflix.spinnaker.clouddriver.kubernetes.description.KubernetesPodMetric;
+import com.netflix.spinnaker.clouddriver.kubernetes.description.KubernetesPodMetric.ContainerMetric;
+import com.netflix.spinnaker.clouddriver.kubernetes.description.manifest.KubernetesApiGroup;
+import com.netflix.spinnaker.clouddriver.kubernetes.description.manifest.KubernetesKind;
+import com.netflix.spinnaker.clouddriver.kubernetes.description.manifest.KubernetesManifest;
+import com.netflix.spinnaker.clouddriver.kubernetes.security.KubernetesCredentials;
+import com.netflix.spinnaker.clouddriver.kubernetes.security.KubernetesSelectorList;
+import io.kubernetes.client.custom.Quantity;
+import io.kubernetes.client.openapi.ApiClient;
+import io.kubernetes.client.openapi.ApiException;
+import io.kubernetes.client.openapi.Pair;
+import io.kubernetes.client.util.ClientBuilder;
+import io.kubernetes.client.util.KubeConfig;
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import lombok.Value;
+import okhttp3.Call;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Talks to the API server of one account over HTTP, in process, rather than forking kubectl. The
+ * underlying OkHttp client keeps a pool of connections (HTTP/2 where the server negotiates it), so
+ * consecutive reads reuse one TLS session instead of paying a process start and handshake each.
+ *
+ * <p>The REST path of each kind is resolved once through API discovery. Responses are parsed with
+ * a streaming reader straight into {@link KubernetesManifest}, and lists are paged so that very
+ * large kinds (pods on big clusters) are never served in a single response.
+ */
+public class KubernetesApiClient implements KubernetesWatchClient {
+  private static final Logger log = LoggerFactory.getLogger(KubernetesApiClient.class);
+  private static final String[] AUTH_NAMES = {"BearerToken"};
+  private static final Path SERVICE_ACCOUNT_NAMESPACE =
+      Paths.get("/var/run/secrets/kubernetes.io/serviceaccount/namespace");
+  private static final String METRICS_PREFIX = "/apis/metrics.k8s.io/v1beta1";
+  private static final BigDecimal MEBIBYTE = BigDecimal.valueOf(1024 * 1024);
+
+  static final int DEFAULT_PAGE_SIZE = 500;
+  static final long DEFAULT_REQUEST_TIMEOUT_MS = TimeUnit.SECONDS.toMillis(30);
+
+  private final Gson gson = new Gson();
+  private final ApiClient apiClient;
+  private final int pageSize;
+  private final long requestTimeoutMs;
+  private final String defaultNamespace;
+  private final Map<KubernetesKind, ApiResource> resources = new ConcurrentHashMap<>();
+
+  /**
+   * @param requestTimeoutMs bounds every call other than a watch, including reading the response
+   * @param defaultNamespace used for namespaced kinds when no namespace is given, as kubectl does
+   */
+  public KubernetesApiClient(
+      ApiClient apiClient, int pageSize, long requestTimeoutMs, String defaultNamespace) {
+    this.apiClient = apiClient;
+    this.pageSize = pageSize;
+    this.requestTimeoutMs = requestTimeoutMs;
+    this.defaultNamespace = defaultNamespace;
+  }
+
+  /**
+   * Builds a client that authenticates the same way kubectl does for this account: in-cluster
+   * service account credentials, or the account's kubeconfig file and context.
+   *
+   * @throws IllegalArgumentException for accounts authenticating with an oAuth service account,
+   *     whose tokens are only fetched for kubectl
+   */
+  public static KubernetesApiClient forCredentials(KubernetesCredentials credentials)
+      throws IOException {
+    ApiClient apiClient;
+    String defaultNamespace = "default";
+    if (credentials.isServiceAccount()) {
+      apiClient = ClientBuilder.cluster().build();
+      if (Files.isReadable(SERVICE_ACCOUNT_NAMESPACE)) {
+        defaultNamespace =
+            new String(Files.readAllBytes(SERVICE_ACCOUNT_NAMESPACE), StandardCharsets.UTF_8)
+                .trim();
+      }
+    } else {
+      if (!Strings.isNullOrEmpty(credentials.getOAuthServiceAccount())) {
+        throw new IllegalArgumentException(
+            "Account "
+                + credentials.getAccountName()
+                + " authenticates with an oAuth service account,"
+                + " which is only supported by kubectl");
+      }
+      File kubeconfigFile =
+          Strings.isNullOrEmpty(credentials.getKubeconfigFile())
+              ? defaultKubeconfigFile()
+              : new File(credentials.getKubeconfigFile());
+      try (Reader reader = Files.newBufferedReader(kubeconfigFile.toPath())) {
+        KubeConfig kubeConfig = KubeConfig.loadKubeConfig(reader);
+        kubeConfig.setFile(kubeconfigFile);
+        if (!Strings.isNullOrEmpty(credentials.getContext())) {
+          kubeConfig.setContext(credentials.getContext());
+        }
+        if (!Strings.isNullOrEmpty(kubeConfig.getNamespace())) {
+          defaultNamespace = kubeConfig.getNamespace();
+        }
+        apiClient = ClientBuilder.kubeconfig(kubeConfig).build();
+      }
+    }
+
+    // Every call carries its own timeout instead, so that quiet watches are not cut short
+    apiClient.setReadTimeout(0);
+    long requestTimeoutMs =
+        credentials.getKubectlRequestTimeoutSeconds() == null
+            ? DEFAULT_REQUEST_TIMEOUT_MS
+            : TimeUnit.SECONDS.toMillis(credentials.getKubectlRequestTimeoutSeconds());
+    return new KubernetesApiClient(
+        apiClient, DEFAULT_PAGE_SIZE, requestTimeoutMs, defaultNamespace);
+  }
+
+  private static File defaultKubeconfigFile() {
+    String kubeconfig = System.getenv("KUBECONFIG");
+    if (!Strings.isNullOrEmpty(kubeconfig)) {
+      // Like kubectl, use the first file when KUBECONFIG holds a list of them
+      return new File(kubeconfig.split(File.pathSeparator)[0]);
+    }
+    return Paths.get(System.getProperty("user.home"), ".kube", "config").toFile();
+  }
+
+  /** Returns the named resource, or null if it does not exist. */
+  @Nullable
+  public KubernetesManifest get(
+      @Nonnull KubernetesKind kind, @Nullable String namespace, @Nonnull String name) {
+    ApiResource resource = resource(kind);
+    String path = resource.path(apiClient, namespaceOrDefault(namespace), name);
+    try (Response response = execute(path, new ArrayList<>(), requestTimeoutMs);
+        JsonReader reader = new JsonReader(body(response).charStream())) {
+      KubernetesManifest manifest = gson.fromJson(reader, KubernetesManifest.class);
+      resource.fill(manifest);
+      return manifest;
+    } catch (KubernetesApiException e) {
+      if (e.getCode() == KubernetesApiException.NOT_FOUND) {
+        return null;
+      }
+      throw e;
+    } catch (IOException | JsonSyntaxException e) {
+      throw new KubernetesApiException("Failed to parse response from " + path, e);
+    }
+  }
+
+  /**
+   * Lists every resource of the given kinds. Like kubectl, kinds the account is not allowed to list
+   * are logged and skipped.
+   */
+  @Nonnull
+  public ImmutableList<KubernetesManifest> list(
+      @Nonnull List<KubernetesKind> kinds,
+      @Nullable String namespace,
+      @Nonnull KubernetesSelectorList selectors) {
+    ImmutableList.Builder<KubernetesManifest> result = ImmutableList.builder();
+    list(kinds, namespace, selectors, result::add);
+    return result.build();
+  }
+
+  /**
+   * Lists every resource of the given kinds, handing each to {@code sink} as soon as it is parsed
+   * rather than collecting them.
+   */
+  public void list(
+      @Nonnull List<KubernetesKind> kinds,
+      @Nullable String namespace,
+      @Nonnull KubernetesSelectorList selectors,
+      @Nonnull Consumer<KubernetesManifest> sink) {
+    String labelSelector = selectors.isNotEmpty() ? selectors.toString() : null;
+    for (KubernetesKind kind : kinds) {
+      try {
+        listPages(kind, namespaceOrDefault(namespace), labelSelector, null, sink);
+      } catch (KubernetesApiException e) {
+        if (e.getCode() != KubernetesApiException.FORBIDDEN) {
+          throw e;
+        }
+        log.warn(e.getMessage());
+      }
+    }
+  }
+
+  /** Lists the events whose involved object is the named resource. */
+  @Nonnull
+  public ImmutableList<KubernetesManifest> eventsFor(
+      @Nonnull KubernetesKind kind, @Nullable String namespace, @Nonnull String name) {
+    String fieldSelector =
+        String.format(
+            "involvedObject.name=%s,involvedObject.kind=%s",
+            name, StringUtils.capitalize(kind.toString()));
+    ImmutableList.Builder<KubernetesManifest> result = ImmutableList.builder();
+    listPages(
+        KubernetesKind.EVENT, namespaceOrDefault(namespace), null, fieldSelector, result::add);
+    return result.build();
+  }
+
+  /**
+   * Reads container metrics from the metrics API, formatted like the output of {@code kubectl top
+   * pod --containers}: CPU in millicores and memory in mebibytes.
+   *
+   * @param pod the pod to read, or an empty string for every pod in the namespace
+   */
+  @Nonnull
+  @SuppressWarnings("unchecked")
+  public ImmutableList<KubernetesPodMetric> topPod(
+      @Nullable String namespace, @Nonnull String pod) {
+    String ns = namespaceOrDefault(namespace);
+    String path = METRICS_PREFIX + "/namespaces/" + apiClient.escapeString(ns) + "/pods";
+    if (!pod.isEmpty()) {
+      path += "/" + apiClient.escapeString(pod);
+    }
+
+    Map<String, Object> response;
+    try {
+      response = getJson(path);
+    } catch (KubernetesApiException e) {
+      if (e.getCode() == KubernetesApiException.NOT_FOUND
+          || e.getCode() == KubernetesApiException.SERVICE_UNAVAILABLE) {
+        log.warn("Error fetching metrics for {}: {}", ns, e.getMessage());
+        return ImmutableList.of();
+      }
+      throw e;
+    }
+
+    List<Map<String, Object>> podMetrics =
+        response.containsKey("items")
+            ? (List<Map<String, Object>>) response.get("items")
+            : ImmutableList.of(response);
+    ImmutableList.Builder<KubernetesPodMetric> result = ImmutableList.builder();
+    for (Map<String, Object> metrics : podMetrics) {
+      Map<String, Object> metadata = (Map<String, Object>) metrics.get("metadata");
+      List<Map<String, Object>> containers =
+          (List<Map<String, Object>>) metrics.getOrDefault("containers", ImmutableList.of());
+      ImmutableList.Builder<ContainerMetric> containerMetrics = ImmutableList.builder();
+      for (Map<String, Object> container : containers) {
+        Map<String, String> usage =
+            (Map<String, String>) container.getOrDefault("usage", ImmutableMap.of());
+        containerMetrics.add(
+            new ContainerMetric(
+                (String) container.get("name"),
+                ImmutableMap.of(
+                    "CPU(cores)", millicores(usage.get("cpu")),
+                    "MEMORY(bytes)", mebibytes(usage.get("memory")))));
+      }
+      result.add(
+          KubernetesPodMetric.builder()
+              .podName((String) metadata.get("name"))
+              .namespace(ns)
+              .containerMetrics(containerMetrics.build())
+              .build());
+    }
+    return result.build();
+  }
+
+  private static String millicores(@Nullable String cpu) {
+    if (cpu == null) {
+      return "0m";
+    }
+    BigDecimal cores = Quantity.fromString(cpu).getNumber();
+    return cores.multiply(BigDecimal.valueOf(1000)).setScale(0, RoundingMode.UP) + "m";
+  }
+
+  private static String mebibytes(@Nullable String memory) {
+    if (memory == null) {
+      return "0Mi";
+    }
+    BigDecimal bytes = Quantity.fromString(memory).getNumber();
+    return bytes.divide(MEBIBYTE, 0, RoundingMode.DOWN) + "Mi";
+  }
+
+  @Override
+  @Nonnull
+  public ListResult list(@Nonnull KubernetesKind kind, @Nullable String namespace) {
+    ImmutableList.Builder<KubernetesManifest> items = ImmutableList.builder();
+    String resourceVersion = listPages(kind, namespace, null, null, items::add);
+    return new ListResult(items.build(), resourceVersion);
+  }
+
+  /** Reads every page of a list into {@code sink}, returning the resource version of the list. */
+  private String listPages(
+      KubernetesKind kind,
+      @Nullable String namespace,
+      @Nullable String labelSelector,
+      @Nullable String fieldSelector,
+      Consumer<KubernetesManifest> sink) {
+    ApiResource resource = resource(kind);
+    String path = resource.path(apiClient, namespace, null);
+    String resourceVersion = "";
+    String continueToken = "";
+    do {
+      List<Pair> query = new ArrayList<>();
+      query.add(new Pair("limit", String.valueOf(pageSize)));
+      if (!continueToken.isEmpty()) {
+        query.add(new Pair("continue", continueToken));
+      }
+      if (labelSelector != null) {
+        query.add(new Pair("labelSelector", labelSelector));
+      }
+      if (fieldSelector != null) {
+        query.add(new Pair("fieldSelector", fieldSelector));
+      }
+      try (Response response = execute(path, query, requestTimeoutMs);
+          JsonReader reader = new JsonReader(body(response).charStream())) {
+        reader.beginObject();
+        continueToken = "";
+        while (reader.hasNext()) {
+          switch (reader.nextName()) {
+            case "metadata":
+              reader.beginObject();
+              while (reader.hasNext()) {
+                String name = reader.nextName();
+                if (name.equals("resourceVersion")) {
+                  resourceVersion = reader.nextString();
+                } else if (name.equals("continue")) {
+                  continueToken = reader.nextString();
+                } else {
+                  reader.skipValue();
+                }
+              }
+              reader.endObject();
+              break;
+            case "items":
+              reader.beginArray();
+              while (reader.hasNext()) {
+                KubernetesManifest manifest = gson.fromJson(reader, KubernetesManifest.class);
+                // Items of a list response do not repeat the kind and apiVersion of the list
+                resource.fill(manifest);
+                sink.accept(manifest);
+              }
+              reader.endArray();
+              break;
+            default:
+              reader.skipValue();
+          }
+        }
+        reader.endObject();
+      } catch (IOException | IllegalStateException | JsonSyntaxException e) {
+        throw new KubernetesApiException("Failed to parse list response from " + path, e);
+      }
+    } while (!continueToken.isEmpty());
+    return resourceVersion;
+  }
+
+  @Override
+  @Nonnull
+  public WatchStream watch(
+      @Nonnull KubernetesKind kind,
+      @Nullable String namespace,
+      @Nonnull String resourceVersion,
+      long timeoutSeconds) {
+    ApiResource resource = resource(kind);
+    String path = resource.path(apiClient, namespace, null);
+    List<Pair> query = new ArrayList<>();
+    query.add(new Pair("watch", "true"));
+    query.add(new Pair("resourceVersion", resourceVersion));
+    query.add(new Pair("allowWatchBookmarks", "true"));
+    query.add(new Pair("timeoutSeconds", String.valueOf(timeoutSeconds)));
+    // Leave the server time to end the watch itself before the call times out
+    long timeoutMs = TimeUnit.SECONDS.toMillis(timeoutSeconds) + requestTimeoutMs;
+    Response response = execute(path, query, timeoutMs);
+    JsonReader reader;
+    try {
+      reader = new JsonReader(body(response).charStream());
+    } catch (IOException e) {
+      response.close();
+      throw new KubernetesApiException("Failed to open watch on " + path, e);
+    }
+    // The watch body is a sequence of JSON documents, one per event
+    reader.setLenient(true);
+
+    return new WatchStream() {
+      @Override
+      @Nullable
+      public WatchEvent next() throws IOException {
+        try {
+          if (reader.peek() == JsonToken.END_DOCUMENT) {
+            return null;
+          }
+          EventType type = null;
+          KubernetesManifest object = null;
+          reader.beginObject();
+          while (reader.hasNext()) {
+            String name = reader.nextName();
+            if (name.equals("type")) {
+              type = EventType.valueOf(reader.nextString());
+            } else if (name.equals("object")) {
+              object = gson.fromJson(reader, KubernetesManifest.class);
+            } else {
+              reader.skipValue();
+            }
+          }
+          reader.endObject();
+          if (type == null || object == null) {
+            throw new IOException("Incomplete watch event from " + path);
+          }
+          if (type != EventType.ERROR) {
+            resource.fill(object);
+          }
+          return new WatchEvent(type, object);
+        } catch (IllegalArgumentException | IllegalStateException | JsonSyntaxException e) {
+          throw new IOException("Failed to parse watch event from " + path, e);
+        }
+      }
+
+      @Override
+      public void close() {
+        response.close();
+      }
+    };
+  }
+
+  private String namespaceOrDefault(@Nullable String namespace) {
+    return Strings.isNullOrEmpty(namespace) ? defaultNamespace : namespace;
+  }
+
+  private ApiResource resource(KubernetesKind kind) {
+    return resources.computeIfAbsent(kind, this::discover);
+  }
+
+  /** Finds the REST resource serving a kind in the preferred version of its API group. */
+  @SuppressWarnings("unchecked")
+  private ApiResource discover(KubernetesKind kind) {
+    KubernetesApiGroup group = kind.getApiGroup();
+    String groupVersion;
+    String prefix;
+    if (group.equals(KubernetesApiGroup.CORE) || group.equals(KubernetesApiGroup.NONE)) {
+      groupVersion = "v1";
+      prefix = "/api/v1";
+    } else {
+      Map<String, Object> apiGroup = getJson("/apis/" + group);
+      groupVersion =
+          (String) ((Map<String, Object>) apiGroup.get("preferredVersion")).get("groupVersion");
+      prefix = "/apis/" + groupVersion;
+    }
+
+    Map<String, Object> resourceList = getJson(prefix);
+    for (Map<String, Object> resource :
+        (List<Map<String, Object>>) resourceList.get("resources")) {
+      String name = (String) resource.get("name");
+      String kindName = (String) resource.get("kind");
+      // Sub-resources (pods/log, deployments/scale, ...) are listed alongside their parents
+      if (name.contains("/") || !KubernetesKind.from(kindName, group).equals(kind)) {
+        continue;
+      }
+      return new ApiResource(
+          prefix, name, kindName, groupVersion, Boolean.TRUE.equals(resource.get("namespaced")));
+    }
+    // Not a 404: callers treat that as a missing resource rather than an unknown kind
+    throw new KubernetesApiException(0, "Kind " + kind + " is not served by " + prefix);
+  }
+
+  @SuppressWarnings("unchecked")
+  private Map<String, Object> getJson(String path) {
+    try (Response response = execute(path, new ArrayList<>(), requestTimeoutMs)) {
+      return gson.fromJson(body(response).charStream(), Map.class);
+    } catch (IOException | JsonSyntaxException e) {
+      throw new KubernetesApiException("Failed to parse response from " + path, e);
+    }
+  }
+
+  private Response execute(String path, List<Pair> query, long timeoutMs) {
+    Map<String, String> headers = new HashMap<>();
+    headers.put("Accept", "application/json");
+    Response response;
+    try {
+      Call call =
+          apiClient.buildCall(
+              path,
+              "GET",
+              query,
+              new ArrayList<>(),
+              null,
+              headers,
+              new HashMap<>(),
+              new HashMap<>(),
+              AUTH_NAMES,
+              null);
+      call.timeout().timeout(timeoutMs, TimeUnit.MILLISECONDS);
+      response = call.execute();
+    } catch (ApiException | IOException e) {
+      throw new KubernetesApiException("Failed to call " + path + ": " + e.getMessage(), e);
+    }
+
+    if (!response.isSuccessful()) {
+      String message;
+      try (Response failed = response) {
+        message = body(failed).string();
+      } catch (IOException e) {
+        message = e.getMessage();
+      }
+      throw new KubernetesApiException(
+          response.code(), "GET " + path + " returned " + response.code() + ": " + message);
+    }
+    return response;
+  }
+
+  private static ResponseBody body(Response response) throws IOException {
+    ResponseBody body = response.body();
+    if (body == null) {
+      throw new IOException("Empty response for " + response.request().url());
+    }
+    return body;
+  }
+
+  @Value
+  private static class ApiResource {
+    String prefix;
+    String plural;
+    String kind;
+    String groupVersion;
+    boolean namespaced;
+
+    String path(ApiClient apiClient, @Nullable String namespace, @Nullable String name) {
+      StringBuilder path = new StringBuilder(prefix);
+      if (namespaced && !Strings.isNullOrEmpty(namespace)) {
+        path.append("/namespaces/").append(apiClient.escapeString(namespace));
+      }
+      path.append('/').append(plural);
+      if (name != null) {
+        path.append('/').append(apiClient.escapeString(name));
+      }
+      return path.toString();
+    }
+
+    void fill(KubernetesManifest manifest) {
+      manifest.putIfAbsent("kind", kind);
+      manifest.putIfAbsent("apiVersion", groupVersion);
+    }
+  }
+}
@@ -0,0 +1,150 @@
+/*
+ * Copyright 2026 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.netflix.spinnaker.clouddriver.kubernetes.op.job;
+
+import com.google.common.collect.ImmutableList;
+import com.netflix.spinnaker.clouddriver.kubernetes.caching.agent.KubernetesWatchClient.KubernetesApiException;
+import com.netflix.spinnaker.clouddriver.kubernetes.description.KubernetesPodMetric;
+import com.netflix.spinnaker.clouddriver.kubernetes.description.manifest.KubernetesKind;
+import com.netflix.spinnaker.clouddriver.kubernetes.description.manifest.KubernetesManifest;
+import com.netflix.spinnaker.clouddriver.kubernetes.security.KubernetesCredentials;
+import com.netflix.spinnaker.clouddriver.kubernetes.security.KubernetesSelectorList;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Serves reads through an in-process {@link KubernetesApiClient}, falling back to another executor
+ * (normally kubectl) when the client cannot be built for the account or a call to the API server
+ * fails. A read rejected as unauthorized is retried once with a rebuilt client first, since the
+ * credentials the client was built with may have been rotated since.
+ */
+public class KubernetesApiReadExecutor implements KubernetesReadExecutor {
+  private static final Logger log = LoggerFactory.getLogger(KubernetesApiReadExecutor.class);
+
+  private final Supplier<Optional<KubernetesApiClient>> apiClient;
+  private final Consumer<KubernetesApiClient> onUnauthorized;
+  private final KubernetesReadExecutor fallback;
+
+  public KubernetesApiReadExecutor(
+      Supplier<Optional<KubernetesApiClient>> apiClient, KubernetesReadExecutor fallback) {
+    this(apiClient, client -> {}, fallback);
+  }
+
+  /**
+   * @param apiClient supplies the account's client, or an empty optional if there is none; it is
+   *     called on every read, so it should be memoized
+   * @param onUnauthorized called with a client whose credentials the API server rejected, so that
+   *     {@code apiClient} supplies a rebuilt one afterwards
+   */
+  public KubernetesApiReadExecutor(
+      Supplier<Optional<KubernetesApiClient>> apiClient,
+      Consumer<KubernetesApiClient> onUnauthorized,
+      KubernetesReadExecutor fallback) {
+    this.apiClient = apiClient;
+    this.onUnauthorized = onUnauthorized;
+    this.fallback = fallback;
+  }
+
+  @Override
+  @Nullable
+  public KubernetesManifest get(
+      KubernetesCredentials credentials, KubernetesKind kind, String namespace, String name) {
+    return read(
+        client -> client.get(kind, namespace, name),
+        () -> fallback.get(credentials, kind, namespace, name));
+  }
+
+  @Override
+  @Nonnull
+  public ImmutableList<KubernetesManifest> list(
+      KubernetesCredentials credentials,
+      List<KubernetesKind> kinds,
+      String namespace,
+      KubernetesSelectorList selectors) {
+    return read(
+        client -> client.list(kinds, namespace, selectors),
+        () -> fallback.list(credentials, kinds, namespace, selectors));
+  }
+
+  @Override
+  public void list(
+      KubernetesCredentials credentials,
+      List<KubernetesKind> kinds,
+      String namespace,
+      KubernetesSelectorList selectors,
+      Consumer<KubernetesManifest> sink) {
+    read(
+        client -> {
+          client.list(kinds, namespace, selectors, sink);
+          return null;
+        },
+        () -> {
+          fallback.list(credentials, kinds, namespace, selectors, sink);
+          return null;
+        });
+  }
+
+  @Override
+  @Nonnull
+  public ImmutableList<KubernetesManifest> eventsFor(
+      KubernetesCredentials credentials, KubernetesKind kind, String namespace, String name) {
+    return read(
+        client -> client.eventsFor(kind, namespace, name),
+        () -> fallback.eventsFor(credentials, kind, namespace, name));
+  }
+
+  @Override
+  public ImmutableList<KubernetesPodMetric> topPod(
+      KubernetesCredentials credentials, String namespace, @Nonnull String pod) {
+    return read(
+        client -> client.topPod(namespace, pod),
+        () -> fallback.topPod(credentials, namespace, pod));
+  }
+
+  private <T> T read(Function<KubernetesApiClient, T> read, Supplier<T> fallbackRead) {
+    Optional<KubernetesApiClient> client = apiClient.get();
+    if (!client.isPresent()) {
+      return fallbackRead.get();
+    }
+    try {
+      return read.apply(client.get());
+    } catch (KubernetesApiException e) {
+      KubernetesApiException failure = e;
+      if (e.getCode() == KubernetesApiException.UNAUTHORIZED) {
+        onUnauthorized.accept(client.get());
+        Optional<KubernetesApiClient> rebuilt = apiClient.get();
+        if (rebuilt.isPresent() && rebuilt.get() != client.get()) {
+          log.info("Retrying with a rebuilt API client after an unauthorized call");
+          try {
+            return read.apply(rebuilt.get());
+          } catch (KubernetesApiException retryFailure) {
+            failure = retryFailure;
+          }
+        }
+      }
+      log.warn("Falling back to kubectl after a failed API call: {}", failure.getMessage());
+      return fallbackRead.get();
+    }
+  }
+}
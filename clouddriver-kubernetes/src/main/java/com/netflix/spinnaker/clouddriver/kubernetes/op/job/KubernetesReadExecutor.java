@@ -0,0 +1,71 @@
+/*
+ * Copyright 2026 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.netflix.spinnaker.clouddriver.kubernetes.op.job;
+
+import com.google.common.collect.ImmutableList;
+import com.netflix.spinnaker.clouddriver.kubernetes.description.KubernetesPodMetric;
+import com.netflix.spinnaker.clouddriver.kubernetes.description.manifest.KubernetesKind;
+import com.netflix.spinnaker.clouddriver.kubernetes.description.manifest.KubernetesManifest;
+import com.netflix.spinnaker.clouddriver.kubernetes.security.KubernetesCredentials;
+import com.netflix.spinnaker.clouddriver.kubernetes.security.KubernetesSelectorList;
+import java.util.List;
+import java.util.function.Consumer;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * Reads resources from a cluster on behalf of {@link KubernetesCredentials}. {@link
+ * KubectlJobExecutor} forks kubectl for each read; {@link KubernetesApiReadExecutor} calls the API
+ * server in process and falls back to kubectl when it cannot.
+ */
+public interface KubernetesReadExecutor {
+  /** Returns the named resource, or null if it does not exist. */
+  @Nullable
+  KubernetesManifest get(
+      KubernetesCredentials credentials, KubernetesKind kind, String namespace, String name);
+
+  /** Lists the resources of the given kinds, skipping kinds the account may not list. */
+  @Nonnull
+  ImmutableList<KubernetesManifest> list(
+      KubernetesCredentials credentials,
+      List<KubernetesKind> kinds,
+      String namespace,
+      KubernetesSelectorList selectors);
+
+  /**
+   * Lists the resources of the given kinds, handing each to {@code sink} as it is read instead of
+   * collecting them. A read that is retried may hand the same resource over more than once.
+   */
+  void list(
+      KubernetesCredentials credentials,
+      List<KubernetesKind> kinds,
+      String namespace,
+      KubernetesSelectorList selectors,
+      Consumer<KubernetesManifest> sink);
+
+  /** Lists the events whose involved object is the named resource. */
+  @Nonnull
+  ImmutableList<KubernetesManifest> eventsFor(
+      KubernetesCredentials credentials, KubernetesKind kind, String namespace, String name);
+
+  /**
+   * Returns container metrics for a pod, or for every pod in the namespace if {@code pod} is empty.
+   * Returns an empty list when the cluster does not serve metrics.
+   */
+  ImmutableList<KubernetesPodMetric> topPod(
+      KubernetesCredentials credentials, String namespace, @Nonnull String pod);
+}
@@ -35,6 +35,7 @@ import com.netflix.spectator.api.Clock;
 import com.netflix.spectator.api.Registry;
 import com.netflix.spinnaker.clouddriver.data.task.Task;
 import com.netflix.spinnaker.clouddriver.kubernetes.caching.agent.KubernetesCacheDataConverter;
+import com.netflix.spinnaker.clouddriver.kubernetes.caching.agent.KubernetesNamespaceExecutor;
 import com.netflix.spinnaker.clouddriver.kubernetes.config.CustomKubernetesResource;
 import com.netflix.spinnaker.clouddriver.kubernetes.config.KubernetesAccountProperties.ManagedAccount;
 import com.netflix.spinnaker.clouddriver.kubernetes.config.KubernetesCachingPolicy;
@@ -58,13 +59,19 @@ import com.netflix.spinnaker.clouddriver.kubernetes.op.handler.KubernetesHandler
 import com.netflix.spinnaker.clouddriver.kubernetes.op.job.KubectlJobExecutor;
 import com.netflix.spinnaker.clouddriver.kubernetes.op.job.KubectlJobExecutor.KubectlException;
 import com.netflix.spinnaker.clouddriver.kubernetes.op.job.KubectlJobExecutor.KubectlNotFoundException;
+import com.netflix.spinnaker.clouddriver.kubernetes.op.job.KubernetesApiClient;
+import com.netflix.spinnaker.clouddriver.kubernetes.op.job.KubernetesApiReadExecutor;
+import com.netflix.spinnaker.clouddriver.kubernetes.op.job.KubernetesReadExecutor;
 import com.netflix.spinnaker.kork.configserver.ConfigFileService;
 import com.netflix.spinnaker.moniker.Namer;
 import io.kubernetes.client.openapi.models.V1DeleteOptions;
 import io.kubernetes.client.openapi.models.V1beta1CustomResourceDefinition;
+import java.io.IOException;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.function.Supplier;
 import java.util.stream.Collectors;
@@ -87,6 +94,7 @@ public class KubernetesCredentials {
   private final Registry registry;
   private final Clock clock;
   private final KubectlJobExecutor jobExecutor;
+  private final KubernetesReadExecutor readExecutor;
   private final GlobalResourcePropertyRegistry globalResourcePropertyRegistry;
 
   @Include @Getter @Nonnull private final String accountName;
@@ -131,6 +139,9 @@ public class KubernetesCredentials {
 
   @Include @Getter private final boolean debug;
 
+  /** Shared by the caching agents of this account, or null if they load namespaces one by one. */
+  @JsonIgnore @Getter @Nullable private final KubernetesNamespaceExecutor namespaceExecutor;
+
   @Getter private final ResourcePropertyRegistry resourcePropertyRegistry;
   private final KubernetesKindRegistry kindRegistry;
   @Getter private final KubernetesSpinnakerKindMap kubernetesSpinnakerKindMap;
@@ -140,6 +151,8 @@ public class KubernetesCredentials {
   private final Memoizer<ImmutableList<String>> liveNamespaceSupplier =
       Memoizer.memoizeWithExpiration(
           this::namespaceSupplier, NAMESPACE_EXPIRY_SECONDS, TimeUnit.SECONDS);
+  /** Built on first use, and again after {@link #invalidateApiClient} dropped it. */
+  private final AtomicReference<Optional<KubernetesApiClient>> apiClient = new AtomicReference<>();
   @Getter private final Namer<KubernetesManifest> namer;
 
   public KubernetesCredentials(
@@ -155,6 +168,11 @@ public class KubernetesCredentials {
     this.registry = registry;
     this.clock = registry.clock();
     this.jobExecutor = jobExecutor;
+    this.readExecutor =
+        managedAccount.isUseApiClientForReads()
+            ? new KubernetesApiReadExecutor(
+                this::getApiClient, this::invalidateApiClient, jobExecutor)
+            : jobExecutor;
     this.kindRegistry =
         kindRegistryFactory.create(
             this::getCrdProperties,
@@ -203,6 +221,14 @@ public class KubernetesCredentials {
     this.metrics = managedAccount.isMetrics();
 
     this.debug = managedAccount.isDebug();
+    this.namespaceExecutor =
+        managedAccount.getCacheNamespaceThreads() > 1
+            ? new KubernetesNamespaceExecutor(
+                accountName,
+                managedAccount.getCacheNamespaceThreads(),
+                managedAccount.getCacheMaxInFlightBytes(),
+                managedAccount.getCacheUnknownNamespaceBytes())
+            : null;
     this.namer = manifestNamer;
     this.cacheAllApplicationRelationships = managedAccount.isCacheAllApplicationRelationships();
     this.rawResourcesEndpointConfig = managedAccount.getRawResourcesEndpointConfig();
@@ -297,6 +323,51 @@ public class KubernetesCredentials {
     return KubernetesKindStatus.VALID;
   }
 
+  /**
+   * Returns the in-process API client of this account, or an empty optional if one cannot be built
+   * for it. The client is built once and shared, so that its connections are pooled per account.
+   */
+  @JsonIgnore
+  public Optional<KubernetesApiClient> getApiClient() {
+    Optional<KubernetesApiClient> client = apiClient.get();
+    if (client == null) {
+      synchronized (apiClient) {
+        client = apiClient.get();
+        if (client == null) {
+          client = buildApiClient();
+          apiClient.set(client);
+        }
+      }
+    }
+    return client;
+  }
+
+  /**
+   * Drops {@code client} after the API server rejected its credentials (401), so that the next
+   * {@link #getApiClient()} builds one from the account's current kubeconfig or service account
+   * token. Does nothing if the client was already replaced.
+   */
+  public void invalidateApiClient(KubernetesApiClient client) {
+    Optional<KubernetesApiClient> current = apiClient.get();
+    if (current != null
+        && current.orElse(null) == client
+        && apiClient.compareAndSet(current, null)) {
+      log.info("Rebuilding the API client of account {} after it was unauthorized", accountName);
+    }
+  }
+
+  private Optional<KubernetesApiClient> buildApiClient() {
+    try {
+      return Optional.of(KubernetesApiClient.forCredentials(this));
+    } catch (IOException | RuntimeException e) {
+      log.warn(
+          "Unable to build an API client for account {}, reads will use kubectl: {}",
+          accountName,
+          e.getMessage());
+      return Optional.empty();
+    }
+  }
+
   private Optional<KubernetesKindProperties> getCrdProperties(
       @Nonnull KubernetesKind kubernetesKind) {
     return Optional.ofNullable(crdSupplier.get().get(kubernetesKind));
@@ -443,7 +514,7 @@ public class KubernetesCredentials {
         "get",
         coords.getKind(),
         coords.getNamespace(),
-        () -> jobExecutor.get(this, coords.getKind(), coords.getNamespace(), coords.getName()));
+        () -> readExecutor.get(this, coords.getKind(), coords.getNamespace(), coords.getName()));
   }
 
   @Nonnull
@@ -453,7 +524,7 @@ public class KubernetesCredentials {
         kind,
         namespace,
         () ->
-            jobExecutor.list(
+            readExecutor.list(
                 this, ImmutableList.of(kind), namespace, new KubernetesSelectorList()));
   }
 
@@ -464,7 +535,7 @@ public class KubernetesCredentials {
         "list",
         kind,
         namespace,
-        () -> jobExecutor.list(this, ImmutableList.of(kind), namespace, selectors));
+        () -> readExecutor.list(this, ImmutableList.of(kind), namespace, selectors));
   }
 
   @Nonnull
@@ -476,10 +547,29 @@ public class KubernetesCredentials {
           "list",
           kinds,
           namespace,
-          () -> jobExecutor.list(this, kinds, namespace, new KubernetesSelectorList()));
+          () -> readExecutor.list(this, kinds, namespace, new KubernetesSelectorList()));
     }
   }
 
+  /**
+   * Lists the resources of the given kinds, handing each to {@code sink} as it is read so that the
+   * whole list is never held in memory at once.
+   */
+  public void list(
+      List<KubernetesKind> kinds, String namespace, Consumer<KubernetesManifest> sink) {
+    if (kinds.isEmpty()) {
+      return;
+    }
+    runAndRecordMetrics(
+        "list",
+        kinds,
+        namespace,
+        () -> {
+          readExecutor.list(this, kinds, namespace, new KubernetesSelectorList(), sink);
+          return null;
+        });
+  }
+
   /** Deprecated in favor of {@link KubernetesCredentials#eventsFor(KubernetesCoordinates)}. */
   @Deprecated
   @Nonnull
@@ -496,7 +586,8 @@ public class KubernetesCredentials {
         KubernetesKind.EVENT,
         coords.getNamespace(),
         () ->
-            jobExecutor.eventsFor(this, coords.getKind(), coords.getNamespace(), coords.getName()));
+            readExecutor.eventsFor(
+                this, coords.getKind(), coords.getNamespace(), coords.getName()));
   }
 
   public String logs(String namespace, String podName, String containerName) {
@@ -558,7 +649,7 @@ public class KubernetesCredentials {
         "top",
         KubernetesKind.POD,
         coords.getNamespace(),
-        () -> jobExecutor.topPod(this, coords.getNamespace(), coords.getName()));
+        () -> readExecutor.topPod(this, coords.getNamespace(), coords.getName()));
   }
 
   public KubernetesManifest deploy(
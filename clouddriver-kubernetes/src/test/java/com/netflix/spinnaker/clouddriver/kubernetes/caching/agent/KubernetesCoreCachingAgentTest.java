@@ -21,6 +21,7 @@ import static com.google.common.collect.ImmutableList.toImmutableList;
 import static com.netflix.spinnaker.cats.agent.AgentDataType.Authority.AUTHORITATIVE;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
@@ -46,6 +47,7 @@ import com.netflix.spinnaker.cats.provider.ProviderCache;
 import com.netflix.spinnaker.clouddriver.core.services.Front50Service;
 import com.netflix.spinnaker.clouddriver.kubernetes.caching.Keys;
 import com.netflix.spinnaker.clouddriver.kubernetes.config.KubernetesAccountProperties.ManagedAccount;
+import com.netflix.spinnaker.clouddriver.kubernetes.config.KubernetesCachingPolicy;
 import com.netflix.spinnaker.clouddriver.kubernetes.config.KubernetesConfigurationProperties;
 import com.netflix.spinnaker.clouddriver.kubernetes.description.GlobalResourcePropertyRegistry;
 import com.netflix.spinnaker.clouddriver.kubernetes.description.KubernetesCoordinates;
@@ -61,12 +63,12 @@ import java.io.IOException;
 import java.io.UncheckedIOException;
 import java.nio.charset.StandardCharsets;
 import java.util.*;
+import java.util.function.Consumer;
 import java.util.stream.IntStream;
 import lombok.Value;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.ValueSource;
-import org.mockito.stubbing.Answer;
 
 final class KubernetesCoreCachingAgentTest {
   private static final String ACCOUNT = "my-account";
@@ -130,6 +132,53 @@ final class KubernetesCoreCachingAgentTest {
     return storageClass;
   }
 
+  /** A test StatefulSet manifest governed by the service {@code serviceName} */
+  private static KubernetesManifest statefulSetManifest(String name, String serviceName) {
+    KubernetesManifest statefulSet = new KubernetesManifest();
+    statefulSet.put("metadata", new HashMap<>());
+    statefulSet.put("spec", new HashMap<>(Map.of("serviceName", serviceName)));
+    statefulSet.setNamespace(NAMESPACE1);
+    statefulSet.setKind(KubernetesKind.STATEFUL_SET);
+    statefulSet.setApiVersion(KubernetesApiVersion.APPS_V1);
+    statefulSet.setName(name);
+    return statefulSet;
+  }
+
+  /** A test Service manifest */
+  private static KubernetesManifest serviceManifest(String name) {
+    KubernetesManifest service = new KubernetesManifest();
+    service.put("metadata", new HashMap<>());
+    service.setNamespace(NAMESPACE1);
+    service.setKind(KubernetesKind.SERVICE);
+    service.setApiVersion(KubernetesApiVersion.V1);
+    service.setName(name);
+    return service;
+  }
+
+  /**
+   * Makes {@code credentials} list {@code manifests} in the first namespace after {@code
+   * beforeRetry}, the manifests an earlier attempt read before it failed and was retried.
+   */
+  private static void listWithRetry(
+      KubernetesCredentials credentials,
+      List<KubernetesManifest> beforeRetry,
+      List<KubernetesManifest> manifests) {
+    doAnswer(
+            invocation -> {
+              Object[] args = invocation.getArguments();
+              ImmutableSet<KubernetesKind> kinds =
+                  ImmutableSet.copyOf((List<KubernetesKind>) args[0]);
+              Consumer<KubernetesManifest> sink = (Consumer<KubernetesManifest>) args[2];
+              if (NAMESPACE1.equals(args[1])) {
+                beforeRetry.stream().filter(m -> kinds.contains(m.getKind())).forEach(sink);
+                manifests.stream().filter(m -> kinds.contains(m.getKind())).forEach(sink);
+              }
+              return null;
+            })
+        .when(credentials)
+        .list(any(List.class), any(), any(Consumer.class));
+  }
+
   /** Returns a mock KubernetesCredentials object */
   private static KubernetesCredentials mockKubernetesCredentials(String deploymentName) {
     KubernetesCredentials credentials = mock(KubernetesCredentials.class);
@@ -151,23 +200,23 @@ final class KubernetesCoreCachingAgentTest {
                 .name(STORAGE_CLASS_NAME)
                 .build()))
         .thenReturn(storageClassManifest());
-    when(credentials.list(any(List.class), any()))
-        .thenAnswer(
-            (Answer<ImmutableList<KubernetesManifest>>)
-                invocation -> {
-                  Object[] args = invocation.getArguments();
-                  ImmutableSet<KubernetesKind> kinds =
-                      ImmutableSet.copyOf((List<KubernetesKind>) args[0]);
-                  String namespace = (String) args[1];
-                  ImmutableList.Builder<KubernetesManifest> result = new ImmutableList.Builder<>();
-                  if (kinds.contains(KubernetesKind.DEPLOYMENT) && NAMESPACE1.equals(namespace)) {
-                    result.add(deploymentManifest(deploymentName));
-                  }
-                  if (kinds.contains(KubernetesKind.STORAGE_CLASS)) {
-                    result.add(storageClassManifest());
-                  }
-                  return result.build();
-                });
+    doAnswer(
+            invocation -> {
+              Object[] args = invocation.getArguments();
+              ImmutableSet<KubernetesKind> kinds =
+                  ImmutableSet.copyOf((List<KubernetesKind>) args[0]);
+              String namespace = (String) args[1];
+              Consumer<KubernetesManifest> sink = (Consumer<KubernetesManifest>) args[2];
+              if (kinds.contains(KubernetesKind.DEPLOYMENT) && NAMESPACE1.equals(namespace)) {
+                sink.accept(deploymentManifest(deploymentName));
+              }
+              if (kinds.contains(KubernetesKind.STORAGE_CLASS)) {
+                sink.accept(storageClassManifest());
+              }
+              return null;
+            })
+        .when(credentials)
+        .list(any(List.class), any(), any(Consumer.class));
     when(credentials.getNamer()).thenReturn(new KubernetesManifestNamer());
     when(credentials.isValidKind(any(KubernetesKind.class))).thenReturn(true);
     when(credentials.getKubernetesSpinnakerKindMap())
@@ -190,10 +239,15 @@ final class KubernetesCoreCachingAgentTest {
    */
   private static KubernetesNamedAccountCredentials getNamedAccountCredentials(
       String deploymentName) {
+    return getNamedAccountCredentials(mockKubernetesCredentials(deploymentName));
+  }
+
+  /** Returns a KubernetesNamedAccountCredentials that contains the given credentials */
+  private static KubernetesNamedAccountCredentials getNamedAccountCredentials(
+      KubernetesCredentials mockCredentials) {
     ManagedAccount managedAccount = new ManagedAccount();
     managedAccount.setName(ACCOUNT);
 
-    KubernetesCredentials mockCredentials = mockKubernetesCredentials(deploymentName);
     KubernetesCredentials.Factory credentialFactory = mock(KubernetesCredentials.Factory.class);
     when(credentialFactory.build(managedAccount)).thenReturn(mockCredentials);
     return new KubernetesNamedAccountCredentials(managedAccount, credentialFactory);
@@ -395,6 +449,99 @@ final class KubernetesCoreCachingAgentTest {
     assertThat(deployments).isNullOrEmpty();
   }
 
+  @Test
+  public void loadDataPrunesEntriesPastMaxEntriesPerAgent() {
+    KubernetesCredentials credentials = mockKubernetesCredentials(DEPLOYMENT_NAME);
+    KubernetesCachingPolicy policy = new KubernetesCachingPolicy();
+    policy.setKubernetesKind(DEPLOYMENT_KIND);
+    policy.setMaxEntriesPerAgent(2);
+    when(credentials.getCachingPolicies()).thenReturn(ImmutableList.of(policy));
+    listWithRetry(
+        credentials,
+        ImmutableList.of(),
+        ImmutableList.of(
+            deploymentManifest("first"),
+            deploymentManifest("second"),
+            deploymentManifest("third")));
+    KubernetesConfigurationProperties configurationProperties =
+        new KubernetesConfigurationProperties();
+    configurationProperties.getCache().setCacheAll(true);
+
+    LoadDataResult loadDataResult =
+        processLoadData(
+            createCachingAgents(
+                getNamedAccountCredentials(credentials), 1, configurationProperties),
+            ImmutableMap.of());
+
+    assertThat(loadDataResult.getResults().get(DEPLOYMENT_KIND))
+        .extracting(deployment -> deployment.getAttributes().get("name"))
+        .containsExactlyInAnyOrder("first", "second");
+  }
+
+  @Test
+  public void loadDataDoesNotCountRetriedManifestsTowardsMaxEntriesPerAgent() {
+    KubernetesCredentials credentials = mockKubernetesCredentials(DEPLOYMENT_NAME);
+    KubernetesCachingPolicy policy = new KubernetesCachingPolicy();
+    policy.setKubernetesKind(DEPLOYMENT_KIND);
+    policy.setMaxEntriesPerAgent(2);
+    when(credentials.getCachingPolicies()).thenReturn(ImmutableList.of(policy));
+    listWithRetry(
+        credentials,
+        ImmutableList.of(deploymentManifest("first")),
+        ImmutableList.of(deploymentManifest("first"), deploymentManifest("second")));
+    KubernetesConfigurationProperties configurationProperties =
+        new KubernetesConfigurationProperties();
+    configurationProperties.getCache().setCacheAll(true);
+
+    LoadDataResult loadDataResult =
+        processLoadData(
+            createCachingAgents(
+                getNamedAccountCredentials(credentials), 1, configurationProperties),
+            ImmutableMap.of());
+
+    assertThat(loadDataResult.getResults().get(DEPLOYMENT_KIND))
+        .extracting(deployment -> deployment.getAttributes().get("name"))
+        .containsExactlyInAnyOrder("first", "second");
+  }
+
+  @Test
+  public void loadDataKeepsRelationshipsOfRetriedManifests() {
+    KubernetesCredentials credentials = mockKubernetesCredentials(DEPLOYMENT_NAME);
+    when(credentials.getGlobalKinds())
+        .thenReturn(ImmutableList.of(KubernetesKind.STATEFUL_SET, KubernetesKind.SERVICE));
+    when(credentials.getKindProperties(any(KubernetesKind.class)))
+        .thenAnswer(invocation -> KubernetesKindProperties.create(invocation.getArgument(0), true));
+    when(credentials.getResourcePropertyRegistry())
+        .thenReturn(
+            new GlobalResourcePropertyRegistry(
+                ImmutableList.of(new KubernetesStatefulSetHandler()),
+                new KubernetesUnregisteredCustomResourceHandler()));
+    listWithRetry(
+        credentials,
+        ImmutableList.of(serviceManifest("my-service")),
+        ImmutableList.of(
+            statefulSetManifest("my-stateful-set", "my-service"), serviceManifest("my-service")));
+    KubernetesConfigurationProperties configurationProperties =
+        new KubernetesConfigurationProperties();
+    configurationProperties.getCache().setCacheAll(true);
+
+    LoadDataResult loadDataResult =
+        processLoadData(
+            createCachingAgents(
+                getNamedAccountCredentials(credentials), 1, configurationProperties),
+            ImmutableMap.of());
+
+    Collection<CacheData> statefulSets =
+        loadDataResult.getResults().get(KubernetesKind.STATEFUL_SET.toString());
+    assertThat(statefulSets).hasSize(1);
+    Map<String, Collection<String>> relationships =
+        statefulSets.iterator().next().getRelationships();
+    assertThat(relationships.get(KubernetesKind.SERVICE.toString()))
+        .containsExactly(
+            Keys.InfrastructureCacheKey.createKey(
+                KubernetesKind.SERVICE, ACCOUNT, NAMESPACE1, "my-service"));
+  }
+
   /**
    * Given an on-demand cache request, constructs a set of caching agents and sends the on-demand
    * request to those agents, returning a collection of all non-null results of handing those
@@ -0,0 +1,291 @@
+/*
+ * Copyright 2026 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.netflix.spinnaker.clouddriver.kubernetes.caching.agent;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.netflix.spinnaker.clouddriver.kubernetes.description.manifest.KubernetesKind;
+import com.netflix.spinnaker.clouddriver.kubernetes.description.manifest.KubernetesManifest;
+import com.netflix.spinnaker.clouddriver.kubernetes.op.job.KubernetesApiClient;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.kubernetes.client.openapi.ApiClient;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/** Runs an informer against a fake API server that serves scripted list and watch responses. */
+final class KubernetesInformerTest {
+  private static final String NAMESPACE = "test-namespace";
+  private static final String PODS = "/api/v1/namespaces/" + NAMESPACE + "/pods";
+
+  private final List<String> requests = Collections.synchronizedList(new ArrayList<>());
+  private final List<Response> lists = Collections.synchronizedList(new ArrayList<>());
+  private final List<Response> watches = Collections.synchronizedList(new ArrayList<>());
+  private final AtomicInteger changes = new AtomicInteger();
+
+  private HttpServer server;
+  private KubernetesWatchClient client;
+
+  @BeforeEach
+  void startServer() throws IOException {
+    server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+    server.createContext("/", this::handle);
+    server.start();
+    client =
+        new KubernetesApiClient(
+            new ApiClient().setBasePath("http://localhost:" + server.getAddress().getPort()),
+            2,
+            5000,
+            "default");
+  }
+
+  @AfterEach
+  void stopServer() {
+    server.stop(0);
+  }
+
+  @Test
+  void listsOnceThenAppliesWatchEvents() {
+    lists.add(list("", "p2", pod("pod-a", "10"), pod("pod-b", "11")));
+    lists.add(list("100", "", pod("pod-c", "12")));
+    watches.add(
+        events(
+            event("MODIFIED", pod("pod-a", "101")),
+            event("DELETED", pod("pod-b", "102")),
+            event("ADDED", pod("pod-d", "103")),
+            event("BOOKMARK", bookmark("110"))));
+
+    KubernetesInformer informer = informer();
+    informer.run(System.currentTimeMillis() + 1000);
+
+    assertThat(informer.isSynced()).isTrue();
+    assertThat(informer.getResourceVersion()).isEqualTo("110");
+    assertThat(names(informer)).containsExactlyInAnyOrder("pod-a", "pod-c", "pod-d");
+    assertThat(informer.getItems())
+        .allSatisfy(m -> assertThat(m.getKind()).isEqualTo(KubernetesKind.POD));
+    // Three listed pods, then one change per watch event except the bookmark
+    assertThat(changes.get()).isEqualTo(6);
+
+    assertThat(requests).contains(PODS + "?limit=2", PODS + "?limit=2&continue=p2");
+    String firstWatch =
+        requests.stream().filter(r -> r.startsWith(PODS + "?watch=true")).findFirst().orElse("");
+    assertThat(firstWatch).contains("resourceVersion=100", "allowWatchBookmarks=true");
+    // Later watches resume from the bookmark rather than listing again
+    assertThat(requests.stream().filter(r -> r.contains("resourceVersion=110"))).isNotEmpty();
+    assertThat(requests.stream().filter(r -> r.startsWith(PODS + "?limit"))).hasSize(2);
+  }
+
+  @Test
+  void relistsWhenTheResourceVersionIsGone() {
+    lists.add(list("100", "", pod("pod-a", "10"), pod("pod-b", "11")));
+    lists.add(list("200", "", pod("pod-a", "10"), pod("pod-c", "150")));
+    watches.add(events(event("ERROR", status(410))));
+
+    KubernetesInformer informer = informer();
+    informer.run(System.currentTimeMillis() + 1000);
+
+    assertThat(informer.getResourceVersion()).isEqualTo("200");
+    assertThat(names(informer)).containsExactlyInAnyOrder("pod-a", "pod-c");
+    // pod-a is unchanged; pod-b was deleted and pod-c added while the watch was down
+    assertThat(changes.get()).isEqualTo(4);
+  }
+
+  @Test
+  void cachesNothingForKindsTheAccountCannotList() {
+    lists.add(new Response(403, "{\"kind\":\"Status\",\"code\":403}"));
+
+    KubernetesInformer informer = informer();
+    long start = System.currentTimeMillis();
+    informer.run(start + 5000);
+
+    assertThat(System.currentTimeMillis() - start).isLessThan(5000);
+    assertThat(informer.isSynced()).isTrue();
+    assertThat(informer.getItems()).isEmpty();
+    assertThat(requests.stream().filter(r -> r.contains("watch"))).isEmpty();
+  }
+
+  @Test
+  void listsForbiddenKindsAgainAfterBackingOff() throws InterruptedException {
+    lists.add(new Response(403, "{\"kind\":\"Status\",\"code\":403}"));
+    lists.add(list("100", "", pod("pod-a", "10")));
+
+    KubernetesInformer informer =
+        new KubernetesInformer(client, KubernetesKind.POD, NAMESPACE, 200, changes::addAndGet);
+    informer.run(System.currentTimeMillis() + 1000);
+
+    assertThat(informer.isForbidden()).isTrue();
+    assertThat(informer.getItems()).isEmpty();
+
+    // nothing is requested until the backoff has passed
+    informer.run(System.currentTimeMillis() + 1000);
+    assertThat(requests.stream().filter(r -> r.startsWith(PODS + "?limit"))).hasSize(1);
+
+    while (informer.isForbidden()) {
+      Thread.sleep(10);
+    }
+    informer.run(System.currentTimeMillis() + 500);
+
+    assertThat(informer.isForbidden()).isFalse();
+    assertThat(names(informer)).containsExactly("pod-a");
+    assertThat(changes.get()).isEqualTo(1);
+  }
+
+  @Test
+  void waitsForARebuiltClientWhenUnauthorized() {
+    lists.add(new Response(401, "{\"kind\":\"Status\",\"code\":401}"));
+    lists.add(list("100", "", pod("pod-a", "10")));
+
+    KubernetesInformer informer = informer();
+    long start = System.currentTimeMillis();
+    informer.run(start + 5000);
+
+    assertThat(System.currentTimeMillis() - start).isLessThan(5000);
+    assertThat(informer.isUnauthorized()).isTrue();
+    assertThat(informer.isForbidden()).isFalse();
+
+    // the same client is not tried again
+    informer.run(System.currentTimeMillis() + 1000);
+    assertThat(requests.stream().filter(r -> r.startsWith(PODS + "?limit"))).hasSize(1);
+
+    informer.useClient(
+        new KubernetesApiClient(
+            new ApiClient().setBasePath("http://localhost:" + server.getAddress().getPort()),
+            2,
+            5000,
+            "default"));
+    informer.run(System.currentTimeMillis() + 500);
+
+    assertThat(informer.isUnauthorized()).isFalse();
+    assertThat(names(informer)).containsExactly("pod-a");
+  }
+
+  private KubernetesInformer informer() {
+    return new KubernetesInformer(client, KubernetesKind.POD, NAMESPACE, 10, changes::addAndGet);
+  }
+
+  private static List<String> names(KubernetesInformer informer) {
+    return informer.getItems().stream()
+        .map(KubernetesManifest::getName)
+        .collect(Collectors.toList());
+  }
+
+  private void handle(HttpExchange exchange) throws IOException {
+    String path = exchange.getRequestURI().getPath();
+    String query = exchange.getRequestURI().getRawQuery();
+    requests.add(query == null ? path : path + "?" + query);
+
+    Response response;
+    if (path.equals("/api/v1")) {
+      response =
+          new Response(
+              200,
+              "{\"kind\":\"APIResourceList\",\"groupVersion\":\"v1\",\"resources\":["
+                  + "{\"name\":\"pods\",\"kind\":\"Pod\",\"namespaced\":true},"
+                  + "{\"name\":\"pods/log\",\"kind\":\"Pod\",\"namespaced\":true}]}");
+    } else if (path.equals(PODS) && query.contains("watch=true")) {
+      // Once the scripted events have been served, keep the watch open but quiet
+      response = watches.isEmpty() ? idleWatch() : watches.remove(0);
+    } else if (path.equals(PODS) && !lists.isEmpty()) {
+      response = lists.remove(0);
+    } else {
+      response = new Response(404, "{\"kind\":\"Status\",\"code\":404}");
+    }
+
+    byte[] body = response.body.getBytes(StandardCharsets.UTF_8);
+    exchange.getResponseHeaders().add("Content-Type", "application/json");
+    exchange.sendResponseHeaders(response.code, body.length);
+    try (OutputStream out = exchange.getResponseBody()) {
+      out.write(body);
+    }
+  }
+
+  private static Response idleWatch() {
+    try {
+      Thread.sleep(50);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    return new Response(200, "");
+  }
+
+  private static String pod(String name, String resourceVersion) {
+    return "{\"kind\":\"Pod\",\"apiVersion\":\"v1\",\"metadata\":{\"name\":\""
+        + name
+        + "\",\"namespace\":\""
+        + NAMESPACE
+        + "\",\"resourceVersion\":\""
+        + resourceVersion
+        + "\"}}";
+  }
+
+  private static String bookmark(String resourceVersion) {
+    return "{\"kind\":\"Pod\",\"apiVersion\":\"v1\",\"metadata\":{\"resourceVersion\":\""
+        + resourceVersion
+        + "\"}}";
+  }
+
+  private static String status(int code) {
+    return "{\"kind\":\"Status\",\"apiVersion\":\"v1\",\"status\":\"Failure\",\"code\":"
+        + code
+        + ",\"message\":\"too old resource version\"}";
+  }
+
+  /** A list page; items are stripped of kind and apiVersion like the API server does. */
+  private static Response list(String resourceVersion, String continueToken, String... items) {
+    String stripped =
+        List.of(items).stream()
+            .map(i -> i.replace("\"kind\":\"Pod\",\"apiVersion\":\"v1\",", ""))
+            .collect(Collectors.joining(","));
+    return new Response(
+        200,
+        "{\"kind\":\"PodList\",\"apiVersion\":\"v1\",\"metadata\":{\"resourceVersion\":\""
+            + resourceVersion
+            + "\",\"continue\":\""
+            + continueToken
+            + "\"},\"items\":["
+            + stripped
+            + "]}");
+  }
+
+  private static String event(String type, String object) {
+    return "{\"type\":\"" + type + "\",\"object\":" + object + "}";
+  }
+
+  private static Response events(String... events) {
+    return new Response(200, String.join("\n", events) + "\n");
+  }
+
+  private static final class Response {
+    final int code;
+    final String body;
+
+    Response(int code, String body) {
+      this.code = code;
+      this.body = body;
+    }
+  }
+}
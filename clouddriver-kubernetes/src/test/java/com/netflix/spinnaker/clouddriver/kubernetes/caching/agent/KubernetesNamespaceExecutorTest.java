@@ -0,0 +1,154 @@
+/*
+ * Copyright 2026 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.netflix.spinnaker.clouddriver.kubernetes.caching.agent;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.google.common.collect.ImmutableList;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BrokenBarrierException;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import org.junit.jupiter.api.Test;
+
+final class KubernetesNamespaceExecutorTest {
+  private static final ImmutableList<String> NAMESPACES =
+      ImmutableList.of("ns-1", "ns-2", "ns-3", "ns-4", "ns-5", "ns-6", "ns-7", "ns-8");
+
+  private final AtomicInteger running = new AtomicInteger();
+  private final AtomicInteger maxRunning = new AtomicInteger();
+
+  @Test
+  void mergesEveryNamespaceOnTheCallingThread() {
+    KubernetesNamespaceExecutor executor =
+        new KubernetesNamespaceExecutor("account", 3, 1024 * 1024, 0);
+    Thread caller = Thread.currentThread();
+    List<String> namespaces = NAMESPACES.subList(0, 6);
+    List<String> merged = new ArrayList<>();
+
+    executor.forEach(
+        namespaces,
+        overlappingLoad(3),
+        n -> 0,
+        (n, result) -> {
+          assertThat(Thread.currentThread()).isSameAs(caller);
+          assertThat(result).isEqualTo("loaded " + n);
+          merged.add(n);
+        });
+
+    assertThat(merged).containsExactlyInAnyOrderElementsOf(namespaces);
+    assertThat(maxRunning.get()).isEqualTo(3);
+  }
+
+  @Test
+  void limitsTheBytesInFlight() {
+    KubernetesNamespaceExecutor executor =
+        new KubernetesNamespaceExecutor("account", 4, 1024 * 1024, 0);
+    List<String> merged = new ArrayList<>();
+
+    // Two namespaces of 600KiB do not fit in 1MiB together, so they load one at a time
+    executor.forEach(NAMESPACES, slowLoad(), n -> 600 * 1024, (n, result) -> merged.add(n));
+
+    assertThat(merged).hasSameSizeAs(NAMESPACES);
+    assertThat(maxRunning.get()).isEqualTo(1);
+  }
+
+  @Test
+  void chargesNamespacesEstimatedAtNothing() {
+    KubernetesNamespaceExecutor executor = new KubernetesNamespaceExecutor("account", 4, 1024, 0);
+    List<String> merged = new ArrayList<>();
+
+    // A budget of one permit admits a single namespace at a time, however small its estimate
+    executor.forEach(NAMESPACES, slowLoad(), n -> 0, (n, result) -> merged.add(n));
+
+    assertThat(merged).hasSameSizeAs(NAMESPACES);
+    assertThat(maxRunning.get()).isEqualTo(1);
+  }
+
+  @Test
+  void loadsNamespacesLargerThanTheWholeBudget() {
+    KubernetesNamespaceExecutor executor = new KubernetesNamespaceExecutor("account", 2, 1024, 0);
+    List<String> merged = new ArrayList<>();
+
+    executor.forEach(NAMESPACES, slowLoad(), n -> 1024 * 1024, (n, result) -> merged.add(n));
+
+    assertThat(merged).hasSameSizeAs(NAMESPACES);
+  }
+
+  @Test
+  void rethrowsTheFirstFailureAndReleasesTheBudget() {
+    KubernetesNamespaceExecutor executor = new KubernetesNamespaceExecutor("account", 2, 4096, 0);
+
+    assertThatThrownBy(
+            () ->
+                executor.forEach(
+                    NAMESPACES,
+                    n -> {
+                      if (n.equals("ns-3")) {
+                        throw new IllegalArgumentException("cannot list " + n);
+                      }
+                      return n;
+                    },
+                    n -> 1024,
+                    (n, result) -> {}))
+        .isInstanceOf(IllegalArgumentException.class)
+        .hasMessage("cannot list ns-3");
+
+    // Each namespace needs the whole budget, so this only completes if every permit came back
+    List<String> merged = new ArrayList<>();
+    executor.forEach(NAMESPACES, n -> n, n -> 4096, (n, result) -> merged.add(n));
+    assertThat(merged).hasSameSizeAs(NAMESPACES);
+  }
+
+  /**
+   * A load that only returns once {@code parties} loads are running at the same time, so the
+   * namespaces have to be loaded in groups of that size.
+   */
+  private Function<String, String> overlappingLoad(int parties) {
+    CyclicBarrier barrier = new CyclicBarrier(parties);
+    return n -> {
+      maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+      try {
+        barrier.await(10, TimeUnit.SECONDS);
+      } catch (InterruptedException | BrokenBarrierException | TimeoutException e) {
+        throw new IllegalStateException(parties + " loads did not run at the same time", e);
+      } finally {
+        running.decrementAndGet();
+      }
+      return "loaded " + n;
+    };
+  }
+
+  private Function<String, String> slowLoad() {
+    return n -> {
+      maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+      try {
+        Thread.sleep(20);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      } finally {
+        running.decrementAndGet();
+      }
+      return "loaded " + n;
+    };
+  }
+}
@@ -0,0 +1,317 @@
+/*
+ * Copyright 2026 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.netflix.spinnaker.clouddriver.kubernetes.caching.agent;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.netflix.spectator.api.NoopRegistry;
+import com.netflix.spinnaker.cats.agent.CacheResult;
+import com.netflix.spinnaker.cats.cache.CacheData;
+import com.netflix.spinnaker.cats.provider.ProviderCache;
+import com.netflix.spinnaker.cats.provider.ProviderRegistry;
+import com.netflix.spinnaker.clouddriver.kubernetes.caching.Keys;
+import com.netflix.spinnaker.clouddriver.kubernetes.caching.agent.KubernetesWatchClient.EventType;
+import com.netflix.spinnaker.clouddriver.kubernetes.caching.agent.KubernetesWatchClient.ListResult;
+import com.netflix.spinnaker.clouddriver.kubernetes.caching.agent.KubernetesWatchClient.WatchEvent;
+import com.netflix.spinnaker.clouddriver.kubernetes.caching.agent.KubernetesWatchClient.WatchStream;
+import com.netflix.spinnaker.clouddriver.kubernetes.config.KubernetesAccountProperties.ManagedAccount;
+import com.netflix.spinnaker.clouddriver.kubernetes.config.KubernetesConfigurationProperties;
+import com.netflix.spinnaker.clouddriver.kubernetes.config.KubernetesConfigurationProperties.Streaming;
+import com.netflix.spinnaker.clouddriver.kubernetes.description.GlobalResourcePropertyRegistry;
+import com.netflix.spinnaker.clouddriver.kubernetes.description.KubernetesSpinnakerKindMap;
+import com.netflix.spinnaker.clouddriver.kubernetes.description.manifest.KubernetesApiVersion;
+import com.netflix.spinnaker.clouddriver.kubernetes.description.manifest.KubernetesKind;
+import com.netflix.spinnaker.clouddriver.kubernetes.description.manifest.KubernetesKindProperties;
+import com.netflix.spinnaker.clouddriver.kubernetes.description.manifest.KubernetesManifest;
+import com.netflix.spinnaker.clouddriver.kubernetes.names.KubernetesManifestNamer;
+import com.netflix.spinnaker.clouddriver.kubernetes.op.handler.KubernetesDeploymentHandler;
+import com.netflix.spinnaker.clouddriver.kubernetes.op.handler.KubernetesUnregisteredCustomResourceHandler;
+import com.netflix.spinnaker.clouddriver.kubernetes.security.KubernetesCredentials;
+import com.netflix.spinnaker.clouddriver.kubernetes.security.KubernetesNamedAccountCredentials;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/** Runs a caching agent in streaming mode against a watch client serving scripted events. */
+final class KubernetesStreamingCacheTest {
+  private static final String ACCOUNT = "my-account";
+  private static final String NAMESPACE = "test-namespace";
+  private static final long AGENT_INTERVAL_MS = 60000;
+
+  private static final ImmutableMap<KubernetesKind, KubernetesKindProperties> kindProperties =
+      ImmutableMap.of(
+          KubernetesKind.DEPLOYMENT,
+          KubernetesKindProperties.create(KubernetesKind.DEPLOYMENT, true));
+
+  private static final ObjectMapper objectMapper = new ObjectMapper();
+  private static final KubernetesSpinnakerKindMap kubernetesSpinnakerKindMap =
+      new KubernetesSpinnakerKindMap(List.of(new KubernetesDeploymentHandler()));
+
+  private final FakeWatchClient watchClient = new FakeWatchClient();
+  private final List<Write> writes = Collections.synchronizedList(new ArrayList<>());
+  private final KubernetesConfigurationProperties configurationProperties =
+      new KubernetesConfigurationProperties();
+  private final ProviderRegistry providerRegistry = mock(ProviderRegistry.class);
+
+  /** Events the watch delivers once the first cache result has been written. */
+  private final List<WatchEvent> afterFirstWrite = new ArrayList<>();
+
+  @BeforeEach
+  void setUp() {
+    configurationProperties
+        .getCache()
+        .setCacheKinds(List.of(KubernetesKind.DEPLOYMENT.toString()));
+    Streaming streaming = configurationProperties.getCache().getStreaming();
+    streaming.setEnabled(true);
+    streaming.setWatchDurationMs(1000);
+
+    ProviderCache providerCache = mock(ProviderCache.class);
+    when(providerRegistry.getProviderCache(any())).thenReturn(providerCache);
+    doAnswer(
+            invocation -> {
+              writes.add(new Write(System.currentTimeMillis(), invocation.getArgument(2)));
+              if (writes.size() == 1) {
+                watchClient.events.addAll(afterFirstWrite);
+              }
+              return null;
+            })
+        .when(providerCache)
+        .putCacheResult(anyString(), any(), any());
+  }
+
+  @Test
+  void writesOnceSyncedAndThenAtTheEndOfTheExecutionByDefault() {
+    afterFirstWrite.add(event(EventType.MODIFIED, deployment("deployment-a", "2")));
+    afterFirstWrite.add(event(EventType.ADDED, deployment("deployment-b", "3")));
+
+    long start = System.currentTimeMillis();
+    execute(agent());
+
+    // The time threshold defaults to the agent interval, so the two changes wait for the end of
+    // the execution rather than being written one by one
+    assertThat(writes).hasSize(2);
+    assertThat(writes.get(1).time - start).isGreaterThanOrEqualTo(900);
+    assertThat(deploymentKeys(writes.get(0).result)).containsExactly(key("deployment-a"));
+    assertThat(deploymentKeys(writes.get(1).result))
+        .containsExactlyInAnyOrder(key("deployment-a"), key("deployment-b"));
+  }
+
+  @Test
+  void writesAsSoonAsTheChangeThresholdIsReached() {
+    Streaming streaming = configurationProperties.getCache().getStreaming();
+    streaming.setWatchDurationMs(3000);
+    streaming.setChangeThreshold(2);
+    afterFirstWrite.add(event(EventType.MODIFIED, deployment("deployment-a", "2")));
+    afterFirstWrite.add(event(EventType.ADDED, deployment("deployment-b", "3")));
+
+    long start = System.currentTimeMillis();
+    execute(agent());
+
+    // Nothing is pending once the threshold write is done, so there is no final write
+    assertThat(writes).hasSize(2);
+    assertThat(writes.get(1).time - start).isLessThan(2000);
+  }
+
+  @Test
+  void writesOnceTheTimeThresholdHasPassed() {
+    Streaming streaming = configurationProperties.getCache().getStreaming();
+    streaming.setWatchDurationMs(3000);
+    streaming.setTimeThresholdMs(200);
+    afterFirstWrite.add(event(EventType.DELETED, deployment("deployment-a", "2")));
+
+    long start = System.currentTimeMillis();
+    execute(agent());
+
+    assertThat(writes).hasSize(2);
+    assertThat(writes.get(1).time - writes.get(0).time).isGreaterThanOrEqualTo(200);
+    assertThat(writes.get(1).time - start).isLessThan(2000);
+    assertThat(deploymentKeys(writes.get(1).result)).isEmpty();
+  }
+
+  @Test
+  void writesNothingWhenNothingChanged() {
+    KubernetesCoreCachingAgent agent = agent();
+    execute(agent);
+    execute(agent);
+
+    assertThat(writes).hasSize(1);
+    // The second execution resumes the watch instead of listing again
+    assertThat(watchClient.lists.get()).isEqualTo(1);
+  }
+
+  @Test
+  void listsAgainOnceTheInformersWereIdleTooLong() throws InterruptedException {
+    configurationProperties.getCache().getStreaming().setInformerIdleTtlMs(100);
+    KubernetesCoreCachingAgent agent = agent();
+    execute(agent);
+    Thread.sleep(300);
+    execute(agent);
+
+    assertThat(watchClient.lists.get()).isEqualTo(2);
+    assertThat(writes).hasSize(2);
+  }
+
+  private void execute(KubernetesCoreCachingAgent agent) {
+    agent.getAgentExecution(providerRegistry).executeAgent(agent);
+  }
+
+  private KubernetesCoreCachingAgent agent() {
+    return new KubernetesCoreCachingAgent(
+        namedAccountCredentials(),
+        objectMapper,
+        new NoopRegistry(),
+        0,
+        1,
+        AGENT_INTERVAL_MS,
+        configurationProperties,
+        kubernetesSpinnakerKindMap,
+        null) {
+      @Override
+      protected KubernetesWatchClient buildWatchClient() {
+        return watchClient;
+      }
+    };
+  }
+
+  private static KubernetesNamedAccountCredentials namedAccountCredentials() {
+    KubernetesCredentials credentials = mock(KubernetesCredentials.class);
+    when(credentials.getGlobalKinds()).thenReturn(kindProperties.keySet().asList());
+    when(credentials.getKindProperties(any(KubernetesKind.class)))
+        .thenAnswer(invocation -> kindProperties.get(invocation.getArgument(0)));
+    when(credentials.getDeclaredNamespaces()).thenReturn(ImmutableList.of(NAMESPACE));
+    when(credentials.getResourcePropertyRegistry())
+        .thenReturn(
+            new GlobalResourcePropertyRegistry(
+                ImmutableList.of(), new KubernetesUnregisteredCustomResourceHandler()));
+    when(credentials.getNamer()).thenReturn(new KubernetesManifestNamer());
+    when(credentials.isValidKind(any(KubernetesKind.class))).thenReturn(true);
+    when(credentials.getKubernetesSpinnakerKindMap()).thenReturn(kubernetesSpinnakerKindMap);
+
+    ManagedAccount managedAccount = new ManagedAccount();
+    managedAccount.setName(ACCOUNT);
+    KubernetesCredentials.Factory credentialFactory = mock(KubernetesCredentials.Factory.class);
+    when(credentialFactory.build(managedAccount)).thenReturn(credentials);
+    return new KubernetesNamedAccountCredentials(managedAccount, credentialFactory);
+  }
+
+  private static KubernetesManifest deployment(String name, String resourceVersion) {
+    KubernetesManifest deployment = new KubernetesManifest();
+    deployment.put("metadata", new HashMap<>(Map.of("resourceVersion", resourceVersion)));
+    deployment.setNamespace(NAMESPACE);
+    deployment.setKind(KubernetesKind.DEPLOYMENT);
+    deployment.setApiVersion(KubernetesApiVersion.APPS_V1);
+    deployment.setName(name);
+    return deployment;
+  }
+
+  private static WatchEvent event(EventType type, KubernetesManifest manifest) {
+    return new WatchEvent(type, manifest);
+  }
+
+  private static String key(String name) {
+    return Keys.InfrastructureCacheKey.createKey(
+        KubernetesKind.DEPLOYMENT, ACCOUNT, NAMESPACE, name);
+  }
+
+  private static List<String> deploymentKeys(CacheResult result) {
+    return result
+        .getCacheResults()
+        .getOrDefault(KubernetesKind.DEPLOYMENT.toString(), List.of())
+        .stream()
+        .map(CacheData::getId)
+        .collect(Collectors.toList());
+  }
+
+  private static final class Write {
+    final long time;
+    final CacheResult result;
+
+    Write(long time, CacheResult result) {
+      this.time = time;
+      this.result = result;
+    }
+  }
+
+  /**
+   * Lists a single deployment, then streams whatever the test queued on {@link #events}. Watches
+   * end when closed or once their timeout has passed, like the API server's.
+   */
+  private static final class FakeWatchClient implements KubernetesWatchClient {
+    final AtomicInteger lists = new AtomicInteger();
+    final BlockingQueue<WatchEvent> events = new LinkedBlockingQueue<>();
+
+    @Nonnull
+    @Override
+    public ListResult list(@Nonnull KubernetesKind kind, @Nullable String namespace) {
+      lists.incrementAndGet();
+      return new ListResult(ImmutableList.of(deployment("deployment-a", "1")), "1");
+    }
+
+    @Nonnull
+    @Override
+    public WatchStream watch(
+        @Nonnull KubernetesKind kind,
+        @Nullable String namespace,
+        @Nonnull String resourceVersion,
+        long timeoutSeconds) {
+      long end = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(timeoutSeconds);
+      return new WatchStream() {
+        private volatile boolean closed = false;
+
+        @Nullable
+        @Override
+        public WatchEvent next() {
+          try {
+            while (!closed && System.currentTimeMillis() < end) {
+              WatchEvent event = events.poll(20, TimeUnit.MILLISECONDS);
+              if (event != null) {
+                return event;
+              }
+            }
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+          }
+          return null;
+        }
+
+        @Override
+        public void close() {
+          closed = true;
+        }
+      };
+    }
+  }
+}
@@ -23,6 +23,7 @@ import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
@@ -84,11 +85,14 @@ import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 import org.assertj.core.api.SoftAssertions;
 import org.assertj.core.api.junit.jupiter.SoftAssertionsExtension;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.invocation.InvocationOnMock;
 import org.mockito.internal.stubbing.defaultanswers.ReturnsSmartNulls;
 
 @ExtendWith(SoftAssertionsExtension.class)
@@ -581,19 +585,31 @@ final class KubernetesDataProviderIntegrationTest {
             anyList(),
             any(String.class),
             any(KubernetesSelectorList.class)))
-        .thenAnswer(
-            invocation ->
-                manifestsByNamespace.get(invocation.getArgument(2, String.class)).stream()
-                    .map(
-                        file ->
-                            ManifestFetcher.getManifest(
-                                    KubernetesDataProviderIntegrationTest.class, file)
-                                .get(0))
-                    .filter(m -> invocation.getArgument(1, List.class).contains(m.getKind()))
-                    .collect(toImmutableList()));
+        .thenAnswer(invocation -> listManifests(invocation).collect(toImmutableList()));
+    doAnswer(
+            invocation -> {
+              listManifests(invocation).forEach(invocation.getArgument(4, Consumer.class));
+              return null;
+            })
+        .when(jobExecutor)
+        .list(
+            any(KubernetesCredentials.class),
+            anyList(),
+            any(String.class),
+            any(KubernetesSelectorList.class),
+            any(Consumer.class));
     return jobExecutor;
   }
 
+  private static Stream<KubernetesManifest> listManifests(InvocationOnMock invocation) {
+    return manifestsByNamespace.get(invocation.getArgument(2, String.class)).stream()
+        .map(
+            file ->
+                ManifestFetcher.getManifest(KubernetesDataProviderIntegrationTest.class, file)
+                    .get(0))
+        .filter(m -> invocation.getArgument(1, List.class).contains(m.getKind()));
+  }
+
   private static KubernetesNamedAccountCredentials getNamedAccountCredentials() {
     ManagedAccount managedAccount = new ManagedAccount();
     managedAccount.setName(ACCOUNT_NAME);
@@ -20,7 +20,10 @@ package com.netflix.spinnaker.clouddriver.kubernetes.description.manifest;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertNull;
 
+import com.fasterxml.jackson.core.JsonPointer;
 import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import org.junit.jupiter.api.Test;
 
 final class KubernetesManifestTest {
@@ -44,4 +47,60 @@ final class KubernetesManifestTest {
 
     assertThat(manifest.getFullResourceName()).isEqualTo("job " + GENERATE_NAME);
   }
+
+  @Test
+  void metadataFollowsSettersAndReplacement() {
+    KubernetesManifest manifest = new KubernetesManifest();
+    manifest.put("metadata", new HashMap<>(Map.of("name", "first", "namespace", "ns")));
+    assertThat(manifest.getName()).isEqualTo("first");
+
+    manifest.setName("second");
+    assertThat(manifest.getName()).isEqualTo("second");
+
+    manifest.put("metadata", new HashMap<>(Map.of("name", "third")));
+    assertThat(manifest.getName()).isEqualTo("third");
+    assertThat(manifest.getNamespace()).isEmpty();
+  }
+
+  @Test
+  void renamingCloneLeavesOriginal() {
+    KubernetesManifest manifest = new KubernetesManifest();
+    manifest.put("metadata", new HashMap<>(Map.of("name", "original")));
+    assertThat(manifest.getName()).isEqualTo("original");
+
+    KubernetesManifest clone = manifest.clone();
+    clone.setName("clone");
+
+    assertThat(clone.getName()).isEqualTo("clone");
+    assertThat(manifest.getName()).isEqualTo("original");
+  }
+
+  @Test
+  void removePaths() {
+    KubernetesManifest manifest = new KubernetesManifest();
+    manifest.put(
+        "metadata",
+        new HashMap<>(
+            Map.of(
+                "name",
+                "my-name",
+                "managedFields",
+                List.of(Map.of("manager", "kubectl")),
+                "annotations",
+                new HashMap<>(Map.of("a/b", "1", "c", "2")))));
+    manifest.put("status", Map.of("replicas", 1));
+
+    manifest.removePaths(
+        List.of(
+            JsonPointer.compile("/metadata/managedFields"),
+            JsonPointer.compile("/metadata/annotations/a~1b"),
+            JsonPointer.compile("/spec/template"),
+            JsonPointer.compile("/metadata/name/nested")));
+
+    assertThat(manifest.getName()).isEqualTo("my-name");
+    assertThat(manifest.getAnnotations()).containsOnly(Map.entry("c", "2"));
+    assertThat(manifest).containsKeys("metadata", "status");
+    assertThat(manifest).doesNotContainKey("spec");
+    assertThat((Map<String, Object>) manifest.get("metadata")).doesNotContainKey("managedFields");
+  }
 }
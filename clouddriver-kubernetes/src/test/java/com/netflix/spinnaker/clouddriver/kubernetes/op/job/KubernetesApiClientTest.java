@@ -0,0 +1,278 @@
+/*
+ * Copyright 2026 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.netflix.spinnaker.clouddriver.kubernetes.op.job;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import com.google.common.collect.ImmutableList;
+import com.netflix.spinnaker.clouddriver.kubernetes.description.KubernetesPodMetric;
+import com.netflix.spinnaker.clouddriver.kubernetes.description.manifest.KubernetesKind;
+import com.netflix.spinnaker.clouddriver.kubernetes.description.manifest.KubernetesManifest;
+import com.netflix.spinnaker.clouddriver.kubernetes.security.KubernetesCredentials;
+import com.netflix.spinnaker.clouddriver.kubernetes.security.KubernetesSelector;
+import com.netflix.spinnaker.clouddriver.kubernetes.security.KubernetesSelectorList;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.kubernetes.client.openapi.ApiClient;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/** Runs reads against a fake API server that serves canned responses by path. */
+final class KubernetesApiClientTest {
+  private static final String NAMESPACE = "test-namespace";
+  private static final String PODS = "/api/v1/namespaces/" + NAMESPACE + "/pods";
+
+  private final List<String> requests = Collections.synchronizedList(new ArrayList<>());
+  private final Map<String, Response> responses = new ConcurrentHashMap<>();
+
+  private HttpServer server;
+  private KubernetesApiClient client;
+
+  @BeforeEach
+  void startServer() throws IOException {
+    server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+    server.createContext("/", this::handle);
+    server.start();
+    client =
+        new KubernetesApiClient(
+            new ApiClient().setBasePath("http://localhost:" + server.getAddress().getPort()),
+            500,
+            5000,
+            NAMESPACE);
+    responses.put(
+        "/api/v1",
+        new Response(
+            200,
+            "{\"kind\":\"APIResourceList\",\"groupVersion\":\"v1\",\"resources\":["
+                + "{\"name\":\"pods\",\"kind\":\"Pod\",\"namespaced\":true},"
+                + "{\"name\":\"pods/log\",\"kind\":\"Pod\",\"namespaced\":true},"
+                + "{\"name\":\"services\",\"kind\":\"Service\",\"namespaced\":true},"
+                + "{\"name\":\"events\",\"kind\":\"Event\",\"namespaced\":true}]}"));
+  }
+
+  @AfterEach
+  void stopServer() {
+    server.stop(0);
+  }
+
+  @Test
+  void getReturnsTheResourceOrNullWhenItDoesNotExist() {
+    responses.put(PODS + "/pod-a", new Response(200, pod("pod-a")));
+
+    KubernetesManifest manifest = client.get(KubernetesKind.POD, NAMESPACE, "pod-a");
+
+    assertThat(manifest).isNotNull();
+    assertThat(manifest.getName()).isEqualTo("pod-a");
+    assertThat(manifest.getKind()).isEqualTo(KubernetesKind.POD);
+    assertThat(client.get(KubernetesKind.POD, NAMESPACE, "pod-b")).isNull();
+  }
+
+  @Test
+  void listUsesTheDefaultNamespaceAndSkipsForbiddenKinds() {
+    responses.put(PODS, list(pod("pod-a"), pod("pod-b")));
+    responses.put(
+        "/api/v1/namespaces/" + NAMESPACE + "/services",
+        new Response(403, "{\"kind\":\"Status\",\"code\":403}"));
+
+    ImmutableList<KubernetesManifest> manifests =
+        client.list(
+            ImmutableList.of(KubernetesKind.POD, KubernetesKind.SERVICE),
+            "",
+            new KubernetesSelectorList(KubernetesSelector.equals("app", "test")));
+
+    assertThat(manifests).extracting(KubernetesManifest::getName).containsExactly("pod-a", "pod-b");
+    // Items of a list response are filled in with the kind and version of the list
+    assertThat(manifests).allSatisfy(m -> assertThat(m.getApiVersion()).isEqualTo("v1"));
+    assertThat(requests).contains(PODS + "?limit=500&labelSelector=app = test");
+  }
+
+  @Test
+  void eventsForSelectsTheInvolvedObject() {
+    responses.put(
+        "/api/v1/namespaces/" + NAMESPACE + "/events",
+        list("{\"metadata\":{\"name\":\"pod-a.1\",\"namespace\":\"" + NAMESPACE + "\"}}"));
+
+    ImmutableList<KubernetesManifest> events =
+        client.eventsFor(KubernetesKind.POD, NAMESPACE, "pod-a");
+
+    assertThat(events).extracting(KubernetesManifest::getName).containsExactly("pod-a.1");
+    assertThat(events).allSatisfy(m -> assertThat(m.getKind()).isEqualTo(KubernetesKind.EVENT));
+    assertThat(requests)
+        .contains(
+            "/api/v1/namespaces/"
+                + NAMESPACE
+                + "/events?limit=500"
+                + "&fieldSelector=involvedObject.name=pod-a,involvedObject.kind=Pod");
+  }
+
+  @Test
+  void topPodFormatsMetricsLikeKubectl() {
+    responses.put(
+        "/apis/metrics.k8s.io/v1beta1/namespaces/" + NAMESPACE + "/pods",
+        new Response(
+            200,
+            "{\"kind\":\"PodMetricsList\",\"items\":[{\"metadata\":{\"name\":\"pod-a\"},"
+                + "\"containers\":[{\"name\":\"app\","
+                + "\"usage\":{\"cpu\":\"1500001n\",\"memory\":\"10300Ki\"}}]}]}"));
+
+    ImmutableList<KubernetesPodMetric> metrics = client.topPod(NAMESPACE, "");
+
+    assertThat(metrics).hasSize(1);
+    KubernetesPodMetric metric = metrics.get(0);
+    assertThat(metric.getPodName()).isEqualTo("pod-a");
+    assertThat(metric.getNamespace()).isEqualTo(NAMESPACE);
+    assertThat(metric.getContainerMetrics()).hasSize(1);
+    assertThat(metric.getContainerMetrics().get(0).getContainerName()).isEqualTo("app");
+    assertThat(metric.getContainerMetrics().get(0).getMetrics())
+        .containsEntry("CPU(cores)", "2m")
+        .containsEntry("MEMORY(bytes)", "10Mi");
+  }
+
+  @Test
+  void topPodIsEmptyWhenTheClusterServesNoMetrics() {
+    assertThat(client.topPod(NAMESPACE, "pod-a")).isEmpty();
+  }
+
+  @Test
+  void readExecutorFallsBackWhenTheApiServerFails() {
+    responses.put(PODS + "/pod-a", new Response(500, "{\"kind\":\"Status\",\"code\":500}"));
+    KubernetesCredentials credentials = mock(KubernetesCredentials.class);
+    KubernetesReadExecutor kubectl = mock(KubernetesReadExecutor.class);
+    KubernetesManifest fromKubectl = new KubernetesManifest();
+    when(kubectl.get(credentials, KubernetesKind.POD, NAMESPACE, "pod-a")).thenReturn(fromKubectl);
+
+    KubernetesApiReadExecutor executor =
+        new KubernetesApiReadExecutor(() -> Optional.of(client), kubectl);
+
+    assertThat(executor.get(credentials, KubernetesKind.POD, NAMESPACE, "pod-a"))
+        .isSameAs(fromKubectl);
+    verify(kubectl).get(credentials, KubernetesKind.POD, NAMESPACE, "pod-a");
+  }
+
+  @Test
+  void readExecutorOnlyUsesTheApiServerWhenItAnswers() {
+    responses.put(PODS + "/pod-a", new Response(200, pod("pod-a")));
+    KubernetesReadExecutor kubectl = mock(KubernetesReadExecutor.class);
+
+    KubernetesApiReadExecutor executor =
+        new KubernetesApiReadExecutor(() -> Optional.of(client), kubectl);
+
+    assertThat(
+            executor.get(
+                mock(KubernetesCredentials.class), KubernetesKind.POD, NAMESPACE, "pod-a"))
+        .isNotNull();
+    verifyNoInteractions(kubectl);
+  }
+
+  @Test
+  void readExecutorRetriesWithARebuiltClientWhenUnauthorized() {
+    responses.put(PODS + "/pod-a", new Response(200, pod("pod-a")));
+    KubernetesReadExecutor kubectl = mock(KubernetesReadExecutor.class);
+    // the server rejects every request made with the stale client's credentials
+    KubernetesApiClient stale =
+        new KubernetesApiClient(
+            new ApiClient()
+                .setBasePath("http://localhost:" + server.getAddress().getPort() + "/stale"),
+            500,
+            5000,
+            NAMESPACE);
+    AtomicReference<KubernetesApiClient> current = new AtomicReference<>(stale);
+    List<KubernetesApiClient> invalidated = new ArrayList<>();
+
+    KubernetesApiReadExecutor executor =
+        new KubernetesApiReadExecutor(
+            () -> Optional.of(current.get()),
+            rejected -> {
+              invalidated.add(rejected);
+              current.set(client);
+            },
+            kubectl);
+
+    assertThat(
+            executor.get(
+                mock(KubernetesCredentials.class), KubernetesKind.POD, NAMESPACE, "pod-a"))
+        .isNotNull();
+    assertThat(invalidated).containsExactly(stale);
+    verifyNoInteractions(kubectl);
+  }
+
+  private void handle(HttpExchange exchange) throws IOException {
+    String path = exchange.getRequestURI().getPath();
+    String query = exchange.getRequestURI().getQuery();
+    requests.add(query == null ? path : path + "?" + query);
+
+    Response response =
+        path.startsWith("/stale/")
+            ? new Response(401, "{\"kind\":\"Status\",\"code\":401}")
+            : responses.getOrDefault(
+                path, new Response(404, "{\"kind\":\"Status\",\"code\":404}"));
+    byte[] body = response.body.getBytes(StandardCharsets.UTF_8);
+    exchange.getResponseHeaders().add("Content-Type", "application/json");
+    exchange.sendResponseHeaders(response.code, body.length);
+    try (OutputStream out = exchange.getResponseBody()) {
+      out.write(body);
+    }
+  }
+
+  private static String pod(String name) {
+    return "{\"kind\":\"Pod\",\"apiVersion\":\"v1\",\"metadata\":{\"name\":\""
+        + name
+        + "\",\"namespace\":\""
+        + NAMESPACE
+        + "\"}}";
+  }
+
+  /** A single-page list; items are stripped of kind and apiVersion like the API server does. */
+  private static Response list(String... items) {
+    List<String> stripped = new ArrayList<>();
+    for (String item : items) {
+      stripped.add(item.replace("\"kind\":\"Pod\",\"apiVersion\":\"v1\",", ""));
+    }
+    return new Response(
+        200,
+        "{\"kind\":\"List\",\"apiVersion\":\"v1\",\"metadata\":{\"resourceVersion\":\"1\"},"
+            + "\"items\":["
+            + String.join(",", stripped)
+            + "]}");
+  }
+
+  private static final class Response {
+    final int code;
+    final String body;
+
+    Response(int code, String body) {
+      this.code = code;
+      this.body = body;
+    }
+  }
+}